@@ -102,6 +102,21 @@ public class IzPackTask extends Task implements PackagerListener
      */
     private String izPackDir;
 
+    /**
+     * The file written by a running compiler daemon, to submit the build to. May be <tt>null</tt>
+     */
+    private String daemon;
+
+    /**
+     * Whether to skip the build if the installer inputs haven't changed since it was last built
+     */
+    private boolean skipIfUpToDate;
+
+    /**
+     * Whether the up-to-date check compares the content of the files under the base directory
+     */
+    private boolean hashContents;
+
     /**
      * Holds properties used to make substitutions in the install file
      */
@@ -226,9 +241,11 @@ public class IzPackTask extends Task implements PackagerListener
 			Class<?> runableClass = urlClassLoader.loadClass(IzpackAntRunnable.class.getName());
             Constructor<?> constructor = runableClass.getConstructor(String.class, String.class,
             		String.class, String.class, String.class, String.class, Boolean.TYPE, Integer.TYPE, Properties.class,
-            		Boolean.class, Map.class, String.class, Handler.class);
+            		Boolean.class, Map.class, String.class, Handler.class, String.class,
+                    Boolean.TYPE, Boolean.TYPE);
             Runnable instance = (Runnable)constructor.newInstance(compression, kind, input, configText, basedir, output, mkdirs,
-                    compressionLevel, properties, inheritAll, getProject().getProperties(), izPackDir, logHandler);
+                    compressionLevel, properties, inheritAll, getProject().getProperties(), izPackDir, logHandler,
+                    daemon, skipIfUpToDate, hashContents);
             Thread.currentThread().setContextClassLoader(urlClassLoader);
             instance.run();
         }
@@ -374,6 +391,43 @@ public class IzPackTask extends Task implements PackagerListener
         this.compressionLevel = compressionLevel;
     }
 
+    /**
+     * Sets the file written by a running compiler daemon, to submit the build to.
+     * <p/>
+     * If no daemon is running, or the daemon class path lacks any entry of the task definition class path, such as
+     * those providing custom panels, listeners or validators, the installer is built by the task.
+     *
+     * @param daemon the daemon file
+     */
+    public void setDaemon(String daemon)
+    {
+        this.daemon = daemon;
+    }
+
+    /**
+     * Sets whether to skip the build if the installer inputs haven't changed since it was last built.
+     * <p/>
+     * The inputs are the install file, the task attributes and properties, the files under the base directory, and
+     * the compiler. Files referenced from outside of the base directory are not checked.
+     *
+     * @param skipIfUpToDate if <tt>true</tt>, skip the build if the installer is up to date
+     */
+    public void setSkipIfUpToDate(boolean skipIfUpToDate)
+    {
+        this.skipIfUpToDate = skipIfUpToDate;
+    }
+
+    /**
+     * Sets whether the up-to-date check compares the content of the files under the base directory, rather than just
+     * their sizes and modification times.
+     *
+     * @param hashContents if <tt>true</tt>, compare file content
+     */
+    public void setHashContents(boolean hashContents)
+    {
+        this.hashContents = hashContents;
+    }
+
 
     /**
      * Ant will call this for each &lt;property&gt; tag to the IzPack task.
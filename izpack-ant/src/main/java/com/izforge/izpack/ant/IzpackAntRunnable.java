@@ -1,15 +1,25 @@
 package com.izforge.izpack.ant;
 
 import com.izforge.izpack.compiler.CompilerConfig;
+import com.izforge.izpack.compiler.bootstrap.CompilerDaemonClient;
+import com.izforge.izpack.compiler.bootstrap.CompilerJob;
+import com.izforge.izpack.compiler.bootstrap.CompilerJobRejectedException;
 import com.izforge.izpack.compiler.container.CompilerContainer;
 import com.izforge.izpack.compiler.data.CompilerData;
 import com.izforge.izpack.compiler.data.PropertyManager;
+import com.izforge.izpack.compiler.util.BuildFingerprint;
 import org.apache.tools.ant.BuildException;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
 
 /**
  * @author Anthonin Bonnefoy
@@ -22,11 +32,14 @@ public class IzpackAntRunnable implements Runnable
     private final Boolean inheritAll;
     private final Map<String, Object> projectProps;
     private final Handler logHandler;
+    private final String daemon;
+    private final boolean skipIfUpToDate;
+    private final boolean hashContents;
 
     public IzpackAntRunnable(String compression, String kind, String input, String configText, String basedir,
                              String output, boolean mkdirs, int compressionLevel, Properties properties,
                              Boolean inheritAll, Map<String, Object> antProjectProperties, String izPackDir,
-                             Handler logHandler)
+                             Handler logHandler, String daemon, boolean skipIfUpToDate, boolean hashContents)
     {
         this.compilerData = new CompilerData(compression, kind, input, configText, basedir, output, mkdirs, compressionLevel);
         this.input = input;
@@ -34,12 +47,71 @@ public class IzpackAntRunnable implements Runnable
         this.inheritAll = inheritAll;
         this.projectProps = antProjectProperties;
         this.logHandler = logHandler;
+        this.daemon = daemon;
+        this.skipIfUpToDate = skipIfUpToDate;
+        this.hashContents = hashContents;
         CompilerData.setIzpackHome(izPackDir);
     }
 
 
     @Override
     public void run()
+    {
+        Map<String, String> buildProperties = getProperties();
+        CompilerJob job = new CompilerJob(compilerData);
+        for (Map.Entry<String, String> entry : buildProperties.entrySet())
+        {
+            job.addProperty(entry.getKey(), entry.getValue());
+        }
+
+        File output = new File(job.getCompilerData().getOutput());
+        BuildFingerprint fingerprint = null;
+        if (skipIfUpToDate)
+        {
+            try
+            {
+                fingerprint = BuildFingerprint.create(job, hashContents);
+            }
+            catch (IOException e)
+            {
+                throw new BuildException(e);
+            }
+            List<String> changes = fingerprint.getChanges(BuildFingerprint.read(output));
+            if (changes.isEmpty())
+            {
+                logHandler.publish(new LogRecord(Level.INFO, "Installer is up to date: " + output));
+                return;
+            }
+            logHandler.publish(new LogRecord(Level.INFO, "Building installer, as its inputs have changed: "
+                    + BuildFingerprint.summarise(changes, 10)));
+            BuildFingerprint.delete(output);
+        }
+
+        if (daemon == null || !compileWithDaemon(job))
+        {
+            compile(buildProperties);
+        }
+
+        if (fingerprint != null)
+        {
+            try
+            {
+                fingerprint.write(output);
+            }
+            catch (IOException e)
+            {
+                throw new BuildException(e);
+            }
+        }
+    }
+
+    /**
+     * Builds the installer in process.
+     *
+     * @param buildProperties the properties to add to the build
+     * @throws BuildException if the build fails
+     */
+    private void compile(Map<String, String> buildProperties)
     {
         CompilerContainer compilerContainer = new CompilerContainer();
 		compilerContainer.addConfig("installFile", input == null ? "<config>" : input);
@@ -49,6 +121,64 @@ public class IzpackAntRunnable implements Runnable
         CompilerConfig compilerConfig = compilerContainer.getComponent(CompilerConfig.class);
         PropertyManager propertyManager = compilerContainer.getComponent(PropertyManager.class);
 
+        for (Map.Entry<String, String> entry : buildProperties.entrySet())
+        {
+            propertyManager.addProperty(entry.getKey(), entry.getValue());
+        }
+
+        try {
+            compilerConfig.executeCompiler();
+        } catch (Exception e) {
+            throw new BuildException(e);
+        }
+    }
+
+    /**
+     * Submits the build to a running compiler daemon.
+     *
+     * @param job the build
+     * @return <tt>true</tt> if the build was submitted, <tt>false</tt> if no daemon is running, or the daemon rejected
+     *         the build as its class path lacks entries of the task's
+     * @throws BuildException if the build fails
+     */
+    private boolean compileWithDaemon(CompilerJob job)
+    {
+        try (CompilerDaemonClient client = CompilerDaemonClient.connect(new File(daemon)))
+        {
+            if (client == null)
+            {
+                logHandler.publish(new LogRecord(Level.INFO, "No compiler daemon is running, building in process"));
+                return false;
+            }
+            if (!client.compile(job, logHandler))
+            {
+                throw new BuildException("Compiler daemon failed to build " + compilerData.getOutput());
+            }
+            return true;
+        }
+        catch (CompilerJobRejectedException e)
+        {
+            logHandler.publish(new LogRecord(Level.INFO, e.getMessage() + ", building in process"));
+            return false;
+        }
+        catch (BuildException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new BuildException(e);
+        }
+    }
+
+    /**
+     * Returns the properties to add to the build, in the order they are added.
+     *
+     * @return the properties
+     */
+    private Map<String, String> getProperties()
+    {
+        Map<String, String> result = new LinkedHashMap<String, String>();
         if (properties != null)
         {
             Enumeration<Object> e = properties.keys();
@@ -57,7 +187,7 @@ public class IzpackAntRunnable implements Runnable
                 String name = (String) e.nextElement();
                 String value = properties.getProperty(name);
                 value = fixPathString(value);
-                propertyManager.addProperty(name, value);
+                result.put(name, value);
             }
         }
 
@@ -67,15 +197,13 @@ public class IzpackAntRunnable implements Runnable
             {
                 final String name = entry.getKey();
                 final String value = fixPathString(String.valueOf(entry.getValue()));
-                propertyManager.addProperty(name, value);
+                if (!result.containsKey(name))
+                {
+                    result.put(name, value);
+                }
             }
         }
-
-        try {
-            compilerConfig.executeCompiler();
-        } catch (Exception e) {
-            throw new BuildException(e);
-        }
+        return result;
     }
 
     private static String fixPathString(String path)
@@ -0,0 +1,222 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.api.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.izforge.izpack.api.exception.ResourceException;
+
+/**
+ * Binary representation of a langpack, written by the compiler in place of the langpack XML.
+ * <p/>
+ * The format is a header followed by a table of key lengths, the key bytes in key order, a table of value
+ * lengths and the value bytes. All strings are UTF-8 encoded. A value length of {@code -1} denotes a {@code null}
+ * value. Reading a compiled langpack avoids the XML parser and the intermediate DOM entirely.
+ */
+public final class CompiledLangPack
+{
+
+    /**
+     * The magic number identifying a compiled langpack.
+     */
+    private static final byte[] MAGIC = {'I', 'Z', 'L', 'P'};
+
+    /**
+     * The format version.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Private constructor - only static methods.
+     */
+    private CompiledLangPack()
+    {
+    }
+
+    /**
+     * Determines if a stream contains a compiled langpack.
+     * <p/>
+     * The stream must support {@link InputStream#mark(int)}. It is reset to its original position on return.
+     *
+     * @param in the stream
+     * @return {@code true} if the stream starts with a compiled langpack header
+     * @throws IOException for any I/O error
+     */
+    public static boolean isCompiled(InputStream in) throws IOException
+    {
+        byte[] header = new byte[MAGIC.length];
+        in.mark(MAGIC.length);
+        try
+        {
+            int read = 0;
+            while (read < header.length)
+            {
+                int count = in.read(header, read, header.length - read);
+                if (count == -1)
+                {
+                    return false;
+                }
+                read += count;
+            }
+            return Arrays.equals(MAGIC, header);
+        }
+        finally
+        {
+            in.reset();
+        }
+    }
+
+    /**
+     * Writes messages as a compiled langpack.
+     * <p/>
+     * The stream is flushed but not closed.
+     *
+     * @param messages the messages, keyed on identifier
+     * @param out      the stream to write to
+     * @throws IOException for any I/O error
+     */
+    public static void write(Map<String, String> messages, OutputStream out) throws IOException
+    {
+        SortedMap<String, String> sorted = new TreeMap<>(messages);
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(MAGIC);
+        data.writeShort(VERSION);
+        data.writeInt(sorted.size());
+
+        byte[][] keys = new byte[sorted.size()][];
+        byte[][] values = new byte[sorted.size()][];
+        int index = 0;
+        for (Map.Entry<String, String> entry : sorted.entrySet())
+        {
+            keys[index] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            values[index] = entry.getValue() != null ? entry.getValue().getBytes(StandardCharsets.UTF_8) : null;
+            ++index;
+        }
+        for (byte[] key : keys)
+        {
+            data.writeInt(key.length);
+        }
+        for (byte[] key : keys)
+        {
+            data.write(key);
+        }
+        for (byte[] value : values)
+        {
+            data.writeInt(value != null ? value.length : -1);
+        }
+        for (byte[] value : values)
+        {
+            if (value != null)
+            {
+                data.write(value);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads a compiled langpack.
+     *
+     * @param in       the stream to read from, positioned at the start of the compiled langpack
+     * @param messages the map to add the messages to
+     * @throws ResourceException if the stream is not a compiled langpack or cannot be read
+     */
+    public static void read(InputStream in, Map<String, String> messages)
+    {
+        try
+        {
+            DataInputStream data = new DataInputStream(in);
+            byte[] header = new byte[MAGIC.length];
+            data.readFully(header);
+            if (!Arrays.equals(MAGIC, header))
+            {
+                throw new ResourceException("Invalid compiled IzPack langpack");
+            }
+            int version = data.readUnsignedShort();
+            if (version != VERSION)
+            {
+                throw new ResourceException("Unsupported compiled IzPack langpack version: " + version);
+            }
+            int size = data.readInt();
+            int[] keyLengths = readLengths(data, size);
+            String[] keys = new String[size];
+            for (int i = 0; i < size; ++i)
+            {
+                keys[i] = readString(data, keyLengths[i]);
+            }
+            int[] valueLengths = readLengths(data, size);
+            for (int i = 0; i < size; ++i)
+            {
+                messages.put(keys[i], readString(data, valueLengths[i]));
+            }
+        }
+        catch (IOException exception)
+        {
+            throw new ResourceException("Failed to read compiled langpack stream", exception);
+        }
+    }
+
+    /**
+     * Reads a table of string lengths.
+     *
+     * @param data the stream to read from
+     * @param size the number of lengths to read
+     * @return the lengths
+     * @throws IOException for any I/O error
+     */
+    private static int[] readLengths(DataInputStream data, int size) throws IOException
+    {
+        int[] lengths = new int[size];
+        for (int i = 0; i < size; ++i)
+        {
+            lengths[i] = data.readInt();
+        }
+        return lengths;
+    }
+
+    /**
+     * Reads an UTF-8 encoded string.
+     *
+     * @param data   the stream to read from
+     * @param length the length of the string in bytes, or {@code -1} if it is {@code null}
+     * @return the string. May be {@code null}
+     * @throws IOException for any I/O error
+     */
+    private static String readString(DataInputStream data, int length) throws IOException
+    {
+        if (length < 0)
+        {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -136,6 +136,12 @@ public class Info implements Serializable
 
     private String compressionFormat = PackCompression.DEFAULT.toName();
 
+    /**
+     * The uncompressed size of the solid blocks pack files are compressed in, or <tt>0</tt> to compress each file on
+     * its own.
+     */
+    private long packCompressionBlockSize = 0;
+
     private boolean requirePrivilegedExecution = false;
 
     private boolean requirePrivilegedExecutionUninstaller = false;
@@ -438,6 +444,29 @@ public class Info implements Serializable
         this.compressionFormat = compression.toName();
     }
 
+    /**
+     * Returns the uncompressed size of the solid blocks that pack files are compressed in.
+     * <p/>
+     * Files are added to a block until it reaches this size, so a single block holds many small files but a large
+     * file may exceed it. Multi-volume installers ignore this setting.
+     *
+     * @return the block size in bytes, or <tt>0</tt> if each file is compressed on its own
+     */
+    public long getPackCompressionBlockSize()
+    {
+        return packCompressionBlockSize;
+    }
+
+    /**
+     * Sets the uncompressed size of the solid blocks that pack files are compressed in.
+     *
+     * @param size the block size in bytes, or <tt>0</tt> to compress each file on its own
+     */
+    public void setPackCompressionBlockSize(long size)
+    {
+        this.packCompressionBlockSize = size;
+    }
+
     /**
      * This class represents an author.
      *
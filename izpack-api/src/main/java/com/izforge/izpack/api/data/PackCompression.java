@@ -28,7 +28,22 @@ import java.util.Map;
  */
 public enum PackCompression
 {
-    DEFAULT("default"), GZIP("gz"), BZIP2("bzip2"), XZ("xz"), LZMA("lzma"), DEFLATE("deflate");
+    DEFAULT("default"), GZIP("gz"), BZIP2("bzip2"), XZ("xz"), LZMA("lzma"), DEFLATE("deflate"),
+
+    /**
+     * LZ4 frame format. Trades compression ratio for very fast decompression.
+     */
+    LZ4_FRAMED("lz4-framed"),
+
+    /**
+     * LZ4 block format, without the frame checksums.
+     */
+    LZ4_BLOCK("lz4-block"),
+
+    /**
+     * Snappy frame format. Trades compression ratio for very fast decompression.
+     */
+    SNAPPY_FRAMED("snappy-framed");
 
     private static Map<String, PackCompression> lookupByName;
 
@@ -115,6 +115,11 @@ public class PackFile implements Serializable
     private String streamResourceName;
     private long streamOffset = -1;
 
+    /**
+     * The offset of the file in its uncompressed solid block, or <tt>-1</tt> if the file is compressed on its own.
+     */
+    private long blockOffset = -1;
+
     private PackFile linkedPackFile;
 
     /**
@@ -251,6 +256,7 @@ public class PackFile implements Serializable
         // update packed size and offset in order for unpacking to work correctly
         size = linkedPackFile.size;
         streamOffset = linkedPackFile.streamOffset;
+        blockOffset = linkedPackFile.blockOffset;
     }
 
     public String getStreamResourceName()
@@ -273,6 +279,38 @@ public class PackFile implements Serializable
         this.streamOffset = offset;
     }
 
+    /**
+     * Returns the offset of the file in its uncompressed solid block.
+     * <p/>
+     * Files in the same solid block share the stream offset and size of the block.
+     *
+     * @return the offset of the file in the block, or <tt>-1</tt> if the file is compressed on its own
+     */
+    public long getBlockOffset()
+    {
+        return blockOffset;
+    }
+
+    /**
+     * Sets the offset of the file in its uncompressed solid block.
+     *
+     * @param offset the offset of the file in the block, or <tt>-1</tt> if the file is compressed on its own
+     */
+    public void setBlockOffset(long offset)
+    {
+        this.blockOffset = offset;
+    }
+
+    /**
+     * Determines if the file is stored in a solid block.
+     *
+     * @return <tt>true</tt> if the file is stored in a solid block
+     */
+    public boolean isInBlock()
+    {
+        return blockOffset >= 0;
+    }
+
     /**
      * The target operating system constraints of this file
      */
@@ -432,7 +470,7 @@ public class PackFile implements Serializable
     @Override
     public String toString()
     {
-        return String.format("%s (length=%s, size=%s, streamOffset=%s, backReference=%s)",
-                packedFile, length, size, streamOffset, (linkedPackFile != null));
+        return String.format("%s (length=%s, size=%s, streamOffset=%s, blockOffset=%s, backReference=%s)",
+                packedFile, length, size, streamOffset, blockOffset, (linkedPackFile != null));
     }
 }
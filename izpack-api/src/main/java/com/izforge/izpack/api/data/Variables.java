@@ -138,6 +138,22 @@ public interface Variables
      */
     Properties getProperties();
 
+    /**
+     * Returns a read-only view of the current variable values, unaffected by subsequent changes.
+     * <p/>
+     * This provides a consistent view for work that spans many variable lookups, such as processing the files of a
+     * pack, and may be read concurrently with changes to these variables.
+     * <p/>
+     * This implementation returns these variables. Implementations whose values may change while they are being read
+     * should override it.
+     *
+     * @return a snapshot of the variables
+     */
+    default Variables snapshot()
+    {
+        return this;
+    }
+
     /**
      * Register a set of variable names for blocking from further changes.
      *
@@ -0,0 +1,110 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.api.event;
+
+import java.io.File;
+
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackFile;
+
+
+/**
+ * A file or directory installed by the unpacker, as passed to {@link InstallerBatchListener#afterFiles}.
+ */
+public class InstalledFile
+{
+    /**
+     * The installed file or directory.
+     */
+    private final File file;
+
+    /**
+     * The corresponding pack file.
+     */
+    private final PackFile packFile;
+
+    /**
+     * The pack that the pack file comes from.
+     */
+    private final Pack pack;
+
+    /**
+     * Determines if a directory was created.
+     */
+    private final boolean directory;
+
+    /**
+     * Constructs an {@code InstalledFile}.
+     *
+     * @param file      the installed file or directory
+     * @param packFile  the corresponding pack file. For directories, this is the pack file that required the
+     *                  directory to be created
+     * @param pack      the pack that {@code packFile} comes from
+     * @param directory if <tt>true</tt>, {@code file} is a directory that was created
+     */
+    public InstalledFile(File file, PackFile packFile, Pack pack, boolean directory)
+    {
+        this.file = file;
+        this.packFile = packFile;
+        this.pack = pack;
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the installed file or directory.
+     *
+     * @return the file
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * Returns the corresponding pack file.
+     *
+     * @return the pack file
+     */
+    public PackFile getPackFile()
+    {
+        return packFile;
+    }
+
+    /**
+     * Returns the pack that the pack file comes from.
+     *
+     * @return the pack
+     */
+    public Pack getPack()
+    {
+        return pack;
+    }
+
+    /**
+     * Determines if this is a directory that was created.
+     *
+     * @return <tt>true</tt> if this is a directory, <tt>false</tt> if it is a file
+     */
+    public boolean isDirectory()
+    {
+        return directory;
+    }
+}
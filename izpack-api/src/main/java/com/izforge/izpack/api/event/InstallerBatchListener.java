@@ -0,0 +1,47 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.api.event;
+
+import java.util.List;
+
+import com.izforge.izpack.api.exception.IzPackException;
+
+
+/**
+ * An {@link InstallerListener} that is notified of installed files and directories in batches, rather than one at
+ * a time.
+ * <p/>
+ * If {@link #isFileListener()} returns <tt>true</tt>, {@link #afterFiles(List)} is invoked in place of
+ * {@link #afterDir}, and {@link #afterFile}; {@link #beforeDir} and {@link #beforeFile} are not invoked.
+ * <br/>
+ * Files and directories are passed in the order they are installed. A batch never spans packs, and is always
+ * delivered before {@link #afterPack} is invoked for the pack.
+ */
+public interface InstallerBatchListener extends InstallerListener
+{
+    /**
+     * Invoked after a batch of files and directories are installed.
+     *
+     * @param files the installed files and directories. The list is only valid for the duration of the call
+     * @throws IzPackException for any error
+     */
+    void afterFiles(List<InstalledFile> files);
+}
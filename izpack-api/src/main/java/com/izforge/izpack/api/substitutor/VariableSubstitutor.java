@@ -111,4 +111,16 @@ public interface VariableSubstitutor extends Serializable
      * @throws IOException              if an I/O error occurs
      */
     int substitute(Reader reader, Writer writer, SubstitutionType type) throws Exception;
+
+    /**
+     * Returns a substitutor that resolves variables against their current values, unaffected by subsequent changes.
+     * <p/>
+     * This implementation returns this substitutor.
+     *
+     * @return a substitutor over a snapshot of the variables
+     */
+    default VariableSubstitutor snapshot()
+    {
+        return this;
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.api.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link CompiledLangPack} class.
+ */
+public class CompiledLangPackTest
+{
+
+    /**
+     * Verifies that a langpack read from XML is read back identically from its compiled form.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testRoundTrip() throws Exception
+    {
+        LocaleDatabase xml = new LocaleDatabase(getClass().getResourceAsStream("testing-langpack.xml"), null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompiledLangPack.write(xml, out);
+
+        InputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertTrue(CompiledLangPack.isCompiled(in));
+
+        LocaleDatabase compiled = new LocaleDatabase(in, null);
+        assertEquals(xml, compiled);
+        assertEquals("String Text", compiled.get("string"));
+        assertEquals("Argument1: one, Argument2: two", compiled.get("string.with.arguments", "one", "two"));
+        assertEquals("none", compiled.get("none"));
+    }
+
+    /**
+     * Verifies that non-ASCII and {@code null} values survive the round trip.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testSpecialValues() throws Exception
+    {
+        Map<String, String> messages = new TreeMap<>();
+        messages.put("umlaut", "Änderung übernehmen");
+        messages.put("empty", "");
+        messages.put("null", null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompiledLangPack.write(messages, out);
+
+        Map<String, String> read = new TreeMap<>();
+        CompiledLangPack.read(new ByteArrayInputStream(out.toByteArray()), read);
+        assertEquals(messages, read);
+        assertNull(read.get("null"));
+        assertTrue(read.containsKey("null"));
+    }
+
+    /**
+     * Verifies that XML langpacks are not detected as compiled, and that the stream is left untouched.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testXMLNotCompiled() throws Exception
+    {
+        InputStream in = new BufferedInputStream(getClass().getResourceAsStream("testing-langpack.xml"));
+        assertFalse(CompiledLangPack.isCompiled(in));
+        assertEquals('<', in.read());
+    }
+}
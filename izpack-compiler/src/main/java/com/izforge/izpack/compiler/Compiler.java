@@ -27,6 +27,8 @@ package com.izforge.izpack.compiler;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,17 +46,14 @@ import com.izforge.izpack.api.event.UninstallerListener;
 import com.izforge.izpack.api.exception.CompilerException;
 import com.izforge.izpack.api.exception.IzPackClassNotFoundException;
 import com.izforge.izpack.compiler.helper.CompilerHelper;
+import com.izforge.izpack.compiler.helper.JarVersionChecker;
+import com.izforge.izpack.compiler.helper.JarVersionChecker.JarVersions;
 import com.izforge.izpack.compiler.util.CompilerClassLoader;
 import com.izforge.izpack.compiler.packager.IPackager;
 import com.izforge.izpack.data.CustomData;
 import com.izforge.izpack.api.data.PackInfo;
-import java.io.DataInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.InputStream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 /**
  * The IzPack compiler class. This is now a java bean style class that can be
@@ -90,6 +89,17 @@ public class Compiler extends Thread
      */
     private int expectedJavaVersion;
 
+    /**
+     * Describes the classes that don't comply to installer info.
+     */
+    private final List<String> javaVersionErrors = new ArrayList<String>();
+
+    /**
+     * Determines the class versions of JARs.
+     */
+    private final JarVersionChecker jarVersionChecker =
+            new JarVersionChecker(JarVersionChecker.getDefaultCacheDir());
+
     /**
      * Compiler helper.
      */
@@ -395,65 +405,45 @@ public class Compiler extends Thread
      */
     public void checkJarVersions(File file, String minimalJavaVersion) throws FileNotFoundException, IOException
     {
-        FileInputStream fis = new FileInputStream(file);
-        extractJarInternals(file.toString(), fis, minimalJavaVersion);
-    }
-    
-    /**
-     * Extracts contents of JAR
-     *
-     * @param fileStr JAR file to check as string
-     * @param is JAR file as input stream
-     * @param minimalJavaVersion minimal Java version from install.xml header or default from constants
-     * @throws IOException when file cannot be read
-     * @throws FileNotFoundException when file cannot be found
-     */
-    private void extractJarInternals(String fileStr, InputStream is, String minimalJavaVersion) throws IOException
-    {
-        ZipInputStream zis = new ZipInputStream(is);
-        ZipEntry ze;
-        setJavaVersionCorrect(true);
-        while ((ze = zis.getNextEntry()) != null) {
-            if (ze.getName().endsWith(".class"))
-            {
-                checkClassTargetVersion(fileStr + ":" + ze.getName(), zis, minimalJavaVersion);
-            }
-            else if (ze.getName().endsWith(".jar"))
-            {
-                extractJarInternals(fileStr + ":" + ze.getName(), zis, minimalJavaVersion);
-            }
-        }
+        checkJarVersions(Collections.singletonList(file), minimalJavaVersion);
     }
-    
+
     /**
-     * Checks target version in class file
+     * Checks the class versions of several JARs, including the classes of nested JARs.
+     * <p/>
+     * The JARs are checked concurrently, and the results are cached by JAR content. Afterwards,
+     * {@link #getJavaVersionCorrect()} indicates if all classes comply, {@link #getJavaVersionExpected()} returns the
+     * highest Java version found, and {@link #getJavaVersionErrors()} describes the classes that don't comply.
      *
-     * @param fileStr JAR file as string
-     * @param zis class file as input stream
+     * @param files JAR files to check
      * @param minimalJavaVersion minimal Java version from install.xml header or default from constants
-     * @throws IOException when file cannot be read
-     * @throws FileNotFoundException when file cannot be found
+     * @throws IOException when a file cannot be read
      */
-    private void checkClassTargetVersion(String fileStr, ZipInputStream zis, String minimalJavaVersion) throws IOException
+    public void checkJarVersions(List<File> files, String minimalJavaVersion) throws IOException
     {
-        DataInputStream dis = new DataInputStream(zis);
-        if (dis.readInt() != 0xCAFEBABE)
-        {
-            throw new CompilerException("Class file cannot be read: " + fileStr);
-        }
-        dis.readUnsignedShort();
-        int major = dis.readUnsignedShort();
-        setJavaVersionExpected(major);
         String[] splitMinimalVersion = minimalJavaVersion.split("\\.");
         int minimalVersion = Integer.parseInt(splitMinimalVersion[0]);
-        if (minimalVersion < 10 && splitMinimalVersion.length > 1) 
+        if (minimalVersion < 10 && splitMinimalVersion.length > 1)
+        {
+            minimalVersion = Integer.parseInt(splitMinimalVersion[1]);
+        }
+
+        setJavaVersionCorrect(true);
+        javaVersionErrors.clear();
+        int major = 0;
+        for (JarVersions versions : jarVersionChecker.check(files))
         {
-        	minimalVersion = Integer.parseInt(splitMinimalVersion[1]);
+            List<String> errors = versions.describeExceeding(44 + minimalVersion);
+            if (!errors.isEmpty())
+            {
+                setJavaVersionCorrect(false);
+                javaVersionErrors.addAll(errors);
+            }
+            major = Math.max(major, versions.getMaxMajorVersion());
         }
-        
-        if (major > (44 + minimalVersion) )
+        if (major > 0)
         {
-            setJavaVersionCorrect(false);
+            setJavaVersionExpected(major);
         }
     }
 
@@ -500,4 +490,15 @@ public class Compiler extends Thread
     {
         return expectedJavaVersion;
     }
+
+    /**
+     * Describes the classes that don't meet the minimal version requirements, following
+     * {@link #checkJarVersions(List, String)}.
+     *
+     * @return a description per JAR and class version
+     */
+    public List<String> getJavaVersionErrors()
+    {
+        return javaVersionErrors;
+    }
 }
@@ -596,34 +596,50 @@ public class CompilerConfig extends Thread
         notifyCompilerListener("addJars", CompilerListener.BEGIN, data);
         final String minimalJavaVersion = compilerData.getExternalInfo().getJavaVersion();
         final boolean javaVersionStrict = compilerData.getExternalInfo().getJavaVersionStrict();
+        List<URL> urls = new ArrayList<URL>();
+        List<File> files = new ArrayList<File>();
         for (IXMLElement ixmlElement : data.getChildrenNamed("jar"))
         {
             String src = getSrcSubstitutedAttributeValue(ixmlElement);
+            URL url = resourceFinder.findProjectResource(src, "Jar file", ixmlElement);
+            urls.add(url);
+            files.add(FileUtil.convertUrlToFile(url));
+        }
+
+        // check all jars at once, so that the offending classes are reported together
+        if (!files.isEmpty())
+        {
+            compiler.checkJarVersions(files, minimalJavaVersion);
+        }
+        if (!compiler.getJavaVersionCorrect())
+        {
+            StringBuilder details = new StringBuilder();
+            details.append("\nRequired minimal target Java version: ").append(minimalJavaVersion);
+            for (String error : compiler.getJavaVersionErrors())
+            {
+                details.append("\n").append(error);
+            }
+            if (javaVersionStrict)
+            {
+                throw new CompilerException("Jars do not meet the minimal version requirements." + details);
+            }
+            else
+            {
+                logger.warning("Jars do not meet the minimal version requirements which may cause issues during "
+                                       + "runtime." + details);
+            }
+        }
 
+        List<IXMLElement> jars = data.getChildrenNamed("jar");
+        for (int i = 0; i < jars.size(); i++)
+        {
             // all external jars contents regardless of stage type are merged into the installer
             // but we keep a copy of jar entries that user want to merge into uninstaller
             // as "customData", where the installer will get them into uninstaller.jar at the end of installation
             // note if stage is empty or null, it is the same at 'install'
-            String stage = ixmlElement.getAttribute("stage");
-            URL url = resourceFinder.findProjectResource(src, "Jar file", ixmlElement);
+            String stage = jars.get(i).getAttribute("stage");
             boolean uninstaller = "both".equalsIgnoreCase(stage) || "uninstall".equalsIgnoreCase(stage);
-            compiler.checkJarVersions(FileUtil.convertUrlToFile(url), minimalJavaVersion);
-            if (!compiler.getJavaVersionCorrect())
-            {
-                if (javaVersionStrict)
-                {
-                    throw new CompilerException(url.getFile() + " does not meet the minimal version requirements."
-                            + "\nRequired minimal target Java version: " + minimalJavaVersion
-                            + "\nFound class target Java version: 1." + compiler.getJavaVersionExpected());
-                }
-                else
-                {
-                    logger.warning(url.getFile() + " does not meet the minimal version requirements which may cause issues during runtime."
-                            + "\nRequired minimal target Java version: " + minimalJavaVersion
-                            + "\nFound class target Java version: 1." + compiler.getJavaVersionExpected());
-                }
-            }
-            compiler.addJar(url, uninstaller);
+            compiler.addJar(urls.get(i), uninstaller);
         }
         notifyCompilerListener("addJars", CompilerListener.END, data);
     }
@@ -2608,6 +2624,31 @@ public class CompilerConfig extends Thread
             logger.info("Pack compression method: " + compression.toName());
         }
 
+        IXMLElement blockSizeElement = root.getFirstChildNamed("pack-compression-block-size");
+        if (blockSizeElement != null)
+        {
+            String blockSize = xmlCompilerHelper.requireContent(blockSizeElement);
+            try
+            {
+                info.setPackCompressionBlockSize(Long.parseLong(blockSize));
+            }
+            catch (NumberFormatException exception)
+            {
+                assertionHelper.parseError(blockSizeElement, "<pack-compression-block-size> is not a long: "
+                        + blockSize);
+            }
+            if (info.getPackCompressionBlockSize() < 0)
+            {
+                assertionHelper.parseError(blockSizeElement, "<pack-compression-block-size> must not be negative");
+            }
+            if (info.getPackCompressionBlockSize() > 0 && info.getCompressionFormat() == PackCompression.DEFAULT)
+            {
+                assertionHelper.parseWarn(blockSizeElement, "<pack-compression-block-size> is ignored as packs "
+                        + "are not compressed");
+            }
+            logger.info("Pack compression block size: " + info.getPackCompressionBlockSize());
+        }
+
         // Add the path for the summary log file if specified
         IXMLElement slfPath = root.getFirstChildNamed("summarylogfilepath");
         if (slfPath != null)
@@ -0,0 +1,635 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.bootstrap;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+import com.izforge.izpack.compiler.CompilerConfig;
+import com.izforge.izpack.compiler.container.CompilerContainer;
+import com.izforge.izpack.compiler.data.CompilerData;
+import com.izforge.izpack.compiler.data.PropertyManager;
+import com.izforge.izpack.compiler.util.BuildCache;
+import com.izforge.izpack.compiler.util.BuildFingerprint;
+import com.izforge.izpack.merge.resolve.ResolveUtils;
+
+
+/**
+ * A long running compiler that builds installers submitted by a {@link CompilerDaemonClient}.
+ * <p/>
+ * Starting a compiler is expensive: the JVM must load and compile the compiler classes, and the installer
+ * resources are processed from scratch. The daemon keeps these warm between builds, along with a {@link BuildCache}
+ * of compiled langpacks and uninstaller skeletons, which is invalidated when the files they are derived from change.
+ * <p/>
+ * The daemon listens on a loopback port. The port, and a token that clients must present, are written to a file
+ * readable only by the current user. Builds are performed one at a time, in the order they are received. The
+ * daemon stops when requested, or when it has been idle for a period.
+ * <p/>
+ * The daemon builds with the class path it was started with, so it rejects a {@link CompilerJob} whose class path
+ * has entries that the daemon's lacks, such as the dependencies of the Maven plugin, or the Ant task definition
+ * class path, that provide custom panels, listeners and validators. The client then builds the installer itself.
+ * To build these installers with the daemon, start it with a class path that includes those entries.
+ */
+public class CompilerDaemon implements Closeable
+{
+    /**
+     * The default idle period, in minutes, after which the daemon stops.
+     */
+    public static final int DEFAULT_IDLE_MINUTES = 30;
+
+    /**
+     * Request to build an installer.
+     */
+    static final int REQUEST_BUILD = 1;
+
+    /**
+     * Request to stop the daemon.
+     */
+    static final int REQUEST_STOP = 2;
+
+    /**
+     * Response containing a log record.
+     */
+    static final int RESPONSE_LOG = 1;
+
+    /**
+     * Response containing the build result.
+     */
+    static final int RESPONSE_RESULT = 2;
+
+    /**
+     * Response indicating that the daemon can't perform the build, with the reason.
+     */
+    static final int RESPONSE_REJECTED = 3;
+
+    /**
+     * The maximum length of a string or job, in bytes.
+     */
+    static final int MAX_LENGTH = 64 * 1024 * 1024;
+
+    /**
+     * The time, in milliseconds, that a client may take to send each part of a request.
+     */
+    static final int READ_TIMEOUT = 30000;
+
+    /**
+     * The file containing the port and token.
+     */
+    private final File file;
+
+    /**
+     * The server socket.
+     */
+    private final ServerSocket server;
+
+    /**
+     * The token clients must present.
+     */
+    private final String token;
+
+    /**
+     * The UTF-8 encoded token.
+     */
+    private final byte[] tokenBytes;
+
+    /**
+     * The cache shared between builds.
+     */
+    private final BuildCache cache = new BuildCache();
+
+    /**
+     * The identifiers of the class path entries the daemon builds with.
+     */
+    private final Set<String> classPath;
+
+    /**
+     * Constructs a {@code CompilerDaemon}, and writes the file that clients connect with.
+     *
+     * @param file        the file to write the port and token to
+     * @param idleMinutes the idle period, in minutes, after which the daemon stops. If {@code 0}, the daemon runs
+     *                    until requested to stop
+     * @throws IOException if the daemon cannot listen, or the file cannot be written
+     */
+    public CompilerDaemon(File file, int idleMinutes) throws IOException
+    {
+        this.file = file;
+        byte[] random = new byte[16];
+        new SecureRandom().nextBytes(random);
+        StringBuilder builder = new StringBuilder();
+        for (byte b : random)
+        {
+            builder.append(String.format("%02x", b));
+        }
+        token = builder.toString();
+        tokenBytes = token.getBytes(StandardCharsets.UTF_8);
+        classPath = CompilerJob.getClassPath(ResolveUtils.getClassPathUrl());
+
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        server.setSoTimeout((int) TimeUnit.MINUTES.toMillis(idleMinutes));
+        try
+        {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs())
+            {
+                throw new IOException("Failed to create directory: " + parent);
+            }
+            Files.deleteIfExists(file.toPath());
+            Files.createFile(file.toPath());
+            // only the current user may submit builds
+            file.setReadable(false, false);
+            file.setReadable(true, true);
+            file.setWritable(false, false);
+            file.setWritable(true, true);
+            Files.write(file.toPath(), (server.getLocalPort() + " " + token).getBytes(StandardCharsets.UTF_8));
+        }
+        catch (IOException exception)
+        {
+            server.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Returns the default file to write the port and token to.
+     *
+     * @return <em>~/.izpack/compiler-daemon</em>
+     */
+    public static File getDefaultFile()
+    {
+        return new File(System.getProperty("user.home"), ".izpack" + File.separator + "compiler-daemon");
+    }
+
+    /**
+     * Returns the port the daemon listens on.
+     *
+     * @return the port
+     */
+    public int getPort()
+    {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Performs builds until requested to stop, or the idle period elapses.
+     *
+     * @throws IOException if the daemon can no longer accept connections
+     */
+    public void run() throws IOException
+    {
+        try
+        {
+            boolean stop = false;
+            while (!stop)
+            {
+                Socket accepted;
+                try
+                {
+                    accepted = server.accept();
+                }
+                catch (SocketTimeoutException exception)
+                {
+                    log("Idle, stopping");
+                    break;
+                }
+                // a client that times out doesn't count as idleness
+                try (Socket socket = accepted)
+                {
+                    stop = handle(socket);
+                }
+                catch (IOException exception)
+                {
+                    if (server.isClosed())
+                    {
+                        throw exception;
+                    }
+                    log("Failed to handle request: " + exception.getMessage());
+                }
+                catch (RuntimeException exception)
+                {
+                    // a malformed request mustn't stop the daemon
+                    log("Failed to handle request: " + exception);
+                }
+            }
+        }
+        finally
+        {
+            close();
+        }
+    }
+
+    /**
+     * Stops the daemon, and deletes the file clients connect with.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (!server.isClosed())
+        {
+            server.close();
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    /**
+     * Handles a request.
+     * <p/>
+     * Requests are handled one at a time, so reads time out, and nothing more than the length of the token is read
+     * before the client is authenticated, to prevent a client from stalling or exhausting the daemon.
+     *
+     * @param socket the client connection
+     * @return {@code true} if the daemon should stop
+     * @throws IOException for any I/O error
+     */
+    private boolean handle(Socket socket) throws IOException
+    {
+        socket.setSoTimeout(READ_TIMEOUT);
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        if (!isValidToken(in))
+        {
+            log("Rejected request with invalid token from " + socket.getRemoteSocketAddress());
+            return false;
+        }
+        int request = in.readInt();
+        if (request == REQUEST_STOP)
+        {
+            log("Stopping on request");
+            writeResult(out, true, null);
+            return true;
+        }
+        Level level = Level.parse(readString(in));
+        CompilerJob job = CompilerJob.read(new ByteArrayInputStream(readBytes(in)));
+        List<String> missing = new ArrayList<>(job.getClassPath());
+        missing.removeAll(classPath);
+        if (!missing.isEmpty())
+        {
+            String reason = "The compiler daemon class path lacks " + BuildFingerprint.summarise(missing, 5);
+            log("Rejected build of " + job.getCompilerData().getOutput() + ": " + reason);
+            out.writeInt(RESPONSE_REJECTED);
+            writeString(out, reason);
+            out.flush();
+            return false;
+        }
+        build(job, level, out);
+        return false;
+    }
+
+    /**
+     * Reads the token presented by a client, and determines if it is valid.
+     *
+     * @param in the stream to read from
+     * @return {@code true} if the token is valid
+     * @throws IOException for any I/O error
+     */
+    private boolean isValidToken(DataInputStream in) throws IOException
+    {
+        if (in.readInt() != tokenBytes.length)
+        {
+            return false;
+        }
+        byte[] bytes = new byte[tokenBytes.length];
+        in.readFully(bytes);
+        return MessageDigest.isEqual(tokenBytes, bytes);
+    }
+
+    /**
+     * Builds an installer, forwarding log records to the client.
+     *
+     * @param job   the job
+     * @param level the log level requested by the client
+     * @param out   the stream to the client
+     * @throws IOException for any I/O error writing to the client
+     */
+    private void build(CompilerJob job, Level level, DataOutputStream out) throws IOException
+    {
+        CompilerData compilerData = job.getCompilerData();
+        log("Building " + compilerData.getOutput());
+        long start = System.nanoTime();
+        ForwardingHandler handler = new ForwardingHandler(out);
+        handler.setLevel(level);
+        boolean success = false;
+        String error = null;
+        try
+        {
+            CompilerData.setIzpackHome(job.getIzpackHome());
+            CompilerContainer container = new CompilerContainer();
+            container.setBuildCache(cache);
+            String installFile = compilerData.getInstallFile();
+            container.addConfig("installFile", installFile == null ? "<config>" : installFile);
+            container.addComponent(CompilerData.class, compilerData);
+            container.addComponent(Handler.class, handler);
+
+            CompilerConfig compiler = container.getComponent(CompilerConfig.class);
+            PropertyManager propertyManager = container.getComponent(PropertyManager.class);
+            for (Map.Entry<Object, Object> entry : job.getProperties().entrySet())
+            {
+                propertyManager.addProperty((String) entry.getKey(), (String) entry.getValue());
+            }
+            compiler.executeCompiler();
+            success = compiler.wasSuccessful();
+        }
+        catch (Exception exception)
+        {
+            error = getDescription(exception);
+        }
+        finally
+        {
+            Logger.getLogger("com.izforge.izpack").removeHandler(handler);
+        }
+        handler.flushError();
+        writeResult(out, success, error);
+        log((success ? "Built " : "Failed to build ") + compilerData.getOutput() + " in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms (cache hits: " + cache.getHits()
+                    + ", misses: " + cache.getMisses() + ")");
+    }
+
+    /**
+     * Logs a message to the console.
+     * <p/>
+     * The compiler loggers are configured for each build, so can't be used by the daemon.
+     *
+     * @param message the message
+     */
+    private static void log(String message)
+    {
+        System.out.println(new Date() + " " + message);
+    }
+
+    /**
+     * Writes the build result.
+     *
+     * @param out     the stream to the client
+     * @param success determines if the build succeeded
+     * @param error   the error message. May be {@code null}
+     * @throws IOException for any I/O error
+     */
+    private static void writeResult(DataOutputStream out, boolean success, String error) throws IOException
+    {
+        out.writeInt(RESPONSE_RESULT);
+        out.writeBoolean(success);
+        writeString(out, error != null ? error : "");
+        out.flush();
+    }
+
+    /**
+     * Writes a string, without the 64KB limit of {@link DataOutputStream#writeUTF(String)}.
+     *
+     * @param out   the stream to write to
+     * @param value the string
+     * @throws IOException for any I/O error
+     */
+    static void writeString(DataOutputStream out, String value) throws IOException
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}.
+     *
+     * @param in the stream to read from
+     * @return the string
+     * @throws IOException for any I/O error
+     */
+    static String readString(DataInputStream in) throws IOException
+    {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a length prefixed byte array.
+     * <p/>
+     * The length is checked before the array is allocated, so that a malformed request cannot exhaust the daemon.
+     *
+     * @param in the stream to read from
+     * @return the bytes
+     * @throws IOException if the length is negative or exceeds {@link #MAX_LENGTH}, or for any I/O error
+     */
+    static byte[] readBytes(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_LENGTH)
+        {
+            throw new IOException("Invalid length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns the description of an exception, including its stack trace.
+     *
+     * @param exception the exception
+     * @return the description
+     */
+    private static String getDescription(Throwable exception)
+    {
+        Writer writer = new StringWriter();
+        exception.printStackTrace(new PrintWriter(writer));
+        return writer.toString();
+    }
+
+    /**
+     * Starts a compiler daemon.
+     * <p/>
+     * Usage: <em>CompilerDaemon [file] [-idle minutes] [-stop]</em>, where <em>file</em> defaults to
+     * {@link #getDefaultFile()}, and <em>-stop</em> stops a running daemon.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args)
+    {
+        File file = getDefaultFile();
+        int idleMinutes = DEFAULT_IDLE_MINUTES;
+        boolean stop = false;
+        int exitCode = 0;
+        try
+        {
+            for (int i = 0; i < args.length; ++i)
+            {
+                if ("-idle".equals(args[i]) && i + 1 < args.length)
+                {
+                    idleMinutes = Integer.parseInt(args[++i]);
+                }
+                else if ("-stop".equals(args[i]))
+                {
+                    stop = true;
+                }
+                else
+                {
+                    file = new File(args[i]);
+                }
+            }
+            if (stop)
+            {
+                CompilerDaemonClient client = CompilerDaemonClient.connect(file);
+                if (client != null)
+                {
+                    client.stop();
+                }
+                else
+                {
+                    System.out.println("No compiler daemon is running for " + file);
+                }
+            }
+            else
+            {
+                CompilerDaemon daemon = new CompilerDaemon(file, idleMinutes);
+                System.out.println("Compiler daemon listening on port " + daemon.getPort() + ", using " + file);
+                daemon.run();
+            }
+        }
+        catch (Exception exception)
+        {
+            System.err.println("-> Fatal error :");
+            System.err.println("   " + exception.getMessage());
+            exception.printStackTrace();
+            exitCode = 1;
+        }
+        System.exit(exitCode);
+    }
+
+    /**
+     * Forwards log records to the client.
+     * <p/>
+     * If the client disconnects, records are discarded, and the error reported at the end of the build.
+     */
+    private static class ForwardingHandler extends Handler
+    {
+        /**
+         * The stream to the client.
+         */
+        private final DataOutputStream out;
+
+        /**
+         * The error writing to the client, if any.
+         */
+        private IOException error;
+
+        /**
+         * Constructs a {@code ForwardingHandler}.
+         *
+         * @param out the stream to the client
+         */
+        ForwardingHandler(DataOutputStream out)
+        {
+            this.out = out;
+            setFormatter(new SimpleFormatter());
+        }
+
+        /**
+         * Forwards a log record.
+         *
+         * @param record the log record
+         */
+        @Override
+        public synchronized void publish(LogRecord record)
+        {
+            if (error != null || !isLoggable(record))
+            {
+                return;
+            }
+            String message = getFormatter().formatMessage(record);
+            if (record.getThrown() != null)
+            {
+                message += System.lineSeparator() + getDescription(record.getThrown());
+            }
+            try
+            {
+                out.writeInt(RESPONSE_LOG);
+                out.writeInt(record.getLevel().intValue());
+                writeString(out, record.getLoggerName() != null ? record.getLoggerName() : "");
+                writeString(out, message);
+            }
+            catch (IOException exception)
+            {
+                error = exception;
+            }
+        }
+
+        /**
+         * Flushes forwarded records.
+         */
+        @Override
+        public synchronized void flush()
+        {
+            try
+            {
+                out.flush();
+            }
+            catch (IOException exception)
+            {
+                error = exception;
+            }
+        }
+
+        /**
+         * Does nothing. The stream is closed with the connection.
+         */
+        @Override
+        public void close()
+        {
+        }
+
+        /**
+         * Flushes forwarded records, throwing any error writing to the client.
+         *
+         * @throws IOException if a record could not be written
+         */
+        synchronized void flushError() throws IOException
+        {
+            flush();
+            if (error != null)
+            {
+                throw error;
+            }
+        }
+    }
+}
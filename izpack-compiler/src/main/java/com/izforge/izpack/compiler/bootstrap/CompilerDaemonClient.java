@@ -0,0 +1,207 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.bootstrap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import com.izforge.izpack.api.exception.CompilerException;
+
+
+/**
+ * Submits builds to a {@link CompilerDaemon}.
+ * <p/>
+ * A client is connected to the daemon for a single request.
+ */
+public class CompilerDaemonClient implements Closeable
+{
+    /**
+     * The connection to the daemon.
+     */
+    private final Socket socket;
+
+    /**
+     * The token to present to the daemon.
+     */
+    private final String token;
+
+    /**
+     * Constructs a {@code CompilerDaemonClient}.
+     *
+     * @param socket the connection to the daemon
+     * @param token  the token to present to the daemon
+     */
+    private CompilerDaemonClient(Socket socket, String token)
+    {
+        this.socket = socket;
+        this.token = token;
+    }
+
+    /**
+     * Connects to a daemon.
+     *
+     * @param file the file written by the daemon
+     * @return a client connected to the daemon, or {@code null} if no daemon is running for the file
+     * @throws IOException if the file cannot be read
+     */
+    public static CompilerDaemonClient connect(File file) throws IOException
+    {
+        if (!file.isFile())
+        {
+            return null;
+        }
+        String[] content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim().split(" ");
+        if (content.length != 2)
+        {
+            throw new IOException("Invalid compiler daemon file: " + file);
+        }
+        try
+        {
+            Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(content[0]));
+            return new CompilerDaemonClient(socket, content[1]);
+        }
+        catch (ConnectException exception)
+        {
+            // the daemon has stopped without deleting the file
+            return null;
+        }
+        catch (NumberFormatException exception)
+        {
+            throw new IOException("Invalid compiler daemon file: " + file, exception);
+        }
+    }
+
+    /**
+     * Builds an installer.
+     * <p/>
+     * Log records from the build are published to the handler as they are received. The handler level determines
+     * the records the daemon sends.
+     *
+     * @param job     the job
+     * @param handler the handler to publish log records to
+     * @return {@code true} if the build succeeded
+     * @throws CompilerException            if the build failed with an error
+     * @throws CompilerJobRejectedException if the daemon can't perform the build, as its class path lacks entries of
+     *                                      the job's. The installer should be built in process
+     * @throws IOException                  for any I/O error communicating with the daemon
+     */
+    public boolean compile(CompilerJob job, Handler handler) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        job.write(bytes);
+
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        CompilerDaemon.writeString(out, token);
+        out.writeInt(CompilerDaemon.REQUEST_BUILD);
+        CompilerDaemon.writeString(out, handler.getLevel().getName());
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+        out.flush();
+        return readResult(handler);
+    }
+
+    /**
+     * Requests the daemon to stop.
+     *
+     * @throws IOException for any I/O error communicating with the daemon
+     */
+    public void stop() throws IOException
+    {
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        CompilerDaemon.writeString(out, token);
+        out.writeInt(CompilerDaemon.REQUEST_STOP);
+        out.flush();
+        readResult(null);
+    }
+
+    /**
+     * Closes the connection.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Override
+    public void close() throws IOException
+    {
+        socket.close();
+    }
+
+    /**
+     * Reads log records until the result is received.
+     *
+     * @param handler the handler to publish log records to. May be {@code null}
+     * @return {@code true} if the request succeeded
+     * @throws CompilerException            if the request failed with an error
+     * @throws CompilerJobRejectedException if the daemon rejected the request
+     * @throws IOException                  for any I/O error
+     */
+    private boolean readResult(Handler handler) throws IOException
+    {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        while (true)
+        {
+            int response = in.readInt();
+            if (response == CompilerDaemon.RESPONSE_LOG)
+            {
+                Level level = Level.parse(Integer.toString(in.readInt()));
+                String loggerName = CompilerDaemon.readString(in);
+                LogRecord record = new LogRecord(level, CompilerDaemon.readString(in));
+                record.setLoggerName(loggerName);
+                if (handler != null)
+                {
+                    handler.publish(record);
+                }
+            }
+            else if (response == CompilerDaemon.RESPONSE_RESULT)
+            {
+                boolean success = in.readBoolean();
+                String error = CompilerDaemon.readString(in);
+                if (handler != null)
+                {
+                    handler.flush();
+                }
+                if (!error.isEmpty())
+                {
+                    throw new CompilerException("Compiler daemon build failed: " + error);
+                }
+                return success;
+            }
+            else if (response == CompilerDaemon.RESPONSE_REJECTED)
+            {
+                throw new CompilerJobRejectedException(CompilerDaemon.readString(in));
+            }
+            else
+            {
+                throw new IOException("Invalid compiler daemon response: " + response);
+            }
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.bootstrap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.izforge.izpack.api.data.Info;
+import com.izforge.izpack.compiler.data.CompilerData;
+import com.izforge.izpack.compiler.util.BuildCache;
+import com.izforge.izpack.compiler.util.BuildFingerprint;
+import com.izforge.izpack.merge.resolve.ResolveUtils;
+
+
+/**
+ * A build submitted to a {@link CompilerDaemon}.
+ * <p/>
+ * A job is made of the compiler data and the properties to add to the build. Paths are made absolute when the job
+ * is created, as the daemon may run in a different directory. Jobs are transferred as {@link Properties}.
+ * <p/>
+ * A job also records the class path of the client, as the installer classes, such as custom panels, listeners and
+ * validators, are resolved from it. The daemon builds with its own class path, so it only accepts a job if its class
+ * path contains every entry of the job's. Entries are identified by their content rather than their location, so
+ * that the same jar in a different directory is accepted.
+ */
+public class CompilerJob
+{
+    /**
+     * The compiler data.
+     */
+    private final CompilerData compilerData;
+
+    /**
+     * The IzPack home directory.
+     */
+    private final String izpackHome;
+
+    /**
+     * The properties to add to the build.
+     */
+    private final Properties properties = new Properties();
+
+    /**
+     * The identifiers of the class path entries of the client.
+     */
+    private final Set<String> classPath;
+
+    /**
+     * The identifiers of class path files, keyed on their path, size and modification time, to avoid hashing
+     * unchanged files for each job.
+     */
+    private static final Map<String, String> identifiers = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a {@code CompilerJob}, with the class path of the context class loader.
+     *
+     * @param compilerData the compiler data
+     */
+    public CompilerJob(CompilerData compilerData)
+    {
+        this(compilerData, CompilerData.IZPACK_HOME, getClassPath(ResolveUtils.getClassPathUrl()));
+    }
+
+    /**
+     * Constructs a {@code CompilerJob}.
+     *
+     * @param compilerData the compiler data
+     * @param izpackHome   the IzPack home directory
+     * @param classPath    the identifiers of the class path entries
+     */
+    private CompilerJob(CompilerData compilerData, String izpackHome, Set<String> classPath)
+    {
+        Info info = compilerData.getExternalInfo();
+        CompilerData data = new CompilerData(compilerData.getComprFormat(), compilerData.getKind(),
+                                             absolute(compilerData.getInstallFile()),
+                                             compilerData.getInstallText(), absolute(compilerData.getBasedir()),
+                                             absolute(compilerData.getOutput()), compilerData.isMkdirs(),
+                                             compilerData.getComprLevel(), info != null ? info : new Info(),
+                                             compilerData.getManifestEntries());
+        data.setPlatforms(compilerData.getPlatforms());
+        this.compilerData = data;
+        this.izpackHome = absolute(izpackHome);
+        this.classPath = Collections.unmodifiableSet(classPath);
+    }
+
+    /**
+     * Returns the compiler data.
+     *
+     * @return the compiler data
+     */
+    public CompilerData getCompilerData()
+    {
+        return compilerData;
+    }
+
+    /**
+     * Returns the IzPack home directory.
+     *
+     * @return the IzPack home directory
+     */
+    public String getIzpackHome()
+    {
+        return izpackHome;
+    }
+
+    /**
+     * Returns the identifiers of the class path entries of the client.
+     *
+     * @return the class path entry identifiers
+     */
+    public Set<String> getClassPath()
+    {
+        return classPath;
+    }
+
+    /**
+     * Adds a property to the build.
+     *
+     * @param name  the property name
+     * @param value the property value
+     */
+    public void addProperty(String name, String value)
+    {
+        properties.setProperty(name, value);
+    }
+
+    /**
+     * Returns the properties to add to the build.
+     *
+     * @return the properties
+     */
+    public Properties getProperties()
+    {
+        return properties;
+    }
+
+    /**
+     * Writes the job.
+     *
+     * @param out the stream to write to. This is not closed
+     * @throws IOException for any I/O error
+     */
+    public void write(OutputStream out) throws IOException
+    {
+        toProperties().store(out, null);
+        out.flush();
+    }
+
+    /**
+     * Returns the job as properties.
+     * <p/>
+     * Build properties are prefixed with <em>property.</em>, manifest entries with <em>manifest.</em>, and class
+     * path entries with <em>classPath.</em>.
+     *
+     * @return the job properties
+     */
+    public Properties toProperties()
+    {
+        Properties job = new Properties();
+        put(job, "installFile", compilerData.getInstallFile());
+        put(job, "installText", compilerData.getInstallText());
+        put(job, "basedir", compilerData.getBasedir());
+        put(job, "output", compilerData.getOutput());
+        put(job, "kind", compilerData.getKind());
+        put(job, "compression", compilerData.getComprFormat());
+        put(job, "compressionLevel", Integer.toString(compilerData.getComprLevel()));
+        put(job, "mkdirs", Boolean.toString(compilerData.isMkdirs()));
+        put(job, "izpackHome", izpackHome);
+        if (!compilerData.getPlatforms().isEmpty())
+        {
+            put(job, "platforms", String.join(",", compilerData.getPlatforms()));
+        }
+        Info info = compilerData.getExternalInfo();
+        put(job, "info.appURL", info.getAppURL());
+        List<Info.Author> authors = info.getAuthors();
+        if (authors != null)
+        {
+            for (int i = 0; i < authors.size(); ++i)
+            {
+                put(job, "info.author." + i + ".name", authors.get(i).getName());
+                put(job, "info.author." + i + ".email", authors.get(i).getEmail());
+            }
+        }
+        Map<String, String> manifestEntries = compilerData.getManifestEntries();
+        if (manifestEntries != null)
+        {
+            for (Map.Entry<String, String> entry : manifestEntries.entrySet())
+            {
+                put(job, "manifest." + entry.getKey(), entry.getValue());
+            }
+        }
+        for (String name : properties.stringPropertyNames())
+        {
+            put(job, "property." + name, properties.getProperty(name));
+        }
+        int index = 0;
+        for (String entry : classPath)
+        {
+            put(job, "classPath." + index++, entry);
+        }
+        return job;
+    }
+
+    /**
+     * Reads a job.
+     *
+     * @param in the stream to read from. Must contain only the job
+     * @return the job
+     * @throws IOException for any I/O error
+     */
+    public static CompilerJob read(InputStream in) throws IOException
+    {
+        Properties job = new Properties();
+        job.load(in);
+
+        Info info = new Info();
+        info.setAppURL(job.getProperty("info.appURL"));
+        for (int i = 0; job.getProperty("info.author." + i + ".name") != null; ++i)
+        {
+            info.addAuthor(new Info.Author(job.getProperty("info.author." + i + ".name"),
+                                           job.getProperty("info.author." + i + ".email")));
+        }
+        Map<String, String> manifestEntries = null;
+        Map<String, String> properties = new LinkedHashMap<>();
+        Set<String> classPath = new TreeSet<>();
+        for (String name : job.stringPropertyNames())
+        {
+            if (name.startsWith("manifest."))
+            {
+                if (manifestEntries == null)
+                {
+                    manifestEntries = new LinkedHashMap<>();
+                }
+                manifestEntries.put(name.substring("manifest.".length()), job.getProperty(name));
+            }
+            else if (name.startsWith("property."))
+            {
+                properties.put(name.substring("property.".length()), job.getProperty(name));
+            }
+            else if (name.startsWith("classPath."))
+            {
+                classPath.add(job.getProperty(name));
+            }
+        }
+
+        CompilerData data = new CompilerData(job.getProperty("compression"),
+                                             job.getProperty("kind", CompilerData.STANDARD),
+                                             job.getProperty("installFile"), job.getProperty("installText"),
+                                             job.getProperty("basedir"), job.getProperty("output"),
+                                             Boolean.parseBoolean(job.getProperty("mkdirs")),
+                                             Integer.parseInt(job.getProperty("compressionLevel", "-1")),
+                                             info, manifestEntries);
+        String platforms = job.getProperty("platforms");
+        if (platforms != null)
+        {
+            data.setPlatforms(new ArrayList<>(Arrays.asList(platforms.split(","))));
+        }
+        CompilerJob result = new CompilerJob(data, job.getProperty("izpackHome"), classPath);
+        for (Map.Entry<String, String> entry : properties.entrySet())
+        {
+            result.addProperty(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the identifiers of class path entries.
+     * <p/>
+     * A file is identified by its name, size and content hash. A directory is identified by its path, and the
+     * number, total size and latest modification time of the files it contains. Other URLs, and files that cannot
+     * be read, are identified by their location.
+     *
+     * @param urls the class path URLs
+     * @return the identifiers, in order
+     */
+    static Set<String> getClassPath(Collection<URL> urls)
+    {
+        Set<String> result = new TreeSet<>();
+        for (URL url : urls)
+        {
+            File file = BuildCache.getFile(url);
+            if (file == null)
+            {
+                result.add(url.toExternalForm());
+            }
+            else if (file.isFile())
+            {
+                String key = file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified();
+                String identifier = identifiers.get(key);
+                if (identifier == null)
+                {
+                    try
+                    {
+                        identifier = file.getName() + ":" + file.length() + ":" + BuildFingerprint.hash(file);
+                    }
+                    catch (IOException exception)
+                    {
+                        identifier = key;
+                    }
+                    identifiers.put(key, identifier);
+                }
+                result.add(identifier);
+            }
+            else if (file.isDirectory())
+            {
+                result.add(BuildCache.fingerprint(url).trim());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds a value to the job, if it is non-null.
+     *
+     * @param job   the job
+     * @param name  the name
+     * @param value the value. May be {@code null}
+     */
+    private static void put(Properties job, String name, String value)
+    {
+        if (value != null)
+        {
+            job.setProperty(name, value);
+        }
+    }
+
+    /**
+     * Makes a path absolute.
+     *
+     * @param path the path. May be {@code null}
+     * @return the absolute path, or {@code null} if the path is {@code null}
+     */
+    private static String absolute(String path)
+    {
+        return (path != null) ? new File(path).getAbsolutePath() : null;
+    }
+}
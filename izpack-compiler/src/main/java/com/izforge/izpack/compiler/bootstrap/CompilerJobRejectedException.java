@@ -0,0 +1,41 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.bootstrap;
+
+import java.io.IOException;
+
+
+/**
+ * Thrown when a {@link CompilerDaemon} can't perform a build, and the installer should be built in process.
+ */
+public class CompilerJobRejectedException extends IOException
+{
+    private static final long serialVersionUID = 3526214750182745369L;
+
+    /**
+     * Constructs a {@code CompilerJobRejectedException}.
+     *
+     * @param message the reason the daemon rejected the job
+     */
+    public CompilerJobRejectedException(String message)
+    {
+        super(message);
+    }
+}
@@ -20,10 +20,13 @@
 package com.izforge.izpack.compiler.bootstrap;
 
 import com.izforge.izpack.compiler.CompilerConfig;
+import com.izforge.izpack.compiler.cli.CliAnalyzer;
 import com.izforge.izpack.compiler.container.CompilerContainer;
+import com.izforge.izpack.compiler.data.CompilerData;
 import com.izforge.izpack.compiler.exception.HelpRequestedException;
 import com.izforge.izpack.compiler.exception.NoArgumentException;
 
+import java.io.File;
 import java.util.Date;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Handler;
@@ -47,21 +50,53 @@ public class CompilerLauncher
         int exitCode = 1;
         try
         {
-            CompilerContainer compilerContainer = new CompilerContainer();
-            compilerContainer.processCompileDataFromArgs(args);
-            compilerContainer.addComponent(Handler.class, new ConsoleHandler());
+            CompilerData compilerData = new CliAnalyzer().printAndParseArgs(args);
+            Handler handler = new ConsoleHandler();
 
-            CompilerConfig compiler = compilerContainer.getComponent(CompilerConfig.class);
-            compiler.executeCompiler();
-            // Waits
-            while (compiler.isAlive())
+            // submit the build to a running daemon, if any
+            CompilerDaemonClient client = null;
+            if (compilerData.getDaemon() != null)
             {
-                Thread.sleep(100);
+                client = CompilerDaemonClient.connect(new File(compilerData.getDaemon()));
+                if (client == null)
+                {
+                    System.out.println("-> No compiler daemon is running, building in process");
+                }
             }
 
-            if (compiler.wasSuccessful())
+            if (client != null)
             {
-                exitCode = 0;
+                try
+                {
+                    if (client.compile(new CompilerJob(compilerData), handler))
+                    {
+                        exitCode = 0;
+                    }
+                }
+                finally
+                {
+                    client.close();
+                }
+            }
+            else
+            {
+                CompilerContainer compilerContainer = new CompilerContainer();
+                compilerContainer.addConfig("installFile", compilerData.getInstallFile());
+                compilerContainer.addComponent(CompilerData.class, compilerData);
+                compilerContainer.addComponent(Handler.class, handler);
+
+                CompilerConfig compiler = compilerContainer.getComponent(CompilerConfig.class);
+                compiler.executeCompiler();
+                // Waits
+                while (compiler.isAlive())
+                {
+                    Thread.sleep(100);
+                }
+
+                if (compiler.wasSuccessful())
+                {
+                    exitCode = 0;
+                }
             }
 
             System.out.println("Build time: " + new Date());
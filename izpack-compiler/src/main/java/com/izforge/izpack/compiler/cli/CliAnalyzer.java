@@ -26,6 +26,7 @@ import com.izforge.izpack.compiler.exception.NoArgumentException;
 import org.apache.commons.cli.*;
 
 import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.List;
 
 
@@ -41,6 +42,8 @@ public class CliAnalyzer {
     private static final String ARG_OUTPUT = "o";
     private static final String ARG_COMPRESSION_FORMAT = "c";
     private static final String ARG_COMPRESSION_LEVEL = "l";
+    private static final String ARG_PLATFORMS = "p";
+    private static final String ARG_DAEMON = "d";
 
 
     /**
@@ -59,9 +62,13 @@ public class CliAnalyzer {
         options.addOption(ARG_KIND, true, "kind : indicates the kind of installer to generate, default is standard");
         options.addOption(ARG_OUTPUT, true, "out  : indicates the output file name default is the xml file name\n");
         options.addOption(ARG_COMPRESSION_FORMAT, true, "compression : indicates the compression format to be used for packs " +
-                "default is the internal deflate compression\n");
+                "default is the internal deflate compression. Fast formats are lz4-framed, lz4-block and snappy-framed\n");
         options.addOption(ARG_COMPRESSION_LEVEL, true, "compression-level : indicates the level for the used compression format"
                 + " if supported. Only integer are valid\n");
+        options.addOption(ARG_PLATFORMS, true, "platforms : comma separated platforms to also write an installer for,"
+                + " without the files that cannot be installed on them, e.g. linux-x64,windows-x64,mac\n");
+        options.addOption(ARG_DAEMON, true, "daemon : the file written by a running compiler daemon, to submit the build"
+                + " to. If no daemon is running, the installer is built as usual\n");
         return options;
     }
 
@@ -106,6 +113,9 @@ public class CliAnalyzer {
         out.format("-> Compression  : %s%n", result.getComprFormat());
         out.format("-> Compr. level : %s%n", result.getComprLevel());
         out.format("-> IzPack home  : %s%n", CompilerData.IZPACK_HOME);
+        if (!result.getPlatforms().isEmpty()) {
+            out.format("-> Platforms    : %s%n", result.getPlatforms());
+        }
         out.println();
     }
 
@@ -165,6 +175,12 @@ public class CliAnalyzer {
         if (commandLine.hasOption(ARG_KIND)) {
             compilerData.setKind(commandLine.getOptionValue(ARG_KIND).trim());
         }
+        if (commandLine.hasOption(ARG_PLATFORMS)) {
+            compilerData.setPlatforms(Arrays.asList(commandLine.getOptionValue(ARG_PLATFORMS).trim().split("\\s*,\\s*")));
+        }
+        if (commandLine.hasOption(ARG_DAEMON)) {
+            compilerData.setDaemon(commandLine.getOptionValue(ARG_DAEMON).trim());
+        }
 
         return compilerData;
     }
@@ -34,6 +34,7 @@ import com.izforge.izpack.compiler.helper.AssertionHelper;
 import com.izforge.izpack.compiler.helper.CompilerHelper;
 import com.izforge.izpack.compiler.listener.CmdlinePackagerListener;
 import com.izforge.izpack.compiler.resource.ResourceFinder;
+import com.izforge.izpack.compiler.util.BuildCache;
 import com.izforge.izpack.core.container.AbstractContainer;
 import com.izforge.izpack.core.container.PlatformProvider;
 import com.izforge.izpack.core.data.DefaultVariables;
@@ -90,8 +91,11 @@ public class CompilerContainer extends AbstractContainer
     @Override
     protected void fillContainer(MutablePicoContainer container)
     {
-        addComponent(Properties.class);
-        addComponent(DefaultVariables.class);
+        // the properties are a live view of the variables, so that properties added after the variables are created
+        // are visible to variable substitution
+        DefaultVariables variables = new DefaultVariables();
+        addComponent(DefaultVariables.class, variables);
+        addComponent(Properties.class, variables.getProperties());
         addComponent(CompilerContainer.class, this);
         addComponent(CliAnalyzer.class);
         addComponent(CmdlinePackagerListener.class);
@@ -111,6 +115,7 @@ public class CompilerContainer extends AbstractContainer
                                new ComponentParameter(CompilerContainer.class));
         container.addComponent(PlatformModelMatcher.class);
         addComponent(Platforms.class);
+        addComponent(BuildCache.class, new BuildCache());
 
         new ResolverContainerFiller().fillContainer(this);
         container.addAdapter(new ProviderAdapter(new XmlCompilerHelperProvider()))
@@ -119,6 +124,20 @@ public class CompilerContainer extends AbstractContainer
 
     }
 
+    /**
+     * Replaces the cache of content derived from files, so that it can be shared with other builds.
+     * <p/>
+     * This must be invoked before the compiler is created.
+     *
+     * @param cache the cache
+     * @throws ContainerException if the cache cannot be registered
+     */
+    public void setBuildCache(BuildCache cache)
+    {
+        getContainer().removeComponent(BuildCache.class);
+        addComponent(BuildCache.class, cache);
+    }
+
     /**
      * Add CompilerDataComponent by processing command line args
      *
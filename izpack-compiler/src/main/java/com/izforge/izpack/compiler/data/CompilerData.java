@@ -26,6 +26,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.jar.Attributes;
@@ -103,6 +105,16 @@ public class CompilerData
      */
     private Map<String, String> manifestEntries;
 
+    /**
+     * The platforms to also write an installer for, e.g. <em>linux-x64</em>.
+     */
+    private List<String> platforms = Collections.emptyList();
+
+    /**
+     * The file written by a compiler daemon to submit the build to, or {@code null} to build in process.
+     */
+    private String daemon;
+
     private static final String VERSION_BUNDLE = "version";
 
     /**
@@ -250,6 +262,48 @@ public class CompilerData
         this.comprLevel = comprLevel;
     }
 
+    /**
+     * Returns the platforms to also write an installer for.
+     *
+     * @return the platform identifiers, e.g. <em>linux-x64</em>. May be empty
+     */
+    public List<String> getPlatforms()
+    {
+        return platforms;
+    }
+
+    /**
+     * Sets the platforms to also write an installer for.
+     * <p/>
+     * Each installer is named after the output file, with the platform identifier appended.
+     *
+     * @param platforms the platform identifiers, e.g. <em>linux-x64</em>
+     */
+    public void setPlatforms(List<String> platforms)
+    {
+        this.platforms = platforms;
+    }
+
+    /**
+     * Returns the file written by a compiler daemon to submit the build to.
+     *
+     * @return the daemon file, or {@code null} to build in process
+     */
+    public String getDaemon()
+    {
+        return daemon;
+    }
+
+    /**
+     * Sets the file written by a compiler daemon to submit the build to.
+     *
+     * @param daemon the daemon file, or {@code null} to build in process
+     */
+    public void setDaemon(String daemon)
+    {
+        this.daemon = daemon;
+    }
+
     public Info getExternalInfo()
     {
         return this.externalInfo;
@@ -0,0 +1,553 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.helper;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import com.izforge.izpack.api.exception.CompilerException;
+
+
+/**
+ * Determines the class file versions of the classes in jars, including the classes of nested jars.
+ * <p/>
+ * Jars are read with random access, and only the header of each class is inflated. Several jars are checked
+ * concurrently. Results can be cached in a directory, keyed on the SHA-256 hash of the jar content.
+ */
+public class JarVersionChecker
+{
+    /**
+     * The maximum number of class names recorded per class file version.
+     */
+    static final int MAX_CLASSES = 10;
+
+    private static final Logger logger = Logger.getLogger(JarVersionChecker.class.getName());
+
+    /**
+     * The cache directory. May be <tt>null</tt>.
+     */
+    private final File cacheDir;
+
+    /**
+     * Constructs a <tt>JarVersionChecker</tt>.
+     *
+     * @param cacheDir the directory to cache results in. If <tt>null</tt>, results aren't cached
+     */
+    public JarVersionChecker(File cacheDir)
+    {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Returns the default cache directory.
+     * <p/>
+     * This is the <em>izpack.cache.dir</em> system property if set, otherwise <em>izpack-cache</em> in the
+     * temporary directory.
+     *
+     * @return the default cache directory
+     */
+    public static File getDefaultCacheDir()
+    {
+        String dir = System.getProperty("izpack.cache.dir");
+        if (dir == null)
+        {
+            dir = new File(System.getProperty("java.io.tmpdir"), "izpack-cache").getPath();
+        }
+        return new File(dir, "jar-versions");
+    }
+
+    /**
+     * Determines the class file versions of several jars, concurrently.
+     *
+     * @param jars the jars
+     * @return the versions of each jar, in the same order
+     * @throws IOException       if a jar cannot be read
+     * @throws CompilerException if a class file is invalid
+     */
+    public List<JarVersions> check(List<File> jars) throws IOException
+    {
+        List<JarVersions> result = new ArrayList<JarVersions>();
+        if (jars.size() == 1)
+        {
+            result.add(check(jars.get(0)));
+            return result;
+        }
+        int threads = Math.max(1, Math.min(jars.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<JarVersions>> futures = new ArrayList<Future<JarVersions>>();
+            for (final File jar : jars)
+            {
+                futures.add(executor.submit(new Callable<JarVersions>()
+                {
+                    @Override
+                    public JarVersions call() throws IOException
+                    {
+                        return check(jar);
+                    }
+                }));
+            }
+            for (Future<JarVersions> future : futures)
+            {
+                result.add(future.get());
+            }
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while checking jar versions", exception);
+        }
+        catch (ExecutionException exception)
+        {
+            Throwable cause = exception.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
+    /**
+     * Determines the class file versions of a jar.
+     *
+     * @param jar the jar
+     * @return the versions
+     * @throws IOException       if the jar cannot be read
+     * @throws CompilerException if a class file is invalid
+     */
+    public JarVersions check(File jar) throws IOException
+    {
+        String hash = null;
+        if (cacheDir != null)
+        {
+            hash = hash(jar);
+            JarVersions cached = readCache(jar, hash);
+            if (cached != null)
+            {
+                return cached;
+            }
+        }
+        JarVersions result = new JarVersions(jar);
+        ZipFile zip = new ZipFile(jar);
+        try
+        {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements())
+            {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (name.endsWith(".class") || name.endsWith(".jar"))
+                {
+                    InputStream in = zip.getInputStream(entry);
+                    try
+                    {
+                        if (name.endsWith(".class"))
+                        {
+                            result.add(name, readMajorVersion(jar + ":" + name, in));
+                        }
+                        else
+                        {
+                            checkNested(name, new ZipInputStream(in), result);
+                        }
+                    }
+                    finally
+                    {
+                        in.close();
+                    }
+                }
+            }
+        }
+        finally
+        {
+            zip.close();
+        }
+        if (hash != null)
+        {
+            writeCache(result, hash);
+        }
+        return result;
+    }
+
+    /**
+     * Determines the class file versions of a nested jar.
+     *
+     * @param path   the path of the nested jar
+     * @param in     the nested jar stream
+     * @param result the versions to update
+     * @throws IOException for any I/O error
+     */
+    private void checkNested(String path, ZipInputStream in, JarVersions result) throws IOException
+    {
+        ZipEntry entry;
+        while ((entry = in.getNextEntry()) != null)
+        {
+            String name = path + ":" + entry.getName();
+            if (entry.getName().endsWith(".class"))
+            {
+                result.add(name, readMajorVersion(result.getJar() + ":" + name, in));
+            }
+            else if (entry.getName().endsWith(".jar"))
+            {
+                checkNested(name, new ZipInputStream(in), result);
+            }
+        }
+    }
+
+    /**
+     * Reads the major version from a class file header.
+     *
+     * @param path the class file path, for error reporting
+     * @param in   the class file stream
+     * @return the major version
+     * @throws IOException       for any I/O error
+     * @throws CompilerException if the class file is invalid
+     */
+    private static int readMajorVersion(String path, InputStream in) throws IOException
+    {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != 0xCAFEBABE)
+        {
+            throw new CompilerException("Class file cannot be read: " + path);
+        }
+        data.readUnsignedShort();
+        return data.readUnsignedShort();
+    }
+
+    /**
+     * Returns the SHA-256 hash of a file.
+     *
+     * @param file the file
+     * @return the hash, in hexadecimal
+     * @throws IOException for any I/O error
+     */
+    private static String hash(File file) throws IOException
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException exception)
+        {
+            throw new IOException(exception);
+        }
+        InputStream in = Files.newInputStream(file.toPath());
+        try
+        {
+            byte[] buffer = new byte[65536];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+            {
+                digest.update(buffer, 0, read);
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+        StringBuilder result = new StringBuilder();
+        for (byte b : digest.digest())
+        {
+            result.append(String.format("%02x", b));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Reads cached versions.
+     *
+     * @param jar  the jar
+     * @param hash the jar hash
+     * @return the cached versions, or <tt>null</tt> if they aren't cached, or can't be read
+     */
+    private JarVersions readCache(File jar, String hash)
+    {
+        File file = new File(cacheDir, hash + ".properties");
+        if (!file.isFile())
+        {
+            return null;
+        }
+        Properties properties = new Properties();
+        try
+        {
+            InputStream in = Files.newInputStream(file.toPath());
+            try
+            {
+                properties.load(in);
+            }
+            finally
+            {
+                in.close();
+            }
+            JarVersions result = new JarVersions(jar);
+            for (String key : properties.stringPropertyNames())
+            {
+                if (key.endsWith(".count"))
+                {
+                    int major = Integer.parseInt(key.substring(0, key.length() - ".count".length()));
+                    List<String> classes = new ArrayList<String>();
+                    for (int i = 0; i < MAX_CLASSES && properties.containsKey(major + ".class." + i); ++i)
+                    {
+                        classes.add(properties.getProperty(major + ".class." + i));
+                    }
+                    result.set(major, Integer.parseInt(properties.getProperty(key)), classes);
+                }
+            }
+            return result;
+        }
+        catch (Exception exception)
+        {
+            logger.log(Level.FINE, "Ignoring unreadable cache file " + file, exception);
+            return null;
+        }
+    }
+
+    /**
+     * Caches versions.
+     * <p/>
+     * Failures are logged, not propagated.
+     *
+     * @param versions the versions
+     * @param hash     the jar hash
+     */
+    private void writeCache(JarVersions versions, String hash)
+    {
+        Properties properties = new Properties();
+        for (Map.Entry<Integer, Integer> entry : versions.counts.entrySet())
+        {
+            int major = entry.getKey();
+            properties.setProperty(major + ".count", entry.getValue().toString());
+            List<String> classes = versions.classes.get(major);
+            for (int i = 0; i < classes.size(); ++i)
+            {
+                properties.setProperty(major + ".class." + i, classes.get(i));
+            }
+        }
+        try
+        {
+            if (!cacheDir.isDirectory() && !cacheDir.mkdirs() && !cacheDir.isDirectory())
+            {
+                throw new IOException("Failed to create directory: " + cacheDir);
+            }
+            // write to a temporary file first, so that concurrent compilers never read a partial file
+            File temp = File.createTempFile(hash, ".tmp", cacheDir);
+            OutputStream out = Files.newOutputStream(temp.toPath());
+            try
+            {
+                properties.store(out, versions.getJar().getName());
+            }
+            finally
+            {
+                out.close();
+            }
+            Files.move(temp.toPath(), new File(cacheDir, hash + ".properties").toPath(),
+                       StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException exception)
+        {
+            logger.log(Level.FINE, "Failed to cache class versions of " + versions.getJar(), exception);
+        }
+    }
+
+    /**
+     * The class file versions of a jar.
+     */
+    public static class JarVersions
+    {
+        /**
+         * The jar.
+         */
+        private final File jar;
+
+        /**
+         * The number of classes, by major version.
+         */
+        private final Map<Integer, Integer> counts = new TreeMap<Integer, Integer>();
+
+        /**
+         * The first {@link #MAX_CLASSES} classes, by major version.
+         */
+        private final Map<Integer, List<String>> classes = new TreeMap<Integer, List<String>>();
+
+        /**
+         * Constructs a <tt>JarVersions</tt>.
+         *
+         * @param jar the jar
+         */
+        JarVersions(File jar)
+        {
+            this.jar = jar;
+        }
+
+        /**
+         * Returns the jar.
+         *
+         * @return the jar
+         */
+        public File getJar()
+        {
+            return jar;
+        }
+
+        /**
+         * Returns the highest major version of the classes in the jar.
+         *
+         * @return the highest major version, or <tt>0</tt> if the jar contains no classes
+         */
+        public int getMaxMajorVersion()
+        {
+            int result = 0;
+            for (int major : counts.keySet())
+            {
+                result = major;
+            }
+            return result;
+        }
+
+        /**
+         * Returns the number of classes with a major version.
+         *
+         * @param major the major version
+         * @return the number of classes
+         */
+        public int getCount(int major)
+        {
+            Integer count = counts.get(major);
+            return count != null ? count : 0;
+        }
+
+        /**
+         * Returns the paths of the first classes with a major version.
+         *
+         * @param major the major version
+         * @return up to {@link #MAX_CLASSES} class paths. Nested jar classes are prefixed by the nested jar path
+         */
+        public List<String> getClasses(int major)
+        {
+            List<String> result = classes.get(major);
+            return result != null ? result : new ArrayList<String>();
+        }
+
+        /**
+         * Describes the classes with a major version above a limit.
+         *
+         * @param maxMajor the maximum permitted major version
+         * @return a description of each version exceeding the limit. Empty if there are none
+         */
+        public List<String> describeExceeding(int maxMajor)
+        {
+            List<String> result = new ArrayList<String>();
+            for (Map.Entry<Integer, Integer> entry : counts.entrySet())
+            {
+                int major = entry.getKey();
+                if (major > maxMajor)
+                {
+                    int count = entry.getValue();
+                    StringBuilder description = new StringBuilder();
+                    description.append(jar).append(": ").append(count).append(" class(es) target Java ")
+                            .append(major - 44).append(", e.g. ");
+                    List<String> names = classes.get(major);
+                    for (int i = 0; i < names.size(); ++i)
+                    {
+                        if (i > 0)
+                        {
+                            description.append(", ");
+                        }
+                        description.append(names.get(i));
+                    }
+                    if (count > names.size())
+                    {
+                        description.append(", ...");
+                    }
+                    result.add(description.toString());
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Records a class.
+         *
+         * @param name  the class path
+         * @param major the major version
+         */
+        void add(String name, int major)
+        {
+            counts.put(major, getCount(major) + 1);
+            List<String> names = classes.get(major);
+            if (names == null)
+            {
+                names = new ArrayList<String>();
+                classes.put(major, names);
+            }
+            if (names.size() < MAX_CLASSES)
+            {
+                names.add(name);
+            }
+        }
+
+        /**
+         * Sets the classes for a major version.
+         *
+         * @param major the major version
+         * @param count the number of classes
+         * @param names the first class paths
+         */
+        void set(int major, int count, List<String> names)
+        {
+            counts.put(major, count);
+            classes.put(major, names);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.packager.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+
+/**
+ * A {@code JarOutputStream} that records the names of the installer resources written to it.
+ * <p/>
+ * Resources may be written by the packager, or merged from skeleton classes and user jars, so the names are
+ * collected as the entries are written. The packager stores them in the installer as the resource index, so that
+ * the installer can determine if a resource exists without searching the class path.
+ */
+public class IndexingJarOutputStream extends JarOutputStream
+{
+    /**
+     * The names of the resources written, relative to {@link PackagerBase#RESOURCES_PATH}.
+     */
+    private final List<String> resources = new ArrayList<>();
+
+    /**
+     * Constructs an {@code IndexingJarOutputStream}.
+     *
+     * @param out the stream to write to
+     * @throws IOException for any I/O error
+     */
+    public IndexingJarOutputStream(OutputStream out) throws IOException
+    {
+        super(out);
+    }
+
+    /**
+     * Begins writing a new entry.
+     *
+     * @param entry the entry to write
+     * @throws IOException for any I/O error
+     */
+    @Override
+    public void putNextEntry(ZipEntry entry) throws IOException
+    {
+        super.putNextEntry(entry);
+        String name = entry.getName();
+        if (name.startsWith(PackagerBase.RESOURCES_PATH) && !entry.isDirectory())
+        {
+            resources.add(name.substring(PackagerBase.RESOURCES_PATH.length()));
+        }
+    }
+
+    /**
+     * Returns the names of the resources written, relative to {@link PackagerBase#RESOURCES_PATH}.
+     *
+     * @return the resource names, in the order they were written
+     */
+    public List<String> getResources()
+    {
+        return resources;
+    }
+}
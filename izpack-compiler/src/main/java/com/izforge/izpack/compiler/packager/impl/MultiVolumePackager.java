@@ -23,23 +23,28 @@ package com.izforge.izpack.compiler.packager.impl;
 
 import com.izforge.izpack.api.adaptator.IXMLElement;
 import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackCompression;
 import com.izforge.izpack.api.data.PackFile;
 import com.izforge.izpack.api.data.XPackFile;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.compiler.data.CompilerData;
 import com.izforge.izpack.compiler.listener.PackagerListener;
 import com.izforge.izpack.compiler.merge.CompilerPathResolver;
+import com.izforge.izpack.compiler.util.BuildCache;
 import com.izforge.izpack.core.io.FileSpanningOutputStream;
 import com.izforge.izpack.api.data.PackInfo;
 import com.izforge.izpack.merge.MergeManager;
 import com.izforge.izpack.merge.resolve.MergeableResolver;
+import com.izforge.izpack.util.NoCloseOutputStream;
+import com.izforge.izpack.util.StreamSupport;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.jar.JarOutputStream;
 import java.util.logging.Logger;
@@ -109,13 +114,35 @@ public class MultiVolumePackager extends PackagerBase
      * @param pathResolver      the path resolver
      * @param mergeableResolver the mergeable resolver
      * @param compilerData      the compiler data
+     * @param rulesEngine       the rules engine
      */
     public MultiVolumePackager(Properties properties, PackagerListener listener, JarOutputStream installerJar,
                                MergeManager mergeManager, CompilerPathResolver pathResolver,
                                MergeableResolver mergeableResolver, CompilerData compilerData, RulesEngine rulesEngine)
+    {
+        this(properties, listener, installerJar, mergeManager, pathResolver, mergeableResolver,
+             compilerData, rulesEngine, new BuildCache());
+    }
+
+    /**
+     * Constructs a <tt>MultiVolumePackager</tt>.
+     *
+     * @param properties        the properties
+     * @param listener          the packager listener
+     * @param mergeManager      the merge manager
+     * @param pathResolver      the path resolver
+     * @param mergeableResolver the mergeable resolver
+     * @param compilerData      the compiler data
+     * @param rulesEngine       the rules engine
+     * @param cache             the cache of content derived from files
+     */
+    public MultiVolumePackager(Properties properties, PackagerListener listener, JarOutputStream installerJar,
+                               MergeManager mergeManager, CompilerPathResolver pathResolver,
+                               MergeableResolver mergeableResolver, CompilerData compilerData, RulesEngine rulesEngine,
+                               BuildCache cache)
     {
         super(properties, listener, installerJar, mergeManager, pathResolver, mergeableResolver,
-              compilerData, rulesEngine);
+              compilerData, rulesEngine, cache);
     }
 
     /**
@@ -163,6 +190,17 @@ public class MultiVolumePackager extends PackagerBase
         }
     }
 
+    /**
+     * Determines if installers for single platforms can be derived from the installer.
+     *
+     * @return <tt>false</tt>, as packs are stored in volumes outside the installer jar
+     */
+    @Override
+    protected boolean canSlicePlatforms()
+    {
+        return false;
+    }
+
     /**
      * Writes packs to one or more <em>.pak</em> volumes.
      * <p/>
@@ -318,6 +356,9 @@ public class MultiVolumePackager extends PackagerBase
 
     /**
      * Writes a pack file to the volumes.
+     * <p/>
+     * The file is compressed using the installation's pack compression format, and the compressed size recorded in
+     * the pack file.
      *
      * @param file     the file to write
      * @param volumes  the volumes
@@ -332,32 +373,32 @@ public class MultiVolumePackager extends PackagerBase
         // write the file to the volumes
         int volumeCount = volumes.getVolumes();
 
-        FileInputStream in = FileUtils.openInputStream(file);
-        try
+        PackCompression comprFormat = getInfo().getCompressionFormat();
+        CountingOutputStream proxyOutputStream = new CountingOutputStream(new NoCloseOutputStream(volumes));
+        long bytesRead;
+        try (OutputStream finalStream = StreamSupport.compressedOutput(comprFormat, proxyOutputStream))
         {
-            long bytesWritten = IOUtils.copyLarge(in, volumes);
-            long afterPosition = volumes.getFilePointer();
-            logger.fine("File (" + packFile.getFile() + ") " + beforePosition + " <-> " + afterPosition);
-
-            if (volumes.getFilePointer() != (beforePosition + bytesWritten))
-            {
-                logger.fine("file: " + file.getName());
-                logger.fine("(Filepos/BytesWritten/ExpectedNewFilePos/NewFilePointer) ("
-                        + beforePosition + "/" + bytesWritten + "/" + (beforePosition + bytesWritten)
-                        + "/" + volumes.getFilePointer() + ")");
-                logger.fine("Volumes (before/after) (" + volumeCount + "/" + volumes.getVolumes() + ")");
-                throw new IOException("Error new file pointer is illegal");
-            }
+            bytesRead = Files.copy(file.toPath(), finalStream);
+        }
+        long bytesWritten = proxyOutputStream.getByteCount();
+        long afterPosition = volumes.getFilePointer();
+        logger.fine("File (" + packFile.getFile() + ") " + beforePosition + " <-> " + afterPosition);
 
-            if (bytesWritten != packFile.length())
-            {
-                throw new IOException("File size mismatch when reading " + file);
-            }
+        if (volumes.getFilePointer() != (beforePosition + bytesWritten))
+        {
+            logger.fine("file: " + file.getName());
+            logger.fine("(Filepos/BytesWritten/ExpectedNewFilePos/NewFilePointer) ("
+                    + beforePosition + "/" + bytesWritten + "/" + (beforePosition + bytesWritten)
+                    + "/" + volumes.getFilePointer() + ")");
+            logger.fine("Volumes (before/after) (" + volumeCount + "/" + volumes.getVolumes() + ")");
+            throw new IOException("Error new file pointer is illegal");
         }
-        finally
+
+        if (bytesRead != packFile.length())
         {
-            IOUtils.closeQuietly(in);
+            throw new IOException("File size mismatch when reading " + file);
         }
+        packFile.setSize(bytesWritten);
     }
 
-}
\ No newline at end of file
+}
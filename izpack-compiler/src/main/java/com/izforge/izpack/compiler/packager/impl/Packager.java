@@ -30,6 +30,7 @@ import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.compiler.data.CompilerData;
 import com.izforge.izpack.compiler.listener.PackagerListener;
 import com.izforge.izpack.compiler.merge.CompilerPathResolver;
+import com.izforge.izpack.compiler.util.BuildCache;
 import com.izforge.izpack.merge.MergeManager;
 import com.izforge.izpack.merge.resolve.MergeableResolver;
 import com.izforge.izpack.util.NoCloseOutputStream;
@@ -78,13 +79,35 @@ public class Packager extends PackagerBase
      * @param pathResolver      the path resolver
      * @param mergeableResolver the mergeable resolver
      * @param compilerData      the compiler data
+     * @param rulesEngine       the rules engine
      */
     public Packager(Properties properties, PackagerListener listener, JarOutputStream jarOutputStream,
                     MergeManager mergeManager, CompilerPathResolver pathResolver, MergeableResolver mergeableResolver,
                     CompilerData compilerData, RulesEngine rulesEngine)
+    {
+        this(properties, listener, jarOutputStream, mergeManager, pathResolver, mergeableResolver,
+             compilerData, rulesEngine, new BuildCache());
+    }
+
+    /**
+     * Constructs a <tt>Packager</tt>.
+     *
+     * @param properties        the properties
+     * @param listener          the packager listener
+     * @param jarOutputStream   the installer jar output stream
+     * @param mergeManager      the merge manager
+     * @param pathResolver      the path resolver
+     * @param mergeableResolver the mergeable resolver
+     * @param compilerData      the compiler data
+     * @param rulesEngine       the rules engine
+     * @param cache             the cache of content derived from files
+     */
+    public Packager(Properties properties, PackagerListener listener, JarOutputStream jarOutputStream,
+                    MergeManager mergeManager, CompilerPathResolver pathResolver, MergeableResolver mergeableResolver,
+                    CompilerData compilerData, RulesEngine rulesEngine, BuildCache cache)
     {
         super(properties, listener, jarOutputStream, mergeManager, pathResolver, mergeableResolver,
-                compilerData, rulesEngine);
+                compilerData, rulesEngine, cache);
         this.compilerData = compilerData;
     }
 
@@ -110,6 +133,23 @@ public class Packager extends PackagerBase
         return jarOutputStream;
     }
 
+    /**
+     * Creates a writer to compress pack files in solid blocks, if the installation requires it.
+     *
+     * @param packOutputStream the pack stream
+     * @return a new writer, or {@code null} if each file is compressed on its own
+     */
+    private SolidBlockWriter createBlockWriter(CountingOutputStream packOutputStream)
+    {
+        PackCompression comprFormat = getInfo().getCompressionFormat();
+        long blockSize = getInfo().getPackCompressionBlockSize();
+        if (comprFormat == PackCompression.DEFAULT || blockSize <= 0)
+        {
+            return null;
+        }
+        return new SolidBlockWriter(packOutputStream, comprFormat, blockSize);
+    }
+
     /**
      * Write packs to the installer jar, or each to a separate jar.
      *
@@ -159,6 +199,7 @@ public class Packager extends PackagerBase
 
             try (CountingOutputStream packOutputStream = new CountingOutputStream(new NoCloseOutputStream(packJar)))
             {
+                SolidBlockWriter blocks = createBlockWriter(packOutputStream);
                 for (PackFile packFile : packInfo.getPackFiles())
                 {
                     boolean addFile = !pack.isLoose();
@@ -195,6 +236,11 @@ public class Packager extends PackagerBase
                             packFile.setStreamOffset(0);
                             pack200Files.add(packFile);
                         }
+                        else if (blocks != null)
+                        {
+                            packFile.setStreamResourceName(streamResourceName);
+                            blocks.write(packFile, file);
+                        }
                         else
                         {
                             packFile.setStreamResourceName(streamResourceName);
@@ -221,6 +267,10 @@ public class Packager extends PackagerBase
                     // even if not written, it counts towards pack size
                     pack.addFileSize(packFile.length());
                 }
+                if (blocks != null)
+                {
+                    blocks.close();
+                }
 
                 if (pack.getFileSize() > pack.getSize())
                 {
@@ -26,11 +26,14 @@ import com.izforge.izpack.api.data.ConsolePrefs;
 import com.izforge.izpack.api.data.DynamicInstallerRequirementValidator;
 import com.izforge.izpack.api.data.DynamicVariable;
 import com.izforge.izpack.api.data.GUIPrefs;
+import com.izforge.izpack.api.data.CompiledLangPack;
 import com.izforge.izpack.api.data.Info;
 import com.izforge.izpack.api.data.InstallerRequirement;
+import com.izforge.izpack.api.data.LocaleDatabase;
 import com.izforge.izpack.api.data.PackInfo;
 import com.izforge.izpack.api.data.Panel;
 import com.izforge.izpack.api.exception.CompilerException;
+import com.izforge.izpack.api.resource.Resources;
 import com.izforge.izpack.api.rules.Condition;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.compiler.data.CompilerData;
@@ -38,21 +41,30 @@ import com.izforge.izpack.compiler.listener.PackagerListener;
 import com.izforge.izpack.compiler.merge.CompilerPathResolver;
 import com.izforge.izpack.compiler.merge.PanelMerge;
 import com.izforge.izpack.compiler.packager.IPackager;
+import com.izforge.izpack.compiler.util.BuildCache;
 import com.izforge.izpack.compiler.util.graph.DependencyGraph;
+import com.izforge.izpack.core.resource.AbstractResources;
 import com.izforge.izpack.data.CustomData;
+import com.izforge.izpack.installer.data.UninstallerSkeleton;
 import com.izforge.izpack.merge.MergeManager;
 import com.izforge.izpack.merge.resolve.MergeableResolver;
+import com.izforge.izpack.merge.resolve.ResolveUtils;
 import com.izforge.izpack.util.FileUtil;
 import com.izforge.izpack.util.NoCloseOutputStream;
+import com.izforge.izpack.util.Platforms;
 import org.apache.commons.io.IOUtils;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.net.URL;
 import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -61,6 +73,8 @@ import java.util.Properties;
 import java.util.jar.Attributes;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 
 /**
@@ -121,6 +135,11 @@ public abstract class PackagerBase implements IPackager
      */
     private final RulesEngine rulesEngine;
 
+    /**
+     * The cache of content derived from files.
+     */
+    private final BuildCache cache;
+
     /**
      * Installer requirements.
      */
@@ -192,11 +211,34 @@ public abstract class PackagerBase implements IPackager
      * @param pathResolver      the path resolver
      * @param mergeableResolver the mergeable resolver
      * @param compilerData      the compiler data
+     * @param rulesEngine       the rules engine
      */
     public PackagerBase(Properties properties, PackagerListener listener, JarOutputStream installerJar,
                         MergeManager mergeManager, CompilerPathResolver pathResolver,
                         MergeableResolver mergeableResolver, CompilerData compilerData,
                         RulesEngine rulesEngine)
+    {
+        this(properties, listener, installerJar, mergeManager, pathResolver, mergeableResolver, compilerData,
+             rulesEngine, new BuildCache());
+    }
+
+    /**
+     * Constructs a <tt>PackagerBase</tt>.
+     *
+     * @param properties        the properties
+     * @param listener          the packager listener
+     * @param installerJar      the installer jar output stream
+     * @param mergeManager      the merge manager
+     * @param pathResolver      the path resolver
+     * @param mergeableResolver the mergeable resolver
+     * @param compilerData      the compiler data
+     * @param rulesEngine       the rules engine
+     * @param cache             the cache of content derived from files
+     */
+    public PackagerBase(Properties properties, PackagerListener listener, JarOutputStream installerJar,
+                        MergeManager mergeManager, CompilerPathResolver pathResolver,
+                        MergeableResolver mergeableResolver, CompilerData compilerData,
+                        RulesEngine rulesEngine, BuildCache cache)
     {
         this.properties = properties;
         this.listener = listener;
@@ -206,6 +248,7 @@ public abstract class PackagerBase implements IPackager
         this.mergeableResolver = mergeableResolver;
         this.compilerData = compilerData;
         this.rulesEngine = rulesEngine;
+        this.cache = cache;
     }
 
     @Override
@@ -364,16 +407,82 @@ public abstract class PackagerBase implements IPackager
     public final void createInstaller() throws Exception
     {
         info.setInstallerBase(compilerData.getOutput().replaceAll(".jar", ""));
+        List<PlatformVariant> variants = getPlatformVariants();
         try
         {
             sendStart();
             writeInstaller();
-            sendStop();
         }
         finally
         {
             installerJar.close();
         }
+        writePlatformInstallers(variants);
+        sendStop();
+    }
+
+    /**
+     * Determines if installers for single platforms can be derived from the installer.
+     * <p/>
+     * This requires that all packs are stored in the installer jar.
+     *
+     * @return <tt>true</tt> if platform installers are supported
+     */
+    protected boolean canSlicePlatforms()
+    {
+        return !packSeparateJars();
+    }
+
+    /**
+     * Returns the platforms to write installers for, as specified by the compiler data.
+     *
+     * @return the platform variants. May be empty
+     * @throws CompilerException if a platform is not recognised, or platform installers are not supported
+     */
+    private List<PlatformVariant> getPlatformVariants()
+    {
+        List<PlatformVariant> result = new ArrayList<>();
+        List<String> ids = compilerData.getPlatforms();
+        if (ids != null && !ids.isEmpty())
+        {
+            if (!canSlicePlatforms())
+            {
+                throw new CompilerException("Platform installers are not supported by " + getClass().getSimpleName()
+                                                    + " or web installers");
+            }
+            Platforms platforms = new Platforms();
+            for (String id : ids)
+            {
+                result.add(PlatformVariant.parse(id, platforms));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes an installer for each platform, from the installer just written.
+     * <p/>
+     * Each is named after the installer, with the platform identifier appended.
+     *
+     * @param variants the platforms
+     * @throws IOException for any I/O error
+     */
+    private void writePlatformInstallers(List<PlatformVariant> variants) throws IOException
+    {
+        if (variants.isEmpty())
+        {
+            return;
+        }
+        File installer = new File(compilerData.getOutput());
+        String base = installer.getName().replaceAll("\\.jar$", "");
+        int level = compilerData.getComprLevel();
+        PlatformSlicer slicer = new PlatformSlicer(level >= 0 && level < 10 ? level : Deflater.BEST_COMPRESSION);
+        for (PlatformVariant variant : variants)
+        {
+            File target = new File(installer.getParentFile(), base + "-" + variant.getId() + ".jar");
+            sendMsg("Writing installer for " + variant.getId() + ": " + target);
+            slicer.write(installer, target, variant);
+        }
     }
 
     /**
@@ -434,9 +543,13 @@ public abstract class PackagerBase implements IPackager
         writeInstallerObject("installerrequirements", installerRequirements);
 
         writeInstallerResources();
+        writeUninstallerSkeletons();
 
         // Pack File Data may be written to separate jars
         writePacks(installerJar);
+
+        // MUST be last so that it includes all other resources
+        writeResourceIndex();
     }
 
     /**
@@ -472,6 +585,8 @@ public abstract class PackagerBase implements IPackager
         mergeManager.addResourceToMerge("org/apache/commons/io/");
         mergeManager.addResourceToMerge("jline/");
         mergeManager.addResourceToMerge("org/fusesource/");
+        // the uninstaller skeletons are copied using commons-compress
+        boolean compress = info.getUninstallerPath() != null;
         switch (info.getCompressionFormat())
         {
             case DEFAULT:
@@ -479,8 +594,18 @@ public abstract class PackagerBase implements IPackager
             case XZ:
             case LZMA:
                 mergeManager.addResourceToMerge("org/tukaani/xz");
+                compress = true;
+                break;
+            case LZ4_FRAMED:
+            case SNAPPY_FRAMED:
+                // the frame checksums are provided by commons-codec
+                mergeManager.addResourceToMerge("org/apache/commons/codec/digest");
             default:
-                mergeManager.addResourceToMerge("org/apache/commons/compress");
+                compress = true;
+        }
+        if (compress)
+        {
+            mergeManager.addResourceToMerge("org/apache/commons/compress");
         }
         mergeManager.addResourceToMerge("META-INF/native/");
         mergeManager.merge(installerJar);
@@ -509,6 +634,23 @@ public abstract class PackagerBase implements IPackager
         }
     }
 
+    /**
+     * Writes the index of the resources in the installer jar, if the jar stream records them.
+     * <p/>
+     * The installer uses the index to determine if a resource exists without searching the class path, which
+     * matters for localised resources, where most variants don't exist.
+     *
+     * @throws IOException for any I/O error
+     */
+    protected final void writeResourceIndex() throws IOException
+    {
+        if (installerJar instanceof IndexingJarOutputStream)
+        {
+            List<String> resources = ((IndexingJarOutputStream) installerJar).getResources();
+            writeInstallerObject(AbstractResources.RESOURCE_INDEX, new ArrayList<>(resources));
+        }
+    }
+
     /**
      * Write the data referenced by URL to installer jar.
      *
@@ -533,7 +675,20 @@ public abstract class PackagerBase implements IPackager
                 try
                 {
                     installerJar.putNextEntry(newEntry);
-                    IOUtils.copy(in, installerJar);
+                    if (isLangPack(stringURLEntry.getKey()))
+                    {
+                        // precompile langpacks so that the installer needn't parse their XML
+                        installerJar.write(cache.get("langpack:" + url, BuildCache.fingerprint(url), () ->
+                        {
+                            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                            CompiledLangPack.write(new LocaleDatabase(in, null), bytes);
+                            return bytes.toByteArray();
+                        }));
+                    }
+                    else
+                    {
+                        IOUtils.copy(in, installerJar);
+                    }
                 }
                 finally
                 {
@@ -543,6 +698,80 @@ public abstract class PackagerBase implements IPackager
         }
     }
 
+    /**
+     * Writes the pre-built uninstaller skeletons to the installer jar, if the installer writes an uninstaller.
+     * <p/>
+     * Each skeleton is a jar. It is stored in the installer jar without being compressed again, so that the
+     * installer can copy its entries to the uninstaller as they are.
+     *
+     * @throws IOException for any I/O error
+     */
+    protected final void writeUninstallerSkeletons() throws IOException
+    {
+        if (info.getUninstallerPath() == null)
+        {
+            return;
+        }
+        sendMsg("Building the uninstaller skeleton", PackagerListener.MSG_VERBOSE);
+
+        // the uninstaller manifest, with the additional manifest entries
+        String manifest;
+        try (InputStream in = PackagerBase.class.getResourceAsStream("/uninstaller-META-INF/MANIFEST.MF"))
+        {
+            manifest = compilerData.getTempManifestFileWithAdditionalEntries(in);
+        }
+
+        // the skeletons are built from the class path, so can be reused while it and the manifest are unchanged
+        String fingerprint = BuildCache.fingerprint(ResolveUtils.getClassPathUrl());
+        if (fingerprint != null)
+        {
+            fingerprint += new String(Files.readAllBytes(Paths.get(manifest)), StandardCharsets.UTF_8);
+        }
+        for (UninstallerSkeleton skeleton : UninstallerSkeleton.values())
+        {
+            byte[] content = cache.get("uninstaller:" + skeleton.name(), fingerprint, () ->
+            {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (JarOutputStream jar = new JarOutputStream(bytes))
+                {
+                    jar.setLevel(9);
+                    skeleton.merge(pathResolver, jar, manifest);
+                }
+                return bytes.toByteArray();
+            });
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            ZipEntry entry = new ZipEntry(RESOURCES_PATH + skeleton.getResourceName());
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            entry.setCompressedSize(content.length);
+            entry.setCrc(crc.getValue());
+            installerJar.putNextEntry(entry);
+            try
+            {
+                installerJar.write(content);
+            }
+            finally
+            {
+                installerJar.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Determines if an installer resource is a langpack.
+     *
+     * @param resourceId the resource identifier
+     * @return {@code true} if the resource is a langpack or a custom, user input or pack translation
+     */
+    private static boolean isLangPack(String resourceId)
+    {
+        return (resourceId.startsWith("langpacks/") && resourceId.endsWith(".xml"))
+                || resourceId.startsWith(Resources.CUSTOM_TRANSLATIONS_RESOURCE_NAME)
+                || resourceId.startsWith(Resources.USER_INPUT_TRANSLATIONS_RESOURCE_NAME)
+                || resourceId.startsWith(Resources.PACK_TRANSLATIONS_RESOURCE_NAME);
+    }
+
     /**
      * Write packs to the installer jar, or each to a separate jar.
      *
@@ -0,0 +1,529 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.packager.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.IOUtils;
+
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.PackInfo;
+import com.izforge.izpack.core.resource.AbstractResources;
+import com.izforge.izpack.util.NoCloseOutputStream;
+
+
+/**
+ * Writes an installer for a single platform, from an installer for all platforms.
+ * <p/>
+ * Files whose OS constraints can never match the platform, or whose condition is a built-in OS condition that is
+ * always false on it, are removed, along with their data. Packs whose OS constraints can never match keep their
+ * metadata, so that the installer behaves as before, but lose their files. Built-in OS conditions that are always
+ * true on the platform are removed from files.
+ * <p/>
+ * The data of the remaining files is copied as it is, so that files are neither read from their sources nor
+ * compressed again. Entries other than pack streams are copied without being decompressed.
+ */
+class PlatformSlicer
+{
+    /**
+     * The path of the pack streams in the installer.
+     */
+    private static final String PACKS_PATH = PackagerBase.RESOURCES_PATH + "packs/";
+
+    /**
+     * The path of the resource index in the installer.
+     */
+    private static final String RESOURCE_INDEX = PackagerBase.RESOURCES_PATH + AbstractResources.RESOURCE_INDEX;
+
+    /**
+     * The compression level for rewritten entries.
+     */
+    private final int level;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(PlatformSlicer.class.getName());
+
+    /**
+     * Constructs a {@code PlatformSlicer}.
+     *
+     * @param level the compression level for rewritten entries
+     */
+    PlatformSlicer(int level)
+    {
+        this.level = level;
+    }
+
+    /**
+     * Writes an installer for a platform.
+     *
+     * @param source  the installer for all platforms
+     * @param target  the installer to write
+     * @param variant the platform
+     * @throws IOException for any I/O error
+     */
+    void write(File source, File target, PlatformVariant variant) throws IOException
+    {
+        try (ZipFile jar = ZipFile.builder().setFile(source).get();
+             ZipArchiveOutputStream out = new ZipArchiveOutputStream(target))
+        {
+            out.setLevel(level);
+            List<PackInfo> packs = readPacks(jar);
+            Map<String, Stream> streams = slice(packs, variant);
+            Set<String> pack200 = getPack200Streams(packs);
+            List<String> resources = new ArrayList<>();
+
+            Enumeration<ZipArchiveEntry> entries = jar.getEntriesInPhysicalOrder();
+            while (entries.hasMoreElements())
+            {
+                ZipArchiveEntry entry = entries.nextElement();
+                String name = entry.getName();
+                Stream stream = streams.get(name);
+                boolean write = true;
+                if (name.equals(PackagerBase.PACKSINFO_RESOURCE_PATH))
+                {
+                    try (ObjectOutputStream objectOut = new ObjectOutputStream(
+                            new NoCloseOutputStream(putEntry(out, entry))))
+                    {
+                        objectOut.writeObject(packs);
+                    }
+                    out.closeArchiveEntry();
+                }
+                else if (name.equals(RESOURCE_INDEX))
+                {
+                    try (ObjectOutputStream objectOut = new ObjectOutputStream(
+                            new NoCloseOutputStream(putEntry(out, entry))))
+                    {
+                        objectOut.writeObject(resources);
+                    }
+                    out.closeArchiveEntry();
+                    write = false;
+                }
+                else if (stream != null)
+                {
+                    if (stream.isEmpty())
+                    {
+                        write = false;
+                    }
+                    else if (stream.isUnchanged(entry.getSize()))
+                    {
+                        copy(jar, entry, out);
+                    }
+                    else
+                    {
+                        stream.write(jar, entry, putEntry(out, entry));
+                        out.closeArchiveEntry();
+                    }
+                }
+                else if (name.startsWith(PACKS_PATH + "pack200-") && !pack200.contains(name))
+                {
+                    write = false;
+                }
+                else
+                {
+                    copy(jar, entry, out);
+                }
+                if (write && name.startsWith(PackagerBase.RESOURCES_PATH) && !entry.isDirectory())
+                {
+                    resources.add(name.substring(PackagerBase.RESOURCES_PATH.length()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the files that are not required on a platform, and lays out their pack streams again.
+     *
+     * @param packs   the packs
+     * @param variant the platform
+     * @return the pack streams, keyed on entry name
+     */
+    private Map<String, Stream> slice(List<PackInfo> packs, PlatformVariant variant)
+    {
+        Map<String, Stream> streams = new LinkedHashMap<>();
+        Set<PackFile> kept = new HashSet<>();
+        for (PackInfo packInfo : packs)
+        {
+            Pack pack = packInfo.getPack();
+            boolean available = variant.mayMatch(pack.getOsConstraints());
+            String name = PACKS_PATH + "pack-" + pack.getName();
+            Stream stream = new Stream(available);
+            streams.put(name, stream);
+
+            long fileSize = 0;
+            int removed = 0;
+            Iterator<PackFile> iterator = packInfo.getPackFiles().iterator();
+            while (iterator.hasNext())
+            {
+                PackFile file = iterator.next();
+                Boolean condition = variant.evaluate(file.getCondition());
+                if (available && variant.mayMatch(file.osConstraints()) && condition != Boolean.FALSE)
+                {
+                    if (condition == Boolean.TRUE)
+                    {
+                        file.setCondition(null);
+                    }
+                    kept.add(file);
+                    fileSize += file.length();
+                    if (hasData(file, pack))
+                    {
+                        stream.add(file, true);
+                    }
+                }
+                else
+                {
+                    iterator.remove();
+                    ++removed;
+                }
+            }
+            if (pack.getSize() == pack.getFileSize())
+            {
+                pack.setSize(fileSize);
+            }
+            pack.setFileSize(fileSize);
+            if (removed != 0)
+            {
+                logger.fine("Removed " + removed + " file(s) from pack " + pack.getName() + " for platform "
+                                    + variant.getId());
+            }
+        }
+
+        // removed files that back references remain linked to are kept at the end of their streams, so that they
+        // are not read in sequence
+        for (PackFile file : kept)
+        {
+            PackFile linked = file.getLinkedPackFile();
+            if (linked != null && !kept.contains(linked) && !linked.isPack200Jar() && linked.getStreamOffset() >= 0)
+            {
+                Stream stream = streams.get(PackagerBase.RESOURCES_PATH + linked.getStreamResourceName());
+                if (stream != null)
+                {
+                    stream.add(linked, false);
+                }
+            }
+        }
+        for (Stream stream : streams.values())
+        {
+            stream.layout();
+        }
+        return streams;
+    }
+
+    /**
+     * Returns the names of the pack200 streams that are still referenced.
+     *
+     * @param packs the packs
+     * @return the pack200 stream entry names
+     */
+    private Set<String> getPack200Streams(List<PackInfo> packs)
+    {
+        Set<String> result = new HashSet<>();
+        for (PackInfo packInfo : packs)
+        {
+            for (PackFile file : packInfo.getPackFiles())
+            {
+                PackFile data = file.isBackReference() ? file.getLinkedPackFile() : file;
+                if (data.isPack200Jar() && data.getStreamResourceName() != null)
+                {
+                    result.add(PackagerBase.RESOURCES_PATH + data.getStreamResourceName());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Determines if a file has data in its pack stream.
+     *
+     * @param file the file
+     * @param pack the pack
+     * @return {@code true} if the file has data in the pack stream
+     */
+    private static boolean hasData(PackFile file, Pack pack)
+    {
+        return !pack.isLoose() && !file.isDirectory() && !file.isBackReference() && !file.isPack200Jar()
+                && file.getStreamOffset() >= 0;
+    }
+
+    /**
+     * Reads the pack metadata.
+     *
+     * @param jar the installer
+     * @return the packs
+     * @throws IOException for any I/O error
+     */
+    @SuppressWarnings("unchecked")
+    private static List<PackInfo> readPacks(ZipFile jar) throws IOException
+    {
+        ZipArchiveEntry entry = jar.getEntry(PackagerBase.PACKSINFO_RESOURCE_PATH);
+        if (entry == null)
+        {
+            throw new IOException("Installer has no pack metadata: " + PackagerBase.PACKSINFO_RESOURCE_PATH);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(jar.getInputStream(entry)))
+        {
+            return (List<PackInfo>) in.readObject();
+        }
+        catch (ClassNotFoundException exception)
+        {
+            throw new IOException("Failed to read pack metadata", exception);
+        }
+    }
+
+    /**
+     * Starts a rewritten entry.
+     *
+     * @param out   the installer being written
+     * @param entry the original entry
+     * @return the stream to write the entry content to
+     */
+    private static OutputStream putEntry(ZipArchiveOutputStream out, ZipArchiveEntry entry) throws IOException
+    {
+        ZipArchiveEntry result = new ZipArchiveEntry(entry.getName());
+        result.setMethod(ZipEntry.DEFLATED);
+        result.setTime(entry.getTime());
+        out.putArchiveEntry(result);
+        return out;
+    }
+
+    /**
+     * Copies an entry without decompressing it.
+     *
+     * @param jar   the installer being read
+     * @param entry the entry
+     * @param out   the installer being written
+     * @throws IOException for any I/O error
+     */
+    private static void copy(ZipFile jar, ZipArchiveEntry entry, ZipArchiveOutputStream out) throws IOException
+    {
+        try (InputStream in = jar.getRawInputStream(entry))
+        {
+            out.addRawArchiveEntry(entry, in);
+        }
+    }
+
+    /**
+     * The layout of a pack stream for a platform.
+     * <p/>
+     * A stream is made of segments. A segment is the data of a file, or of a solid block shared by several files.
+     * Segments of files listed in the pack are written in their original order, followed by the segments of removed
+     * files that back references still link to.
+     */
+    private static class Stream
+    {
+        /**
+         * Determines if the pack is available on the platform.
+         */
+        private final boolean available;
+
+        /**
+         * The files of listed segments, keyed on original offset.
+         */
+        private final TreeMap<Long, List<PackFile>> listed = new TreeMap<>();
+
+        /**
+         * The files of segments only read by back references, keyed on original offset.
+         */
+        private final TreeMap<Long, List<PackFile>> linked = new TreeMap<>();
+
+        /**
+         * The segment sizes, keyed on original offset.
+         */
+        private final Map<Long, Long> sizes = new HashMap<>();
+
+        /**
+         * The new offsets of the segments, keyed on original offset.
+         */
+        private final Map<Long, Long> offsets = new HashMap<>();
+
+        /**
+         * The stream length, once laid out.
+         */
+        private long length;
+
+        /**
+         * Constructs a {@code Stream}.
+         *
+         * @param available determines if the pack is available on the platform
+         */
+        Stream(boolean available)
+        {
+            this.available = available;
+        }
+
+        /**
+         * Adds the segment of a file.
+         *
+         * @param file   the file
+         * @param listed {@code true} if the file is listed in the pack, {@code false} if it is only linked to
+         */
+        void add(PackFile file, boolean listed)
+        {
+            long offset = file.getStreamOffset();
+            sizes.put(offset, file.size());
+            TreeMap<Long, List<PackFile>> segments = listed ? this.listed : this.linked;
+            List<PackFile> files = segments.get(offset);
+            if (files == null)
+            {
+                files = new ArrayList<>();
+                segments.put(offset, files);
+            }
+            files.add(file);
+        }
+
+        /**
+         * Assigns new offsets to the segments, and updates the files.
+         */
+        void layout()
+        {
+            length = 0;
+            layout(listed);
+            for (Map.Entry<Long, List<PackFile>> entry : linked.entrySet())
+            {
+                if (listed.containsKey(entry.getKey()))
+                {
+                    // the segment is already written for a listed file in the same solid block
+                    for (PackFile file : entry.getValue())
+                    {
+                        file.setStreamOffset(offsets.get(entry.getKey()));
+                    }
+                }
+            }
+            linked.keySet().removeAll(listed.keySet());
+            layout(linked);
+        }
+
+        /**
+         * Determines if the stream is not needed.
+         *
+         * @return {@code true} if the pack is not available and no back references link to the stream
+         */
+        boolean isEmpty()
+        {
+            return !available && offsets.isEmpty();
+        }
+
+        /**
+         * Determines if the stream is the same as the original.
+         *
+         * @param size the original stream size
+         * @return {@code true} if the stream is the same as the original
+         */
+        boolean isUnchanged(long size)
+        {
+            if (length != size)
+            {
+                return false;
+            }
+            for (Map.Entry<Long, Long> entry : offsets.entrySet())
+            {
+                if (!entry.getKey().equals(entry.getValue()))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Writes the stream.
+         *
+         * @param jar   the installer being read
+         * @param entry the original stream entry
+         * @param out   the stream to write to
+         * @throws IOException for any I/O error
+         */
+        void write(ZipFile jar, ZipArchiveEntry entry, OutputStream out) throws IOException
+        {
+            // the segments are written in two passes, as each is in ascending order of original offset
+            copy(jar, entry, listed, out);
+            copy(jar, entry, linked, out);
+        }
+
+        /**
+         * Assigns new offsets to segments, and updates their files.
+         *
+         * @param segments the segments
+         */
+        private void layout(TreeMap<Long, List<PackFile>> segments)
+        {
+            for (Map.Entry<Long, List<PackFile>> entry : segments.entrySet())
+            {
+                offsets.put(entry.getKey(), length);
+                for (PackFile file : entry.getValue())
+                {
+                    file.setStreamOffset(length);
+                }
+                length += sizes.get(entry.getKey());
+            }
+        }
+
+        /**
+         * Copies segments from the original stream.
+         *
+         * @param jar      the installer being read
+         * @param entry    the original stream entry
+         * @param segments the segments
+         * @param out      the stream to write to
+         * @throws IOException for any I/O error
+         */
+        private void copy(ZipFile jar, ZipArchiveEntry entry, TreeMap<Long, List<PackFile>> segments,
+                          OutputStream out) throws IOException
+        {
+            if (segments.isEmpty())
+            {
+                return;
+            }
+            try (InputStream in = jar.getInputStream(entry))
+            {
+                long position = 0;
+                for (Long offset : segments.keySet())
+                {
+                    IOUtils.skipFully(in, offset - position);
+                    long size = sizes.get(offset);
+                    IOUtils.copyLarge(in, out, 0, size);
+                    position = offset + size;
+                }
+            }
+        }
+    }
+}
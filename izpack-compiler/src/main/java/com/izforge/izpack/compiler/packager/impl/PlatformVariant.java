@@ -0,0 +1,229 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.packager.impl;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import com.izforge.izpack.api.data.binding.OsModel;
+import com.izforge.izpack.api.exception.CompilerException;
+import com.izforge.izpack.core.rules.RulesEngineImpl;
+import com.izforge.izpack.util.Platform;
+import com.izforge.izpack.util.Platform.Arch;
+import com.izforge.izpack.util.Platform.Name;
+import com.izforge.izpack.util.Platforms;
+
+
+/**
+ * A platform that an installer variant is written for, e.g. <em>linux-x64</em>, <em>windows</em> or <em>mac</em>.
+ * <p/>
+ * The platform is only partly known at compile time: a <em>linux</em> installer may run on any Linux distribution,
+ * architecture and version. So OS constraints and built-in OS conditions are evaluated to one of: true on every
+ * platform the variant may run on, false on every such platform, or unknown. Only the first two are folded.
+ */
+class PlatformVariant
+{
+    /**
+     * The variant identifier, as specified.
+     */
+    private final String id;
+
+    /**
+     * The architecture, or {@code null} if any architecture is supported.
+     */
+    private final Arch arch;
+
+    /**
+     * The platform names the installer may report at runtime.
+     */
+    private final Set<Name> names = EnumSet.noneOf(Name.class);
+
+    /**
+     * The platforms.
+     */
+    private final Platforms platforms;
+
+    /**
+     * Constructs a {@code PlatformVariant}.
+     *
+     * @param id        the variant identifier
+     * @param name      the platform family name
+     * @param arch      the architecture, or {@code null} if any architecture is supported
+     * @param platforms the platforms
+     */
+    PlatformVariant(String id, Name name, Arch arch, Platforms platforms)
+    {
+        this.id = id;
+        this.arch = arch;
+        this.platforms = platforms;
+        for (Name other : Name.values())
+        {
+            if (other.isA(name))
+            {
+                names.add(other);
+            }
+        }
+    }
+
+    /**
+     * Parses a variant identifier of the form <em>name[-arch]</em>, e.g. <em>linux-x64</em> or <em>mac</em>.
+     *
+     * @param id        the variant identifier
+     * @param platforms the platforms
+     * @return the corresponding variant
+     * @throws CompilerException if the platform name is not recognised
+     */
+    static PlatformVariant parse(String id, Platforms platforms)
+    {
+        String name = id;
+        Arch arch = null;
+        int index = id.lastIndexOf('-');
+        if (index > 0)
+        {
+            Arch suffix = platforms.getArch(id.substring(index + 1));
+            if (suffix != Arch.UNKNOWN)
+            {
+                name = id.substring(0, index);
+                arch = suffix;
+            }
+        }
+        Name platformName = platforms.getName(name);
+        if (platformName == Name.UNKNOWN)
+        {
+            throw new CompilerException("Unrecognised platform: " + id);
+        }
+        return new PlatformVariant(id, platformName, arch, platforms);
+    }
+
+    /**
+     * Returns the variant identifier.
+     *
+     * @return the variant identifier
+     */
+    public String getId()
+    {
+        return id;
+    }
+
+    /**
+     * Determines if OS constraints may match a platform the variant runs on.
+     * <p/>
+     * This mirrors {@link com.izforge.izpack.util.PlatformModelMatcher#matches}, treating anything that can only be
+     * determined at runtime as a match.
+     *
+     * @param models the OS constraints. May be {@code null}
+     * @return {@code false} if the constraints can never match, otherwise {@code true}
+     */
+    public boolean mayMatch(List<OsModel> models)
+    {
+        if (models == null || models.isEmpty())
+        {
+            return true;
+        }
+        for (OsModel model : models)
+        {
+            if (mayMatch(model))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evaluates a built-in OS condition for the variant.
+     *
+     * @param conditionId the condition identifier. May be {@code null}
+     * @return {@code TRUE} if the condition is true on every platform the variant may run on, {@code FALSE} if it is
+     *         false on every such platform, or {@code null} if it isn't a built-in OS condition or can only be
+     *         determined at runtime
+     */
+    public Boolean evaluate(String conditionId)
+    {
+        Platform platform = (conditionId != null) ? RulesEngineImpl.PLATFORM_CONDITIONS.get(conditionId) : null;
+        if (platform == null)
+        {
+            return null;
+        }
+        boolean any = false;
+        boolean all = true;
+        for (Name name : names)
+        {
+            if (name.isA(platform.getName()))
+            {
+                any = true;
+            }
+            else
+            {
+                all = false;
+            }
+        }
+        if (!any || (arch != null && platform.getArch() != Arch.UNKNOWN && platform.getArch() != arch))
+        {
+            return Boolean.FALSE;
+        }
+        if (all && platform.getSymbolicName() == null && platform.getVersion() == null
+                && platform.getArch() == Arch.UNKNOWN && platform.getJavaVersion() == null)
+        {
+            return Boolean.TRUE;
+        }
+        return null;
+    }
+
+    /**
+     * Determines if an OS constraint may match a platform the variant runs on.
+     *
+     * @param model the OS constraint
+     * @return {@code false} if the constraint can never match, otherwise {@code true}
+     */
+    private boolean mayMatch(OsModel model)
+    {
+        if (model.getFamily() == null && model.getName() == null && model.getVersion() == null
+                && model.getArch() == null && model.getJre() == null)
+        {
+            // never matches at runtime
+            return false;
+        }
+        if (arch != null && model.getArch() != null && model.getArch().length() != 0
+                && platforms.getArch(model.getArch()) != arch)
+        {
+            return false;
+        }
+        if (model.getName() != null && model.getName().length() != 0
+                && !names.contains(platforms.getName(model.getName())))
+        {
+            return false;
+        }
+        if (model.getFamily() != null)
+        {
+            Name family = platforms.getName(model.getFamily());
+            for (Name name : names)
+            {
+                if (name.isA(family))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+}
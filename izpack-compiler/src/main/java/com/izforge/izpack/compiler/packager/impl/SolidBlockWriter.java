@@ -0,0 +1,169 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.packager.impl;
+
+import com.izforge.izpack.api.data.PackCompression;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.util.NoCloseOutputStream;
+import com.izforge.izpack.util.StreamSupport;
+import org.apache.commons.io.output.CountingOutputStream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+
+/**
+ * Writes pack files to a pack stream in solid blocks.
+ * <p/>
+ * Files are appended to the current block until its uncompressed size reaches the block size, and each block is
+ * compressed as a single stream. Every file in a block has the stream offset and compressed size of the block, and
+ * its own offset within the uncompressed block.
+ */
+class SolidBlockWriter implements Closeable
+{
+    /**
+     * The pack stream.
+     */
+    private final CountingOutputStream packStream;
+
+    /**
+     * The compression format.
+     */
+    private final PackCompression format;
+
+    /**
+     * The uncompressed block size.
+     */
+    private final long blockSize;
+
+    /**
+     * Counts the compressed bytes of the current block.
+     */
+    private CountingOutputStream compressed;
+
+    /**
+     * The compressor for the current block, or {@code null} if no block is open.
+     */
+    private OutputStream compressor;
+
+    /**
+     * The stream offset of the current block.
+     */
+    private long blockStart;
+
+    /**
+     * The uncompressed size of the current block.
+     */
+    private long blockLength;
+
+    /**
+     * The files in the current block.
+     */
+    private final List<PackFile> files = new ArrayList<PackFile>();
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(SolidBlockWriter.class.getName());
+
+    /**
+     * Constructs a {@code SolidBlockWriter}.
+     *
+     * @param packStream the pack stream
+     * @param format     the compression format
+     * @param blockSize  the uncompressed block size
+     */
+    SolidBlockWriter(CountingOutputStream packStream, PackCompression format, long blockSize)
+    {
+        this.packStream = packStream;
+        this.format = format;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Appends a file to the current block, starting a new block if required.
+     *
+     * @param packFile the pack file
+     * @param file     the file to write
+     * @throws IOException for any I/O error
+     */
+    void write(PackFile packFile, Path file) throws IOException
+    {
+        if (compressor == null)
+        {
+            blockStart = packStream.getByteCount();
+            blockLength = 0;
+            compressed = new CountingOutputStream(new NoCloseOutputStream(packStream));
+            compressor = StreamSupport.compressedOutput(format, compressed);
+        }
+        packFile.setStreamOffset(blockStart);
+        packFile.setBlockOffset(blockLength);
+        long bytesWritten = Files.copy(file, compressor);
+        if (bytesWritten != packFile.length())
+        {
+            throw new IOException("File size mismatch when reading " + file);
+        }
+        blockLength += bytesWritten;
+        files.add(packFile);
+        if (blockLength >= blockSize)
+        {
+            closeBlock();
+        }
+    }
+
+    /**
+     * Closes the current block, if any.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Override
+    public void close() throws IOException
+    {
+        closeBlock();
+    }
+
+    /**
+     * Closes the current block, and sets the compressed size of each of its files.
+     *
+     * @throws IOException for any I/O error
+     */
+    private void closeBlock() throws IOException
+    {
+        if (compressor != null)
+        {
+            compressor.close();
+            compressor = null;
+            long size = compressed.getByteCount();
+            for (PackFile file : files)
+            {
+                file.setSize(size);
+            }
+            logger.fine("Block at " + blockStart + " with " + files.size() + " files compressed as "
+                                + format.toName() + " (" + blockLength + " -> " + size + " bytes)");
+            files.clear();
+        }
+    }
+}
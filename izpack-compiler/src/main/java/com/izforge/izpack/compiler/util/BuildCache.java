@@ -0,0 +1,326 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+
+/**
+ * Caches content derived from files, such as compiled langpacks and uninstaller skeletons, between builds.
+ * <p/>
+ * Each entry records a fingerprint of the files it was derived from: their paths, sizes and modification times.
+ * An entry is only reused if the fingerprint is unchanged, so that a long running compiler, such as the
+ * {@link com.izforge.izpack.compiler.bootstrap.CompilerDaemon}, picks up changed files.
+ * <p/>
+ * The least recently used entries are discarded when the cache is full.
+ */
+public class BuildCache
+{
+    /**
+     * The default maximum number of entries.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    /**
+     * The entries, in order of access.
+     */
+    private final Map<String, Content> entries;
+
+    /**
+     * The number of requests satisfied from the cache.
+     */
+    private int hits;
+
+    /**
+     * The number of requests that required the content to be loaded.
+     */
+    private int misses;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(BuildCache.class.getName());
+
+    /**
+     * Constructs a {@code BuildCache} holding up to {@link #DEFAULT_MAX_ENTRIES} entries.
+     */
+    public BuildCache()
+    {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructs a {@code BuildCache}.
+     *
+     * @param maxEntries the maximum number of entries
+     */
+    public BuildCache(final int maxEntries)
+    {
+        entries = new LinkedHashMap<String, Content>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Content> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Loads content.
+     */
+    public interface Loader
+    {
+        /**
+         * Loads the content.
+         *
+         * @return the content
+         * @throws IOException for any I/O error
+         */
+        byte[] load() throws IOException;
+    }
+
+    /**
+     * Returns cached content, loading it if it isn't cached or its fingerprint has changed.
+     * <p/>
+     * The returned content must not be modified.
+     *
+     * @param key         the key
+     * @param fingerprint the fingerprint of the files the content is derived from. If {@code null}, the content is
+     *                    loaded and not cached
+     * @param loader      the loader
+     * @return the content
+     * @throws IOException for any I/O error
+     */
+    public byte[] get(String key, String fingerprint, Loader loader) throws IOException
+    {
+        if (fingerprint != null)
+        {
+            synchronized (entries)
+            {
+                Content entry = entries.get(key);
+                if (entry != null && entry.fingerprint.equals(fingerprint))
+                {
+                    ++hits;
+                    return entry.content;
+                }
+                ++misses;
+            }
+        }
+        byte[] content = loader.load();
+        if (fingerprint != null)
+        {
+            synchronized (entries)
+            {
+                entries.put(key, new Content(fingerprint, content));
+            }
+            logger.fine("Cached " + key);
+        }
+        return content;
+    }
+
+    /**
+     * Returns the number of requests satisfied from the cache.
+     *
+     * @return the number of hits
+     */
+    public int getHits()
+    {
+        synchronized (entries)
+        {
+            return hits;
+        }
+    }
+
+    /**
+     * Returns the number of requests that required the content to be loaded.
+     *
+     * @return the number of misses
+     */
+    public int getMisses()
+    {
+        synchronized (entries)
+        {
+            return misses;
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear()
+    {
+        synchronized (entries)
+        {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the fingerprint of a file, or of the jar containing a <em>jar:</em> URL.
+     * <p/>
+     * The fingerprint of a directory covers the files it contains.
+     *
+     * @param url the URL
+     * @return the fingerprint, or {@code null} if the URL doesn't refer to a local file
+     */
+    public static String fingerprint(URL url)
+    {
+        return fingerprint(Collections.singletonList(url));
+    }
+
+    /**
+     * Returns the fingerprint of several files.
+     *
+     * @param urls the file URLs
+     * @return the fingerprint, or {@code null} if any URL doesn't refer to a local file
+     * @see #fingerprint(URL)
+     */
+    public static String fingerprint(Collection<URL> urls)
+    {
+        List<String> files = new ArrayList<>();
+        for (URL url : urls)
+        {
+            File file = getFile(url);
+            if (file == null)
+            {
+                return null;
+            }
+            files.add(fingerprint(file));
+        }
+        // the order of class path URLs isn't significant for the content they provide
+        Collections.sort(files);
+        StringBuilder result = new StringBuilder();
+        for (String file : files)
+        {
+            result.append(file).append('\n');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the fingerprint of a file.
+     *
+     * @param file the file
+     * @return the fingerprint
+     */
+    private static String fingerprint(File file)
+    {
+        if (file.isDirectory())
+        {
+            long[] summary = new long[3];
+            summarise(file, summary);
+            return file.getPath() + ":" + summary[0] + ":" + summary[1] + ":" + summary[2];
+        }
+        return file.getPath() + ":" + file.length() + ":" + file.lastModified();
+    }
+
+    /**
+     * Accumulates the number, total size and latest modification time of the files in a directory.
+     *
+     * @param dir     the directory
+     * @param summary the count, size and modification time
+     */
+    private static void summarise(File dir, long[] summary)
+    {
+        File[] files = dir.listFiles();
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                if (file.isDirectory())
+                {
+                    summarise(file, summary);
+                }
+                else
+                {
+                    ++summary[0];
+                    summary[1] += file.length();
+                    summary[2] = Math.max(summary[2], file.lastModified());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the local file that a URL refers to.
+     *
+     * @param url the URL
+     * @return the file, or the jar file for <em>jar:</em> URLs, or {@code null} if the URL isn't for a local file
+     */
+    public static File getFile(URL url)
+    {
+        try
+        {
+            if ("jar".equals(url.getProtocol()))
+            {
+                url = ((JarURLConnection) url.openConnection()).getJarFileURL();
+            }
+            if ("file".equals(url.getProtocol()))
+            {
+                return new File(url.toURI());
+            }
+        }
+        catch (IOException | URISyntaxException | IllegalArgumentException ignore)
+        {
+            // not a local file
+        }
+        return null;
+    }
+
+    /**
+     * A cache entry.
+     */
+    private static class Content
+    {
+        /**
+         * The fingerprint of the files the content was derived from.
+         */
+        private final String fingerprint;
+
+        /**
+         * The content.
+         */
+        private final byte[] content;
+
+        /**
+         * Constructs a {@code Content}.
+         *
+         * @param fingerprint the fingerprint
+         * @param content     the content
+         */
+        Content(String fingerprint, byte[] content)
+        {
+            this.fingerprint = fingerprint;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.compiler.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import com.izforge.izpack.compiler.CompilerConfig;
+import com.izforge.izpack.compiler.bootstrap.CompilerJob;
+import com.izforge.izpack.compiler.data.CompilerData;
+
+
+/**
+ * A fingerprint of the inputs of an installer build, used to skip builds when nothing has changed.
+ * <p/>
+ * The fingerprint is made of:
+ * <ul>
+ * <li>the compiler options and build properties. With the install file content, these determine the install file
+ * after property substitution</li>
+ * <li>the class path that installer classes are resolved from, as recorded by the {@link CompilerJob}</li>
+ * <li>the content of the install file</li>
+ * <li>the path, size and modification time of each file under the base directory, and optionally a hash of its
+ * content</li>
+ * <li>the location, size and modification time of the compiler</li>
+ * </ul>
+ * Files written by the build, such as the installer, are not included. Nor are files referenced by the install file
+ * from outside of the base directory.
+ * <p/>
+ * The fingerprint of the last successful build is stored next to the installer.
+ */
+public class BuildFingerprint
+{
+    /**
+     * The fingerprint entries, in order of name.
+     */
+    private final Map<String, String> entries;
+
+    /**
+     * Constructs a {@code BuildFingerprint}.
+     *
+     * @param entries the fingerprint entries
+     */
+    private BuildFingerprint(Map<String, String> entries)
+    {
+        this.entries = entries;
+    }
+
+    /**
+     * Creates the fingerprint of a build.
+     *
+     * @param job          the build
+     * @param hashContents if {@code true}, include a hash of the content of each file under the base directory. This
+     *                     detects changes that preserve the size and modification time, at the cost of reading every
+     *                     file
+     * @return the fingerprint
+     * @throws IOException for any I/O error
+     */
+    public static BuildFingerprint create(CompilerJob job, boolean hashContents) throws IOException
+    {
+        Map<String, String> entries = new TreeMap<>();
+        Properties options = job.toProperties();
+        for (String name : options.stringPropertyNames())
+        {
+            entries.put("option." + name, options.getProperty(name));
+        }
+
+        CompilerData data = job.getCompilerData();
+        if (data.getInstallFile() != null)
+        {
+            File installFile = new File(data.getInstallFile());
+            entries.put("install." + installFile.getPath(), installFile.isFile() ? hash(installFile) : "missing");
+        }
+
+        // the output may be relative to the working directory, so compare canonical paths
+        File output = new File(data.getOutput()).getCanonicalFile();
+        File basedir = new File(data.getBasedir() != null ? data.getBasedir() : ".").getCanonicalFile();
+        List<File> files = new ArrayList<>();
+        collect(basedir, files);
+        int prefix = basedir.getPath().length() + 1;
+        for (File file : files)
+        {
+            if (!isOutput(file, output, data.getPlatforms()))
+            {
+                String value = file.length() + ":" + file.lastModified();
+                if (hashContents)
+                {
+                    value += ":" + hash(file);
+                }
+                entries.put("file." + file.getPath().substring(prefix).replace(File.separatorChar, '/'), value);
+            }
+        }
+
+        String compiler = BuildCache.fingerprint(
+                CompilerConfig.class.getProtectionDomain().getCodeSource().getLocation());
+        entries.put("compiler", compiler != null ? compiler.trim() : "unknown");
+        return new BuildFingerprint(entries);
+    }
+
+    /**
+     * Determines if a file is written by a build.
+     * <p/>
+     * These are the installer and its fingerprint, the installer for each platform, the pack jars written for web
+     * installers, and the pack volumes written by the {@code MultiVolumePackager}.
+     *
+     * @param file      the file
+     * @param output    the canonical path of the installer
+     * @param platforms the platforms that installers are written for. May be {@code null}
+     * @return {@code true} if the file is written by the build
+     */
+    private static boolean isOutput(File file, File output, List<String> platforms)
+    {
+        if (!file.getParentFile().equals(output.getParentFile()))
+        {
+            return false;
+        }
+        String name = file.getName();
+        String base = output.getName().replaceAll("\\.jar$", "");
+        if (name.equals(output.getName()) || name.equals(getFile(output).getName())
+                || (name.startsWith(base + ".pack-") && name.endsWith(".jar"))
+                || name.equals(base + ".pak")
+                || (name.startsWith(base + ".pak.") && name.substring(base.length() + 5).matches("\\d+")))
+        {
+            return true;
+        }
+        if (platforms != null)
+        {
+            for (String id : platforms)
+            {
+                if (name.equals(base + "-" + id + ".jar"))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the file that the fingerprint of an installer is stored in.
+     *
+     * @param output the installer
+     * @return the fingerprint file
+     */
+    public static File getFile(File output)
+    {
+        return new File(output.getPath() + ".fingerprint");
+    }
+
+    /**
+     * Reads the fingerprint stored for an installer.
+     *
+     * @param output the installer
+     * @return the fingerprint, or {@code null} if the installer or its fingerprint don't exist, or the fingerprint
+     *         cannot be read
+     */
+    public static BuildFingerprint read(File output)
+    {
+        File file = getFile(output);
+        if (!output.isFile() || !file.isFile())
+        {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file.toPath()))
+        {
+            properties.load(in);
+        }
+        catch (IOException exception)
+        {
+            return null;
+        }
+        Map<String, String> entries = new TreeMap<>();
+        for (String name : properties.stringPropertyNames())
+        {
+            entries.put(name, properties.getProperty(name));
+        }
+        return new BuildFingerprint(entries);
+    }
+
+    /**
+     * Stores the fingerprint for an installer.
+     *
+     * @param output the installer
+     * @throws IOException for any I/O error
+     */
+    public void write(File output) throws IOException
+    {
+        Properties properties = new Properties();
+        properties.putAll(entries);
+        try (OutputStream out = Files.newOutputStream(getFile(output).toPath()))
+        {
+            properties.store(out, "IzPack build fingerprint");
+        }
+    }
+
+    /**
+     * Deletes the fingerprint stored for an installer, so that it is rebuilt if the build fails.
+     *
+     * @param output the installer
+     */
+    public static void delete(File output)
+    {
+        File file = getFile(output);
+        if (file.exists() && !file.delete())
+        {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Describes the inputs that have changed since a previous build.
+     *
+     * @param previous the fingerprint of the previous build. May be {@code null}
+     * @return descriptions of the changed inputs. Empty if the build is up to date
+     */
+    public List<String> getChanges(BuildFingerprint previous)
+    {
+        List<String> result = new ArrayList<>();
+        if (previous == null)
+        {
+            result.add("no previous build");
+            return result;
+        }
+        for (Map.Entry<String, String> entry : entries.entrySet())
+        {
+            String old = previous.entries.get(entry.getKey());
+            if (old == null)
+            {
+                result.add(describe(entry.getKey()) + " added");
+            }
+            else if (!old.equals(entry.getValue()))
+            {
+                result.add(describe(entry.getKey()) + " changed");
+            }
+        }
+        for (String name : previous.entries.keySet())
+        {
+            if (!entries.containsKey(name))
+            {
+                result.add(describe(name) + " removed");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Summarises changes for logging.
+     *
+     * @param changes the changes
+     * @param max     the maximum number of changes to list
+     * @return the summary
+     */
+    public static String summarise(List<String> changes, int max)
+    {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < changes.size() && i < max; ++i)
+        {
+            if (i > 0)
+            {
+                result.append(", ");
+            }
+            result.append(changes.get(i));
+        }
+        if (changes.size() > max)
+        {
+            result.append(" and ").append(changes.size() - max).append(" more");
+        }
+        return result.toString();
+    }
+
+    /**
+     * Describes a fingerprint entry.
+     *
+     * @param name the entry name
+     * @return the description
+     */
+    private static String describe(String name)
+    {
+        if (name.startsWith("option.property."))
+        {
+            return "property " + name.substring("option.property.".length());
+        }
+        else if (name.startsWith("option."))
+        {
+            return "option " + name.substring("option.".length());
+        }
+        else if (name.startsWith("install."))
+        {
+            return "install file " + name.substring("install.".length());
+        }
+        else if (name.startsWith("file."))
+        {
+            return "file " + name.substring("file.".length());
+        }
+        return name;
+    }
+
+    /**
+     * Collects the files under a directory.
+     *
+     * @param dir   the directory
+     * @param files the collected files
+     */
+    private static void collect(File dir, List<File> files)
+    {
+        File[] children = dir.listFiles();
+        if (children != null)
+        {
+            for (File child : children)
+            {
+                if (child.isDirectory())
+                {
+                    collect(child, files);
+                }
+                else
+                {
+                    files.add(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the SHA-256 hash of a file.
+     *
+     * @param file the file
+     * @return the hash, in hexadecimal
+     * @throws IOException for any I/O error
+     */
+    public static String hash(File file) throws IOException
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException exception)
+        {
+            throw new IOException(exception);
+        }
+        try (InputStream in = Files.newInputStream(file.toPath()))
+        {
+            byte[] buffer = new byte[65536];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+            {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder result = new StringBuilder();
+        for (byte b : digest.digest())
+        {
+            result.append(String.format("%02x", b));
+        }
+        return result.toString();
+    }
+}
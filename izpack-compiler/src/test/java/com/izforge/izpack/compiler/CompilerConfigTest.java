@@ -22,9 +22,11 @@ package com.izforge.izpack.compiler;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import java.io.File;
+import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Properties;
 import java.util.jar.JarFile;
 
 import org.apache.maven.shared.jar.JarAnalyzer;
@@ -131,6 +133,39 @@ public class CompilerConfigTest
         }
     }
 
+    /**
+     * Verifies that properties defined in the install file, and the <em>basedir</em> property, are substituted into
+     * the install file.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    @InstallFile("samples/properties.xml")
+    public void testPropertiesSubstituted() throws Exception
+    {
+        // system properties can't be overridden, and surefire sets basedir
+        String systemBasedir = System.getProperty("basedir");
+        System.clearProperty("basedir");
+        try
+        {
+            compilerConfig.executeCompiler();
+        }
+        finally
+        {
+            if (systemBasedir != null)
+            {
+                System.setProperty("basedir", systemBasedir);
+            }
+        }
+        jar = testContainer.getComponent(JarFile.class);
+        ObjectInputStream in = new ObjectInputStream(jar.getInputStream(jar.getEntry("resources/vars")));
+        Properties variables = (Properties) in.readObject();
+        in.close();
+        Assert.assertEquals("hello", variables.getProperty("fromproperty"));
+        File basedir = testContainer.getComponent(File.class).getParentFile();
+        Assert.assertEquals(basedir.getAbsolutePath(), variables.getProperty("frombasedir"));
+    }
+
     /**
      * Verifies that the panelDependencies.properties file is used to resolve panel dependencies.
      */
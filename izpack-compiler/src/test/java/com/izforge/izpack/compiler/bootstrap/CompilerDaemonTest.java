@@ -0,0 +1,196 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.bootstrap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Handler;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.compiler.data.CompilerData;
+
+
+/**
+ * Tests the {@link CompilerDaemon} class.
+ */
+public class CompilerDaemonTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The file written by the daemon.
+     */
+    private File file;
+
+    /**
+     * The thread running the daemon.
+     */
+    private Thread thread;
+
+    /**
+     * Starts the daemon.
+     *
+     * @throws Exception for any error
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        file = new File(temporaryFolder.getRoot(), "compiler-daemon");
+        final CompilerDaemon daemon = new CompilerDaemon(file, 0);
+        thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    daemon.run();
+                }
+                catch (IOException ignore)
+                {
+                    // the daemon has stopped
+                }
+            }
+        });
+        thread.start();
+    }
+
+    /**
+     * Stops the daemon.
+     *
+     * @throws Exception for any error
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        CompilerDaemonClient client = CompilerDaemonClient.connect(file);
+        if (client != null)
+        {
+            client.stop();
+            client.close();
+        }
+        thread.join(10000);
+        assertFalse(thread.isAlive());
+    }
+
+    /**
+     * Verifies that a job is rejected if its class path has an entry the daemon's lacks, and that the class path is
+     * transferred with the job.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testRejectsUnknownClassPath() throws Exception
+    {
+        File jar = temporaryFolder.newFile("custom-panels.jar");
+        FileUtils.writeStringToFile(jar, "not really a jar", "UTF-8");
+
+        CompilerJob job;
+        Thread current = Thread.currentThread();
+        ClassLoader loader = current.getContextClassLoader();
+        current.setContextClassLoader(new URLClassLoader(new URL[]{jar.toURI().toURL()}, loader));
+        try
+        {
+            job = new CompilerJob(new CompilerData("install.xml", ".", "installer.jar", false));
+        }
+        finally
+        {
+            current.setContextClassLoader(loader);
+        }
+        String entry = null;
+        for (String identifier : job.getClassPath())
+        {
+            if (identifier.startsWith("custom-panels.jar:" + jar.length() + ":"))
+            {
+                entry = identifier;
+            }
+        }
+        assertNotNull(entry);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        job.write(bytes);
+        assertEquals(job.getClassPath(), CompilerJob.read(new ByteArrayInputStream(bytes.toByteArray())).getClassPath());
+
+        Handler handler = new ConsoleHandler();
+        try (CompilerDaemonClient client = CompilerDaemonClient.connect(file))
+        {
+            client.compile(job, handler);
+            fail("Expected CompilerJobRejectedException");
+        }
+        catch (CompilerJobRejectedException expected)
+        {
+            assertTrue(expected.getMessage().contains(entry));
+        }
+    }
+
+    /**
+     * Verifies that the daemon rejects a job with an invalid length, and continues to handle requests.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testInvalidJobLength() throws Exception
+    {
+        String[] content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).split(" ");
+        for (int length : new int[]{-1, Integer.MAX_VALUE})
+        {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(content[0])))
+            {
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                CompilerDaemon.writeString(out, content[1]);
+                out.writeInt(CompilerDaemon.REQUEST_BUILD);
+                CompilerDaemon.writeString(out, "INFO");
+                out.writeInt(length);
+                out.flush();
+                // the daemon closes the connection without allocating the job
+                assertEquals(-1, new DataInputStream(socket.getInputStream()).read());
+            }
+        }
+        assertTrue(thread.isAlive());
+    }
+}
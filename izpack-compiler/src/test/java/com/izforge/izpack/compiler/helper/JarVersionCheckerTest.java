@@ -0,0 +1,173 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.compiler.helper.JarVersionChecker.JarVersions;
+
+
+/**
+ * Tests the {@link JarVersionChecker} class.
+ */
+public class JarVersionCheckerTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that class versions are determined for top level and nested classes, and the classes exceeding a
+     * version are described.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCheck() throws Exception
+    {
+        File jar = createJar("a.jar", true);
+
+        JarVersions versions = new JarVersionChecker(null).check(jar);
+        assertEquals(55, versions.getMaxMajorVersion());
+        assertEquals(1, versions.getCount(52));
+        assertEquals(2, versions.getCount(55));
+        assertEquals(Arrays.asList("b/B.class", "lib/nested.jar:c/C.class"), versions.getClasses(55));
+
+        assertTrue(versions.describeExceeding(55).isEmpty());
+        List<String> errors = versions.describeExceeding(52);
+        assertEquals(1, errors.size());
+        assertEquals(jar + ": 2 class(es) target Java 11, e.g. b/B.class, lib/nested.jar:c/C.class", errors.get(0));
+    }
+
+    /**
+     * Verifies that several jars can be checked at once, and results are returned in order.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCheckMultiple() throws Exception
+    {
+        File jar1 = createJar("1.jar", true);
+        File jar2 = createJar("2.jar", false);
+
+        List<JarVersions> versions = new JarVersionChecker(null).check(Arrays.asList(jar1, jar2));
+        assertEquals(2, versions.size());
+        assertEquals(jar1, versions.get(0).getJar());
+        assertEquals(55, versions.get(0).getMaxMajorVersion());
+        assertEquals(jar2, versions.get(1).getJar());
+        assertEquals(52, versions.get(1).getMaxMajorVersion());
+    }
+
+    /**
+     * Verifies that results are cached by jar content.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCache() throws Exception
+    {
+        File cache = temporaryFolder.newFolder("cache");
+        File jar = createJar("a.jar", true);
+
+        JarVersionChecker checker = new JarVersionChecker(cache);
+        JarVersions versions = checker.check(jar);
+        File[] files = cache.listFiles();
+        assertEquals(1, files.length);
+
+        // a copy of the jar uses the cached result
+        File copy = temporaryFolder.newFile("copy.jar");
+        FileUtils.copyFile(jar, copy);
+        JarVersions cached = new JarVersionChecker(cache).check(copy);
+        assertEquals(copy, cached.getJar());
+        assertEquals(versions.getCount(52), cached.getCount(52));
+        assertEquals(versions.getCount(55), cached.getCount(55));
+        assertEquals(versions.getClasses(55), cached.getClasses(55));
+        assertEquals(1, cache.listFiles().length);
+    }
+
+    /**
+     * Creates a jar containing a Java 8 class, and if required, a Java 11 class and a nested jar containing a Java 11
+     * class.
+     *
+     * @param name   the jar name
+     * @param java11 if <tt>true</tt>, include Java 11 classes
+     * @return the jar
+     * @throws IOException for any I/O error
+     */
+    private File createJar(String name, boolean java11) throws IOException
+    {
+        File file = temporaryFolder.newFile(name);
+        ZipOutputStream jar = new ZipOutputStream(new FileOutputStream(file));
+        addClass(jar, "a/A.class", 52);
+        if (java11)
+        {
+            addClass(jar, "b/B.class", 55);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ZipOutputStream nested = new ZipOutputStream(bytes);
+            addClass(nested, "c/C.class", 55);
+            nested.close();
+            jar.putNextEntry(new ZipEntry("lib/nested.jar"));
+            jar.write(bytes.toByteArray());
+            jar.closeEntry();
+        }
+        jar.close();
+        return file;
+    }
+
+    /**
+     * Adds a class file header to a jar.
+     *
+     * @param jar   the jar
+     * @param name  the class path
+     * @param major the major version
+     * @throws IOException for any I/O error
+     */
+    private void addClass(ZipOutputStream jar, String name, int major) throws IOException
+    {
+        jar.putNextEntry(new ZipEntry(name));
+        DataOutputStream data = new DataOutputStream(jar);
+        data.writeInt(0xCAFEBABE);
+        data.writeShort(0);
+        data.writeShort(major);
+        data.write(new byte[1024]);
+        data.flush();
+        jar.closeEntry();
+    }
+}
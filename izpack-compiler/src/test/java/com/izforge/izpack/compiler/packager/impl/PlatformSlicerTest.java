@@ -0,0 +1,223 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.packager.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.PackInfo;
+import com.izforge.izpack.api.data.binding.OsModel;
+import com.izforge.izpack.util.Platforms;
+
+
+/**
+ * Tests the {@link PlatformSlicer} class.
+ */
+public class PlatformSlicerTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that files that cannot be installed on a platform are removed with their data, that the remaining
+     * data is laid out again, and that back references to removed files still resolve.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testWrite() throws Exception
+    {
+        List<OsModel> windows = Collections.singletonList(new OsModel(null, "windows", null, null, null));
+
+        PackInfo base = new PackInfo("base", null, null, true, false, null, true, 0);
+        PackFile a = addFile(base, "a", "aaaa", null, null);
+        PackFile b = addFile(base, "b", "bbb", windows, null);
+        PackFile c = addFile(base, "c", "cc", null, "izpack.linuxinstall");
+
+        PackInfo win = new PackInfo("win", null, null, false, false, null, true, 0);
+        win.setOsConstraints(windows);
+        addFile(win, "d", "dddddd", null, null);
+
+        PackInfo all = new PackInfo("all", null, null, false, false, null, true, 0);
+        PackFile e = addFile(all, "e", "bbb", null, null);
+        e.setLinkedPackFile(b);
+
+        File installer = temporaryFolder.newFile("install.jar");
+        writeInstaller(installer, Arrays.asList(base, win, all));
+
+        File target = new File(temporaryFolder.getRoot(), "install-linux.jar");
+        new PlatformSlicer(9).write(installer, target, PlatformVariant.parse("linux", new Platforms()));
+
+        JarFile jar = new JarFile(target);
+        try
+        {
+            List<PackInfo> packs = read(jar, "resources/packs.info");
+            assertEquals(3, packs.size());
+
+            List<PackFile> baseFiles = new ArrayList<PackFile>(packs.get(0).getPackFiles());
+            assertEquals(2, baseFiles.size());
+            assertEquals("a", baseFiles.get(0).getTargetPath());
+            assertEquals(0, baseFiles.get(0).getStreamOffset());
+            assertEquals("c", baseFiles.get(1).getTargetPath());
+            assertEquals(4, baseFiles.get(1).getStreamOffset());
+            assertNull(baseFiles.get(1).getCondition());
+            assertEquals(6, packs.get(0).getPack().getFileSize());
+
+            // the pack is kept, without its files
+            assertEquals("win", packs.get(1).getPack().getName());
+            assertEquals(0, packs.get(1).getPackFiles().size());
+            assertNull(jar.getEntry("resources/packs/pack-win"));
+
+            // the removed file is kept at the end of the stream for the back reference
+            PackFile linked = packs.get(2).getPackFiles().iterator().next().getLinkedPackFile();
+            assertEquals(6, linked.getStreamOffset());
+            assertEquals("aaaaccbbb", read(jar, "resources/packs/pack-base"));
+            assertEquals("", read(jar, "resources/packs/pack-all"));
+
+            List<String> index = read(jar, "resources/resources.index");
+            assertEquals(Arrays.asList("packs/pack-base", "packs/pack-all", "packs.info"), index);
+            assertEquals("other", read(jar, "other.txt"));
+        }
+        finally
+        {
+            jar.close();
+        }
+    }
+
+    /**
+     * Adds a file to a pack, storing its content in the pack stream.
+     *
+     * @param pack      the pack
+     * @param name      the file name
+     * @param content   the file content
+     * @param os        the OS constraints. May be {@code null}
+     * @param condition the condition. May be {@code null}
+     * @return the pack file
+     * @throws IOException for any I/O error
+     */
+    private PackFile addFile(PackInfo pack, String name, String content, List<OsModel> os, String condition)
+            throws IOException
+    {
+        File file = new File(temporaryFolder.getRoot(), name);
+        FileUtils.writeStringToFile(file, content, "UTF-8");
+        pack.addFile(temporaryFolder.getRoot(), file, name, os, OverrideType.OVERRIDE_TRUE, null,
+                     Blockable.BLOCKABLE_NONE, null, condition, null);
+        PackFile result = null;
+        for (PackFile packFile : pack.getPackFiles())
+        {
+            result = packFile;
+        }
+        pack.getPack().addFileSize(result.length());
+        return result;
+    }
+
+    /**
+     * Writes an installer containing the pack metadata, pack streams and resource index.
+     * <p/>
+     * Files are stored uncompressed, in the order they were added.
+     *
+     * @param file  the file to write to
+     * @param packs the packs
+     * @throws IOException for any I/O error
+     */
+    private void writeInstaller(File file, List<PackInfo> packs) throws IOException
+    {
+        ZipOutputStream jar = new ZipOutputStream(new FileOutputStream(file));
+        List<String> index = new ArrayList<String>();
+        jar.putNextEntry(new ZipEntry("other.txt"));
+        jar.write("other".getBytes("UTF-8"));
+        for (PackInfo pack : packs)
+        {
+            String name = "packs/pack-" + pack.getPack().getName();
+            jar.putNextEntry(new ZipEntry("resources/" + name));
+            long offset = 0;
+            for (PackFile packFile : pack.getPackFiles())
+            {
+                if (!packFile.isBackReference())
+                {
+                    byte[] content = FileUtils.readFileToByteArray(pack.getFile(packFile));
+                    packFile.setStreamResourceName(name);
+                    packFile.setStreamOffset(offset);
+                    packFile.setSize(content.length);
+                    jar.write(content);
+                    offset += content.length;
+                }
+            }
+            index.add(name);
+        }
+        jar.putNextEntry(new ZipEntry("resources/packs.info"));
+        ObjectOutputStream out = new ObjectOutputStream(jar);
+        out.writeObject(new ArrayList<PackInfo>(packs));
+        out.flush();
+        index.add("packs.info");
+        jar.putNextEntry(new ZipEntry("resources/resources.index"));
+        out = new ObjectOutputStream(jar);
+        out.writeObject(index);
+        out.flush();
+        jar.close();
+    }
+
+    /**
+     * Reads an entry.
+     *
+     * @param jar  the jar
+     * @param name the entry name
+     * @return the serialized object, or the text of entries that aren't serialized
+     * @throws Exception for any error
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T read(JarFile jar, String name) throws Exception
+    {
+        byte[] content = IOUtils.toByteArray(jar.getInputStream(jar.getEntry(name)));
+        if (name.endsWith(".info") || name.endsWith(".index"))
+        {
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(content));
+            return (T) in.readObject();
+        }
+        return (T) new String(content, "UTF-8");
+    }
+}
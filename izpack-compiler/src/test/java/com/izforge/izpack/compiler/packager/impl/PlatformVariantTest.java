@@ -0,0 +1,122 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.packager.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.izforge.izpack.api.data.binding.OsModel;
+import com.izforge.izpack.api.exception.CompilerException;
+import com.izforge.izpack.util.Platforms;
+
+
+/**
+ * Tests the {@link PlatformVariant} class.
+ */
+public class PlatformVariantTest
+{
+
+    /**
+     * The platforms.
+     */
+    private final Platforms platforms = new Platforms();
+
+    /**
+     * Verifies that OS constraints are only rejected if they can never match the platform.
+     */
+    @Test
+    public void testMayMatch()
+    {
+        PlatformVariant linux = PlatformVariant.parse("linux-x64", platforms);
+        assertEquals("linux-x64", linux.getId());
+
+        assertTrue(linux.mayMatch(null));
+        assertTrue(linux.mayMatch(Collections.<OsModel>emptyList()));
+        assertTrue(linux.mayMatch(os(null, "unix", null)));
+        assertTrue(linux.mayMatch(os(null, null, "debian_linux")));
+        assertTrue(linux.mayMatch(os("x64", null, null)));
+        assertFalse(linux.mayMatch(os(null, "windows", null)));
+        assertFalse(linux.mayMatch(os(null, "mac", null)));
+        assertFalse(linux.mayMatch(os("ppc", "unix", null)));
+        assertFalse(linux.mayMatch(os(null, null, null)));
+
+        // any constraint may match
+        assertTrue(linux.mayMatch(Arrays.asList(new OsModel(null, "windows", null, null, null),
+                                                new OsModel(null, "unix", null, null, null))));
+
+        // without an architecture, architecture constraints are determined at runtime
+        PlatformVariant windows = PlatformVariant.parse("windows", platforms);
+        assertTrue(windows.mayMatch(os("ppc", "windows", null)));
+        assertFalse(windows.mayMatch(os(null, "unix", null)));
+    }
+
+    /**
+     * Verifies that built-in OS conditions are folded only where the result is the same on every platform the
+     * variant may run on.
+     */
+    @Test
+    public void testEvaluate()
+    {
+        PlatformVariant windows = PlatformVariant.parse("windows-x64", platforms);
+        assertEquals(Boolean.TRUE, windows.evaluate("izpack.windowsinstall"));
+        assertEquals(Boolean.FALSE, windows.evaluate("izpack.linuxinstall"));
+        assertEquals(Boolean.FALSE, windows.evaluate("izpack.macinstall"));
+        assertNull(windows.evaluate("izpack.windowsinstall.7"));
+        assertNull(windows.evaluate("somecondition"));
+        assertNull(windows.evaluate(null));
+
+        PlatformVariant mac = PlatformVariant.parse("mac_osx", platforms);
+        assertEquals(Boolean.TRUE, mac.evaluate("izpack.macinstall"));
+        assertEquals(Boolean.FALSE, mac.evaluate("izpack.windowsinstall"));
+
+        PlatformVariant solaris = PlatformVariant.parse("sunos-x86", platforms);
+        assertEquals(Boolean.FALSE, solaris.evaluate("izpack.solarisinstall.sparc"));
+    }
+
+    /**
+     * Verifies that unrecognised platforms are rejected.
+     */
+    @Test(expected = CompilerException.class)
+    public void testUnrecognised()
+    {
+        PlatformVariant.parse("amiga", platforms);
+    }
+
+    /**
+     * Creates a single OS constraint.
+     *
+     * @param arch   the architecture. May be {@code null}
+     * @param family the family. May be {@code null}
+     * @param name   the name. May be {@code null}
+     * @return the constraint
+     */
+    private static List<OsModel> os(String arch, String family, String name)
+    {
+        return Collections.singletonList(new OsModel(arch, family, null, name, null));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.packager.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackCompression;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.util.StreamSupport;
+
+
+/**
+ * Tests the {@link SolidBlockWriter} class.
+ */
+public class SolidBlockWriterTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that files are grouped into blocks of the requested size, and that each file records its block and
+     * offset within the block.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testWrite() throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CountingOutputStream pack = new CountingOutputStream(bytes);
+        SolidBlockWriter writer = new SolidBlockWriter(pack, PackCompression.BZIP2, 5);
+
+        PackFile a = write(writer, "a", "aaa");
+        PackFile b = write(writer, "b", "bb");      // fills the first block
+        PackFile c = write(writer, "c", "cccccc");  // exceeds the block size on its own
+        PackFile d = write(writer, "d", "d");
+        writer.close();
+
+        assertEquals(0, a.getStreamOffset());
+        assertEquals(0, b.getStreamOffset());
+        assertEquals(a.size(), b.size());
+        assertEquals(0, a.getBlockOffset());
+        assertEquals(3, b.getBlockOffset());
+
+        assertEquals(a.size(), c.getStreamOffset());
+        assertEquals(0, c.getBlockOffset());
+        assertEquals(c.getStreamOffset() + c.size(), d.getStreamOffset());
+        assertEquals(0, d.getBlockOffset());
+        assertEquals(d.getStreamOffset() + d.size(), pack.getByteCount());
+
+        byte[] content = bytes.toByteArray();
+        assertEquals("aaabb", readBlock(content, a));
+        assertEquals("cccccc", readBlock(content, c));
+        assertEquals("d", readBlock(content, d));
+    }
+
+    /**
+     * Writes a file to the block writer.
+     *
+     * @param writer  the writer
+     * @param name    the file name
+     * @param content the file content
+     * @return the pack file
+     * @throws IOException for any I/O error
+     */
+    private PackFile write(SolidBlockWriter writer, String name, String content) throws IOException
+    {
+        File file = new File(temporaryFolder.getRoot(), name);
+        FileUtils.writeStringToFile(file, content, "UTF-8");
+        PackFile packFile = new PackFile(temporaryFolder.getRoot(), file, name, null, OverrideType.OVERRIDE_TRUE,
+                                         null, Blockable.BLOCKABLE_NONE, null);
+        writer.write(packFile, file.toPath());
+        return packFile;
+    }
+
+    /**
+     * Decompresses the block containing a file.
+     *
+     * @param pack the pack stream content
+     * @param file the pack file
+     * @return the block content
+     * @throws IOException for any I/O error
+     */
+    private String readBlock(byte[] pack, PackFile file) throws IOException
+    {
+        byte[] block = Arrays.copyOfRange(pack, (int) file.getStreamOffset(),
+                                          (int) (file.getStreamOffset() + file.size()));
+        InputStream in = StreamSupport.compressedInput(PackCompression.BZIP2, new ByteArrayInputStream(block));
+        return IOUtils.toString(in, "UTF-8");
+    }
+}
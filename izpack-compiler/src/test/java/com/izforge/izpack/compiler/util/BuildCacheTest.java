@@ -0,0 +1,110 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.compiler.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Tests the {@link BuildCache} class.
+ */
+public class BuildCacheTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that content is loaded once per fingerprint, and reloaded when the fingerprint changes.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testGet() throws Exception
+    {
+        BuildCache cache = new BuildCache();
+        final AtomicInteger loads = new AtomicInteger();
+        BuildCache.Loader loader = new BuildCache.Loader()
+        {
+            @Override
+            public byte[] load()
+            {
+                return new byte[]{(byte) loads.incrementAndGet()};
+            }
+        };
+
+        assertArrayEquals(new byte[]{1}, cache.get("a", "1", loader));
+        assertArrayEquals(new byte[]{1}, cache.get("a", "1", loader));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        assertArrayEquals(new byte[]{2}, cache.get("a", "2", loader));
+        assertArrayEquals(new byte[]{3}, cache.get("b", "2", loader));
+        assertEquals(3, cache.getMisses());
+
+        // content without a fingerprint is never cached
+        assertArrayEquals(new byte[]{4}, cache.get("c", null, loader));
+        assertArrayEquals(new byte[]{5}, cache.get("c", null, loader));
+        assertEquals(1, cache.getHits());
+    }
+
+    /**
+     * Verifies that file and directory fingerprints change when their content changes.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testFingerprint() throws Exception
+    {
+        File dir = temporaryFolder.newFolder("dir");
+        File file = new File(dir, "a.txt");
+        FileUtils.writeStringToFile(file, "a", "UTF-8");
+        URL fileURL = file.toURI().toURL();
+        URL dirURL = dir.toURI().toURL();
+
+        String fileFingerprint = BuildCache.fingerprint(fileURL);
+        String dirFingerprint = BuildCache.fingerprint(dirURL);
+        assertNotNull(fileFingerprint);
+        assertEquals(fileFingerprint, BuildCache.fingerprint(fileURL));
+
+        FileUtils.writeStringToFile(file, "ab", "UTF-8");
+        assertNotEquals(fileFingerprint, BuildCache.fingerprint(fileURL));
+        assertNotEquals(dirFingerprint, BuildCache.fingerprint(dirURL));
+
+        assertNull(BuildCache.fingerprint(new URL("http://izpack.org/a.txt")));
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.compiler.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.compiler.bootstrap.CompilerJob;
+import com.izforge.izpack.compiler.data.CompilerData;
+
+
+/**
+ * Tests the {@link BuildFingerprint} class.
+ */
+public class BuildFingerprintTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The base directory.
+     */
+    private File basedir;
+
+    /**
+     * The install file.
+     */
+    private File installFile;
+
+    /**
+     * The installer.
+     */
+    private File output;
+
+    /**
+     * Sets up the test case.
+     *
+     * @throws Exception for any error
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        basedir = temporaryFolder.newFolder("base");
+        installFile = new File(basedir, "install.xml");
+        FileUtils.writeStringToFile(installFile, "<izpack:installation/>", "UTF-8");
+        FileUtils.writeStringToFile(new File(basedir, "lib/a.txt"), "a", "UTF-8");
+        // the installer is written to the base directory, and must not be part of the fingerprint
+        output = new File(basedir, "installer.jar");
+    }
+
+    /**
+     * Verifies that a build is up to date once its fingerprint is written, and that changed inputs are reported.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testChanges() throws Exception
+    {
+        assertNull(BuildFingerprint.read(output));
+        BuildFingerprint fingerprint = BuildFingerprint.create(createJob("1.0"), false);
+        assertEquals(Collections.singletonList("no previous build"), fingerprint.getChanges(null));
+
+        FileUtils.writeStringToFile(output, "installer", "UTF-8");
+        fingerprint.write(output);
+        assertTrue(BuildFingerprint.create(createJob("1.0"), false).getChanges(BuildFingerprint.read(output))
+                           .isEmpty());
+
+        FileUtils.writeStringToFile(new File(basedir, "lib/a.txt"), "ab", "UTF-8");
+        FileUtils.writeStringToFile(new File(basedir, "lib/b.txt"), "b", "UTF-8");
+        assertEquals(Arrays.asList("file lib/a.txt changed", "file lib/b.txt added", "property version changed"),
+                     BuildFingerprint.create(createJob("2.0"), false).getChanges(BuildFingerprint.read(output)));
+
+        // the fingerprint isn't used if the installer is missing
+        BuildFingerprint.delete(output);
+        assertNull(BuildFingerprint.read(output));
+    }
+
+    /**
+     * Verifies that content hashes detect changes that preserve the size and modification time.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testHashContents() throws Exception
+    {
+        File file = new File(basedir, "lib/a.txt");
+        long modified = file.lastModified();
+        BuildFingerprint sizes = BuildFingerprint.create(createJob("1.0"), false);
+        BuildFingerprint hashes = BuildFingerprint.create(createJob("1.0"), true);
+
+        FileUtils.writeStringToFile(file, "b", "UTF-8");
+        assertTrue(file.setLastModified(modified));
+        assertTrue(BuildFingerprint.create(createJob("1.0"), false).getChanges(sizes).isEmpty());
+        assertEquals(Collections.singletonList("file lib/a.txt changed"),
+                     BuildFingerprint.create(createJob("1.0"), true).getChanges(hashes));
+    }
+
+    /**
+     * Verifies that the files written by a build aren't part of the fingerprint, when the installer path is relative
+     * to the working directory.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testOutputsExcluded() throws Exception
+    {
+        String relative = new File("").getAbsoluteFile().toPath().relativize(output.toPath()).toString();
+        assertFalse(new File(relative).isAbsolute());
+        CompilerData data = new CompilerData(installFile.getPath(), basedir.getPath(), relative, false);
+        data.setPlatforms(Arrays.asList("linux-x64", "windows"));
+        BuildFingerprint fingerprint = BuildFingerprint.create(new CompilerJob(data), false);
+
+        String[] outputs = {"installer.jar", "installer-linux-x64.jar", "installer-windows.jar",
+                "installer.pack-core.jar", "installer.pak", "installer.pak.1", "installer.pak.12"};
+        for (String name : outputs)
+        {
+            FileUtils.writeStringToFile(new File(basedir, name), name, "UTF-8");
+        }
+        fingerprint.write(output);
+        assertTrue(BuildFingerprint.create(new CompilerJob(data), false).getChanges(BuildFingerprint.read(output))
+                           .isEmpty());
+
+        // files named like outputs for other installers or platforms are inputs
+        FileUtils.writeStringToFile(new File(basedir, "installer-mac.jar"), "mac", "UTF-8");
+        FileUtils.writeStringToFile(new File(basedir, "installer.pak.a"), "a", "UTF-8");
+        assertEquals(Arrays.asList("file installer-mac.jar added", "file installer.pak.a added"),
+                     BuildFingerprint.create(new CompilerJob(data), false).getChanges(BuildFingerprint.read(output)));
+    }
+
+    /**
+     * Creates a build.
+     *
+     * @param version the value of the version property
+     * @return the build
+     */
+    private CompilerJob createJob(String version)
+    {
+        CompilerData data = new CompilerData(installFile.getPath(), basedir.getPath(), output.getPath(), false);
+        CompilerJob job = new CompilerJob(data);
+        job.addProperty("version", version);
+        return job;
+    }
+}
@@ -30,6 +30,7 @@ import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
 import com.izforge.izpack.core.variable.utils.ValueUtils;
+import com.izforge.izpack.util.EvaluationProfiler;
 
 import java.util.*;
 import java.util.logging.Level;
@@ -38,6 +39,9 @@ import java.util.logging.Logger;
 
 /**
  * Default implementation of the {@link Variables} interface.
+ * <p/>
+ * Variable values are held in a copy-on-write store, so they can be read without locking while other threads
+ * update them. {@link #snapshot()} returns a consistent view for work that must not see concurrent changes.
  *
  * @author Tim Anderson
  */
@@ -45,7 +49,12 @@ public class DefaultVariables implements Variables
 {
 
     /**
-     * The variables.
+     * The variable values.
+     */
+    private final VariableStore store;
+
+    /**
+     * The variables, exposed as properties.
      */
     private final Properties properties;
 
@@ -95,7 +104,18 @@ public class DefaultVariables implements Variables
      */
     public DefaultVariables(Properties properties)
     {
-        this.properties = properties;
+        this(new VariableStore(toMap(properties)));
+    }
+
+    /**
+     * Constructs a <tt>DefaultVariables</tt>, from a store.
+     *
+     * @param store the store
+     */
+    private DefaultVariables(VariableStore store)
+    {
+        this.store = store;
+        this.properties = new VariablesProperties(store);
         replacer = new VariableSubstitutorImpl(this);
     }
 
@@ -128,12 +148,12 @@ public class DefaultVariables implements Variables
 
         if (value != null)
         {
-            properties.setProperty(name, value);
+            store.set(name, value);
             logger.fine("Dynamic variable '" + name + "' set to '" + value + "'");
         }
         else
         {
-            properties.remove(name);
+            store.set(name, null);
             logger.fine("Dynamic variable '" + name + "' unset");
         }
     }
@@ -147,7 +167,7 @@ public class DefaultVariables implements Variables
     @Override
     public String get(String name)
     {
-        return containsOverride(name) ? overrides.fetch(name) : properties.getProperty(name);
+        return containsOverride(name) ? overrides.fetch(name) : store.get(name);
     }
 
     /**
@@ -159,7 +179,8 @@ public class DefaultVariables implements Variables
     @Override
     public String get(String name, String defaultValue)
     {
-        final String value = properties.getProperty(name, defaultValue);
+        String stored = store.get(name);
+        final String value = (stored != null) ? stored : defaultValue;
         return containsOverride(name) ? overrides.fetch(name, value) : value;
     }
 
@@ -327,6 +348,8 @@ public class DefaultVariables implements Variables
                     if (!(variable.isCheckonce() && variable.isChecked()))
                     {
                         String newValue;
+                        boolean profile = EvaluationProfiler.isEnabled();
+                        long start = profile ? System.nanoTime() : 0;
                         try
                         {
                             newValue = variable.evaluate(replacer);
@@ -339,6 +362,14 @@ public class DefaultVariables implements Variables
                         {
                             throw new IzPackException("Failed to refresh dynamic variable (" + name + ")", exception);
                         }
+                        finally
+                        {
+                            if (profile)
+                            {
+                                EvaluationProfiler.VARIABLES.record(name, getSource(variable),
+                                                                    System.nanoTime() - start);
+                            }
+                        }
                         if (newValue == null)
                         {
                             if (variable.isAutoUnset())
@@ -362,7 +393,11 @@ public class DefaultVariables implements Variables
                     }
                     else
                     {
-                        String previousValue = properties.getProperty(name);
+                        if (EvaluationProfiler.isEnabled())
+                        {
+                            EvaluationProfiler.VARIABLES.hit(name, getSource(variable));
+                        }
+                        String previousValue = store.get(name);
                         if (previousValue != null)
                         {
                             set(name, previousValue); // Set here for properly set conditions
@@ -403,8 +438,22 @@ public class DefaultVariables implements Variables
         }
     }
 
+    /**
+     * Returns the kind of value a dynamic variable is evaluated from, for profiling.
+     *
+     * @param variable the variable
+     * @return the value class name, e.g. <em>ExecValue</em>, or {@code null} if the variable has no value
+     */
+    private static String getSource(DynamicVariable variable)
+    {
+        return (variable.getValue() != null) ? variable.getValue().getClass().getSimpleName() : null;
+    }
+
     /**
      * Exposes the variables as properties.
+     * <p/>
+     * The properties are a live view: changes to the variables are visible through it, and changes made through it
+     * update the variables. Its key, value and entry collections are read-only snapshots.
      *
      * @return the variables
      */
@@ -414,6 +463,39 @@ public class DefaultVariables implements Variables
         return properties;
     }
 
+    /**
+     * Returns a read-only view of the current variable values.
+     * <p/>
+     * The view isn't affected by subsequent changes to these variables, and can be read concurrently without locking.
+     * Overrides are shared with these variables. Dynamic variables can't be added or refreshed through the view.
+     *
+     * @return a snapshot of the variables
+     */
+    @Override
+    public Variables snapshot()
+    {
+        Snapshot result = new Snapshot(new VariableStore(store.snapshot()));
+        result.setOverrides(overrides);
+        result.setRules(rules);
+        return result;
+    }
+
+    /**
+     * Converts properties to a map, including any defaults.
+     *
+     * @param properties the properties
+     * @return the property names and values
+     */
+    private static Map<String, String> toMap(Properties properties)
+    {
+        Map<String, String> result = new HashMap<String, String>();
+        for (String name : properties.stringPropertyNames())
+        {
+            result.put(name, properties.getProperty(name));
+        }
+        return result;
+    }
+
     @Override
     public boolean containsOverride(String name)
     {
@@ -489,4 +571,76 @@ public class DefaultVariables implements Variables
         }
         return blockedVariableNames;
     }
+
+    /**
+     * A read-only snapshot of variables.
+     */
+    private static class Snapshot extends DefaultVariables
+    {
+
+        /**
+         * Constructs a {@code Snapshot}.
+         *
+         * @param store the store. This must not be shared
+         */
+        public Snapshot(VariableStore store)
+        {
+            super(store);
+        }
+
+        /**
+         * Throws {@code UnsupportedOperationException}, as snapshots are read-only.
+         *
+         * @param name  the variable name
+         * @param value the variable value
+         */
+        @Override
+        public void set(String name, String value)
+        {
+            throw new UnsupportedOperationException("Cannot set variable " + name + " in a snapshot");
+        }
+
+        /**
+         * Throws {@code UnsupportedOperationException}, as snapshots are read-only.
+         *
+         * @param variable the variable to add
+         */
+        @Override
+        public void add(DynamicVariable variable)
+        {
+            throw new UnsupportedOperationException("Cannot add dynamic variable " + variable.getName()
+                                                            + " to a snapshot");
+        }
+
+        /**
+         * Throws {@code UnsupportedOperationException}, as snapshots are read-only.
+         */
+        @Override
+        public void refresh()
+        {
+            throw new UnsupportedOperationException("Cannot refresh a snapshot");
+        }
+
+        /**
+         * Returns a copy of the variables.
+         *
+         * @return the variables
+         */
+        @Override
+        public Properties getProperties()
+        {
+            return (Properties) super.getProperties().clone();
+        }
+
+        /**
+         * Returns this, as the snapshot never changes.
+         *
+         * @return this
+         */
+        @Override
+        public Variables snapshot()
+        {
+            return this;
+        }
+    }
 }
@@ -0,0 +1,184 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.core.data;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * A copy-on-write store of variable values.
+ * <p/>
+ * The values are held in an immutable map. Readers access the current map without locking, and each write publishes
+ * a new map atomically, so a map obtained via {@link #snapshot()} never changes.
+ */
+class VariableStore
+{
+    /**
+     * The current values.
+     */
+    private final AtomicReference<Map<String, String>> values;
+
+
+    /**
+     * Constructs a {@code VariableStore}.
+     *
+     * @param values the initial values. These are copied
+     */
+    VariableStore(Map<String, String> values)
+    {
+        this.values = new AtomicReference<Map<String, String>>(
+                Collections.unmodifiableMap(new HashMap<String, String>(values)));
+    }
+
+    /**
+     * Returns the value of a variable.
+     *
+     * @param name the variable name
+     * @return the value, or {@code null} if the variable doesn't exist
+     */
+    String get(String name)
+    {
+        return values.get().get(name);
+    }
+
+    /**
+     * Sets the value of a variable, if it has the expected value.
+     *
+     * @param name     the variable name
+     * @param expected the expected value, or {@code null} if the variable is expected not to exist
+     * @param value    the new value, or {@code null} to remove the variable
+     * @return {@code true} if the variable had the expected value, and was set
+     */
+    boolean replace(String name, String expected, String value)
+    {
+        while (true)
+        {
+            Map<String, String> current = values.get();
+            String previous = current.get(name);
+            if (expected == null ? previous != null : !expected.equals(previous))
+            {
+                return false;
+            }
+            if (value == null ? previous == null : value.equals(previous))
+            {
+                // nothing to publish
+                return true;
+            }
+            Map<String, String> next = new HashMap<String, String>(current);
+            if (value != null)
+            {
+                next.put(name, value);
+            }
+            else
+            {
+                next.remove(name);
+            }
+            if (values.compareAndSet(current, Collections.unmodifiableMap(next)))
+            {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Sets the value of a variable.
+     *
+     * @param name  the variable name
+     * @param value the value, or {@code null} to remove the variable
+     * @return the previous value, or {@code null} if the variable didn't exist
+     */
+    String set(String name, String value)
+    {
+        while (true)
+        {
+            Map<String, String> current = values.get();
+            String previous = current.get(name);
+            if (value == null ? previous == null : value.equals(previous))
+            {
+                // nothing to publish
+                return previous;
+            }
+            Map<String, String> next = new HashMap<String, String>(current);
+            if (value != null)
+            {
+                next.put(name, value);
+            }
+            else
+            {
+                next.remove(name);
+            }
+            if (values.compareAndSet(current, Collections.unmodifiableMap(next)))
+            {
+                return previous;
+            }
+        }
+    }
+
+    /**
+     * Sets the values of several variables, publishing them together.
+     *
+     * @param changes the variable names and values. A {@code null} value removes the variable
+     */
+    void setAll(Map<String, String> changes)
+    {
+        while (true)
+        {
+            Map<String, String> current = values.get();
+            Map<String, String> next = new HashMap<String, String>(current);
+            for (Map.Entry<String, String> entry : changes.entrySet())
+            {
+                if (entry.getValue() != null)
+                {
+                    next.put(entry.getKey(), entry.getValue());
+                }
+                else
+                {
+                    next.remove(entry.getKey());
+                }
+            }
+            if (values.compareAndSet(current, Collections.unmodifiableMap(next)))
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes all variables.
+     */
+    void clear()
+    {
+        values.set(Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * Returns the current values.
+     *
+     * @return an immutable snapshot of the values
+     */
+    Map<String, String> snapshot()
+    {
+        return values.get();
+    }
+}
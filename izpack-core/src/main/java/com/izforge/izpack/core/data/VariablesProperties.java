@@ -0,0 +1,417 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.core.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+
+/**
+ * A {@code Properties} view of a {@link VariableStore}.
+ * <p/>
+ * Reads and writes go to the store. The collection views and enumerations are read-only snapshots, and the view is
+ * serialized and cloned as plain {@code Properties}.
+ * <p/>
+ * The conditional and compute methods are atomic per variable, but like those of {@code ConcurrentMap}, their
+ * functions may be called more than once if the variable is changed concurrently.
+ */
+class VariablesProperties extends Properties
+{
+    private static final long serialVersionUID = -5154349256497218463L;
+
+    /**
+     * The store.
+     */
+    private final transient VariableStore store;
+
+
+    /**
+     * Constructs a {@code VariablesProperties}.
+     *
+     * @param store the store
+     */
+    VariablesProperties(VariableStore store)
+    {
+        this.store = store;
+    }
+
+    @Override
+    public String getProperty(String key)
+    {
+        return store.get(key);
+    }
+
+    @Override
+    public String getProperty(String key, String defaultValue)
+    {
+        String value = store.get(key);
+        return (value != null) ? value : defaultValue;
+    }
+
+    @Override
+    public Object setProperty(String key, String value)
+    {
+        return put(key, value);
+    }
+
+    @Override
+    public Object get(Object key)
+    {
+        return store.snapshot().get(key);
+    }
+
+    @Override
+    public Object getOrDefault(Object key, Object defaultValue)
+    {
+        Object value = get(key);
+        return (value != null) ? value : defaultValue;
+    }
+
+    /**
+     * Sets a variable.
+     *
+     * @param key   the variable name. Must be a string
+     * @param value the variable value. Must be a string
+     * @return the previous value, or {@code null} if there was none
+     * @throws NullPointerException if the key or value is {@code null}
+     * @throws ClassCastException   if the key or value is not a string
+     */
+    @Override
+    public Object put(Object key, Object value)
+    {
+        if (key == null || value == null)
+        {
+            throw new NullPointerException();
+        }
+        return store.set((String) key, (String) value);
+    }
+
+    @Override
+    public void putAll(Map<?, ?> map)
+    {
+        for (Map.Entry<?, ?> entry : map.entrySet())
+        {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public Object remove(Object key)
+    {
+        return (key instanceof String) ? store.set((String) key, null) : null;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value)
+    {
+        return (key instanceof String) && (value instanceof String)
+                && store.replace((String) key, (String) value, null);
+    }
+
+    @Override
+    public Object putIfAbsent(Object key, Object value)
+    {
+        if (key == null || value == null)
+        {
+            throw new NullPointerException();
+        }
+        while (true)
+        {
+            String previous = store.get((String) key);
+            if (previous != null || store.replace((String) key, null, (String) value))
+            {
+                return previous;
+            }
+        }
+    }
+
+    @Override
+    public boolean replace(Object key, Object oldValue, Object newValue)
+    {
+        if (key == null || oldValue == null || newValue == null)
+        {
+            throw new NullPointerException();
+        }
+        return (oldValue instanceof String) && store.replace((String) key, (String) oldValue, (String) newValue);
+    }
+
+    @Override
+    public Object replace(Object key, Object value)
+    {
+        if (key == null || value == null)
+        {
+            throw new NullPointerException();
+        }
+        while (true)
+        {
+            String previous = store.get((String) key);
+            if (previous == null || store.replace((String) key, previous, (String) value))
+            {
+                return previous;
+            }
+        }
+    }
+
+    @Override
+    public Object computeIfAbsent(Object key, Function<? super Object, ?> mappingFunction)
+    {
+        if (key == null || mappingFunction == null)
+        {
+            throw new NullPointerException();
+        }
+        while (true)
+        {
+            String previous = store.get((String) key);
+            if (previous != null)
+            {
+                return previous;
+            }
+            String value = (String) mappingFunction.apply(key);
+            if (value == null || store.replace((String) key, null, value))
+            {
+                return value;
+            }
+        }
+    }
+
+    @Override
+    public Object computeIfPresent(Object key, BiFunction<? super Object, ? super Object, ?> remappingFunction)
+    {
+        if (key == null || remappingFunction == null)
+        {
+            throw new NullPointerException();
+        }
+        while (true)
+        {
+            String previous = store.get((String) key);
+            if (previous == null)
+            {
+                return null;
+            }
+            String value = (String) remappingFunction.apply(key, previous);
+            if (store.replace((String) key, previous, value))
+            {
+                return value;
+            }
+        }
+    }
+
+    @Override
+    public Object compute(Object key, BiFunction<? super Object, ? super Object, ?> remappingFunction)
+    {
+        if (key == null || remappingFunction == null)
+        {
+            throw new NullPointerException();
+        }
+        while (true)
+        {
+            String previous = store.get((String) key);
+            String value = (String) remappingFunction.apply(key, previous);
+            if (store.replace((String) key, previous, value))
+            {
+                return value;
+            }
+        }
+    }
+
+    @Override
+    public Object merge(Object key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction)
+    {
+        if (key == null || value == null || remappingFunction == null)
+        {
+            throw new NullPointerException();
+        }
+        while (true)
+        {
+            String previous = store.get((String) key);
+            String next = (previous != null) ? (String) remappingFunction.apply(previous, value) : (String) value;
+            if (store.replace((String) key, previous, next))
+            {
+                return next;
+            }
+        }
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super Object, ? super Object, ?> function)
+    {
+        if (function == null)
+        {
+            throw new NullPointerException();
+        }
+        for (String key : store.snapshot().keySet())
+        {
+            while (true)
+            {
+                String previous = store.get(key);
+                if (previous == null)
+                {
+                    break;
+                }
+                String value = (String) function.apply(key, previous);
+                if (value == null)
+                {
+                    throw new NullPointerException();
+                }
+                if (store.replace(key, previous, value))
+                {
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        store.clear();
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return store.snapshot().containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value)
+    {
+        return store.snapshot().containsValue(value);
+    }
+
+    @Override
+    public boolean contains(Object value)
+    {
+        return containsValue(value);
+    }
+
+    @Override
+    public int size()
+    {
+        return store.snapshot().size();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return store.snapshot().isEmpty();
+    }
+
+    @Override
+    public Enumeration<Object> keys()
+    {
+        return Collections.enumeration(new ArrayList<Object>(store.snapshot().keySet()));
+    }
+
+    @Override
+    public Enumeration<Object> elements()
+    {
+        return Collections.enumeration(new ArrayList<Object>(store.snapshot().values()));
+    }
+
+    @Override
+    public Enumeration<?> propertyNames()
+    {
+        return keys();
+    }
+
+    @Override
+    public Set<String> stringPropertyNames()
+    {
+        return store.snapshot().keySet();
+    }
+
+    @Override
+    public Set<Object> keySet()
+    {
+        return Collections.<Object>unmodifiableSet(store.snapshot().keySet());
+    }
+
+    @Override
+    public Set<Map.Entry<Object, Object>> entrySet()
+    {
+        return Collections.<Object, Object>unmodifiableMap(store.snapshot()).entrySet();
+    }
+
+    @Override
+    public Collection<Object> values()
+    {
+        return Collections.<Object>unmodifiableCollection(store.snapshot().values());
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super Object, ? super Object> action)
+    {
+        for (Map.Entry<String, String> entry : store.snapshot().entrySet())
+        {
+            action.accept(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Returns a copy of the variables.
+     *
+     * @return a new {@code Properties}
+     */
+    @Override
+    public Object clone()
+    {
+        Properties result = new Properties();
+        result.putAll(store.snapshot());
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        return other == this || store.snapshot().equals(other);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return store.snapshot().hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return store.snapshot().toString();
+    }
+
+    /**
+     * Serializes the view as a copy of the variables.
+     *
+     * @return a new {@code Properties}
+     */
+    private Object writeReplace()
+    {
+        return clone();
+    }
+}
@@ -27,6 +27,14 @@ import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.net.URL;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
@@ -47,11 +55,44 @@ import com.izforge.izpack.api.resource.Resources;
 public abstract class AbstractResources implements Resources
 {
 
+    /**
+     * The name of the resource index, relative to {@link #INDEX_BASE}.
+     * <p/>
+     * The compiler writes this as the last resource of the installer. It contains the names of all other resources
+     * in the installer, relative to {@link #INDEX_BASE}.
+     */
+    public static final String RESOURCE_INDEX = "resources.index";
+
+    /**
+     * The path of the resources covered by the index.
+     */
+    private static final String INDEX_BASE = "resources/";
+
     /**
      * The class loader.
      */
     private final ClassLoader loader;
 
+    /**
+     * The URLs of resources that have been found, keyed on resolved name.
+     */
+    private final ConcurrentMap<String, URL> found = new ConcurrentHashMap<String, URL>();
+
+    /**
+     * The resolved names of resources that the class loader couldn't find.
+     */
+    private final Set<String> missing = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * The resource index, or an empty set if there is none. Loaded on first use.
+     */
+    private volatile Set<String> index;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(AbstractResources.class.getName());
+
 
     /**
      * Constructs an {@code AbstractResources} using the default class loader.
@@ -82,9 +123,10 @@ public abstract class AbstractResources implements Resources
     public InputStream getInputStream(String name)
     {
         name = resolveName(name);
-        InputStream result = loader.getResourceAsStream(name);
+        InputStream result = !isMissing(name) ? loader.getResourceAsStream(name) : null;
         if (result == null)
         {
+            missing.add(name);
             throw new ResourceNotFoundException("Failed to locate resource: " + name);
         }
         return result;
@@ -252,7 +294,43 @@ public abstract class AbstractResources implements Resources
     protected URL getResource(String name)
     {
         name = resolveName(name);
-        return loader.getResource(name);
+        URL result = found.get(name);
+        if (result == null && !isMissing(name))
+        {
+            result = loader.getResource(name);
+            if (result != null)
+            {
+                found.put(name, result);
+            }
+            else
+            {
+                missing.add(name);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Determines if a resource is known not to exist, without searching the class path.
+     * <p/>
+     * A resource is known not to exist if a previous search failed, or if the installer has a resource index that
+     * covers the name, and the name isn't in it.
+     *
+     * @param name the resolved resource name
+     * @return {@code true} if the resource is known not to exist, {@code false} if it may exist
+     */
+    protected boolean isMissing(String name)
+    {
+        if (missing.contains(name))
+        {
+            return true;
+        }
+        if (name.startsWith(INDEX_BASE))
+        {
+            Set<String> resources = getIndex();
+            return !resources.isEmpty() && !resources.contains(name.substring(INDEX_BASE.length()));
+        }
+        return false;
     }
 
     /**
@@ -282,6 +360,63 @@ public abstract class AbstractResources implements Resources
         return loader;
     }
 
+    /**
+     * Returns the resource index, loading it if required.
+     *
+     * @return the names of the indexed resources, or an empty set if there is no index
+     */
+    private Set<String> getIndex()
+    {
+        Set<String> result = index;
+        if (result == null)
+        {
+            synchronized (this)
+            {
+                result = index;
+                if (result == null)
+                {
+                    result = readIndex();
+                    index = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the resource index.
+     * <p/>
+     * Installers built by older compilers, and class paths other than an installer's, have no index, in which case
+     * every name is searched for.
+     *
+     * @return the names of the indexed resources, or an empty set if there is no index or it cannot be read
+     */
+    @SuppressWarnings("unchecked")
+    private Set<String> readIndex()
+    {
+        Set<String> result = Collections.emptySet();
+        InputStream in = loader.getResourceAsStream(INDEX_BASE + RESOURCE_INDEX);
+        if (in != null)
+        {
+            ObjectInputStream objectIn = null;
+            try
+            {
+                objectIn = new ObjectInputStream(in);
+                result = new HashSet<String>((Collection<String>) objectIn.readObject());
+            }
+            catch (Exception exception)
+            {
+                logger.log(Level.WARNING, "Failed to read resource index: " + exception.getMessage(), exception);
+            }
+            finally
+            {
+                IOUtils.closeQuietly(objectIn);
+                IOUtils.closeQuietly(in);
+            }
+        }
+        return result;
+    }
+
     /**
      * Reads a string resource.
      *
@@ -39,6 +39,7 @@ import com.izforge.izpack.core.rules.logic.NotCondition;
 import com.izforge.izpack.core.rules.logic.OrCondition;
 import com.izforge.izpack.core.rules.logic.XorCondition;
 import com.izforge.izpack.core.rules.process.*;
+import com.izforge.izpack.util.EvaluationProfiler;
 import com.izforge.izpack.util.Platform;
 import com.izforge.izpack.util.Platforms;
 
@@ -73,6 +74,31 @@ public class RulesEngineImpl implements RulesEngine
 
     private static final Logger logger = Logger.getLogger(RulesEngineImpl.class.getName());
 
+    /**
+     * The built-in OS condition identifiers, and the platforms they test for.
+     */
+    public static final Map<String, Platform> PLATFORM_CONDITIONS;
+
+    static
+    {
+        Map<String, Platform> conditions = new LinkedHashMap<String, Platform>();
+        conditions.put("izpack.aixinstall", Platforms.AIX);
+        conditions.put("izpack.windowsinstall", Platforms.WINDOWS);
+        conditions.put("izpack.windowsinstall.xp", Platforms.WINDOWS_XP);
+        conditions.put("izpack.windowsinstall.2003", Platforms.WINDOWS_2003);
+        conditions.put("izpack.windowsinstall.vista", Platforms.WINDOWS_VISTA);
+        conditions.put("izpack.windowsinstall.7", Platforms.WINDOWS_7);
+        conditions.put("izpack.windowsinstall.8", Platforms.WINDOWS_8);
+        conditions.put("izpack.windowsinstall.10", Platforms.WINDOWS_10);
+        conditions.put("izpack.linuxinstall", Platforms.LINUX);
+        conditions.put("izpack.solarisinstall", Platforms.SUNOS);
+        conditions.put("izpack.macinstall", Platforms.MAC);
+        conditions.put("izpack.macinstall.osx", Platforms.MAC_OSX);
+        conditions.put("izpack.solarisinstall.x86", Platforms.SUNOS_X86);
+        conditions.put("izpack.solarisinstall.sparc", Platforms.SUNOS_SPARC);
+        PLATFORM_CONDITIONS = Collections.unmodifiableMap(conditions);
+    }
+
     /**
      * The built-in condition types, with their corresponding class names.
      */
@@ -332,7 +358,20 @@ public class RulesEngineImpl implements RulesEngine
         {
             cond.setInstallData(this.installData);
         }
-        return cond.isTrue();
+        if (!EvaluationProfiler.isEnabled())
+        {
+            return cond.isTrue();
+        }
+        long start = System.nanoTime();
+        try
+        {
+            return cond.isTrue();
+        }
+        finally
+        {
+            EvaluationProfiler.CONDITIONS.record(cond.getId(), cond.getClass().getSimpleName(),
+                                                 System.nanoTime() - start);
+        }
     }
 
     /**
@@ -527,20 +566,10 @@ public class RulesEngineImpl implements RulesEngine
      */
     private void initOsConditions(Platform platform)
     {
-        createPlatformCondition("izpack.aixinstall", platform, Platforms.AIX);
-        createPlatformCondition("izpack.windowsinstall", platform, Platforms.WINDOWS);
-        createPlatformCondition("izpack.windowsinstall.xp", platform, Platforms.WINDOWS_XP);
-        createPlatformCondition("izpack.windowsinstall.2003", platform, Platforms.WINDOWS_2003);
-        createPlatformCondition("izpack.windowsinstall.vista", platform, Platforms.WINDOWS_VISTA);
-        createPlatformCondition("izpack.windowsinstall.7", platform, Platforms.WINDOWS_7);
-        createPlatformCondition("izpack.windowsinstall.8", platform, Platforms.WINDOWS_8);
-        createPlatformCondition("izpack.windowsinstall.10", platform, Platforms.WINDOWS_10);
-        createPlatformCondition("izpack.linuxinstall", platform, Platforms.LINUX);
-        createPlatformCondition("izpack.solarisinstall", platform, Platforms.SUNOS);
-        createPlatformCondition("izpack.macinstall", platform, Platforms.MAC);
-        createPlatformCondition("izpack.macinstall.osx", platform, Platforms.MAC_OSX);
-        createPlatformCondition("izpack.solarisinstall.x86", platform, Platforms.SUNOS_X86);
-        createPlatformCondition("izpack.solarisinstall.sparc", platform, Platforms.SUNOS_SPARC);
+        for (Map.Entry<String, Platform> entry : PLATFORM_CONDITIONS.entrySet())
+        {
+            createPlatformCondition(entry.getKey(), platform, entry.getValue());
+        }
     }
 
     private void initInstallerModeConditions() {
@@ -6,12 +6,13 @@ import com.izforge.izpack.api.data.Variables;
 import com.izforge.izpack.api.exception.CompilerException;
 import com.izforge.izpack.api.rules.Condition;
 import com.izforge.izpack.core.variable.utils.ValueUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -35,7 +36,20 @@ public class ContainsCondition extends Condition {
   private boolean isRegEx = false;
   private boolean isCaseInsensitive = false;
 
-  private Pattern pattern = null;
+  /**
+   * The size in bytes above which files are searched without reading them into memory.
+   */
+  static final long IN_MEMORY_LIMIT = 4 * 1024 * 1024;
+
+  /**
+   * The compiled pattern for the last resolved value.
+   */
+  private transient volatile CompiledValue compiled;
+
+  /**
+   * The result of the last file search.
+   */
+  private transient volatile FileMatch lastFileMatch;
 
   public ContainsCondition() {
   }
@@ -55,11 +69,6 @@ public class ContainsCondition extends Condition {
     // must be done on each call again, because content could change 
     String resolvedValue = variables.replace(this.value);
 
-    if (isRegEx)
-    {
-        pattern = Pattern.compile(resolvedValue,Pattern.MULTILINE);
-    }
-
     switch (contentType) {
     case STRING:
         content = variables.replace(this.source);
@@ -71,26 +80,15 @@ public class ContainsCondition extends Condition {
 
     case FILE:
         File file = new File(FilenameUtils.normalize(variables.replace(this.source)));
-        byte[] buffer = new byte[(int) file.length()];
-        BufferedInputStream f = null;
         try
         {
-            f = new BufferedInputStream(new FileInputStream(file));
-            f.read(buffer);
-            if (f != null) try
-            {
-                f.close();
-            }
-            catch (IOException ignored)
-            {}
+            return matchesFile(file, getPattern(resolvedValue));
         }
         catch (IOException e)
         {
             logger.log(Level.WARNING, e.getMessage());
             return false;
         }
-        content = new String(buffer);
-      break;
 
     default:
       logger.warning("Illegal source type '" + contentType.getAttribute()
@@ -104,11 +102,96 @@ public class ContainsCondition extends Condition {
     return matchesString(content, resolvedValue);
   }
 
+  /**
+   * Returns the pattern for a resolved value, compiling it only if the value has changed since the last call.
+   *
+   * @param resolvedValue the value, with variables replaced
+   * @return the pattern. For literal values, this matches the quoted value
+   */
+  private Pattern getPattern(String resolvedValue)
+  {
+      CompiledValue result = compiled;
+      if (result == null || !result.value.equals(resolvedValue))
+      {
+          Pattern pattern;
+          if (isRegEx)
+          {
+              pattern = Pattern.compile(resolvedValue, Pattern.MULTILINE);
+          }
+          else
+          {
+              int flags = isCaseInsensitive ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0;
+              pattern = Pattern.compile(Pattern.quote(resolvedValue), flags);
+          }
+          result = new CompiledValue(resolvedValue, pattern);
+          compiled = result;
+      }
+      return result.pattern;
+  }
+
+  /**
+   * Determines if a file contains a match for a pattern.
+   * <p/>
+   * The result is reused until the path, pattern, size or modification time of the file changes.
+   *
+   * @param file    the file
+   * @param pattern the pattern
+   * @return {@code true} if the file contains a match
+   * @throws IOException if the file cannot be read
+   */
+  private boolean matchesFile(File file, Pattern pattern) throws IOException
+  {
+      String path = file.getPath();
+      long length = file.length();
+      long lastModified = file.lastModified();
+      FileMatch last = lastFileMatch;
+      if (last != null && last.isFor(path, length, lastModified, pattern))
+      {
+          return last.matches;
+      }
+      boolean result = find(file, pattern);
+      lastFileMatch = new FileMatch(path, length, lastModified, pattern, result);
+      return result;
+  }
+
+  /**
+   * Searches a file for a pattern.
+   * <p/>
+   * Small files are read into memory. Larger files are searched via a {@link FileCharSequence}, which only keeps a
+   * few chunks of the file in memory, if the default charset supports it.
+   *
+   * @param file    the file
+   * @param pattern the pattern
+   * @return {@code true} if the file contains a match
+   * @throws IOException if the file cannot be read
+   */
+  private static boolean find(File file, Pattern pattern) throws IOException
+  {
+      Charset charset = Charset.defaultCharset();
+      if (file.length() <= IN_MEMORY_LIMIT || !FileCharSequence.isSupported(charset))
+      {
+          return pattern.matcher(FileUtils.readFileToString(file, charset)).find();
+      }
+      FileCharSequence content = new FileCharSequence(file, charset);
+      try
+      {
+          return pattern.matcher(content).find();
+      }
+      catch (UncheckedIOException exception)
+      {
+          throw exception.getCause();
+      }
+      finally
+      {
+          content.close();
+      }
+  }
+
   private boolean matchesString(String line, String value)
   {
       if (isRegEx)
       {
-          Matcher matcher = pattern.matcher(line);
+          Matcher matcher = getPattern(value).matcher(line);
           if (matcher.find())
           {
               return true;
@@ -241,6 +324,62 @@ public class ContainsCondition extends Condition {
     }
   }
 
+  /**
+   * A resolved value and its compiled pattern.
+   */
+  private static class CompiledValue
+  {
+      private final String value;
+
+      private final Pattern pattern;
+
+      CompiledValue(String value, Pattern pattern)
+      {
+          this.value = value;
+          this.pattern = pattern;
+      }
+  }
+
+  /**
+   * The result of searching a file.
+   */
+  private static class FileMatch
+  {
+      private final String path;
+
+      private final long length;
+
+      private final long lastModified;
+
+      private final Pattern pattern;
+
+      private final boolean matches;
+
+      FileMatch(String path, long length, long lastModified, Pattern pattern, boolean matches)
+      {
+          this.path = path;
+          this.length = length;
+          this.lastModified = lastModified;
+          this.pattern = pattern;
+          this.matches = matches;
+      }
+
+      /**
+       * Determines if this result applies to a file and pattern.
+       *
+       * @param path         the file path
+       * @param length       the file length
+       * @param lastModified the file modification time
+       * @param pattern      the pattern
+       * @return {@code true} if the result applies
+       */
+      boolean isFor(String path, long length, long lastModified, Pattern pattern)
+      {
+          return this.path.equals(path) && this.length == length && this.lastModified == lastModified
+                  && this.pattern == pattern;
+      }
+  }
+
     @Override
     public Set<String> getVarRefs() {
         HashSet<String> vars = new HashSet<String>(2);
@@ -0,0 +1,397 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.core.rules.process;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * A {@code CharSequence} over the decoded content of a file. Only a few chunks of the file are kept in memory.
+ * <p/>
+ * On construction, the file is decoded once to record the byte offset of each chunk of up to {@link #CHUNK_SIZE}
+ * characters. When characters are accessed, their chunk is decoded again, and the most recently used chunks are
+ * cached. Regular expressions can then be matched against files too large to load, with the same results as
+ * matching the decoded content as a string.
+ * <p/>
+ * Only charsets that can be decoded from any character boundary are supported. See {@link #isSupported(Charset)}.
+ * <p/>
+ * Errors reading the file after construction are thrown as {@code UncheckedIOException}.
+ */
+class FileCharSequence implements CharSequence, Closeable
+{
+    /**
+     * The maximum number of characters in a chunk.
+     */
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * The maximum number of decoded chunks to keep.
+     */
+    private static final int CACHE_SIZE = 16;
+
+    /**
+     * The file channel.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The charset.
+     */
+    private final Charset charset;
+
+    /**
+     * The byte offset of each chunk, followed by the file length.
+     */
+    private final long[] byteOffsets;
+
+    /**
+     * The character offset of each chunk, followed by the number of characters.
+     */
+    private final int[] charOffsets;
+
+    /**
+     * The decoded chunks, in least recently used order.
+     */
+    private final Map<Integer, char[]> chunks = new LinkedHashMap<Integer, char[]>(CACHE_SIZE, 0.75f, true)
+    {
+        private static final long serialVersionUID = 5516432640387627423L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, char[]> eldest)
+        {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * The last chunk accessed.
+     */
+    private char[] current;
+
+    /**
+     * The character offset of the last chunk accessed.
+     */
+    private int currentStart;
+
+    /**
+     * The character offset following the last chunk accessed.
+     */
+    private int currentEnd;
+
+
+    /**
+     * Constructs a {@code FileCharSequence}.
+     *
+     * @param file    the file
+     * @param charset the charset to decode the file with. Malformed and unmappable input is replaced
+     * @throws IOException if the file cannot be read, or has more than {@code Integer.MAX_VALUE} characters
+     */
+    FileCharSequence(File file, Charset charset) throws IOException
+    {
+        this.charset = charset;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try
+        {
+            List<Long> bytes = new ArrayList<Long>();
+            List<Integer> chars = new ArrayList<Integer>();
+            index(bytes, chars);
+            byteOffsets = new long[bytes.size()];
+            charOffsets = new int[chars.size()];
+            for (int i = 0; i < byteOffsets.length; ++i)
+            {
+                byteOffsets[i] = bytes.get(i);
+                charOffsets[i] = chars.get(i);
+            }
+        }
+        catch (IOException exception)
+        {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Determines if a charset is supported.
+     * <p/>
+     * Charsets are supported if decoding can start at any character boundary. This is the case for UTF-8, and for
+     * charsets that decode one byte to one character.
+     *
+     * @param charset the charset
+     * @return {@code true} if the charset is supported
+     */
+    static boolean isSupported(Charset charset)
+    {
+        if (StandardCharsets.UTF_8.equals(charset))
+        {
+            return true;
+        }
+        CharsetDecoder decoder = charset.newDecoder();
+        return decoder.maxCharsPerByte() == 1.0f && decoder.averageCharsPerByte() == 1.0f;
+    }
+
+    /**
+     * Returns the number of characters.
+     *
+     * @return the number of characters
+     */
+    @Override
+    public int length()
+    {
+        return charOffsets[charOffsets.length - 1];
+    }
+
+    /**
+     * Returns the character at the specified index.
+     *
+     * @param index the index
+     * @return the character
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @throws UncheckedIOException      if the file cannot be read
+     */
+    @Override
+    public char charAt(int index)
+    {
+        if (index < currentStart || index >= currentEnd)
+        {
+            if (index < 0 || index >= length())
+            {
+                throw new IndexOutOfBoundsException("Index: " + index + ", length: " + length());
+            }
+            load(index);
+        }
+        return current[index - currentStart];
+    }
+
+    /**
+     * Returns a sub-sequence.
+     *
+     * @param start the start index, inclusive
+     * @param end   the end index, exclusive
+     * @return the characters between {@code start} and {@code end}
+     * @throws IndexOutOfBoundsException if the indexes are out of range
+     * @throws UncheckedIOException      if the file cannot be read
+     */
+    @Override
+    public CharSequence subSequence(int start, int end)
+    {
+        if (start < 0 || end > length() || start > end)
+        {
+            throw new IndexOutOfBoundsException("Start: " + start + ", end: " + end + ", length: " + length());
+        }
+        StringBuilder result = new StringBuilder(end - start);
+        for (int i = start; i < end; ++i)
+        {
+            result.append(charAt(i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the content.
+     *
+     * @return the content
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    @Override
+    public String toString()
+    {
+        return subSequence(0, length()).toString();
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Override
+    public void close() throws IOException
+    {
+        chunks.clear();
+        current = null;
+        channel.close();
+    }
+
+    /**
+     * Decodes the file, recording the byte and character offsets of each chunk.
+     *
+     * @param bytes collects the byte offsets
+     * @param chars collects the character offsets
+     * @throws IOException if the file cannot be read, or has more than {@code Integer.MAX_VALUE} characters
+     */
+    private void index(List<Long> bytes, List<Integer> chars) throws IOException
+    {
+        CharsetDecoder decoder = newDecoder();
+        ByteBuffer in = ByteBuffer.allocate(CHUNK_SIZE);
+        CharBuffer out = CharBuffer.allocate(CHUNK_SIZE);
+        long read = 0;
+        long length = 0;
+        boolean eof = false;
+        bytes.add(0L);
+        chars.add(0);
+        while (!eof)
+        {
+            int count = channel.read(in);
+            if (count == -1)
+            {
+                eof = true;
+            }
+            else
+            {
+                read += count;
+            }
+            in.flip();
+            CoderResult result;
+            do
+            {
+                result = decoder.decode(in, out, eof);
+                if (result.isOverflow())
+                {
+                    // the chunk is full. The decoder stops at a character boundary, so the next chunk starts here
+                    length += out.position();
+                    checkLength(length);
+                    bytes.add(read - in.remaining());
+                    chars.add((int) length);
+                    out.clear();
+                }
+            }
+            while (result.isOverflow());
+            in.compact();
+        }
+        decoder.flush(out); // supported charsets have no trailing output
+        length += out.position();
+        checkLength(length);
+        if (out.position() != 0 || bytes.size() == 1)
+        {
+            bytes.add(read);
+            chars.add((int) length);
+        }
+        else
+        {
+            // the last chunk boundary was at the end of the file
+            bytes.set(bytes.size() - 1, read);
+        }
+    }
+
+    /**
+     * Makes the chunk containing a character the current chunk, decoding it if required.
+     *
+     * @param index the character index
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    private void load(int index)
+    {
+        int chunk = Arrays.binarySearch(charOffsets, index);
+        if (chunk < 0)
+        {
+            chunk = -chunk - 2;
+        }
+        char[] decoded = chunks.get(chunk);
+        if (decoded == null)
+        {
+            try
+            {
+                decoded = decode(chunk);
+            }
+            catch (IOException exception)
+            {
+                throw new UncheckedIOException(exception);
+            }
+            chunks.put(chunk, decoded);
+        }
+        current = decoded;
+        currentStart = charOffsets[chunk];
+        currentEnd = charOffsets[chunk + 1];
+    }
+
+    /**
+     * Decodes a chunk.
+     *
+     * @param chunk the chunk
+     * @return the decoded characters
+     * @throws IOException if the file cannot be read, or has changed since it was indexed
+     */
+    private char[] decode(int chunk) throws IOException
+    {
+        long position = byteOffsets[chunk];
+        ByteBuffer in = ByteBuffer.allocate((int) (byteOffsets[chunk + 1] - position));
+        while (in.hasRemaining())
+        {
+            if (channel.read(in, position + in.position()) == -1)
+            {
+                throw new IOException("File changed while being read");
+            }
+        }
+        in.flip();
+        char[] result = new char[charOffsets[chunk + 1] - charOffsets[chunk]];
+        CharBuffer out = CharBuffer.wrap(result);
+        CharsetDecoder decoder = newDecoder();
+        decoder.decode(in, out, true);
+        decoder.flush(out);
+        if (out.hasRemaining() || in.hasRemaining())
+        {
+            throw new IOException("File changed while being read");
+        }
+        return result;
+    }
+
+    /**
+     * Creates a decoder that replaces malformed and unmappable input, as {@code String} and
+     * {@code InputStreamReader} do.
+     *
+     * @return a new decoder
+     */
+    private CharsetDecoder newDecoder()
+    {
+        return charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Verifies that the number of characters can be addressed by a {@code CharSequence}.
+     *
+     * @param length the number of characters
+     * @throws IOException if there are too many characters
+     */
+    private static void checkLength(long length) throws IOException
+    {
+        if (length > Integer.MAX_VALUE)
+        {
+            throw new IOException("File too large to search: more than " + Integer.MAX_VALUE + " characters");
+        }
+    }
+}
@@ -171,4 +171,17 @@ public class VariableSubstitutorImpl implements VariableSubstitutor, Serializabl
         return IOUtils.copy(new VariableSubstitutorReader(reader, variables, type, bracesRequired), writer);
     }
 
+    /**
+     * Returns a substitutor that resolves variables against a snapshot of the current variable values.
+     *
+     * @return a substitutor over a snapshot of the variables, with the same braces setting
+     */
+    @Override
+    public VariableSubstitutor snapshot()
+    {
+        VariableSubstitutorImpl result = new VariableSubstitutorImpl(variables.snapshot());
+        result.setBracesRequired(bracesRequired);
+        return result;
+    }
+
 }
@@ -124,7 +124,12 @@ public class ResolveUtils
         return stringBuilder.toString();
     }
 
-    static Collection<URL> getClassPathUrl()
+    /**
+     * Returns the URLs of the context class loader class path.
+     *
+     * @return the class path URLs
+     */
+    public static Collection<URL> getClassPathUrl()
     {
         Collection<URL> result = new HashSet<>();
         ClassLoader loader = Thread.currentThread().getContextClassLoader();
@@ -38,11 +38,16 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 
 import static org.junit.Assert.*;
@@ -86,6 +91,120 @@ public class DefaultVariablesTest
         assertEquals("default", variables.get("nonExistingVariable", "default"));
     }
 
+    /**
+     * Verifies that a snapshot is unaffected by subsequent changes, and can't be changed.
+     */
+    @Test
+    public void testSnapshot()
+    {
+        variables.set("var1", "value1");
+        variables.set("var2", "value2");
+        Variables snapshot = variables.snapshot();
+
+        variables.set("var1", "changed");
+        variables.set("var2", null);
+        variables.set("var3", "value3");
+
+        assertEquals("value1", snapshot.get("var1"));
+        assertEquals("value2", snapshot.get("var2"));
+        assertNull(snapshot.get("var3"));
+        assertEquals("value1 value2", snapshot.replace("${var1} ${var2}"));
+        assertEquals("changed", variables.get("var1"));
+
+        try
+        {
+            snapshot.set("var1", "foo");
+            fail("Expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException expected)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Verifies that {@link Variables#getProperties()} is a live view of the variables, and that it is cloned and
+     * serialized as plain properties.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testProperties() throws Exception
+    {
+        Properties initial = new Properties();
+        initial.setProperty("var1", "value1");
+        DefaultVariables variables = new DefaultVariables(initial);
+        Properties properties = variables.getProperties();
+        assertEquals("value1", properties.getProperty("var1"));
+
+        variables.set("var2", "value2");
+        assertEquals("value2", properties.getProperty("var2"));
+        assertEquals(2, properties.size());
+
+        properties.setProperty("var3", "value3");
+        assertEquals("value3", variables.get("var3"));
+        properties.remove("var1");
+        assertNull(variables.get("var1"));
+
+        Properties clone = (Properties) properties.clone();
+        assertEquals(Properties.class, clone.getClass());
+        assertEquals(clone, properties);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(properties);
+        out.close();
+        Object read = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        assertEquals(Properties.class, read.getClass());
+        assertEquals("value2", ((Properties) read).getProperty("var2"));
+        assertEquals("value3", ((Properties) read).getProperty("var3"));
+        assertEquals(2, ((Properties) read).size());
+    }
+
+    /**
+     * Verifies that the {@code Map} methods of {@link Variables#getProperties()} update the variables.
+     */
+    @Test
+    public void testPropertiesMapMethods()
+    {
+        DefaultVariables variables = new DefaultVariables();
+        Properties properties = variables.getProperties();
+
+        assertNull(properties.putIfAbsent("var1", "value1"));
+        assertEquals("value1", properties.putIfAbsent("var1", "other"));
+        assertEquals("value1", variables.get("var1"));
+
+        assertEquals("value1", properties.replace("var1", "value2"));
+        assertNull(properties.replace("var2", "value2"));
+        assertFalse(properties.replace("var1", "value1", "value3"));
+        assertTrue(properties.replace("var1", "value2", "value3"));
+        assertEquals("value3", variables.get("var1"));
+        assertNull(variables.get("var2"));
+
+        assertEquals("value2", properties.computeIfAbsent("var2", key -> "value2"));
+        assertEquals("value2", variables.get("var2"));
+        assertEquals("value2!", properties.computeIfPresent("var2", (key, value) -> value + "!"));
+        assertEquals("value2!", variables.get("var2"));
+        assertNull(properties.computeIfPresent("var2", (key, value) -> null));
+        assertNull(variables.get("var2"));
+        assertEquals("x", properties.compute("var2", (key, value) -> value == null ? "x" : value + "x"));
+        assertEquals("xx", properties.compute("var2", (key, value) -> value == null ? "x" : value + "x"));
+        assertEquals("xx", variables.get("var2"));
+
+        assertEquals("a", properties.merge("var3", "a", (old, value) -> old + "," + value));
+        assertEquals("a,b", properties.merge("var3", "b", (old, value) -> old + "," + value));
+        assertEquals("a,b", variables.get("var3"));
+
+        properties.replaceAll((key, value) -> key + "=" + value);
+        assertEquals("var1=value3", variables.get("var1"));
+        assertEquals("var2=xx", variables.get("var2"));
+
+        assertFalse(properties.remove("var1", "value3"));
+        assertTrue(properties.remove("var1", "var1=value3"));
+        assertNull(variables.get("var1"));
+        assertEquals(2, properties.size());
+    }
+
     /**
      * Tests the {@link Variables#getBoolean(String)} and {@link Variables#getBoolean(String, boolean)} methods.
      */
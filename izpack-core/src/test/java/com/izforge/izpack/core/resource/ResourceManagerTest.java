@@ -22,11 +22,25 @@
 package com.izforge.izpack.core.resource;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import javax.swing.ImageIcon;
 
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.izforge.izpack.api.exception.ResourceNotFoundException;
 
@@ -37,6 +51,12 @@ import com.izforge.izpack.api.exception.ResourceNotFoundException;
  */
 public class ResourceManagerTest
 {
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     /**
      * Verifies images can be retrieved for each of the supported countries and languages.
      */
@@ -85,4 +105,69 @@ public class ResourceManagerTest
         // this resource does not exist
         resources.getImageIcon("testbmp.bmpx");
     }
+
+    /**
+     * Verifies that resources under the installer resource path are looked up in the resource index, and that
+     * failed lookups aren't repeated.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testResourceIndex() throws Exception
+    {
+        File dir = temporaryFolder.getRoot();
+        FileUtils.write(new File(dir, "resources/a.txt"), "a", "UTF-8");
+        FileUtils.write(new File(dir, "resources/unindexed.txt"), "unindexed", "UTF-8");
+        FileUtils.write(new File(dir, "other/b.txt"), "b", "UTF-8");
+        ObjectOutputStream out = new ObjectOutputStream(
+                new FileOutputStream(new File(dir, "resources/" + AbstractResources.RESOURCE_INDEX)));
+        out.writeObject(new ArrayList<String>(Arrays.asList("a.txt")));
+        out.close();
+
+        CountingClassLoader loader = new CountingClassLoader(dir);
+        ResourceManager resources = new ResourceManager(loader);
+
+        assertEquals("a", resources.getString("a.txt"));
+        assertEquals("b", resources.getString("/other/b.txt"));
+        List<String> expected = new ArrayList<String>(Arrays.asList("resources/resources.index", "resources/a.txt",
+                                                                    "resources/a.txt", "other/b.txt",
+                                                                    "other/b.txt"));
+        assertEquals(expected, loader.names);
+
+        // resources missing from the index aren't searched for, even if they are on the class path
+        assertEquals("default", resources.getString("unindexed.txt", "default"));
+        assertEquals("default", resources.getString("missing.txt", "default"));
+        assertEquals(expected, loader.names);
+
+        // resources outside the index are only searched for once
+        assertNull(resources.getResource("/other/missing.txt"));
+        assertNull(resources.getResource("/other/missing.txt"));
+        assertFalse(resources.isMissing("other/b.txt"));
+        expected.add("other/missing.txt");
+        assertEquals(expected, loader.names);
+    }
+
+    /**
+     * Class loader that records the names of the resources it is asked for. This includes the resources
+     * requested via {@link #getResourceAsStream(String)}.
+     */
+    private static class CountingClassLoader extends URLClassLoader
+    {
+        /**
+         * The requested resource names.
+         */
+        private final List<String> names = new ArrayList<String>();
+
+        public CountingClassLoader(File dir) throws Exception
+        {
+            super(new URL[]{dir.toURI().toURL()}, null);
+        }
+
+        @Override
+        public URL getResource(String name)
+        {
+            names.add(name);
+            return super.getResource(name);
+        }
+    }
 }
@@ -22,11 +22,15 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertEquals;
 
+import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.izforge.izpack.api.adaptator.IXMLElement;
 import com.izforge.izpack.api.adaptator.IXMLParser;
@@ -45,6 +49,12 @@ import com.izforge.izpack.util.Platforms;
 public class ContainsConditionTest
 {
 
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     /**
      * Checks conditions for strings read from the test <em>contains_in_string.xml</em> file.
      */
@@ -77,6 +87,37 @@ public class ContainsConditionTest
         doTests(variables, "contains_in_variable.xml");
     }
 
+    /**
+     * Verifies that file results are re-evaluated when the file changes, and that large files are searched.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testFileChanges() throws Exception
+    {
+        File file = temporaryFolder.newFile("test.log");
+        FileUtils.writeStringToFile(file, "no errors\n", "UTF-8");
+        Variables variables = new DefaultVariables();
+        variables.set("log", file.getPath());
+        RulesEngine rules = createRulesEngine(new AutomatedInstallData(variables, Platforms.UNIX));
+        String xml = "<conditions><condition type=\"contains\" id=\"failed\"><file>${log}</file>"
+                + "<value regex=\"true\">^ERROR: .*failed$</value></condition></conditions>";
+        rules.analyzeXml(new XMLParser().parse(xml));
+        assertFalse(rules.isConditionTrue("failed"));
+
+        StringBuilder text = new StringBuilder();
+        while (text.length() <= ContainsCondition.IN_MEMORY_LIMIT)
+        {
+            text.append("INFO: step ").append(text.length()).append(" succeeded\n");
+        }
+        text.append("ERROR: step failed\n");
+        FileUtils.writeStringToFile(file, text.toString(), "UTF-8");
+        assertTrue(rules.isConditionTrue("failed"));
+
+        FileUtils.writeStringToFile(file, "ERROR: step did not fail\n", "UTF-8");
+        assertFalse(rules.isConditionTrue("failed"));
+    }
+
     /**
      * Run defined set of tests
      * 
@@ -0,0 +1,183 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.core.rules.process;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Tests the {@link FileCharSequence} class.
+ */
+public class FileCharSequenceTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that the content of a UTF-8 file with multi-byte characters spanning chunk boundaries is decoded
+     * correctly.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testUTF8() throws Exception
+    {
+        checkContent(createText(3 * FileCharSequence.CHUNK_SIZE + 17), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Verifies that the content of a single byte charset file is decoded correctly.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testSingleByte() throws Exception
+    {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 2 * FileCharSequence.CHUNK_SIZE)
+        {
+            text.append("café ");
+        }
+        checkContent(text.toString(), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Verifies that empty files are supported.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testEmpty() throws Exception
+    {
+        checkContent("", StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Verifies that patterns match content spanning chunks, including look-behind and line anchors.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testFind() throws Exception
+    {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 4 * FileCharSequence.CHUNK_SIZE)
+        {
+            text.append("line ").append(text.length()).append('\n');
+        }
+        text.setLength(FileCharSequence.CHUNK_SIZE - 5);
+        text.append("\nstart-of-match");
+        while (text.length() < 3 * FileCharSequence.CHUNK_SIZE)
+        {
+            text.append("\nfiller");
+        }
+        text.append("\nend-of-match\n");
+        File file = temporaryFolder.newFile("find.txt");
+        FileUtils.writeStringToFile(file, text.toString(), StandardCharsets.UTF_8);
+
+        FileCharSequence content = new FileCharSequence(file, StandardCharsets.UTF_8);
+        try
+        {
+            assertTrue(Pattern.compile("^start-of-match$", Pattern.MULTILINE).matcher(content).find());
+            assertTrue(Pattern.compile("(?s)start-of-match.*end-of-match").matcher(content).find());
+            assertTrue(Pattern.compile("(?<=\\nstart)-of").matcher(content).find());
+            assertFalse(Pattern.compile("^of-match", Pattern.MULTILINE).matcher(content).find());
+            assertFalse(Pattern.compile("end-of-match.*start-of-match", Pattern.DOTALL).matcher(content).find());
+        }
+        finally
+        {
+            content.close();
+        }
+    }
+
+    /**
+     * Verifies that the charsets supporting decoding from any character boundary are recognised.
+     */
+    @Test
+    public void testIsSupported()
+    {
+        assertTrue(FileCharSequence.isSupported(StandardCharsets.UTF_8));
+        assertTrue(FileCharSequence.isSupported(StandardCharsets.ISO_8859_1));
+        assertTrue(FileCharSequence.isSupported(StandardCharsets.US_ASCII));
+        assertFalse(FileCharSequence.isSupported(StandardCharsets.UTF_16));
+    }
+
+    /**
+     * Writes text to a file, and verifies that it is read back the same via a {@link FileCharSequence}.
+     *
+     * @param text    the text
+     * @param charset the charset
+     * @throws Exception for any error
+     */
+    private void checkContent(String text, Charset charset) throws Exception
+    {
+        File file = temporaryFolder.newFile();
+        FileUtils.writeStringToFile(file, text, charset);
+        FileCharSequence content = new FileCharSequence(file, charset);
+        try
+        {
+            assertEquals(text.length(), content.length());
+            assertEquals(text, content.toString());
+            // access out of order
+            for (int i = content.length() - 1; i >= 0; i -= 997)
+            {
+                assertEquals(text.charAt(i), content.charAt(i));
+            }
+        }
+        finally
+        {
+            content.close();
+        }
+    }
+
+    /**
+     * Creates text containing one, two, three and four byte UTF-8 characters.
+     *
+     * @param length the minimum length
+     * @return the text
+     */
+    private String createText(int length)
+    {
+        StringBuilder result = new StringBuilder(length + 8);
+        String[] words = {"plain ", "café ", "€中 ", "😀 "};
+        for (int i = 0; result.length() < length; ++i)
+        {
+            result.append(words[i % words.length]);
+        }
+        return result.toString();
+    }
+}
@@ -129,4 +129,24 @@ public class VariableSubstitutorImplTest
             fail("The system variable resolution of ${SYSTEM_user_dir} resulted in an invalid string '" + substituted + "\"");
         }
     }
+
+    /**
+     * Verifies that a snapshot substitutor is unaffected by subsequent variable changes, and keeps the braces setting.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testSnapshot() throws Exception
+    {
+        Variables variables = new DefaultVariables();
+        variables.set("MY_PROP", "one");
+        VariableSubstitutor substitutor = new VariableSubstitutorImpl(variables);
+        substitutor.setBracesRequired(true);
+
+        VariableSubstitutor snapshot = substitutor.snapshot();
+        variables.set("MY_PROP", "two");
+
+        assertThat(snapshot.substitute("${MY_PROP} $MY_PROP"), Is.is("one $MY_PROP"));
+        assertThat(substitutor.substitute("${MY_PROP} $MY_PROP"), Is.is("two $MY_PROP"));
+    }
 }
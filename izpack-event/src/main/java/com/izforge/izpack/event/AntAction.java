@@ -29,11 +29,18 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 /**
  * This class contains data and 'perform' logic for ant action listeners.
+ * <p/>
+ * Each target is run by its own <em>ant</em> task, so it runs in its own sub-project and the build file is parsed
+ * again for each target. Parsed build files are not cached, as Ant executes the top-level tasks of a build file while
+ * parsing it, using the properties of the action. The task and type definitions, and the property files, are loaded
+ * once and shared by all actions.
  *
  * @author Thomas Guenter
  * @author Klaus Bartz
@@ -70,6 +77,17 @@ public class AntAction extends ActionBase
 
     private List<String> propertyFiles = null;
 
+    /**
+     * Initialised project holding the default task and type definitions, shared by all actions. Each action
+     * project inherits the definitions from it instead of loading them again.
+     */
+    private static Project templateProject;
+
+    /**
+     * Property files read so far, keyed on file.
+     */
+    private static final Map<File, CachedProperties> propertyFileCache = new HashMap<File, CachedProperties>();
+
     /**
      * Default constructor
      */
@@ -154,29 +172,21 @@ public class AntAction extends ActionBase
             addPropertiesFromPropertyFiles(antProj);
             // TODO: propertyfiles, logFile
             antProj.fireBuildStarted();
-            antProj.init();
-            List<Ant> antcalls = new ArrayList<Ant>();
+            antProj.initProperties();
+            getTemplateProject().initSubProject(antProj);
             List<String> choosenTargets = (uninstall) ? uninstallTargets : targets;
-            if (choosenTargets.size() > 0)
-            {
-                Ant antcall;
-                for (String choosenTarget : choosenTargets)
-                {
-                    antcall = (Ant) antProj.createTask("ant");
-                    if (buildDir != null)
-                    {
-                        antcall.setDir(buildDir);
-                    }
-                    antcall.setAntfile(buildFile.getAbsolutePath());
-                    antcall.setTarget(choosenTarget);
-                    antcalls.add(antcall);
-                }
-            }
             Target target = new Target();
             target.setName("calltarget");
-
-            for (Ant antcall : antcalls)
+            // one ant call per target, so that each target runs in its own sub-project
+            for (String choosenTarget : choosenTargets)
             {
+                Ant antcall = (Ant) antProj.createTask("ant");
+                if (buildDir != null)
+                {
+                    antcall.setDir(buildDir);
+                }
+                antcall.setAntfile(buildFile.getAbsolutePath());
+                antcall.setTarget(choosenTarget);
                 target.addTask(antcall);
             }
             antProj.addTarget(target);
@@ -511,33 +521,73 @@ public class AntAction extends ActionBase
             return;
         }
         Properties props = new Properties();
-        FileInputStream fis = null;
-        try
+        for (String propertyFile : propertyFiles)
+        {
+            File file = new File(propertyFile);
+            if (file.exists())
+            {
+                props.putAll(readPropertyFile(file));
+            }
+            else
+            {
+                throw new IzPackException("Required propertyfile " + file + " for antcall doesn't exist.");
+            }
+        }
+        addProperties(proj, props);
+    }
+
+    /**
+     * Reads a property file, returning the cached properties if the file hasn't changed since it was last read.
+     *
+     * @param file the property file
+     * @return the properties
+     * @throws IzPackException if the file cannot be read
+     */
+    private static Properties readPropertyFile(File file)
+    {
+        long lastModified = file.lastModified();
+        long length = file.length();
+        synchronized (propertyFileCache)
         {
-            for (String propertyFile : propertyFiles)
+            CachedProperties cached = propertyFileCache.get(file);
+            if (cached == null || cached.lastModified != lastModified || cached.length != length)
             {
-                File file = new File(propertyFile);
-                if (file.exists())
+                Properties props = new Properties();
+                FileInputStream fis = null;
+                try
                 {
                     fis = new FileInputStream(file);
                     props.load(fis);
-                    fis.close();
                 }
-                else
+                catch (IOException exception)
                 {
-                    throw new IzPackException("Required propertyfile " + file + " for antcall doesn't exist.");
+                    throw new IzPackException(exception);
                 }
+                finally
+                {
+                    IOUtils.closeQuietly(fis);
+                }
+                cached = new CachedProperties(lastModified, length, props);
+                propertyFileCache.put(file, cached);
             }
+            return cached.properties;
         }
-        catch (IOException exception)
-        {
-            throw new IzPackException(exception);
-        }
-        finally
+    }
+
+    /**
+     * Returns the project holding the default task and type definitions, initialising it on first use.
+     *
+     * @return the template project
+     */
+    private static synchronized Project getTemplateProject()
+    {
+        if (templateProject == null)
         {
-            IOUtils.closeQuietly(fis);
+            Project project = new Project();
+            project.init();
+            templateProject = project;
         }
-        addProperties(proj, props);
+        return templateProject;
     }
 
     /**
@@ -569,4 +619,23 @@ public class AntAction extends ActionBase
         throw new InstallerException(ize);
     }
 
+    /**
+     * The contents of a property file, along with the file attributes they were read with.
+     */
+    private static class CachedProperties
+    {
+        private final long lastModified;
+
+        private final long length;
+
+        private final Properties properties;
+
+        CachedProperties(long lastModified, long length, Properties properties)
+        {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.properties = properties;
+        }
+    }
+
 }
@@ -22,10 +22,16 @@
 package com.izforge.izpack.event;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import com.izforge.izpack.api.data.InstallData;
 import com.izforge.izpack.api.data.Pack;
 import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.event.InstalledFile;
+import com.izforge.izpack.api.event.InstallerBatchListener;
 import com.izforge.izpack.api.exception.InstallerException;
 import com.izforge.izpack.event.AbstractProgressInstallerListener;
 import com.izforge.izpack.util.FileExecutor;
@@ -34,10 +40,12 @@ import com.izforge.izpack.util.OsVersion;
 /**
  * <p>InstallerListener for file and directory permissions
  * on Unix.</p>
+ * <p>Installed files are handled in batches, so that a single <tt>chmod</tt> is executed for all the files of a
+ * batch that have the same permissions.</p>
  *
  * @author Klaus Bartz
  */
-public class ChmodInstallerListener extends AbstractProgressInstallerListener
+public class ChmodInstallerListener extends AbstractProgressInstallerListener implements InstallerBatchListener
 {
 
     /**
@@ -67,16 +75,7 @@ public class ChmodInstallerListener extends AbstractProgressInstallerListener
     @Override
     public void afterFile(File filePath, PackFile pf, Pack pack)
     {
-        if (pf.getAdditionals() == null)
-        {
-            return;
-        }
-        Object file = pf.getAdditionals().get("permission.file");
-        int fileVal = -1;
-        if (file != null && file instanceof Integer)
-        {
-            fileVal = (Integer) file;
-        }
+        int fileVal = getPermission(pf, "permission.file");
         if (fileVal != -1)
         {
             chmod(filePath, fileVal);
@@ -89,45 +88,120 @@ public class ChmodInstallerListener extends AbstractProgressInstallerListener
     @Override
     public void afterDir(File dirPath, PackFile pf, Pack pack)
     {
-        if (pf.getAdditionals() == null)
-        {
-            return;
-        }
         if (dirPath == null)
         {
             return;
         }
-        Object dir = pf.getAdditionals().get("permission.dir");
-        int dirVal = -1;
-        if (dir != null && dir instanceof Integer)
+        int dirVal = getDirPermission(dirPath, pf);
+        if (dirVal != -1)
         {
-            dirVal = (Integer) dir;
+            chmod(dirPath, dirVal);
         }
-        if (dirVal != -1)
+    }
+
+    /**
+     * Invoked after a batch of files and directories are installed.
+     * <p/>
+     * The paths are grouped by permissions, and changed with one <tt>chmod</tt> per group.
+     *
+     * @param files the installed files and directories
+     */
+    @Override
+    public void afterFiles(List<InstalledFile> files)
+    {
+        Map<Integer, List<String>> paths = new LinkedHashMap<Integer, List<String>>();
+        for (InstalledFile file : files)
         {
-            if ((dirVal & 0x000001C0) < 0x000001C0)
+            File path = file.getFile();
+            if (path == null)
             {
-                throw new InstallerException("Bad owner permission for directory "
-                                                     + dirPath.getAbsolutePath() + "; at installation time the owner needs full rights");
+                continue;
             }
-            chmod(dirPath, dirVal);
+            int permissions = file.isDirectory() ? getDirPermission(path, file.getPackFile())
+                                                 : getPermission(file.getPackFile(), "permission.file");
+            if (permissions != -1)
+            {
+                List<String> list = paths.get(permissions);
+                if (list == null)
+                {
+                    list = new ArrayList<String>();
+                    paths.put(permissions, list);
+                }
+                list.add(path.getAbsolutePath());
+            }
+        }
+        for (Map.Entry<Integer, List<String>> entry : paths.entrySet())
+        {
+            chmod(entry.getKey(), entry.getValue());
         }
     }
 
-    private void chmod(File path, int permissions)
+    /**
+     * Returns the permissions of a directory.
+     *
+     * @param dirPath the directory
+     * @param pf      the pack file that required the directory
+     * @return the permissions, or {@code -1} if none are specified
+     * @throws InstallerException if the permissions don't give the owner full rights
+     */
+    private int getDirPermission(File dirPath, PackFile pf)
     {
-        String pathSep = System.getProperty("path.separator");
-        if (OsVersion.IS_WINDOWS)
+        int dirVal = getPermission(pf, "permission.dir");
+        if (dirVal != -1 && (dirVal & 0x000001C0) < 0x000001C0)
         {
-            throw new InstallerException("Sorry, chmod not supported yet on windows; use this class OS dependant.");
+            throw new InstallerException("Bad owner permission for directory "
+                                                 + dirPath.getAbsolutePath() + "; at installation time the owner needs full rights");
+        }
+        return dirVal;
+    }
+
+    /**
+     * Returns the permissions stored in a pack file's additional data.
+     *
+     * @param pf  the pack file
+     * @param key the additional data key
+     * @return the permissions, or {@code -1} if none are specified
+     */
+    private int getPermission(PackFile pf, String key)
+    {
+        if (pf.getAdditionals() == null)
+        {
+            return -1;
+        }
+        Object value = pf.getAdditionals().get(key);
+        if (value != null && value instanceof Integer)
+        {
+            return (Integer) value;
         }
+        return -1;
+    }
+
+    private void chmod(File path, int permissions)
+    {
         if (path == null)
         // Oops this is an error, but in this example we ignore it ...
         {
             return;
         }
+        List<String> paths = new ArrayList<String>();
+        paths.add(path.getAbsolutePath());
+        chmod(permissions, paths);
+    }
+
+    private void chmod(int permissions, List<String> paths)
+    {
+        if (OsVersion.IS_WINDOWS)
+        {
+            throw new InstallerException("Sorry, chmod not supported yet on windows; use this class OS dependant.");
+        }
         String permStr = Integer.toOctalString(permissions);
-        String[] params = {"chmod", permStr, path.getAbsolutePath()};
+        String[] params = new String[paths.size() + 2];
+        params[0] = "chmod";
+        params[1] = permStr;
+        for (int i = 0; i < paths.size(); ++i)
+        {
+            params[i + 2] = paths.get(i);
+        }
         String[] output = new String[2];
         FileExecutor fe = new FileExecutor();
         fe.executeCommand(params, output);
@@ -151,11 +151,14 @@ public class AntActionInstallerListenerTest
         listener.afterPack(pack);
         assertFileExists(installDir, "afterpack.txt");
 
-        // Verify that when the afterPacks method is invoked, the corresponding Ant target is called.
-        // This touches a file "afterpacks.txt"
+        // Verify that when the afterPacks method is invoked, the corresponding Ant targets are called.
+        // These touch the files "afterpacks.txt" and "afterpacks2.txt". The second target only runs if it doesn't
+        // see the property set by the first, i.e. if each target runs in its own project
         assertFileNotExists(installDir, "afterpacks.txt");
+        assertFileNotExists(installDir, "afterpacks2.txt");
         listener.afterPacks(packs, progressListener);
         assertFileExists(installDir, "afterpacks.txt");
+        assertFileExists(installDir, "afterpacks2.txt");
     }
 
 }
\ No newline at end of file
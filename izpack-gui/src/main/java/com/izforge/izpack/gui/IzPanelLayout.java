@@ -78,6 +78,12 @@ public class IzPanelLayout implements LayoutManager, LayoutManager2, LayoutConst
      */
     private Dimension prefLayoutDim;
 
+    /**
+     * The minimum width of each column. Will be computed new for each layout, or if invalidateLayout
+     * will be called.
+     */
+    private int[] columnWidths;
+
     private Dimension oldParentSize;
 
     private Insets oldParentInsets;
@@ -644,10 +650,30 @@ public class IzPanelLayout implements LayoutManager, LayoutManager2, LayoutConst
      * @return the minimum width required to fit the components in this column
      */
     private int minimumColumnWidth(int column)
+    {
+        if (columnWidths == null || columnWidths.length != columns())
+        {
+            columnWidths = new int[columns()];
+            for (int i = 0; i < columnWidths.length; ++i)
+            {
+                columnWidths[i] = measureColumnWidth(i);
+            }
+        }
+        return (columnWidths[column]);
+    }
+
+    /**
+     * Measures the minimum width of the column requested. This contains not the gaps.
+     *
+     * @param column the columns to measure
+     * @return the minimum width required to fit the components in this column
+     */
+    private int measureColumnWidth(int column)
     {
         int maxWidth = 0;
-        Dimension[] cs = new Dimension[rows()];
-        for (int i = 0; i < rows(); ++i)
+        int rows = rows();
+        Dimension[] cs = new Dimension[rows];
+        for (int i = 0; i < rows; ++i)
         {
             IzPanelConstraints constraints = getConstraints(column, i);
             cs[i] = getCellSize(column, i, constraints);
@@ -661,7 +687,7 @@ public class IzPanelLayout implements LayoutManager, LayoutManager2, LayoutConst
         }
         if (maxWidth == 0)
         {
-            for (int i = 0; i < rows(); ++i)
+            for (int i = 0; i < rows; ++i)
             {
                 if (maxWidth < cs[i].width)
                 {
@@ -843,6 +869,7 @@ public class IzPanelLayout implements LayoutManager, LayoutManager2, LayoutConst
             return;
         }
         prefLayoutDim = null;
+        columnWidths = null;
         preferredLayoutSize(parent);
         Dimension realSizeDim = parent.getSize();
         log.addDebugMessage("IzPanelLayout.layoutContainer parent size: {0}", new String[]{parent.getSize().toString()},
@@ -1228,6 +1255,7 @@ public class IzPanelLayout implements LayoutManager, LayoutManager2, LayoutConst
     public void invalidateLayout(Container target)
     {
         // prefLayoutDim = null;
+        columnWidths = null;
     }
 
     /*
@@ -1253,6 +1281,7 @@ public class IzPanelLayout implements LayoutManager, LayoutManager2, LayoutConst
         {
             throw new NullPointerException("component has to be not null");
         }
+        columnWidths = null;
         IzPanelConstraints cc;
         if (!(constraints instanceof IzPanelConstraints))
         {
@@ -27,6 +27,7 @@ import java.awt.Graphics2D;
 import java.awt.LayoutManager2;
 import java.awt.Stroke;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * This class implements a layout manager that generally lays out components in two columns. <BR>
@@ -154,6 +155,22 @@ public class TwoColumnLayout implements LayoutManager2
 
     private int titleHeight;
 
+    /**
+     * The measured rows, for each {@link DimensionExtractor}. Discarded by {@link #invalidateLayout}.
+     */
+    private final RowMetrics[] rowMetrics = new RowMetrics[DimensionExtractor.values().length];
+
+    /**
+     * The minimum widths of the left and right columns, or <code>-1</code> if they need to be measured.
+     */
+    private final int[] columnWidths = {-1, -1};
+
+    /**
+     * The widths required by the components that straddle both columns, for each {@link DimensionExtractor},
+     * or <code>-1</code> if they need to be measured.
+     */
+    private final int[] bothColumnsWidths = {-1, -1};
+
     /**
      * Constructs a <code>TwoColumnLayout</code> layout manager. To add components use the
      * container's <code>add(comp, constraints)</code> method with a TwoColumnConstraints object.
@@ -218,6 +235,7 @@ public class TwoColumnLayout implements LayoutManager2
     @Override
     public void addLayoutComponent(Component comp, Object constraints)
     {
+        discardMetrics();
         if (constraints == null)
         {
             return;
@@ -467,7 +485,8 @@ public class TwoColumnLayout implements LayoutManager2
      */
     private void positionComponents(Container parent, DimensionExtractor dimensionExtractor)
     {
-        int usedHeight = titleHeight + clusterHeight(dimensionExtractor);
+        RowMetrics metrics = rowMetrics(dimensionExtractor);
+        int usedHeight = titleHeight + metrics.clusterHeight;
         int topBuffer = topBuffer(usedHeight, parent);
         int leftHeight = 0;
         int rightHeight = 0;
@@ -479,17 +498,17 @@ public class TwoColumnLayout implements LayoutManager2
 
         int y = titleHeight + topBuffer;
 
-        for (int i = 0; i < rows(); i++)
+        for (int i = 0; i < metrics.rows(); i++)
         {
-            leftHeight = height(i, LEFT, dimensionExtractor);
-            rightHeight = height(i, RIGHT, dimensionExtractor);
+            leftHeight = metrics.height(i, LEFT);
+            rightHeight = metrics.height(i, RIGHT);
 
             if (leftHeight > rightHeight)
             {
                 int offset = (leftHeight - rightHeight) / 2;
 
-                positionComponent(y, i, LEFT, parent);
-                positionComponent((y + offset), i, RIGHT, parent);
+                positionComponent(y, i, LEFT, metrics);
+                positionComponent((y + offset), i, RIGHT, metrics);
 
                 y += leftHeight;
             }
@@ -497,15 +516,15 @@ public class TwoColumnLayout implements LayoutManager2
             {
                 int offset = (rightHeight - leftHeight) / 2;
 
-                positionComponent((y + offset), i, LEFT, parent);
-                positionComponent(y, i, RIGHT, parent);
+                positionComponent((y + offset), i, LEFT, metrics);
+                positionComponent(y, i, RIGHT, metrics);
 
                 y += rightHeight;
             }
             else
             {
-                positionComponent(y, i, LEFT, parent);
-                positionComponent(y, i, RIGHT, parent);
+                positionComponent(y, i, LEFT, metrics);
+                positionComponent(y, i, RIGHT, metrics);
 
                 y += leftHeight;
             }
@@ -517,12 +536,12 @@ public class TwoColumnLayout implements LayoutManager2
      * <code>stretch</code>, <code>BOTH</code> and <code>indent</code> are taken into account. In
      * addition, empty components are handled properly.
      *
-     * @param y      the y location within the container, where the component should be positioned.
-     * @param row    the row of the component
-     * @param column the column of the component
-     * @param parent the container which needs to be laid out.
+     * @param y       the y location within the container, where the component should be positioned.
+     * @param row     the row of the component
+     * @param column  the column of the component
+     * @param metrics the measured rows
      */
-    private void positionComponent(int y, int row, int column, Container parent)
+    private void positionComponent(int y, int row, int column, RowMetrics metrics)
     {
         TwoColumnConstraints constraints = null;
 
@@ -540,8 +559,9 @@ public class TwoColumnLayout implements LayoutManager2
         if (constraints != null)
         {
             Component component = constraints.component;
-            int width = (int) component.getPreferredSize().getWidth();
-            int height = (int) component.getPreferredSize().getHeight();
+            Dimension size = metrics.size(row, column);
+            int width = size.width;
+            int height = size.height;
 
             // --------------------------------------------------
             // set x to the appropriate rule. The only need to
@@ -638,6 +658,21 @@ public class TwoColumnLayout implements LayoutManager2
      * @return the minimum width required to fits the components in this column
      */
     private int columnWidth(int column, Container parent, DimensionExtractor dimensionExtractor)
+    {
+        if (columnWidths[column] < 0)
+        {
+            columnWidths[column] = measureColumnWidth(column);
+        }
+        return columnWidths[column];
+    }
+
+    /**
+     * Measures the minimum width of the column requested.
+     *
+     * @param column the columns to measure (LEFT / RIGHT)
+     * @return the minimum width required to fits the components in this column
+     */
+    private int measureColumnWidth(int column)
     {
         Component component = null;
         int width = 0;
@@ -674,6 +709,23 @@ public class TwoColumnLayout implements LayoutManager2
      * @return the minimum width required to fis the components in this column
      */
     private int bothColumnsWidth(Container parent, DimensionExtractor dimensionExtractor)
+    {
+        int result = bothColumnsWidths[dimensionExtractor.ordinal()];
+        if (result < 0)
+        {
+            result = measureBothColumnsWidth(dimensionExtractor);
+            bothColumnsWidths[dimensionExtractor.ordinal()] = result;
+        }
+        return result;
+    }
+
+    /**
+     * Measures the minimum width both columns together should have.
+     *
+     * @param dimensionExtractor the extractor of the correct size
+     * @return the minimum width required to fis the components in this column
+     */
+    private int measureBothColumnsWidth(DimensionExtractor dimensionExtractor)
     {
         Component component = null;
         //TwoColumnConstraints constraints = null;
@@ -712,14 +764,41 @@ public class TwoColumnLayout implements LayoutManager2
 
     private int clusterHeight(DimensionExtractor dimensionExtractor)
     {
-        int height = 0;
+        return rowMetrics(dimensionExtractor).clusterHeight;
+    }
 
-        for (int i = 0; i < rows(); i++)
+    /**
+     * Returns the measured rows, measuring them if the layout has been invalidated, or the rules have moved
+     * such that the measured components no longer fit their columns.
+     *
+     * @param dimensionExtractor the extractor of the correct size
+     * @return the measured rows
+     */
+    private RowMetrics rowMetrics(DimensionExtractor dimensionExtractor)
+    {
+        RowMetrics metrics = rowMetrics[dimensionExtractor.ordinal()];
+        if (metrics == null || !metrics.isValidFor(leftRule, centerRule, rightRule))
         {
-            height += rowHeight(i, dimensionExtractor);
+            int rows = rows();
+            metrics = new RowMetrics(leftRule, centerRule, rightRule, rows);
+            for (int i = 0; i < rows; i++)
+            {
+                metrics.setSizes(i, size(i, LEFT, dimensionExtractor, metrics),
+                                 size(i, RIGHT, dimensionExtractor, metrics));
+            }
+            rowMetrics[dimensionExtractor.ordinal()] = metrics;
         }
+        return metrics;
+    }
 
-        return (height);
+    /**
+     * Discards the measured rows and columns.
+     */
+    private void discardMetrics()
+    {
+        Arrays.fill(rowMetrics, null);
+        Arrays.fill(bothColumnsWidths, -1);
+        Arrays.fill(columnWidths, -1);
     }
 
     /**
@@ -744,89 +823,80 @@ public class TwoColumnLayout implements LayoutManager2
     }
 
     /**
-     * Measures and returns the minimum height required to render the components in the indicated
-     * row.
+     * Measures and returns the size required to render the component in the indicated row and column.
+     * <p/>
+     * A component wider than its column is first narrowed to the column width, and measured again, as
+     * components that wrap their content, such as text panes, grow taller when narrowed. Components are
+     * not narrowed until the rules have been positioned.
      *
-     * @param row the index of the row to measure
+     * @param row    the index of the row to measure
+     * @param column the column of the component to measure (<code>LEFT</code> or <code>RIGHT</code>)
      * @param dimensionExtractor the extractor of the correct size
+     * @param metrics the rows being measured, which records the width of the component
+     * @return the size of the component, or <code>null</code> if there is no component
      */
-    private int rowHeight(int row, DimensionExtractor dimensionExtractor)
+    private Dimension size(int row, int column, DimensionExtractor dimensionExtractor, RowMetrics metrics)
     {
-        int height1 = height(row, LEFT, dimensionExtractor);
-        int height2 = height(row, RIGHT, dimensionExtractor);
+        Component component;
+        TwoColumnConstraints constraints;
 
         // ----------------------------------------------------
-        // take the higher one
+        // one of the lists may be shorter. If there is
+        // nothing there then there is no size, nothing
+        // further to worry about!
         // ----------------------------------------------------
+        if (row >= components[column].size())
+        {
+            return null;
+        }
+        constraints = components[column].get(row);
+        if (constraints == null)
+        {
+            return null;
+        }
 
-        int height = 0;
-        height = Math.max(height, height1);
-        height = Math.max(height, height2);
+        component = constraints.component;
+        Dimension dim = dimensionExtractor.apply(component);
+        int available = available(constraints.position, leftRule, centerRule, rightRule);
 
-        return height;
+        if (available > 0 && dim.width > available)
+        {
+            component.setBounds(0, 0, available, dim.height);
+            metrics.narrowed = true;
+            dim = dimensionExtractor.apply(component);
+        }
+        else
+        {
+            metrics.addWidth(constraints.position, dim.width);
+        }
+        return new Dimension(dim);
     }
 
     /**
-     * Measures and returns the minimum height required to render the component in the indicated row
-     * and column.
+     * Returns the width available to a component between the rules.
      *
-     * @param row    the index of the row to measure
-     * @param column the column of the component to measure (<code>LEFT</code> or <code>RIGHT</code>)
-     * @param dimensionExtractor the extractor of the correct size
+     * @param position   the position of the component
+     * @param leftRule   the left rule
+     * @param centerRule the center rule
+     * @param rightRule  the right rule
+     * @return the available width. Zero or less if the rules haven't been positioned, or
+     *         <code>Integer.MAX_VALUE</code> if the component isn't limited to the rules
      */
-    private int height(int row, int column, DimensionExtractor dimensionExtractor)
+    private static int available(int position, int leftRule, int centerRule, int rightRule)
     {
-        int height = 0;
-        int width = 0;
-        Component component;
-        TwoColumnConstraints constraints;
-
-        try
+        if (position == TwoColumnConstraints.WEST)
         {
-            constraints = components[column].get(row);
-            if (constraints != null)
-            {
-                component = constraints.component;
-                Dimension dim = dimensionExtractor.apply(component);
-                width = Math.max(width,dim.width);
-                height = Math.max(height, dim.height);
-
-                if (constraints.position == TwoColumnConstraints.WEST)
-                {
-                    if (width > (centerRule - leftRule))
-                    {
-                        component.setBounds(0, 0, (centerRule - leftRule), height);
-                    }
-                }
-                else if (constraints.position == TwoColumnConstraints.EAST)
-                {
-                    if (width > (rightRule - centerRule))
-                    {
-                        component.setBounds(0, 0, (rightRule - centerRule), height);
-                    }
-                }
-                else if (constraints.position == TwoColumnConstraints.BOTH)
-                {
-                    if (width > (rightRule - leftRule))
-                    {
-                        component.setBounds(0, 0, (rightRule - leftRule), height);
-                    }
-                }
-
-                return height;
-            }
+            return centerRule - leftRule;
         }
-        // ----------------------------------------------------
-        // we might get an exception if one of the vectors is
-        // shorter, because we index out of bounds. If there
-        // is nothing there then the height is 0, nothing
-        // further to worry about!
-        // ----------------------------------------------------
-        catch (Throwable exception)
+        else if (position == TwoColumnConstraints.EAST)
         {
+            return rightRule - centerRule;
         }
-
-        return (height);
+        else if (position == TwoColumnConstraints.BOTH)
+        {
+            return rightRule - leftRule;
+        }
+        return Integer.MAX_VALUE;
     }
 
     /**
@@ -970,6 +1040,7 @@ public class TwoColumnLayout implements LayoutManager2
     @Override
     public void invalidateLayout(Container parent)
     {
+        discardMetrics();
         leftRule = 0;
         rightRule = 0;
         centerRule = 0;
@@ -997,6 +1068,7 @@ public class TwoColumnLayout implements LayoutManager2
     @Override
     public void removeLayoutComponent(Component comp)
     {
+        discardMetrics();
         java.util.List<TwoColumnConstraints> left = components[LEFT];
         java.util.List<TwoColumnConstraints> right = components[RIGHT];
 
@@ -1096,5 +1168,163 @@ public class TwoColumnLayout implements LayoutManager2
         public abstract Dimension apply(Component component);
     }
 
+    /**
+     * The sizes of the components in each row, measured for a position of the rules.
+     * <p/>
+     * Unless a component had to be narrowed to fit its column, the sizes don't depend on the rules, and remain
+     * valid when the rules move, as long as each component still fits.
+     */
+    private static class RowMetrics
+    {
+        /**
+         * The left rule the rows were measured for.
+         */
+        private final int leftRule;
+
+        /**
+         * The center rule the rows were measured for.
+         */
+        private final int centerRule;
+
+        /**
+         * The right rule the rows were measured for.
+         */
+        private final int rightRule;
+
+        /**
+         * The component sizes, by column and row. <code>null</code> where there is no component.
+         */
+        private final Dimension[][] sizes;
+
+        /**
+         * The combined height of all rows.
+         */
+        private int clusterHeight;
+
+        /**
+         * Determines if a component was narrowed to fit its column.
+         */
+        private boolean narrowed;
+
+        /**
+         * The widest <code>WEST</code>, <code>EAST</code> and <code>BOTH</code> components.
+         */
+        private final int[] widths = new int[3];
+
+        /**
+         * Constructs a <code>RowMetrics</code>.
+         *
+         * @param leftRule   the left rule
+         * @param centerRule the center rule
+         * @param rightRule  the right rule
+         * @param rows       the number of rows
+         */
+        RowMetrics(int leftRule, int centerRule, int rightRule, int rows)
+        {
+            this.leftRule = leftRule;
+            this.centerRule = centerRule;
+            this.rightRule = rightRule;
+            sizes = new Dimension[2][rows];
+        }
+
+        /**
+         * Determines if the sizes are valid for a position of the rules.
+         *
+         * @param leftRule   the left rule
+         * @param centerRule the center rule
+         * @param rightRule  the right rule
+         * @return <code>true</code> if the sizes are valid
+         */
+        boolean isValidFor(int leftRule, int centerRule, int rightRule)
+        {
+            if (leftRule == this.leftRule && centerRule == this.centerRule && rightRule == this.rightRule)
+            {
+                return true;
+            }
+            return !narrowed
+                    && fits(widths[0], available(TwoColumnConstraints.WEST, leftRule, centerRule, rightRule))
+                    && fits(widths[1], available(TwoColumnConstraints.EAST, leftRule, centerRule, rightRule))
+                    && fits(widths[2], available(TwoColumnConstraints.BOTH, leftRule, centerRule, rightRule));
+        }
+
+        /**
+         * Records the width of a component that wasn't narrowed.
+         *
+         * @param position the position of the component
+         * @param width    the width of the component
+         */
+        void addWidth(int position, int width)
+        {
+            int index = (position == TwoColumnConstraints.WEST) ? 0
+                    : (position == TwoColumnConstraints.EAST) ? 1
+                    : (position == TwoColumnConstraints.BOTH) ? 2 : -1;
+            if (index >= 0 && width > widths[index])
+            {
+                widths[index] = width;
+            }
+        }
+
+        /**
+         * Determines if a width fits the available width.
+         *
+         * @param width     the width
+         * @param available the available width. Zero or less if the rules haven't been positioned
+         * @return <code>true</code> if the width fits
+         */
+        private static boolean fits(int width, int available)
+        {
+            return available <= 0 || width <= available;
+        }
+
+        /**
+         * Records the sizes of the components in a row.
+         *
+         * @param row   the row
+         * @param left  the size of the left component. May be <code>null</code>
+         * @param right the size of the right component. May be <code>null</code>
+         */
+        void setSizes(int row, Dimension left, Dimension right)
+        {
+            sizes[LEFT][row] = left;
+            sizes[RIGHT][row] = right;
+            clusterHeight += Math.max(height(row, LEFT), height(row, RIGHT));
+        }
+
+        /**
+         * Returns the number of rows.
+         *
+         * @return the number of rows
+         */
+        int rows()
+        {
+            return sizes[LEFT].length;
+        }
+
+        /**
+         * Returns the size of a component.
+         *
+         * @param row    the row
+         * @param column the column
+         * @return the size of the component, or <code>null</code> if there is no component
+         */
+        Dimension size(int row, int column)
+        {
+            return sizes[column][row];
+        }
+
+        /**
+         * Returns the height of a component.
+         *
+         * @param row    the row
+         * @param column the column
+         * @return the height of the component, or <code>0</code> if there is no component
+         */
+        int height(int row, int column)
+        {
+            Dimension size = sizes[column][row];
+            return (size != null) ? size.height : 0;
+        }
+    }
+
 }
 /*---------------------------------------------------------------------------*/
@@ -0,0 +1,203 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.gui;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+
+import javax.swing.JCheckBox;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+
+import org.junit.Test;
+
+import com.izforge.izpack.gui.log.Log;
+
+
+/**
+ * Tests the {@link IzPanelLayout} class.
+ * <p/>
+ * The layout caches the column widths during a layout pass. The expected sizes and bounds were recorded with the
+ * implementation that measured the columns for every cell. The components have fixed sizes, or sizes that only
+ * depend on their width, so that the layout doesn't depend on the fonts available.
+ */
+public class IzPanelLayoutTest
+{
+
+    /**
+     * The expected preferred layout size.
+     */
+    private static final int[] PREFERRED = {300, 168};
+
+    /**
+     * The expected minimum layout size.
+     */
+    private static final int[] MINIMUM = {300, 168};
+
+    /**
+     * The expected component bounds, for each panel size. The first entry of each is the panel size.
+     */
+    private static final int[][][] BOUNDS = {
+            {
+                {600, 400},
+                {0, 97, 60, 20},
+                {90, 96, 150, 22},
+                {0, 124, 70, 20},
+                {90, 123, 170, 22},
+                {0, 151, 80, 20},
+                {90, 150, 190, 22},
+                {0, 178, 90, 20},
+                {90, 177, 210, 22},
+                {0, 204, 500, 20},
+                {0, 0, 0, 0},
+                {0, 239, 600, 20},
+                {0, 274, 80, 20},
+                {100, 264, 120, 40}
+            },
+            {
+                {300, 400},
+                {0, 97, 60, 20},
+                {90, 96, 150, 22},
+                {0, 124, 70, 20},
+                {90, 123, 170, 22},
+                {0, 151, 80, 20},
+                {90, 150, 190, 22},
+                {0, 178, 90, 20},
+                {90, 177, 210, 22},
+                {0, 204, 200, 20},
+                {0, 0, 0, 0},
+                {0, 239, 300, 40},
+                {0, 294, 80, 20},
+                {100, 284, 120, 40}
+            },
+            {
+                {800, 500},
+                {0, 137, 60, 20},
+                {90, 136, 150, 22},
+                {0, 164, 70, 20},
+                {90, 163, 170, 22},
+                {0, 191, 80, 20},
+                {90, 190, 190, 22},
+                {0, 218, 90, 20},
+                {90, 217, 210, 22},
+                {0, 244, 700, 20},
+                {0, 0, 0, 0},
+                {0, 279, 800, 20},
+                {0, 314, 80, 20},
+                {100, 304, 120, 40}
+            },
+            {
+                {450, 300},
+                {0, 47, 60, 20},
+                {90, 46, 150, 22},
+                {0, 74, 70, 20},
+                {90, 73, 170, 22},
+                {0, 101, 80, 20},
+                {90, 100, 190, 22},
+                {0, 128, 90, 20},
+                {90, 127, 210, 22},
+                {0, 154, 350, 20},
+                {0, 0, 0, 0},
+                {0, 189, 450, 40},
+                {0, 244, 80, 20},
+                {100, 234, 120, 40}
+            }
+    };
+
+    /**
+     * Verifies the layout sizes of a form.
+     */
+    @Test
+    public void testLayoutSizes()
+    {
+        IzPanelLayout layout = new IzPanelLayout(new Log(null));
+        JPanel panel = createForm(layout);
+
+        assertEquals(new Dimension(PREFERRED[0], PREFERRED[1]), layout.preferredLayoutSize(panel));
+        assertEquals(new Dimension(MINIMUM[0], MINIMUM[1]), layout.minimumLayoutSize(panel));
+    }
+
+    /**
+     * Verifies the bounds of the components of a form, as the form is resized.
+     */
+    @Test
+    public void testLayout()
+    {
+        IzPanelLayout layout = new IzPanelLayout(new Log(null));
+        JPanel panel = createForm(layout);
+        for (int[][] expected : BOUNDS)
+        {
+            panel.setSize(expected[0][0], expected[0][1]);
+            layout.layoutContainer(panel);
+            for (int i = 1; i < expected.length; ++i)
+            {
+                int[] bounds = expected[i];
+                assertEquals("Component " + (i - 1) + " of panel " + panel.getSize(),
+                             new Rectangle(bounds[0], bounds[1], bounds[2], bounds[3]),
+                             panel.getComponent(i - 1).getBounds());
+            }
+        }
+    }
+
+    /**
+     * Creates a form of labels and text fields, with full line controls and components, and a component whose
+     * height depends on its width.
+     *
+     * @param layout the layout
+     * @return a new panel
+     */
+    private JPanel createForm(IzPanelLayout layout)
+    {
+        JPanel panel = new JPanel(layout);
+        for (int i = 0; i < 4; ++i)
+        {
+            panel.add(size(new JLabel(), 60 + 10 * i, 20, 40 + 10 * i, 20), LayoutConstants.NEXT_LINE);
+            panel.add(size(new JTextField(), 150 + 20 * i, 22, 100, 22));
+        }
+        panel.add(size(new JCheckBox(), 200, 20, 200, 20), LayoutConstants.NEXT_LINE);
+        panel.add(IzPanelLayout.createParagraphGap());
+        panel.add(new WrappingComponent(500, 20),
+                  IzPanelLayout.getDefaultConstraint(LayoutConstants.FULL_LINE_COMPONENT_CONSTRAINT));
+        panel.add(size(new JLabel(), 80, 20, 80, 20), LayoutConstants.NEXT_LINE);
+        panel.add(size(new JPanel(), 120, 40, 60, 40));
+        return panel;
+    }
+
+    /**
+     * Sets the preferred and minimum sizes of a component.
+     *
+     * @param component the component
+     * @param width     the preferred width
+     * @param height    the preferred height
+     * @param minWidth  the minimum width
+     * @param minHeight the minimum height
+     * @return the component
+     */
+    private static JComponent size(JComponent component, int width, int height, int minWidth, int minHeight)
+    {
+        component.setPreferredSize(new Dimension(width, height));
+        component.setMinimumSize(new Dimension(minWidth, minHeight));
+        return component;
+    }
+}
@@ -0,0 +1,511 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.gui;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+
+import org.junit.Test;
+
+
+/**
+ * Tests the {@link TwoColumnLayout} class.
+ * <p/>
+ * The layout caches the sizes of the components it lays out. The expected sizes and bounds were recorded with the
+ * implementation that measured the components every time. The components have fixed sizes, so that the layout
+ * doesn't depend on the fonts available.
+ */
+public class TwoColumnLayoutTest
+{
+
+    /**
+     * The alignments the form is laid out with.
+     */
+    private static final int[] ALIGNMENTS = {TwoColumnLayout.LEFT, TwoColumnLayout.CENTER, TwoColumnLayout.RIGHT};
+
+    /**
+     * The expected layout sizes and component bounds of the form in a 600x400 panel, for each of the
+     * {@link #ALIGNMENTS}. The first entry of each is the preferred width and height, and the minimum width and
+     * height, of the layout.
+     */
+    private static final int[][][] FORM = {
+            {
+                {350, 324, 200, 284},
+                {60, 0, 300, 30}, {60, 49, 60, 20}, {165, 49, 150, 20}, {60, 70, 70, 20},
+                {165, 69, 170, 22}, {60, 93, 80, 20}, {165, 91, 190, 24}, {60, 118, 90, 20},
+                {165, 115, 210, 26}, {60, 145, 100, 20}, {165, 141, 230, 28}, {60, 169, 350, 60},
+                {90, 231, 40, 20}, {165, 229, 375, 24}, {60, 253, 140, 20}, {165, 273, 160, 20},
+                {198, 293, 200, 20}, {110, 318, 50, 20}, {305, 313, 90, 30}
+            },
+            {
+                {350, 324, 200, 284},
+                {-5, 0, 300, 30}, {-5, 49, 60, 20}, {100, 49, 150, 20}, {-5, 70, 70, 20},
+                {100, 69, 170, 22}, {-5, 93, 80, 20}, {100, 91, 190, 24}, {-5, 118, 90, 20},
+                {100, 115, 210, 26}, {-5, 145, 100, 20}, {100, 141, 230, 28}, {-5, 169, 350, 60},
+                {25, 231, 40, 20}, {100, 229, 440, 24}, {-5, 253, 140, 20}, {100, 273, 160, 20},
+                {165, 293, 200, 20}, {45, 318, 50, 20}, {273, 313, 90, 30}
+            },
+            {
+                {350, 324, 200, 284},
+                {-105, 0, 300, 30}, {-105, 49, 60, 20}, {440, 49, 150, 20}, {-105, 70, 70, 20},
+                {440, 69, 170, 22}, {-105, 93, 80, 20}, {440, 91, 190, 24}, {-105, 118, 90, 20},
+                {440, 115, 210, 26}, {-105, 145, 100, 20}, {440, 141, 230, 28}, {-105, 169, 350, 60},
+                {-75, 231, 40, 20}, {440, 229, 100, 24}, {-105, 253, 140, 20}, {440, 273, 160, 20},
+                {115, 293, 200, 20}, {385, 318, 50, 20}, {443, 313, 90, 30}
+            }
+    };
+
+    /**
+     * The expected layout sizes and component bounds of the form in a 600x400 panel, with a left column width of 30,
+     * for the left and right alignments.
+     */
+    private static final int[][][] COLUMN_WIDTH = {
+            {
+                {350, 324, 200, 284},
+                {60, 0, 300, 30}, {60, 49, 60, 20}, {185, 49, 150, 20}, {60, 70, 70, 20},
+                {185, 69, 170, 22}, {60, 93, 80, 20}, {185, 91, 190, 24}, {60, 118, 90, 20},
+                {185, 115, 210, 26}, {60, 145, 100, 20}, {185, 141, 230, 28}, {60, 169, 350, 60},
+                {90, 231, 40, 20}, {185, 229, 355, 24}, {60, 253, 140, 20}, {185, 273, 160, 20},
+                {198, 293, 200, 20}, {130, 318, 50, 20}, {315, 313, 90, 30}
+            },
+            {
+                {350, 324, 200, 284},
+                {-105, 0, 300, 30}, {-105, 49, 60, 20}, {360, 49, 150, 20}, {-105, 70, 70, 20},
+                {360, 69, 170, 22}, {-105, 93, 80, 20}, {360, 91, 190, 24}, {-105, 118, 90, 20},
+                {360, 115, 210, 26}, {-105, 145, 100, 20}, {360, 141, 230, 28}, {-105, 169, 350, 60},
+                {-75, 231, 40, 20}, {360, 229, 180, 24}, {-105, 253, 140, 20}, {360, 273, 160, 20},
+                {115, 293, 200, 20}, {305, 318, 50, 20}, {403, 313, 90, 30}
+            }
+    };
+
+    /**
+     * The widths the form is resized to.
+     */
+    private static final int[] RESIZE_WIDTHS = {600, 800, 250, 100, 700};
+
+    /**
+     * The expected layout sizes and component bounds of the form, for each of the {@link #RESIZE_WIDTHS}.
+     */
+    private static final int[][][] RESIZE = {
+            {
+                {350, 324, 200, 284},
+                {60, 0, 300, 30}, {60, 49, 60, 20}, {165, 49, 150, 20}, {60, 70, 70, 20},
+                {165, 69, 170, 22}, {60, 93, 80, 20}, {165, 91, 190, 24}, {60, 118, 90, 20},
+                {165, 115, 210, 26}, {60, 145, 100, 20}, {165, 141, 230, 28}, {60, 169, 350, 60},
+                {90, 231, 40, 20}, {165, 229, 375, 24}, {60, 253, 140, 20}, {165, 273, 160, 20},
+                {198, 293, 200, 20}, {110, 318, 50, 20}, {305, 313, 90, 30}
+            },
+            {
+                {350, 324, 200, 284},
+                {80, 0, 300, 30}, {80, 49, 60, 20}, {185, 49, 150, 20}, {80, 70, 70, 20},
+                {185, 69, 170, 22}, {80, 93, 80, 20}, {185, 91, 190, 24}, {80, 118, 90, 20},
+                {185, 115, 210, 26}, {80, 145, 100, 20}, {185, 141, 230, 28}, {80, 169, 350, 60},
+                {110, 231, 40, 20}, {185, 229, 535, 24}, {80, 253, 140, 20}, {185, 273, 160, 20},
+                {298, 293, 200, 20}, {130, 318, 50, 20}, {405, 313, 90, 30}
+            },
+            {
+                {350, 324, 200, 284},
+                {25, 0, 300, 30}, {25, 49, 60, 20}, {130, 49, 150, 20}, {25, 70, 70, 20},
+                {130, 69, 170, 22}, {25, 93, 80, 20}, {130, 91, 190, 24}, {25, 118, 90, 20},
+                {130, 115, 210, 26}, {25, 145, 100, 20}, {130, 141, 230, 28}, {25, 169, 350, 60},
+                {55, 231, 40, 20}, {130, 229, 95, 24}, {25, 253, 140, 20}, {130, 273, 160, 20},
+                {23, 293, 200, 20}, {75, 318, 50, 20}, {130, 313, 90, 30}
+            },
+            {
+                {350, 324, 200, 284},
+                {10, 0, 300, 30}, {10, 49, 60, 20}, {115, 49, 150, 20}, {10, 70, 70, 20},
+                {115, 69, 170, 22}, {10, 93, 80, 20}, {115, 91, 190, 24}, {10, 118, 90, 20},
+                {115, 115, 210, 26}, {10, 145, 100, 20}, {115, 141, 230, 28}, {10, 169, 350, 60},
+                {40, 231, 40, 20}, {115, 229, -25, 24}, {10, 253, 140, 20}, {115, 273, 160, 20},
+                {-52, 293, 200, 20}, {60, 318, 50, 20}, {56, 313, 90, 30}
+            },
+            {
+                {350, 324, 200, 284},
+                {70, 0, 300, 30}, {70, 49, 60, 20}, {175, 49, 150, 20}, {70, 70, 70, 20},
+                {175, 69, 170, 22}, {70, 93, 80, 20}, {175, 91, 190, 24}, {70, 118, 90, 20},
+                {175, 115, 210, 26}, {70, 145, 100, 20}, {175, 141, 230, 28}, {70, 169, 350, 60},
+                {100, 231, 40, 20}, {175, 229, 455, 24}, {70, 253, 140, 20}, {175, 273, 160, 20},
+                {248, 293, 200, 20}, {120, 318, 50, 20}, {355, 313, 90, 30}
+            }
+    };
+
+    /**
+     * The minimum widths set on the center aligned form, moving its rules.
+     */
+    private static final int[] RULES_MOVED_WIDTHS = {900, 300, 100, 600};
+
+    /**
+     * The expected layout sizes and component bounds of the center aligned form, for each of the
+     * {@link #RULES_MOVED_WIDTHS}.
+     */
+    private static final int[][][] RULES_MOVED = {
+            {
+                {350, 324, 200, 284},
+                {345, 0, 300, 30}, {345, 49, 60, 20}, {450, 49, 150, 20}, {345, 70, 70, 20},
+                {450, 69, 170, 22}, {345, 93, 80, 20}, {450, 91, 190, 24}, {345, 118, 90, 20},
+                {450, 115, 210, 26}, {345, 145, 100, 20}, {450, 141, 230, 28}, {345, 169, 350, 60},
+                {375, 231, 40, 20}, {450, 229, 90, 24}, {345, 253, 140, 20}, {450, 273, 160, 20},
+                {340, 293, 200, 20}, {395, 318, 50, 20}, {448, 313, 90, 30}
+            },
+            {
+                {350, 324, 200, 284},
+                {45, 0, 300, 30}, {45, 49, 60, 20}, {150, 49, 150, 20}, {45, 70, 70, 20},
+                {150, 69, 170, 22}, {45, 93, 80, 20}, {150, 91, 190, 24}, {45, 118, 90, 20},
+                {150, 115, 210, 26}, {45, 145, 100, 20}, {150, 141, 230, 28}, {45, 169, 350, 60},
+                {75, 231, 40, 20}, {150, 229, 390, 24}, {45, 253, 140, 20}, {150, 273, 160, 20},
+                {190, 293, 200, 20}, {95, 318, 50, 20}, {298, 313, 90, 30}
+            },
+            {
+                {350, 324, 200, 284},
+                {-55, 0, 300, 30}, {-55, 49, 60, 20}, {50, 49, 150, 20}, {-55, 70, 70, 20},
+                {50, 69, 170, 22}, {-55, 93, 80, 20}, {50, 91, 190, 24}, {-55, 118, 90, 20},
+                {50, 115, 210, 26}, {-55, 145, 100, 20}, {50, 141, 230, 28}, {-55, 169, 350, 60},
+                {-25, 231, 40, 20}, {50, 229, 490, 24}, {-55, 253, 140, 20}, {50, 273, 160, 20},
+                {140, 293, 200, 20}, {-5, 318, 50, 20}, {248, 313, 90, 30}
+            },
+            {
+                {350, 324, 200, 284},
+                {195, 0, 300, 30}, {195, 49, 60, 20}, {300, 49, 150, 20}, {195, 70, 70, 20},
+                {300, 69, 170, 22}, {195, 93, 80, 20}, {300, 91, 190, 24}, {195, 118, 90, 20},
+                {300, 115, 210, 26}, {195, 145, 100, 20}, {300, 141, 230, 28}, {195, 169, 350, 60},
+                {225, 231, 40, 20}, {300, 229, 240, 24}, {195, 253, 140, 20}, {300, 273, 160, 20},
+                {265, 293, 200, 20}, {245, 318, 50, 20}, {373, 313, 90, 30}
+            }
+    };
+
+    /**
+     * The expected layout sizes and component bounds of the form, after the preferred size of a component changes.
+     */
+    private static final int[][] COMPONENT_CHANGED = {
+            {350, 344, 200, 284},
+            {60, 0, 300, 30}, {60, 44, 180, 40}, {165, 54, 150, 20}, {60, 85, 70, 20},
+            {165, 84, 170, 22}, {60, 108, 80, 20}, {165, 106, 190, 24}, {60, 133, 90, 20},
+            {165, 130, 210, 26}, {60, 160, 100, 20}, {165, 156, 230, 28}, {60, 184, 350, 60},
+            {90, 246, 40, 20}, {165, 244, 375, 24}, {60, 268, 140, 20}, {165, 288, 160, 20},
+            {198, 308, 200, 20}, {110, 333, 50, 20}, {305, 328, 90, 30}
+    };
+
+    /**
+     * The expected layout sizes and component bounds of the form, after adding a component, and after removing
+     * another.
+     */
+    private static final int[][][] ADD_REMOVE = {
+            {
+                {350, 344, 200, 304},
+                {60, 0, 300, 30}, {60, 44, 60, 20}, {165, 44, 150, 20}, {60, 65, 70, 20},
+                {165, 64, 170, 22}, {60, 88, 80, 20}, {165, 86, 190, 24}, {60, 113, 90, 20},
+                {165, 110, 210, 26}, {60, 140, 100, 20}, {165, 136, 230, 28}, {60, 164, 350, 60},
+                {90, 226, 40, 20}, {165, 224, 375, 24}, {60, 248, 140, 20}, {165, 268, 160, 20},
+                {198, 288, 200, 20}, {110, 313, 50, 20}, {305, 308, 90, 30}, {60, 338, 90, 20}
+            },
+            {
+                {350, 344, 200, 304},
+                {60, 0, 300, 30}, {60, 44, 60, 20}, {60, 65, 70, 20}, {165, 64, 170, 22},
+                {60, 88, 80, 20}, {165, 86, 190, 24}, {60, 113, 90, 20}, {165, 110, 210, 26},
+                {60, 140, 100, 20}, {165, 136, 230, 28}, {60, 164, 350, 60}, {90, 226, 40, 20},
+                {165, 224, 375, 24}, {60, 248, 140, 20}, {165, 268, 160, 20}, {198, 288, 200, 20},
+                {110, 313, 50, 20}, {305, 308, 90, 30}, {60, 338, 90, 20}
+            }
+    };
+
+    /**
+     * Verifies that a typical form of labels and fields is laid out as before, for each alignment.
+     */
+    @Test
+    public void testForm()
+    {
+        for (int i = 0; i < ALIGNMENTS.length; ++i)
+        {
+            TwoColumnLayout layout = createLayout(ALIGNMENTS[i], 0);
+            JPanel panel = createForm(layout);
+            checkSizes(layout, panel, FORM[i]);
+            checkLayout(layout, panel, 600, 400, FORM[i]);
+        }
+    }
+
+    /**
+     * Verifies that a layout with a fixed left column width is laid out as before.
+     */
+    @Test
+    public void testColumnWidth()
+    {
+        int[] alignments = {TwoColumnLayout.LEFT, TwoColumnLayout.RIGHT};
+        for (int i = 0; i < alignments.length; ++i)
+        {
+            TwoColumnLayout layout = createLayout(alignments[i], 30);
+            JPanel panel = createForm(layout);
+            checkSizes(layout, panel, COLUMN_WIDTH[i]);
+            checkLayout(layout, panel, 600, 400, COLUMN_WIDTH[i]);
+        }
+    }
+
+    /**
+     * Verifies that a layout is laid out as before as it is resized, including when it is narrower than its
+     * components.
+     */
+    @Test
+    public void testResize()
+    {
+        TwoColumnLayout layout = createLayout(TwoColumnLayout.LEFT, 0);
+        JPanel panel = createForm(layout);
+        for (int i = 0; i < RESIZE_WIDTHS.length; ++i)
+        {
+            checkSizes(layout, panel, RESIZE[i]);
+            checkLayout(layout, panel, RESIZE_WIDTHS[i], 400, RESIZE[i]);
+        }
+    }
+
+    /**
+     * Verifies that a layout is laid out as before if its rules move without the layout being invalidated.
+     * <p/>
+     * With center alignment, the rules depend on the minimum size of the container, which can change without
+     * invalidating it.
+     */
+    @Test
+    public void testRulesMoveWithoutInvalidation()
+    {
+        TwoColumnLayout layout = createLayout(TwoColumnLayout.CENTER, 0);
+        JPanel panel = createForm(layout);
+        checkLayout(layout, panel, 600, 400, FORM[1]);
+        for (int i = 0; i < RULES_MOVED_WIDTHS.length; ++i)
+        {
+            panel.setMinimumSize(new Dimension(RULES_MOVED_WIDTHS[i], 100));
+            layout.layoutContainer(panel);
+            checkBounds(panel, RULES_MOVED[i]);
+            checkSizes(layout, panel, RULES_MOVED[i]);
+        }
+    }
+
+    /**
+     * Verifies that the layout measures a component again, if its size changes and the layout is invalidated.
+     */
+    @Test
+    public void testComponentChanged()
+    {
+        TwoColumnLayout layout = createLayout(TwoColumnLayout.LEFT, 0);
+        JPanel panel = createForm(layout);
+        checkLayout(layout, panel, 600, 400, FORM[0]);
+
+        ((JComponent) panel.getComponent(1)).setPreferredSize(new Dimension(180, 40));
+        panel.invalidate();
+        checkSizes(layout, panel, COMPONENT_CHANGED);
+        checkLayout(layout, panel, 600, 400, COMPONENT_CHANGED);
+    }
+
+    /**
+     * Verifies that the layout handles adding and removing components.
+     */
+    @Test
+    public void testAddRemove()
+    {
+        TwoColumnLayout layout = createLayout(TwoColumnLayout.LEFT, 0);
+        JPanel panel = createForm(layout);
+        checkLayout(layout, panel, 600, 400, FORM[0]);
+
+        panel.add(createComponent(90, 20, 60, 20), new TwoColumnConstraints(TwoColumnConstraints.WEST));
+        checkSizes(layout, panel, ADD_REMOVE[0]);
+        checkLayout(layout, panel, 600, 400, ADD_REMOVE[0]);
+
+        panel.remove(2);
+        checkSizes(layout, panel, ADD_REMOVE[1]);
+        checkLayout(layout, panel, 600, 400, ADD_REMOVE[1]);
+    }
+
+    /**
+     * Verifies that components aren't narrowed to zero width when the layout is measured while its rules are
+     * unpositioned, i.e. after the layout has been invalidated and before it is laid out again.
+     * <p/>
+     * The previous implementation narrowed each component to zero width in this case. The bounds were reset
+     * when the container was laid out, but in the meantime, components whose size depends on their width were
+     * measured at zero width.
+     */
+    @Test
+    public void testMeasureWithUnpositionedRules()
+    {
+        TwoColumnLayout layout = new TwoColumnLayout(10, 5, 30, 25, false, 0, TwoColumnLayout.LEFT);
+        JPanel panel = new JPanel(layout);
+        JComponent label = createComponent(80, 20, 60, 20);
+        JComponent field = createComponent(200, 20, 100, 20);
+        panel.add(label, new TwoColumnConstraints(TwoColumnConstraints.WEST));
+        panel.add(field, new TwoColumnConstraints(TwoColumnConstraints.EAST));
+        panel.setSize(600, 400);
+        layout.layoutContainer(panel);
+        Rectangle labelBounds = label.getBounds();
+        Rectangle fieldBounds = field.getBounds();
+
+        panel.invalidate();
+        layout.preferredLayoutSize(panel);
+        layout.minimumLayoutSize(panel);
+
+        assertEquals(labelBounds, label.getBounds());
+        assertEquals(fieldBounds, field.getBounds());
+    }
+
+    /**
+     * Verifies that a component whose height depends on its width, such as wrapped text, is measured again
+     * when it is narrowed to fit its column, so that the height of the rows includes its narrowed height.
+     * <p/>
+     * The previous implementation used the height measured before the component was narrowed when computing the
+     * height of the cluster of rows, so the cluster wasn't positioned as configured by the top buffer.
+     */
+    @Test
+    public void testNarrowedComponentMeasuredAgain()
+    {
+        // a top buffer of 50% centers the rows vertically
+        TwoColumnLayout layout = new TwoColumnLayout(0, 5, 30, 50, false, 0, TwoColumnLayout.LEFT);
+        JPanel panel = new JPanel(layout);
+        JComponent label = createComponent(100, 20, 100, 20);
+        WrappingComponent text = new WrappingComponent(400, 20);
+        JComponent below = createComponent(100, 20, 100, 20);
+        panel.add(label, new TwoColumnConstraints(TwoColumnConstraints.WEST));
+        panel.add(text, new TwoColumnConstraints(TwoColumnConstraints.EAST));
+        panel.add(below, new TwoColumnConstraints(TwoColumnConstraints.BOTH));
+        panel.setSize(305, 200);
+
+        layout.preferredLayoutSize(panel);
+        layout.layoutContainer(panel);
+
+        // the text is narrowed to the right column, and wraps to two lines
+        assertEquals(200, text.getWidth());
+        assertEquals(40, text.getHeight());
+        assertEquals(text.getY() + text.getHeight(), below.getY());
+        assertEquals(panel.getHeight() - below.getY() - below.getHeight(), text.getY());
+    }
+
+    /**
+     * Creates a layout with the gaps and buffers used by the form tests.
+     *
+     * @param alignment the alignment
+     * @param colWidth  the width of the left column, or {@code 0} to size it to its components
+     * @return a new layout
+     */
+    private static TwoColumnLayout createLayout(int alignment, int colWidth)
+    {
+        return new TwoColumnLayout(10, 5, 30, 25, false, colWidth, alignment);
+    }
+
+    /**
+     * Creates a form of labels and fields, with a title and components spanning both columns, and using the
+     * indent, stretch and alignment constraints.
+     *
+     * @param layout the layout
+     * @return a new panel
+     */
+    private static JPanel createForm(TwoColumnLayout layout)
+    {
+        JPanel panel = new JPanel(layout);
+        panel.add(createComponent(300, 30, 200, 30), new TwoColumnConstraints(TwoColumnConstraints.NORTH));
+        for (int i = 0; i < 5; ++i)
+        {
+            panel.add(createComponent(60 + 10 * i, 20, 40 + 10 * i, 20),
+                      new TwoColumnConstraints(TwoColumnConstraints.WEST));
+            panel.add(createComponent(150 + 20 * i, 20 + 2 * i, 100, 20),
+                      new TwoColumnConstraints(TwoColumnConstraints.EAST));
+        }
+        panel.add(createComponent(350, 60, 200, 40), new TwoColumnConstraints(TwoColumnConstraints.BOTH));
+
+        TwoColumnConstraints indented = new TwoColumnConstraints(TwoColumnConstraints.WEST);
+        indented.indent = true;
+        panel.add(createComponent(70, 20, 50, 20), indented);
+        TwoColumnConstraints stretched = new TwoColumnConstraints(TwoColumnConstraints.EAST);
+        stretched.stretch = true;
+        panel.add(createComponent(120, 24, 80, 24), stretched);
+
+        panel.add(createComponent(140, 20, 100, 20), new TwoColumnConstraints(TwoColumnConstraints.WESTONLY));
+        panel.add(createComponent(160, 20, 100, 20), new TwoColumnConstraints(TwoColumnConstraints.EASTONLY));
+
+        panel.add(createComponent(200, 20, 150, 20),
+                  new TwoColumnConstraints(TwoColumnConstraints.BOTH, TwoColumnConstraints.CENTER));
+        panel.add(createComponent(50, 20, 50, 20),
+                  new TwoColumnConstraints(TwoColumnConstraints.WEST, TwoColumnConstraints.RIGHT));
+        panel.add(createComponent(90, 30, 90, 30),
+                  new TwoColumnConstraints(TwoColumnConstraints.EAST, TwoColumnConstraints.CENTER));
+        return panel;
+    }
+
+    /**
+     * Verifies the preferred and minimum layout sizes.
+     *
+     * @param layout   the layout
+     * @param panel    the panel
+     * @param expected the expected sizes, followed by the expected bounds
+     */
+    private static void checkSizes(TwoColumnLayout layout, JPanel panel, int[][] expected)
+    {
+        assertEquals(new Dimension(expected[0][0], expected[0][1]), layout.preferredLayoutSize(panel));
+        assertEquals(new Dimension(expected[0][2], expected[0][3]), layout.minimumLayoutSize(panel));
+    }
+
+    /**
+     * Resizes a panel, lays it out, and verifies the bounds of its components.
+     *
+     * @param layout   the layout
+     * @param panel    the panel
+     * @param width    the panel width
+     * @param height   the panel height
+     * @param expected the expected sizes, followed by the expected bounds
+     */
+    private static void checkLayout(TwoColumnLayout layout, JPanel panel, int width, int height, int[][] expected)
+    {
+        panel.setSize(width, height);
+        layout.layoutContainer(panel);
+        checkBounds(panel, expected);
+    }
+
+    /**
+     * Verifies the bounds of the components of a panel.
+     *
+     * @param panel    the panel
+     * @param expected the expected sizes, followed by the expected bounds
+     */
+    private static void checkBounds(JPanel panel, int[][] expected)
+    {
+        assertEquals(expected.length - 1, panel.getComponentCount());
+        for (int i = 1; i < expected.length; ++i)
+        {
+            int[] bounds = expected[i];
+            assertEquals("Component " + (i - 1) + " of panel " + panel.getSize(),
+                         new Rectangle(bounds[0], bounds[1], bounds[2], bounds[3]),
+                         panel.getComponent(i - 1).getBounds());
+        }
+    }
+
+    /**
+     * Creates a component with fixed sizes.
+     *
+     * @param width     the preferred width
+     * @param height    the preferred height
+     * @param minWidth  the minimum width
+     * @param minHeight the minimum height
+     * @return a new component
+     */
+    private static JComponent createComponent(int width, int height, int minWidth, int minHeight)
+    {
+        JComponent result = new JPanel();
+        result.setPreferredSize(new Dimension(width, height));
+        result.setMinimumSize(new Dimension(minWidth, minHeight));
+        return result;
+    }
+}
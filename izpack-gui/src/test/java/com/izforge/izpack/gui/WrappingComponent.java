@@ -0,0 +1,84 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.gui;
+
+import java.awt.Dimension;
+
+import javax.swing.JComponent;
+
+
+/**
+ * A component that wraps its content to its width, like wrapped text, so that it grows taller as it is narrowed.
+ * <p/>
+ * Unlike text, its sizes don't depend on the fonts available, so layouts of it are the same everywhere.
+ */
+class WrappingComponent extends JComponent
+{
+    /**
+     * The width of the content on a single line.
+     */
+    private final int width;
+
+    /**
+     * The height of a line.
+     */
+    private final int lineHeight;
+
+    /**
+     * Constructs a <tt>WrappingComponent</tt>.
+     *
+     * @param width      the width of the content on a single line
+     * @param lineHeight the height of a line
+     */
+    WrappingComponent(int width, int lineHeight)
+    {
+        this.width = width;
+        this.lineHeight = lineHeight;
+    }
+
+    /**
+     * Returns the preferred size. If the component is narrower than its content, this is its current width, and
+     * the height of the lines the content wraps to.
+     *
+     * @return the preferred size
+     */
+    @Override
+    public Dimension getPreferredSize()
+    {
+        int current = getWidth();
+        if (current <= 0 || current >= width)
+        {
+            return new Dimension(width, lineHeight);
+        }
+        int lines = (width + current - 1) / current;
+        return new Dimension(current, lines * lineHeight);
+    }
+
+    /**
+     * Returns the minimum size, which is the preferred size.
+     *
+     * @return the minimum size
+     */
+    @Override
+    public Dimension getMinimumSize()
+    {
+        return getPreferredSize();
+    }
+}
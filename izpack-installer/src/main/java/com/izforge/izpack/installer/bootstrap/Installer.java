@@ -151,6 +151,7 @@ public class Installer
             String media = null;
             String defaultsFile = null;
             String logFileName = null;
+            String profile = null;
 
             while (args_it.hasNext())
             {
@@ -170,6 +171,11 @@ public class Installer
                     } else if ("-stacktrace".equalsIgnoreCase(arg))
                     {
                         Debug.setSTACKTRACE(true);
+                    } else if ("-profile".equalsIgnoreCase(arg))
+                    {
+                        profile = fetchArgument(args_it, profile);
+                        checkPath(profile);
+                        Debug.setPROFILE(profile);
                     } else if ("-console".equalsIgnoreCase(arg))
                     {
                         type = INSTALLER_CONSOLE;
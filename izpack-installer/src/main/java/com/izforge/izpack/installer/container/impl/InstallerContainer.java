@@ -1,6 +1,10 @@
 package com.izforge.izpack.installer.container.impl;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.picocontainer.MutablePicoContainer;
 import org.picocontainer.PicoException;
@@ -41,7 +45,10 @@ import com.izforge.izpack.installer.unpacker.IUnpacker;
 import com.izforge.izpack.merge.MergeManagerImpl;
 import com.izforge.izpack.merge.resolve.MergeableResolver;
 import com.izforge.izpack.merge.resolve.PathResolver;
+import com.izforge.izpack.util.CleanupClient;
+import com.izforge.izpack.util.Debug;
 import com.izforge.izpack.util.DefaultTargetPlatformFactory;
+import com.izforge.izpack.util.EvaluationProfiler;
 import com.izforge.izpack.util.Housekeeper;
 import com.izforge.izpack.util.Librarian;
 import com.izforge.izpack.util.PlatformModelMatcher;
@@ -54,6 +61,11 @@ import com.izforge.izpack.util.TargetFactory;
 public abstract class InstallerContainer extends AbstractContainer
 {
 
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(InstallerContainer.class.getName());
+
     /**
      * Sets the locale.
      *
@@ -105,8 +117,11 @@ public abstract class InstallerContainer extends AbstractContainer
         addComponent(UninstallData.class);
         addComponent(MutablePicoContainer.class, pico);
         addComponent(ConditionContainer.class);
-        addComponent(Properties.class);
-        addComponent(DefaultVariables.class);
+        // the properties are a live view of the variables, so that properties added after the variables are created
+        // are visible to variable substitution
+        DefaultVariables variables = new DefaultVariables();
+        addComponent(DefaultVariables.class, variables);
+        addComponent(Properties.class, variables.getProperties());
         addComponent(ResourceManager.class);
         addComponent(UninstallDataWriter.class);
         addComponent(ProgressNotifiersImpl.class);
@@ -150,6 +165,28 @@ public abstract class InstallerContainer extends AbstractContainer
         {
             throw new ContainerException(exception);
         }
+
+        final String profile = Debug.getPROFILE();
+        if (profile != null)
+        {
+            // write the evaluation profile on exit, regardless of the installer mode
+            pico.getComponent(Housekeeper.class).registerForCleanup(new CleanupClient()
+            {
+                @Override
+                public void cleanUp()
+                {
+                    try
+                    {
+                        EvaluationProfiler.write(new File(profile));
+                        logger.info("Wrote evaluation profile to " + profile);
+                    }
+                    catch (IOException exception)
+                    {
+                        logger.log(Level.WARNING, "Failed to write evaluation profile to " + profile, exception);
+                    }
+                }
+            });
+        }
     }
 
 }
@@ -0,0 +1,131 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
+
+
+/**
+ * Writes a jar from the entries of other jars, without decompressing and compressing them again.
+ * <p/>
+ * Entries are written in the order they are copied. If an entry name has already been written, the later entry is
+ * skipped.
+ */
+class RawJarWriter implements Closeable
+{
+    /**
+     * The output stream.
+     */
+    private final ZipArchiveOutputStream out;
+
+    /**
+     * The names of the entries written.
+     */
+    private final Set<String> names = new HashSet<String>();
+
+    /**
+     * Constructs a {@code RawJarWriter}.
+     *
+     * @param file the file to write to
+     * @throws IOException if the file cannot be created
+     */
+    RawJarWriter(File file) throws IOException
+    {
+        out = new ZipArchiveOutputStream(file);
+    }
+
+    /**
+     * Copies the entries of a jar.
+     *
+     * @param jar the jar content
+     * @throws IOException for any I/O error
+     */
+    void copy(byte[] jar) throws IOException
+    {
+        copy(ZipFile.builder().setSeekableByteChannel(new SeekableInMemoryByteChannel(jar)).get());
+    }
+
+    /**
+     * Copies the entries of a jar.
+     *
+     * @param jar the jar file
+     * @throws IOException for any I/O error
+     */
+    void copy(File jar) throws IOException
+    {
+        copy(ZipFile.builder().setFile(jar).get());
+    }
+
+    /**
+     * Finishes writing the jar.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Override
+    public void close() throws IOException
+    {
+        out.close();
+    }
+
+    /**
+     * Copies the entries of a jar, and closes it.
+     *
+     * @param jar the jar
+     * @throws IOException for any I/O error
+     */
+    private void copy(ZipFile jar) throws IOException
+    {
+        try
+        {
+            Enumeration<ZipArchiveEntry> entries = jar.getEntriesInPhysicalOrder();
+            while (entries.hasMoreElements())
+            {
+                ZipArchiveEntry entry = entries.nextElement();
+                if (names.add(entry.getName()))
+                {
+                    InputStream in = jar.getRawInputStream(entry);
+                    try
+                    {
+                        out.addRawArchiveEntry(entry, in);
+                    }
+                    finally
+                    {
+                        in.close();
+                    }
+                }
+            }
+        }
+        finally
+        {
+            jar.close();
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.izforge.izpack.installer.data;
 
 import com.izforge.izpack.api.data.AutomatedInstallData;
+import com.izforge.izpack.api.exception.ResourceNotFoundException;
 import com.izforge.izpack.api.merge.Mergeable;
+import com.izforge.izpack.api.resource.Resources;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.data.CustomData;
 import com.izforge.izpack.api.data.ExecutableFile;
@@ -40,6 +42,11 @@ public class UninstallDataWriter
      */
     private final PathResolver pathResolver;
 
+    /**
+     * The resources.
+     */
+    private final Resources resources;
+
     /**
      * The jar to write to.
      */
@@ -50,6 +57,12 @@ public class UninstallDataWriter
      */
     private FileOutputStream jarStream;
 
+    /**
+     * The temporary jar holding the installation specific entries, when the uninstaller is assembled from pre-built
+     * skeletons. <tt>null</tt> if the jar is written directly.
+     */
+    private File dataFile;
+
     /**
      * The rules engine.
      */
@@ -72,14 +85,16 @@ public class UninstallDataWriter
      * @param installData   the install data
      * @param pathResolver  the path resolver
      * @param rules         the rules engine
+     * @param resources     the resources
      */
     public UninstallDataWriter(UninstallData uninstallData, AutomatedInstallData installData, PathResolver pathResolver,
-                               RulesEngine rules)
+                               RulesEngine rules, Resources resources)
     {
         this.uninstallData = uninstallData;
         this.installData = installData;
         this.pathResolver = pathResolver;
         this.rules = rules;
+        this.resources = resources;
     }
 
     /**
@@ -107,6 +122,10 @@ public class UninstallDataWriter
 
     /**
      * Writes the uninstall data.
+     * <p/>
+     * If the installer contains pre-built {@link UninstallerSkeleton skeletons}, their entries are copied to the
+     * uninstaller jar as they are, followed by the installation specific entries. Otherwise, the skeleton is
+     * collected from the installer class path.
      *
      * @return <tt>true</tt> if uninstall data was successfully written, otherwise <tt>false</tt>
      */
@@ -116,11 +135,18 @@ public class UninstallDataWriter
         try
         {
             BufferedWriter extLogWriter = getExternalLogFile();
-            createOutputJar();
+            List<UninstallerSkeleton> skeletons = getSkeletons();
+            List<byte[]> prebuilt = getPrebuiltSkeletons(skeletons);
+            createOutputJar(prebuilt != null);
 
             System.out.println("[ Writing the uninstaller data ... ]");
 
-            writeJarSkeleton();
+            if (prebuilt == null)
+            {
+                writeJarSkeleton(skeletons);
+            }
+            writePrivilegedResources();
+            writeLangPack();
             writeFilesLog(extLogWriter);
             writeUninstallerJarFileLog();
             writeExecutables();
@@ -132,6 +158,10 @@ public class UninstallDataWriter
             writeHideForceOption();
 
             jar.close();
+            if (prebuilt != null)
+            {
+                writeUninstallerJar(prebuilt);
+            }
             result = true;
         }
         catch (Throwable t)
@@ -185,45 +215,81 @@ public class UninstallDataWriter
     }
 
     /**
-     * Writes the uninstaller skeleton.
+     * Returns the parts of the uninstaller skeleton required for this installation.
      *
-     * @throws IOException for any I/O error
-     * @throws com.izforge.izpack.api.exception.IzPackException
-     *                     for any IzPack error
+     * @return the skeleton parts
      */
-    private void writeJarSkeleton() throws IOException
+    private List<UninstallerSkeleton> getSkeletons()
     {
-        List<Mergeable> uninstallerMerge = pathResolver.getMergeableFromPath("com/izforge/izpack/uninstaller/");
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("uninstaller-META-INF/", "META-INF/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/izforge/izpack/api/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/izforge/izpack/data/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/izforge/izpack/core/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/izforge/izpack/util/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/izforge/izpack/logging/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/izforge/izpack/gui/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/izforge/izpack/img/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("org/picocontainer/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("org/apache/commons/io/"));
-
-        //required by console uninstaller
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("jline/"));
-        uninstallerMerge.addAll(pathResolver.getMergeableFromPath("org/fusesource/"));
-
+        List<UninstallerSkeleton> result = new ArrayList<UninstallerSkeleton>();
+        result.add(UninstallerSkeleton.BASE);
         if (!uninstallData.getUninstallerListeners().isEmpty())
         {
-            uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/izforge/izpack/event/"));
+            result.add(UninstallerSkeleton.LISTENERS);
         }
         if (rules.isConditionTrue("izpack.windowsinstall"))
         {
-            uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/izforge/izpack/core/os/"));
-            uninstallerMerge.addAll(pathResolver.getMergeableFromPath("com/coi/tools/os/"));
+            result.add(UninstallerSkeleton.WINDOWS);
         }
+        return result;
+    }
 
-        for (Mergeable mergeable : uninstallerMerge)
+    /**
+     * Reads the pre-built skeleton jars from the installer.
+     *
+     * @param skeletons the skeleton parts
+     * @return the skeleton jars, or <tt>null</tt> if the installer doesn't contain them
+     * @throws IOException for any I/O error
+     */
+    private List<byte[]> getPrebuiltSkeletons(List<UninstallerSkeleton> skeletons) throws IOException
+    {
+        List<byte[]> result = new ArrayList<byte[]>();
+        for (UninstallerSkeleton skeleton : skeletons)
         {
-            mergeable.merge(jar);
+            InputStream in;
+            try
+            {
+                in = resources.getInputStream(skeleton.getResourceName());
+            }
+            catch (ResourceNotFoundException exception)
+            {
+                logger.fine("No pre-built uninstaller skeleton: " + skeleton.getResourceName());
+                return null;
+            }
+            try
+            {
+                result.add(IOUtils.toByteArray(in));
+            }
+            finally
+            {
+                IOUtils.closeQuietly(in);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the uninstaller skeleton from the installer class path.
+     *
+     * @param skeletons the skeleton parts
+     * @throws com.izforge.izpack.api.exception.IzPackException
+     *         for any IzPack error
+     */
+    private void writeJarSkeleton(List<UninstallerSkeleton> skeletons)
+    {
+        for (UninstallerSkeleton skeleton : skeletons)
+        {
+            skeleton.merge(pathResolver, jar);
         }
+    }
 
+    /**
+     * Writes the resources required to elevate privileges, if the uninstaller requires them.
+     *
+     * @throws IOException for any I/O error
+     */
+    private void writePrivilegedResources() throws IOException
+    {
         if (installData.getInfo().isPrivilegedExecutionRequiredUninstaller())
         {
             boolean shouldElevate = true;
@@ -249,7 +315,13 @@ public class UninstallDataWriter
                 }
             }
         }
+    }
 
+    /**
+     * Writes the langpack of the installation locale.
+     */
+    private void writeLangPack()
+    {
         // We put the langpack
         List<Mergeable> langPack = pathResolver.getMergeableFromPath("resources/langpacks/"
                                                                              + installData.getLocaleISO3() + ".xml",
@@ -504,9 +576,11 @@ public class UninstallDataWriter
     /**
      * Creates the uninstaller jar file.
      *
+     * @param prebuilt if <tt>true</tt>, the installation specific entries are written to a temporary jar, to be
+     *                 appended to the pre-built skeletons
      * @throws IOException for any I/O error
      */
-    private void createOutputJar() throws IOException
+    private void createOutputJar(boolean prebuilt) throws IOException
     {
         // Create the uninstaller directory
         String dirPath = IoHelper.translatePath(installData.getInfo().getUninstallerPath(), installData.getVariables());
@@ -522,12 +596,59 @@ public class UninstallDataWriter
         uninstallData.setUninstallerPath(dirPath);
 
         // Create the jar file
-        jarStream = new FileOutputStream(jarPath);
+        if (prebuilt)
+        {
+            dataFile = File.createTempFile("uninstaller", ".jar");
+            jarStream = new FileOutputStream(dataFile);
+        }
+        else
+        {
+            jarStream = new FileOutputStream(jarPath);
+        }
         jar = new JarOutputStream(new BufferedOutputStream(jarStream));
         jar.setLevel(9);
         uninstallData.addFile(jarPath, true);
     }
 
+    /**
+     * Writes the uninstaller jar from the pre-built skeletons and the installation specific entries.
+     *
+     * @param skeletons the skeleton jars
+     * @throws IOException for any I/O error
+     */
+    private void writeUninstallerJar(List<byte[]> skeletons) throws IOException
+    {
+        RawJarWriter writer = new RawJarWriter(new File(uninstallData.getUninstallerJarFilename()));
+        try
+        {
+            for (byte[] skeleton : skeletons)
+            {
+                writer.copy(skeleton);
+            }
+            writer.copy(dataFile);
+        }
+        finally
+        {
+            writer.close();
+        }
+        deleteDataFile();
+    }
+
+    /**
+     * Deletes the temporary jar holding the installation specific entries, if any.
+     */
+    private void deleteDataFile()
+    {
+        if (dataFile != null)
+        {
+            if (dataFile.exists() && !dataFile.delete())
+            {
+                logger.warning("Failed to delete temporary file: " + dataFile.getPath());
+            }
+            dataFile = null;
+        }
+    }
+
     /**
      * Destroys the uninstaller jar when it cannot be written.
      */
@@ -535,6 +656,7 @@ public class UninstallDataWriter
     {
         IOUtils.closeQuietly(jar);
         IOUtils.closeQuietly(jarStream); // if jar cannot be closed, then need to close underlying stream
+        deleteDataFile();
         String path = uninstallData.getUninstallerJarFilename();
         if (path != null)
         {
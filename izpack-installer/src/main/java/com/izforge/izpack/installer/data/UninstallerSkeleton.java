@@ -0,0 +1,149 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.data;
+
+import java.util.List;
+import java.util.zip.ZipOutputStream;
+
+import com.izforge.izpack.api.merge.Mergeable;
+import com.izforge.izpack.merge.resolve.PathResolver;
+
+
+/**
+ * The parts of the uninstaller jar that don't depend on what was installed.
+ * <p/>
+ * The compiler builds each part as a jar, and stores it in the installer as a resource, so that the
+ * {@link UninstallDataWriter} can copy the compressed entries as they are, rather than collecting the classes from
+ * the installer class path and compressing them again.
+ */
+public enum UninstallerSkeleton
+{
+    /**
+     * The classes required by every uninstaller.
+     */
+    BASE("uninstaller/skeleton.jar",
+         "uninstaller-META-INF/",
+         "com/izforge/izpack/uninstaller/",
+         "com/izforge/izpack/api/",
+         "com/izforge/izpack/data/",
+         "com/izforge/izpack/core/",
+         "com/izforge/izpack/util/",
+         "com/izforge/izpack/logging/",
+         "com/izforge/izpack/gui/",
+         "com/izforge/izpack/img/",
+         "org/picocontainer/",
+         "org/apache/commons/io/",
+         // required by console uninstaller
+         "jline/",
+         "org/fusesource/"),
+
+    /**
+     * The classes required to run uninstaller listeners.
+     */
+    LISTENERS("uninstaller/skeleton-listeners.jar",
+              "com/izforge/izpack/event/"),
+
+    /**
+     * The classes required on Windows.
+     */
+    WINDOWS("uninstaller/skeleton-windows.jar",
+            "com/izforge/izpack/core/os/",
+            "com/coi/tools/os/");
+
+    /**
+     * The path of the uninstaller META-INF directory in the installer. It is renamed to <em>META-INF/</em>.
+     */
+    private static final String META_INF = "uninstaller-META-INF/";
+
+    /**
+     * The resource name.
+     */
+    private final String resourceName;
+
+    /**
+     * The paths to merge.
+     */
+    private final String[] paths;
+
+    /**
+     * Constructs an {@code UninstallerSkeleton}.
+     *
+     * @param resourceName the resource name
+     * @param paths        the paths to merge
+     */
+    UninstallerSkeleton(String resourceName, String... paths)
+    {
+        this.resourceName = resourceName;
+        this.paths = paths;
+    }
+
+    /**
+     * Returns the name of the resource containing the pre-built jar.
+     *
+     * @return the resource name
+     */
+    public String getResourceName()
+    {
+        return resourceName;
+    }
+
+    /**
+     * Merges the classes and resources of this part from the class path.
+     *
+     * @param pathResolver the path resolver
+     * @param out          the stream to write to
+     */
+    public void merge(PathResolver pathResolver, ZipOutputStream out)
+    {
+        merge(pathResolver, out, null);
+    }
+
+    /**
+     * Merges the classes and resources of this part from the class path.
+     *
+     * @param pathResolver the path resolver
+     * @param out          the stream to write to
+     * @param manifest     the path of the manifest to use in place of the uninstaller META-INF directory, which
+     *                     only contains the manifest. If <tt>null</tt>, the directory is merged
+     */
+    public void merge(PathResolver pathResolver, ZipOutputStream out, String manifest)
+    {
+        for (String path : paths)
+        {
+            List<Mergeable> mergeables;
+            if (!META_INF.equals(path))
+            {
+                mergeables = pathResolver.getMergeableFromPath(path);
+            }
+            else if (manifest != null)
+            {
+                mergeables = pathResolver.getMergeableFromPath(manifest, "META-INF/MANIFEST.MF");
+            }
+            else
+            {
+                mergeables = pathResolver.getMergeableFromPath(path, "META-INF/");
+            }
+            for (Mergeable mergeable : mergeables)
+            {
+                mergeable.merge(out);
+            }
+        }
+    }
+}
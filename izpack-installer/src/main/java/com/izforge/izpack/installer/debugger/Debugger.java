@@ -32,6 +32,8 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
 import java.util.Enumeration;
 import java.util.Properties;
 import java.util.prefs.Preferences;
@@ -39,8 +41,10 @@ import java.util.prefs.Preferences;
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
@@ -55,6 +59,7 @@ import com.izforge.izpack.api.rules.Condition;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.gui.ButtonFactory;
 import com.izforge.izpack.gui.IconsDatabase;
+import com.izforge.izpack.util.EvaluationProfiler;
 
 /**
  * Class for debugging variables and conditions.
@@ -71,9 +76,13 @@ public class Debugger extends WindowAdapter
     private final Color buttonsHColor;
     private final VariableHistoryTableModel variablesmodel;
     private final ConditionHistoryTableModel conditionhistorymodel;
+    private final ProfileTableModel profilemodel;
+    private final JLabel profileswitchlabel;
     private final Preferences preferences;
 
     private Properties lasttimevariables;
+    private long lastconditionnanos;
+    private long lastvariablenanos;
 
     public Debugger(InstallData installdata, IconsDatabase icons, RulesEngine rules, Color buttonsHColor)
     {
@@ -84,6 +93,8 @@ public class Debugger extends WindowAdapter
         this.buttonsHColor = buttonsHColor;
         this.variablesmodel = new VariableHistoryTableModel();
         this.conditionhistorymodel = new ConditionHistoryTableModel();
+        this.profilemodel = new ProfileTableModel();
+        this.profileswitchlabel = new JLabel(" ");
         preferences = Preferences.userNodeForPackage(Debugger.class);
         this.init();
     }
@@ -96,6 +107,9 @@ public class Debugger extends WindowAdapter
             variablesmodel.setValue(variableName, lasttimevariables.getProperty(variableName), "initial value");
         }
         updateConditionsHistory("initial value");
+        lastconditionnanos = EvaluationProfiler.CONDITIONS.getTotalNanos();
+        lastvariablenanos = EvaluationProfiler.VARIABLES.getTotalNanos();
+        profilemodel.refresh();
     }
 
     private void debugVariables(Panel nextpanelmetadata, Panel lastpanelmetadata)
@@ -115,14 +129,37 @@ public class Debugger extends WindowAdapter
 
     private void updateConditionsHistory(String comment)
     {
-        for (String conditionid : rules.getKnownConditionIds())
+        // don't count the debugger's own evaluations in the profile
+        EvaluationProfiler.suspend();
+        try
         {
-            Condition condition = rules.getCondition(conditionid);
-            conditionhistorymodel.setValue(condition, rules.isConditionTrue(condition), comment);
+            for (String conditionid : rules.getKnownConditionIds())
+            {
+                Condition condition = rules.getCondition(conditionid);
+                conditionhistorymodel.setValue(condition, rules.isConditionTrue(condition), comment);
+            }
+        }
+        finally
+        {
+            EvaluationProfiler.resume();
         }
         conditionhistorymodel.fireTableDataChanged();
     }
 
+    private void debugProfile(Panel nextpanelmetadata, Panel lastpanelmetadata)
+    {
+        long conditions = EvaluationProfiler.CONDITIONS.getTotalNanos();
+        long variables = EvaluationProfiler.VARIABLES.getTotalNanos();
+        profileswitchlabel.setText(String.format(
+                "Since previous panel switch%s to %s: %.1f ms in conditions, %.1f ms in dynamic variables",
+                (lastpanelmetadata == null ? "" : " from " + lastpanelmetadata.getPanelId()),
+                nextpanelmetadata.getPanelId(), (conditions - lastconditionnanos) / 1000000.0,
+                (variables - lastvariablenanos) / 1000000.0));
+        lastconditionnanos = conditions;
+        lastvariablenanos = variables;
+        profilemodel.refresh();
+    }
+
     private Properties getChangedVariables(Panel nextpanelmetadata, Panel lastpanelmetadata)
     {
         Properties currentvariables = (Properties) idata.getVariables().getProperties().clone();
@@ -342,12 +379,66 @@ public class Debugger extends WindowAdapter
         JTabbedPane tabpane = new JTabbedPane(JTabbedPane.TOP);
         tabpane.insertTab("Variable settings", null, debugpanel, "", 0);
         tabpane.insertTab("Condition settings", null, conditionpanel, "", 1);
+        tabpane.insertTab("Evaluation profile", null, getProfilePanel(), "", 2);
         JPanel mainpanel = new JPanel();
         mainpanel.setLayout(new BorderLayout());
         mainpanel.add(tabpane, BorderLayout.CENTER);
         return mainpanel;
     }
 
+    private JPanel getProfilePanel()
+    {
+        final JPanel profilepanel = new JPanel();
+        profilepanel.setLayout(new BorderLayout());
+        profilepanel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+
+        JTable profiletable = new JTable(profilemodel);
+        profiletable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        profiletable.setAutoCreateRowSorter(true);
+        profilepanel.add(profileswitchlabel, BorderLayout.NORTH);
+        profilepanel.add(new JScrollPane(profiletable), BorderLayout.CENTER);
+
+        JPanel buttonpanel = new JPanel();
+        buttonpanel.setLayout(new BoxLayout(buttonpanel, BoxLayout.LINE_AXIS));
+        buttonpanel.setBorder(BorderFactory.createEmptyBorder(5,0,0,0));
+
+        JButton refreshbtn = new JButton("Refresh");
+        refreshbtn.addActionListener(new ActionListener()
+        {
+            @Override
+            public void actionPerformed(ActionEvent e)
+            {
+                profilemodel.refresh();
+            }
+        });
+        JButton savebtn = new JButton("Save as JSON...");
+        savebtn.addActionListener(new ActionListener()
+        {
+            @Override
+            public void actionPerformed(ActionEvent e)
+            {
+                JFileChooser chooser = new JFileChooser();
+                chooser.setSelectedFile(new File("profile.json"));
+                if (chooser.showSaveDialog(profilepanel) == JFileChooser.APPROVE_OPTION)
+                {
+                    try
+                    {
+                        EvaluationProfiler.write(chooser.getSelectedFile());
+                    }
+                    catch (IOException exception)
+                    {
+                        JOptionPane.showMessageDialog(profilepanel, exception.getMessage(), "Error",
+                                                      JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            }
+        });
+        buttonpanel.add(refreshbtn);
+        buttonpanel.add(savebtn);
+        profilepanel.add(buttonpanel, BorderLayout.SOUTH);
+        return profilepanel;
+    }
+
     /**
      * Debug state changes after panel switch.
      *
@@ -358,6 +449,7 @@ public class Debugger extends WindowAdapter
     {
         this.debugVariables(nextpanelmetadata, lastpanelmetadata);
         this.debugConditions(nextpanelmetadata, lastpanelmetadata);
+        this.debugProfile(nextpanelmetadata, lastpanelmetadata);
     }
 
     public void packSelectionChanged(String comment)
@@ -0,0 +1,130 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.debugger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.table.AbstractTableModel;
+
+import com.izforge.izpack.util.EvaluationProfiler;
+import com.izforge.izpack.util.EvaluationProfiler.Statistics;
+
+/**
+ * Table model of the condition and dynamic variable evaluation statistics collected by {@link EvaluationProfiler}.
+ */
+public class ProfileTableModel extends AbstractTableModel
+{
+    private static final long serialVersionUID = 3374518924467125032L;
+
+    public static final String[] columnheader = {"Kind", "Id", "Source", "Invocations", "Cache hits", "Total (ms)",
+                                                 "Max (ms)"};
+
+    private static final Class<?>[] columnclasses = {String.class, String.class, String.class, Long.class,
+                                                     Long.class, Double.class, Double.class};
+
+    /**
+     * The profile names, one per row.
+     */
+    private final List<String> kinds = new ArrayList<>();
+
+    /**
+     * The statistics, one per row.
+     */
+    private final List<Statistics> tableValues = new ArrayList<>();
+
+    @Override
+    public int getColumnCount()
+    {
+        return columnheader.length;
+    }
+
+    @Override
+    public int getRowCount()
+    {
+        return tableValues.size();
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex)
+    {
+        if (rowIndex < 0 || rowIndex >= tableValues.size())
+        {
+            return null;
+        }
+        Statistics statistics = tableValues.get(rowIndex);
+        switch (columnIndex)
+        {
+            case 0:
+                return kinds.get(rowIndex);
+            case 1:
+                return statistics.getId();
+            case 2:
+                return statistics.getSource();
+            case 3:
+                return statistics.getInvocations();
+            case 4:
+                return statistics.getHits();
+            case 5:
+                return toMillis(statistics.getTotalNanos());
+            case 6:
+                return toMillis(statistics.getMaxNanos());
+        }
+        return null;
+    }
+
+    @Override
+    public String getColumnName(int column)
+    {
+        return columnheader[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex)
+    {
+        return columnclasses[columnIndex];
+    }
+
+    /**
+     * Reloads the statistics from the profilers.
+     */
+    public void refresh()
+    {
+        kinds.clear();
+        tableValues.clear();
+        add(EvaluationProfiler.CONDITIONS);
+        add(EvaluationProfiler.VARIABLES);
+        fireTableDataChanged();
+    }
+
+    private void add(EvaluationProfiler profiler)
+    {
+        for (Statistics statistics : profiler.getStatistics())
+        {
+            kinds.add(profiler.getName());
+            tableValues.add(statistics);
+        }
+    }
+
+    private static double toMillis(long nanos)
+    {
+        return nanos / 1000000.0;
+    }
+}
@@ -25,6 +25,8 @@ package com.izforge.izpack.installer.event;
 import com.izforge.izpack.api.data.AutomatedInstallData;
 import com.izforge.izpack.api.data.Pack;
 import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.event.InstalledFile;
+import com.izforge.izpack.api.event.InstallerBatchListener;
 import com.izforge.izpack.api.event.InstallerListener;
 import com.izforge.izpack.api.event.ProgressListener;
 import com.izforge.izpack.api.exception.InstallerException;
@@ -37,6 +39,7 @@ import com.izforge.izpack.core.handler.PromptUIHandler;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 
@@ -48,6 +51,11 @@ import java.util.List;
 public class InstallerListeners
 {
 
+    /**
+     * The maximum number of files and directories passed to {@link InstallerBatchListener#afterFiles} at once.
+     */
+    static final int BATCH_SIZE = 256;
+
     /**
      * The listeners.
      */
@@ -55,10 +63,21 @@ public class InstallerListeners
 
     /**
      * The file listeners, i.e. those listeners for who {@link InstallerListener#isFileListener() isFileListener()}
-     * returns {@code true}.
+     * returns {@code true}, excluding the batch listeners.
      */
     private final List<InstallerListener> fileListeners = new ArrayList<InstallerListener>();
 
+    /**
+     * The batch file listeners, i.e. those {@link InstallerBatchListener}s for who
+     * {@link InstallerListener#isFileListener() isFileListener()} returns {@code true}.
+     */
+    private final List<InstallerBatchListener> batchListeners = new ArrayList<InstallerBatchListener>();
+
+    /**
+     * The installed files and directories not yet passed to the batch listeners.
+     */
+    private final List<InstalledFile> batch = new ArrayList<InstalledFile>();
+
     /**
      * The installation data.
      */
@@ -137,7 +156,14 @@ public class InstallerListeners
                 listener.initialise();
                 if (listener.isFileListener())
                 {
-                    fileListeners.add(listener);
+                    if (listener instanceof InstallerBatchListener)
+                    {
+                        batchListeners.add((InstallerBatchListener) listener);
+                    }
+                    else
+                    {
+                        fileListeners.add(listener);
+                    }
                 }
             }
                 catch (IzPackException ize)
@@ -193,16 +219,20 @@ public class InstallerListeners
 
     /**
      * Determines if the listener should be notified of every file and directory installation.
+     * <p/>
+     * This is the case if either a per-file or a batch file listener is registered.
      *
      * @return <tt>true</tt> if the listener should be notified, otherwise <tt>false</tt>
      */
     public boolean isFileListener()
     {
-        return !fileListeners.isEmpty();
+        return !fileListeners.isEmpty() || !batchListeners.isEmpty();
     }
 
     /**
      * Invoked before a directory is created.
+     * <p/>
+     * This implementation doesn't invoke the batch listeners.
      *
      * @param dir      the directory
      * @param packFile corresponding pack file
@@ -226,6 +256,8 @@ public class InstallerListeners
 
     /**
      * Invoked after a directory is created.
+     * <p/>
+     * The directory is queued for the batch listeners.
      *
      * @param dir      the directory
      * @param packFile corresponding pack file
@@ -245,12 +277,14 @@ public class InstallerListeners
                 handleError(ize);
             }
         }
+        addToBatch(new InstalledFile(dir, packFile, pack, true));
     }
 
     /**
      * Invoked before a file is installed.
      * <p/>
-     * This implementation only invokes those listeners whose {@link #isFileListener()} returns <tt>true</tt>.
+     * This implementation only invokes those listeners whose {@link #isFileListener()} returns <tt>true</tt>, and
+     * that aren't batch listeners.
      *
      * @param file     the file
      * @param packFile corresponding pack file
@@ -275,7 +309,8 @@ public class InstallerListeners
     /**
      * Invoked after a file is installed.
      * <p/>
-     * This implementation only invokes those listeners whose {@link #isFileListener()} returns <tt>true</tt>.
+     * This implementation only invokes those listeners whose {@link #isFileListener()} returns <tt>true</tt>, and
+     * that aren't batch listeners. The file is queued for the batch listeners.
      *
      * @param file     the file
      * @param packFile corresponding pack file
@@ -295,16 +330,20 @@ public class InstallerListeners
                 handleError(ize);
             }
         }
+        addToBatch(new InstalledFile(file, packFile, pack, false));
     }
 
     /**
      * Invoked after a pack is installed.
+     * <p/>
+     * Any files and directories queued for the batch listeners are passed to them first.
      *
      * @param pack     current pack object
      * @throws InstallerException if a listener throws an exception
      */
     public void afterPack(Pack pack) throws InstallerException
     {
+        flush();
         for (InstallerListener l : listeners)
         {
             try
@@ -340,6 +379,55 @@ public class InstallerListeners
         }
     }
 
+    /**
+     * Queues an installed file or directory for the batch listeners, passing the queue to them when it is full.
+     *
+     * @param file the installed file or directory
+     * @throws InstallerException if a listener throws an exception
+     */
+    private void addToBatch(InstalledFile file)
+    {
+        if (!batchListeners.isEmpty())
+        {
+            batch.add(file);
+            if (batch.size() >= BATCH_SIZE)
+            {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Passes the queued files and directories to the batch listeners.
+     *
+     * @throws InstallerException if a listener throws an exception
+     */
+    private void flush()
+    {
+        if (!batch.isEmpty())
+        {
+            try
+            {
+                List<InstalledFile> files = Collections.unmodifiableList(batch);
+                for (InstallerBatchListener l : batchListeners)
+                {
+                    try
+                    {
+                        l.afterFiles(files);
+                    }
+                    catch (IzPackException ize)
+                    {
+                        handleError(ize);
+                    }
+                }
+            }
+            finally
+            {
+                batch.clear();
+            }
+        }
+    }
+
     private void handleError(IzPackException ize) throws IzPackException
     {
         Messages messages = installData.getMessages();
@@ -21,13 +21,16 @@
 
 package com.izforge.izpack.installer.multiunpacker;
 
+import com.izforge.izpack.api.data.PackCompression;
 import com.izforge.izpack.api.data.PackFile;
 import com.izforge.izpack.api.data.XPackFile;
 import com.izforge.izpack.api.exception.InstallerException;
 import com.izforge.izpack.core.io.FileSpanningInputStream;
 import com.izforge.izpack.installer.unpacker.Cancellable;
 import com.izforge.izpack.installer.unpacker.FileUnpacker;
+import com.izforge.izpack.util.StreamSupport;
 import com.izforge.izpack.util.os.FileQueue;
+import org.apache.commons.io.input.BoundedInputStream;
 
 import java.io.File;
 import java.io.IOException;
@@ -48,6 +51,11 @@ public class MultiVolumeFileUnpacker extends FileUnpacker
      */
     private final FileSpanningInputStream volumes;
 
+    /**
+     * The pack compression format.
+     */
+    private final PackCompression compressionFormat;
+
     /**
      * The logger.
      */
@@ -61,9 +69,24 @@ public class MultiVolumeFileUnpacker extends FileUnpacker
      * @param queue       the file queue. May be {@code null}
      */
     public MultiVolumeFileUnpacker(FileSpanningInputStream volumes, Cancellable cancellable, FileQueue queue)
+    {
+        this(volumes, cancellable, queue, PackCompression.DEFAULT);
+    }
+
+    /**
+     * Constructs a <tt>MultiVolumeFileUnpacker</tt>.
+     *
+     * @param volumes           the input stream
+     * @param cancellable       determines if unpacking should be cancelled
+     * @param queue             the file queue. May be {@code null}
+     * @param compressionFormat the pack compression format
+     */
+    public MultiVolumeFileUnpacker(FileSpanningInputStream volumes, Cancellable cancellable, FileQueue queue,
+                                   PackCompression compressionFormat)
     {
         super(cancellable, queue);
         this.volumes = volumes;
+        this.compressionFormat = compressionFormat;
     }
 
     /**
@@ -98,7 +121,28 @@ public class MultiVolumeFileUnpacker extends FileUnpacker
             throw new IOException("Error, can't access file in pack.");
         }
 
-        copy(packFile, volumes, target);
+        if (compressionFormat == PackCompression.DEFAULT)
+        {
+            copy(packFile, volumes, target);
+        }
+        else
+        {
+            // bound the stream to the compressed size so decompressors can't read ahead into the next file
+            InputStream in = BoundedInputStream.builder()
+                    .setInputStream(volumes)
+                    .setMaxCount(packFile.size())
+                    .setPropagateClose(false)
+                    .get();
+            try (InputStream finalStream = StreamSupport.compressedInput(compressionFormat, in))
+            {
+                long bytesUncompressed = copy(packFile, finalStream, target);
+                if (bytesUncompressed != packFile.length())
+                {
+                    throw new IOException("File size mismatch when uncompressing from pack: "
+                                                  + packFile.getRelativeSourcePath());
+                }
+            }
+        }
     }
 
     /**
@@ -27,13 +27,11 @@ import com.izforge.izpack.api.exception.InstallerException;
 import com.izforge.izpack.util.StreamSupport;
 import com.izforge.izpack.util.os.FileQueue;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
 
 
 /**
@@ -57,6 +55,9 @@ public class CompressedFileUnpacker extends FileUnpacker
 
     /**
      * Unpacks a pack file.
+     * <p/>
+     * The file is decompressed directly from the pack stream. The stream is bounded to the compressed size of the
+     * file, so that decompressors that read ahead cannot consume the next file in the pack.
      *
      * @param file            the pack file meta-data
      * @param packInputStream the pack input stream
@@ -71,30 +72,25 @@ public class CompressedFileUnpacker extends FileUnpacker
         final long fileSize = file.size();
         final long fileLength = file.length();
         final long backReferenceFileLength = file.isBackReference() ? file.getLinkedPackFile().size() : fileSize;
-        final Path tmpfile = Files.createTempFile("izpack-uncompress", null);
-        try
+        final BoundedInputStream in = BoundedInputStream.builder()
+                .setInputStream(packInputStream)
+                .setMaxCount(fileSize)
+                .get();
+        try (InputStream finalStream = StreamSupport.compressedInput(compressionFormat, in))
         {
-            try (OutputStream fo = Files.newOutputStream(tmpfile))
+            final long bytesUncompressed = copy(file, finalStream, target);
+            if (bytesUncompressed != fileLength)
             {
-                final long bytesUnpacked = IOUtils.copyLarge(packInputStream, fo, 0, fileSize);
-                if (!(bytesUnpacked == fileSize || bytesUnpacked == backReferenceFileLength))
-                {
-                    throw new IOException("File size mismatch when reading from pack: " + file.getRelativeSourcePath());
-                }
+                throw new IOException("File size mismatch when uncompressing from pack: " + file.getRelativeSourcePath());
             }
-            try (InputStream in = Files.newInputStream(tmpfile);
-                 InputStream finalStream = StreamSupport.compressedInput(compressionFormat, in))
+
+            // skip any trailer the decompressor didn't need to read, to position the pack stream at the next file
+            IOUtils.consume(in);
+            final long bytesUnpacked = in.getCount();
+            if (!(bytesUnpacked == fileSize || bytesUnpacked == backReferenceFileLength))
             {
-                final long bytesUncompressed = copy(file, finalStream, target);
-                if (bytesUncompressed != fileLength)
-                {
-                    throw new IOException("File size mismatch when uncompressing from pack: " + file.getRelativeSourcePath());
-                }
+                throw new IOException("File size mismatch when reading from pack: " + file.getRelativeSourcePath());
             }
         }
-        finally
-        {
-            Files.deleteIfExists(tmpfile);
-        }
     }
 }
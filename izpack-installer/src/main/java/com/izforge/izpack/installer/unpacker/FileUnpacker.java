@@ -126,7 +126,7 @@ public abstract class FileUnpacker
         byte[] buffer = new byte[5120];
         long bytesCopied = 0;
         long bytesToCopy = (file.isBackReference() ? file.getLinkedPackFile().length() : file.length());
-        logger.fine("|- Copying to file system (size: " + bytesToCopy + " bytes)");
+        logger.fine(() -> "|- Copying to file system (size: " + bytesToCopy + " bytes)");
         try
         {
             while (bytesCopied < bytesToCopy)
@@ -272,7 +272,7 @@ public abstract class FileUnpacker
         move.setForceInUse(true);
         move.setOverwrite(true);
         queue.add(move);
-        logger.fine(tmpTarget.getAbsolutePath() + " -> " + target.getAbsolutePath()
+        logger.fine(() -> tmpTarget.getAbsolutePath() + " -> " + target.getAbsolutePath()
                             + " added to file queue for being copied after reboot");
         // The temporary file must not be deleted until the file queue will be committed
         tmpTarget.deleteOnExit();
@@ -0,0 +1,459 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.Variables;
+import com.izforge.izpack.api.exception.IzPackException;
+import com.izforge.izpack.util.IoHelper;
+
+
+/**
+ * The files to install, and where to install them.
+ * <p/>
+ * The plan is built a pack at a time, just before the pack is installed, so that variables changed by listeners
+ * and by earlier packs are taken into account. It records for each pack file whether it is installed, and its
+ * resolved target path. The directories that the files are installed to are collected so that they can
+ * be created in a single pass, before the pack is extracted.
+ * <p/>
+ * Target paths are resolved with {@link IoHelper#translatePath(String, Variables)}. As pack files are mostly
+ * installed to a few directories, the directory part of each target path is only resolved once per pack.
+ */
+public class InstallPlan
+{
+
+    /**
+     * The entries, by pack, in pack file order.
+     */
+    private final Map<Pack, List<Entry>> entries = new LinkedHashMap<Pack, List<Entry>>();
+
+    /**
+     * The directories to create, by pack. The sets are sorted, so parent directories precede their children.
+     */
+    private final Map<Pack, Set<String>> directories = new HashMap<Pack, Set<String>>();
+
+    /**
+     * The target paths of the installed files.
+     */
+    private final Set<String> paths = new HashSet<String>();
+
+    /**
+     * The directories created by {@link #createDirectories(Pack)}, and the packs they were created for.
+     */
+    private final Map<String, Pack> created = new HashMap<String, Pack>();
+
+    /**
+     * The resolved target directories, keyed on the unresolved directory.
+     */
+    private final Map<String, String> resolved = new HashMap<String, String>();
+
+    /**
+     * The variables used to resolve target paths.
+     */
+    private final Variables variables;
+
+    /**
+     * Constructs an <tt>InstallPlan</tt>.
+     *
+     * @param variables the variables used to resolve target paths
+     */
+    public InstallPlan(Variables variables)
+    {
+        this.variables = variables;
+    }
+
+    /**
+     * Adds a pack to the plan.
+     *
+     * @param pack the pack
+     */
+    public void add(Pack pack)
+    {
+        if (!entries.containsKey(pack))
+        {
+            entries.put(pack, new ArrayList<Entry>());
+            directories.put(pack, new TreeSet<String>());
+            // variables may have changed since the previous pack was added
+            resolved.clear();
+        }
+    }
+
+    /**
+     * Adds a pack file to the plan.
+     *
+     * @param pack    the pack that the file comes from
+     * @param file    the pack file
+     * @param install if <tt>true</tt>, the file is installed, otherwise it is skipped
+     * @return the new entry
+     */
+    public Entry add(Pack pack, PackFile file, boolean install)
+    {
+        add(pack);
+        List<Entry> list = entries.get(pack);
+        Entry entry;
+        if (install)
+        {
+            String path = resolve(file.getTargetPath());
+            File target = new File(path);
+            File dir = file.isDirectory() ? target : target.getParentFile();
+            if (dir != null)
+            {
+                directories.get(pack).add(dir.getPath());
+            }
+            // a file installed more than once may exist by the time it is installed again
+            boolean duplicate = !paths.add(path);
+            entry = new Entry(pack, file, list.size() + 1, path, target, dir, duplicate);
+        }
+        else
+        {
+            entry = new Entry(pack, file, list.size() + 1, null, null, null, false);
+        }
+        list.add(entry);
+        return entry;
+    }
+
+    /**
+     * Creates an entry for a file that is installed, without adding it to a plan.
+     * <p/>
+     * As the entry isn't tracked by a plan, {@link #exists(Entry)} always checks the file system for it.
+     *
+     * @param pack   the pack that the file comes from
+     * @param file   the pack file
+     * @param fileNo the number of the file within its pack
+     * @param path   the resolved target path
+     * @return a new entry
+     */
+    static Entry createEntry(Pack pack, PackFile file, int fileNo, String path)
+    {
+        File target = new File(path);
+        File dir = file.isDirectory() ? target : target.getParentFile();
+        return new Entry(pack, file, fileNo, path, target, dir, true);
+    }
+
+    /**
+     * Returns the packs in the plan.
+     *
+     * @return the packs, in the order they were added
+     */
+    public Set<Pack> getPacks()
+    {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * Returns the entries for a pack.
+     *
+     * @param pack the pack
+     * @return the entries, in pack file order
+     */
+    public List<Entry> getEntries(Pack pack)
+    {
+        List<Entry> result = entries.get(pack);
+        return (result != null) ? Collections.unmodifiableList(result) : Collections.<Entry>emptyList();
+    }
+
+    /**
+     * Returns the directories that the files of a pack are installed to.
+     *
+     * @param pack the pack
+     * @return the directories, sorted so that parent directories precede their children
+     */
+    public Set<String> getDirectories(Pack pack)
+    {
+        Set<String> result = directories.get(pack);
+        return (result != null) ? Collections.unmodifiableSet(result) : Collections.<String>emptySet();
+    }
+
+    /**
+     * Creates the directories that the files of a pack are installed to.
+     * <p/>
+     * This doesn't notify any listeners of the directories created.
+     *
+     * @param pack the pack
+     * @throws IzPackException if a directory cannot be created
+     */
+    public void createDirectories(Pack pack)
+    {
+        for (String path : getDirectories(pack))
+        {
+            if (created.containsKey(path))
+            {
+                continue;
+            }
+            File dir = new File(path);
+            if (!dir.isDirectory())
+            {
+                if (!dir.mkdirs())
+                {
+                    throw new IzPackException("Could not create directory: " + dir.getPath());
+                }
+                created.put(path, pack);
+            }
+        }
+    }
+
+    /**
+     * Determines if the target of an entry may exist.
+     * <p/>
+     * This avoids checking the file system for files installed to a directory that was created for the file's
+     * pack by {@link #createDirectories(Pack)}.
+     *
+     * @param entry the entry
+     * @return <tt>true</tt> if the target exists
+     */
+    public boolean exists(Entry entry)
+    {
+        if (!entry.duplicate && entry.dir != null && !entry.file.isDirectory()
+                && created.get(entry.dir.getPath()) == entry.pack)
+        {
+            return false;
+        }
+        return entry.target.exists();
+    }
+
+    /**
+     * Writes a report of the plan, without installing anything.
+     *
+     * @param writer the writer to write to
+     * @throws IOException for any I/O error
+     */
+    public void write(Writer writer) throws IOException
+    {
+        PrintWriter out = new PrintWriter(writer);
+        for (Pack pack : entries.keySet())
+        {
+            write(pack, out);
+        }
+        out.flush();
+        if (out.checkError())
+        {
+            throw new IOException("Failed to write install plan");
+        }
+    }
+
+    /**
+     * Returns a report of the plan for a single pack.
+     *
+     * @param pack the pack
+     * @return the report
+     */
+    public String toString(Pack pack)
+    {
+        StringWriter writer = new StringWriter();
+        PrintWriter out = new PrintWriter(writer);
+        write(pack, out);
+        out.flush();
+        return writer.toString();
+    }
+
+    /**
+     * Returns a report of the plan.
+     *
+     * @return the report
+     */
+    @Override
+    public String toString()
+    {
+        StringWriter writer = new StringWriter();
+        try
+        {
+            write(writer);
+        }
+        catch (IOException ignore)
+        {
+            // can't occur
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes the plan for a pack.
+     *
+     * @param pack the pack
+     * @param out  the writer to write to
+     */
+    private void write(Pack pack, PrintWriter out)
+    {
+        out.println("pack " + pack.getName());
+        for (String dir : getDirectories(pack))
+        {
+            out.println("  mkdir   " + dir);
+        }
+        for (Entry entry : getEntries(pack))
+        {
+            if (entry.isInstall())
+            {
+                out.println("  install " + entry.getPath());
+            }
+            else
+            {
+                out.println("  skip    " + entry.getPackFile().getTargetPath());
+            }
+        }
+    }
+
+    /**
+     * Resolves a target path.
+     * <p/>
+     * The directory part is resolved once and cached. The file name is appended as is, unless it could contain
+     * variables or masked slashes, in which case the whole path is resolved.
+     *
+     * @param targetPath the target path to resolve
+     * @return the resolved path
+     */
+    String resolve(String targetPath)
+    {
+        int index = targetPath.lastIndexOf('/');
+        if (index <= 0 || targetPath.charAt(index - 1) == '\\')
+        {
+            return IoHelper.translatePath(targetPath, variables);
+        }
+        String name = targetPath.substring(index + 1);
+        if (name.indexOf('$') != -1 || name.indexOf('\\') != -1)
+        {
+            return IoHelper.translatePath(targetPath, variables);
+        }
+        String dir = targetPath.substring(0, index);
+        String result = resolved.get(dir);
+        if (result == null)
+        {
+            result = IoHelper.translatePath(dir, variables);
+            resolved.put(dir, result);
+        }
+        return result + File.separatorChar + name;
+    }
+
+    /**
+     * A pack file in the plan.
+     */
+    public static class Entry
+    {
+        private final Pack pack;
+
+        private final PackFile file;
+
+        private final int fileNo;
+
+        private final String path;
+
+        private final File target;
+
+        private final File dir;
+
+        private final boolean duplicate;
+
+        Entry(Pack pack, PackFile file, int fileNo, String path, File target, File dir, boolean duplicate)
+        {
+            this.pack = pack;
+            this.file = file;
+            this.fileNo = fileNo;
+            this.path = path;
+            this.target = target;
+            this.dir = dir;
+            this.duplicate = duplicate;
+        }
+
+        /**
+         * Returns the pack that the file comes from.
+         *
+         * @return the pack
+         */
+        public Pack getPack()
+        {
+            return pack;
+        }
+
+        /**
+         * Returns the pack file.
+         *
+         * @return the pack file
+         */
+        public PackFile getPackFile()
+        {
+            return file;
+        }
+
+        /**
+         * Returns the number of the file within its pack.
+         *
+         * @return the file number, starting at 1
+         */
+        public int getFileNo()
+        {
+            return fileNo;
+        }
+
+        /**
+         * Determines if the file is installed.
+         *
+         * @return <tt>true</tt> if the file is installed, <tt>false</tt> if it is skipped
+         */
+        public boolean isInstall()
+        {
+            return target != null;
+        }
+
+        /**
+         * Returns the resolved target path.
+         *
+         * @return the target path, or <tt>null</tt> if the file is skipped
+         */
+        public String getPath()
+        {
+            return path;
+        }
+
+        /**
+         * Returns the target file.
+         *
+         * @return the target, or <tt>null</tt> if the file is skipped
+         */
+        public File getTarget()
+        {
+            return target;
+        }
+
+        /**
+         * Returns the directory that the file is installed to. For directories, this is the target itself.
+         *
+         * @return the directory. May be <tt>null</tt>
+         */
+        public File getDirectory()
+        {
+            return dir;
+        }
+    }
+}
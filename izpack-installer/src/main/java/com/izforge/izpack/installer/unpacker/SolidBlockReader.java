@@ -0,0 +1,168 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import com.izforge.izpack.api.data.PackCompression;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.util.StreamSupport;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * Reads pack files from a pack stream written in solid blocks.
+ * <p/>
+ * Files must be requested in pack stream order. Each block is decompressed at most once, and blocks containing no
+ * requested files are skipped without being decompressed.
+ */
+class SolidBlockReader implements Closeable
+{
+    /**
+     * The pack stream.
+     */
+    private final InputStream packStream;
+
+    /**
+     * The compression format.
+     */
+    private final PackCompression format;
+
+    /**
+     * The position in the pack stream, once the current block has been read.
+     */
+    private long position;
+
+    /**
+     * The stream offset of the current block.
+     */
+    private long blockStart = -1;
+
+    /**
+     * The compressed content of the current block, or {@code null} if no block is open.
+     */
+    private BoundedInputStream compressed;
+
+    /**
+     * The uncompressed content of the current block, or {@code null} if no block is open.
+     */
+    private BoundedInputStream block;
+
+    /**
+     * Constructs a {@code SolidBlockReader}.
+     *
+     * @param packStream the pack stream, positioned at its start
+     * @param format     the compression format
+     */
+    SolidBlockReader(InputStream packStream, PackCompression format)
+    {
+        this.packStream = packStream;
+        this.format = format;
+    }
+
+    /**
+     * Returns a stream to read a pack file.
+     * <p/>
+     * The stream is only valid until the next file is requested. Closing it has no effect.
+     *
+     * @param file the pack file. Must be stored in a solid block
+     * @return a stream of the uncompressed file content
+     * @throws IOException for any I/O error, or if the file precedes the previous file requested
+     */
+    InputStream getInputStream(PackFile file) throws IOException
+    {
+        if (block == null || file.getStreamOffset() != blockStart || file.getBlockOffset() < block.getCount())
+        {
+            openBlock(file);
+        }
+        IOUtils.skipFully(block, file.getBlockOffset() - block.getCount());
+        return BoundedInputStream.builder()
+                .setInputStream(block)
+                .setMaxCount(file.length())
+                .setPropagateClose(false)
+                .get();
+    }
+
+    /**
+     * Determines if a file can be read, i.e. it doesn't precede the previous file requested.
+     *
+     * @param file the pack file
+     * @return <tt>true</tt> if the file can be read
+     */
+    boolean canRead(PackFile file)
+    {
+        if (block != null && file.getStreamOffset() == blockStart)
+        {
+            return file.getBlockOffset() >= block.getCount();
+        }
+        return file.getStreamOffset() >= position;
+    }
+
+    /**
+     * Closes the current block, if any. The pack stream is not closed.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (block != null)
+        {
+            block.close();
+            block = null;
+            compressed = null;
+        }
+    }
+
+    /**
+     * Opens the block containing a file, skipping the remainder of the current block and any blocks in between.
+     *
+     * @param file the pack file
+     * @throws IOException for any I/O error, or if the block precedes the current position
+     */
+    private void openBlock(PackFile file) throws IOException
+    {
+        if (compressed != null)
+        {
+            IOUtils.consume(compressed);
+        }
+        close();
+
+        long offset = file.getStreamOffset();
+        if (offset < position)
+        {
+            throw new IOException("Pack file is out of stream order: " + file.getRelativeSourcePath());
+        }
+        IOUtils.skipFully(packStream, offset - position);
+        compressed = BoundedInputStream.builder()
+                .setInputStream(packStream)
+                .setMaxCount(file.size())
+                .setPropagateClose(false)
+                .get();
+        block = BoundedInputStream.builder()
+                .setInputStream(StreamSupport.compressedInput(format, compressed))
+                .get();
+        blockStart = offset;
+        position = offset + file.size();
+    }
+}
@@ -205,6 +205,32 @@ public abstract class UnpackerBase implements IUnpacker
      */
     private Messages packMessages;
 
+    /**
+     * The plan of the files to install.
+     */
+    private InstallPlan plan;
+
+    /**
+     * Reads files stored in solid blocks from the current pack stream. Created on demand.
+     */
+    private SolidBlockReader blocks;
+
+    /**
+     * Reads back referenced files stored in solid blocks, so that consecutive back references to the same block
+     * only decompress it once. Created on demand.
+     */
+    private SolidBlockReader linkedBlocks;
+
+    /**
+     * The stream read by {@link #linkedBlocks}.
+     */
+    private InputStream linkedStream;
+
+    /**
+     * The resource name of {@link #linkedStream}.
+     */
+    private String linkedStreamName;
+
     /**
      * Constructs an <tt>UnpackerBase</tt>.
      *
@@ -489,6 +515,9 @@ public abstract class UnpackerBase implements IUnpacker
      */
     protected void unpack(List<PackInfo> packs, FileQueue queue) throws InstallerException
     {
+        selectedPacks = installData.getSelectedPacks();
+        plan = new InstallPlan(variables);
+
         int count = packs.size();
         for (int i = 0; i < count; i++)
         {
@@ -502,6 +531,14 @@ public abstract class UnpackerBase implements IUnpacker
                 List<UpdateCheck> updateChecks = new ArrayList<UpdateCheck>();
 
                 listeners.beforePack(pack, i);
+
+                // plan the pack now, as listeners and earlier packs may have changed the variables it depends on
+                addToPlan(plan, packInfo);
+                if (logger.isLoggable(Level.FINE))
+                {
+                    logger.fine("Install plan:\n" + plan.toString(pack));
+                }
+
                 unpack(packInfo, i, queue, parsables, executables, updateChecks);
                 checkInterrupt();
 
@@ -522,6 +559,50 @@ public abstract class UnpackerBase implements IUnpacker
         }
     }
 
+    /**
+     * Creates the plan of the files to install.
+     * <p/>
+     * Pack and file conditions and OS constraints are evaluated, and the target paths resolved, against the
+     * current variable values. Nothing is installed, so this may be used to report what an installation would do.
+     * <br/>
+     * Note that during installation, each pack is planned once its {@link InstallerListener#beforePack} listeners
+     * have run, so the actual installation may differ if listeners or executables change variables.
+     *
+     * @param packs the available packs
+     * @return the plan
+     */
+    public InstallPlan createInstallPlan(List<PackInfo> packs)
+    {
+        selectedPacks = installData.getSelectedPacks();
+        // resolve every target path against the same variable values
+        InstallPlan result = new InstallPlan(variables.snapshot());
+        for (PackInfo packInfo : packs)
+        {
+            if (shouldUnpack(packInfo.getPack()))
+            {
+                addToPlan(result, packInfo);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds a pack to a plan, evaluating the conditions and OS constraints of its files and resolving their
+     * target paths.
+     *
+     * @param plan     the plan
+     * @param packInfo the pack to add
+     */
+    private void addToPlan(InstallPlan plan, PackInfo packInfo)
+    {
+        Pack pack = packInfo.getPack();
+        plan.add(pack);
+        for (PackFile packFile : packInfo.getPackFiles())
+        {
+            plan.add(pack, packFile, shouldUnpack(packFile));
+        }
+    }
+
     /**
      * Unpacks a pack.
      *
@@ -535,27 +616,33 @@ public abstract class UnpackerBase implements IUnpacker
     {
         InputStream in = null;
         Pack pack = packInfo.getPack();
-        PackFile[] packFiles = packInfo.getPackFiles().toArray(new PackFile[]{});
+        List<InstallPlan.Entry> entries = plan.getEntries(pack);
         try
         {
-            int len = packFiles.length;
+            int len = entries.size();
 
             String stepName = getStepName(pack);
             selectedPacks = installData.getSelectedPacks();
             listener.nextStep(stepName, selectedPacks.indexOf(pack) + 1, len);
 
+            if (!listeners.isFileListener())
+            {
+                // no listener needs to be notified of each directory, so create them all up front
+                plan.createDirectories(pack);
+            }
+
             in = resources.getPackStream(pack.getName());
 
-            for (int i = 0; i < len; i++)
+            for (InstallPlan.Entry entry : entries)
             {
-                PackFile packFile = packFiles[i];
+                PackFile packFile = entry.getPackFile();
                 final boolean isDirectory = packFile.isDirectory();
-                logger.fine("Unpacking " + (isDirectory?"directory":"file") + " " + packFile.getTargetPath()
+                logger.fine(() -> "Unpacking " + (isDirectory?"directory":"file") + " " + packFile.getTargetPath()
                         + " (backreference: " + packFile.isBackReference() + ")");
-                if (shouldUnpack(packFile))
+                if (entry.isInstall())
                 {
                     // unpack the file
-                    unpack(packFile, in, i + 1, pack, queue);
+                    unpack(entry, in, queue);
                 } else
                 {
                     if (!isDirectory)
@@ -579,6 +666,9 @@ public abstract class UnpackerBase implements IUnpacker
         }
         finally
         {
+            IOUtils.closeQuietly(blocks);
+            blocks = null;
+            closeLinkedBlocks();
             IOUtils.closeQuietly(in);
         }
     }
@@ -606,30 +696,27 @@ public abstract class UnpackerBase implements IUnpacker
     /**
      * Unpacks a pack file.
      *
-     * @param packFile        the pack file
+     * @param entry           the install plan entry of the pack file
      * @param packInputStream the pack file input stream
-     * @param fileNo          the pack file number
-     * @param pack            the pack that the pack file comes from
      * @param queue           the file queue, or {@code null} if queuing is not supported
      * @throws IOException     for any I/O error
      * @throws IzPackException for any other error
      */
-    protected void unpack(PackFile packFile, InputStream packInputStream, int fileNo, Pack pack, FileQueue queue)
+    protected void unpack(InstallPlan.Entry entry, InputStream packInputStream, FileQueue queue)
             throws IOException
     {
-        String targetPath = packFile.getTargetPath();
-
-        // translate & build the path
-        String path = IoHelper.translatePath(targetPath, variables);
-        File target = new File(path);
-        File dir = target;
-        if (!packFile.isDirectory())
+        PackFile packFile = entry.getPackFile();
+        Pack pack = entry.getPack();
+        int fileNo = entry.getFileNo();
+        String path = entry.getPath();
+        File target = entry.getTarget();
+        File dir = entry.getDirectory();
+
+        if (dir != null && listeners.isFileListener())
         {
-            dir = target.getParentFile();
+            createDirectory(dir, packFile, pack);
         }
 
-        createDirectory(dir, packFile, pack);
-
         // Add path to the log
         getUninstallData().addFile(path, pack.isUninstall());
 
@@ -643,12 +730,12 @@ public abstract class UnpackerBase implements IUnpacker
         listener.progress(fileNo, path);
 
         // if this file exists and should not be overwritten, check what to do
-        if (target.exists() && (packFile.override() != OverrideType.OVERRIDE_TRUE) && !isOverwriteFile(packFile, target))
+        if (exists(entry) && (packFile.override() != OverrideType.OVERRIDE_TRUE) && !isOverwriteFile(packFile, target))
         {
-            if (!packFile.isBackReference() && !pack.isLoose() && !packFile.isPack200Jar())
+            if (!packFile.isBackReference() && !pack.isLoose() && !packFile.isPack200Jar() && !packFile.isInBlock())
             {
                 long size = packFile.size();
-                logger.fine("|- No overwrite - skipping pack stream by " + size + " bytes");
+                logger.fine(() -> "|- No overwrite - skipping pack stream by " + size + " bytes");
                 skip(packInputStream, size);
             }
         } else
@@ -658,6 +745,46 @@ public abstract class UnpackerBase implements IUnpacker
         }
     }
 
+    /**
+     * Unpacks a pack file.
+     * <p/>
+     * The target path is resolved when the file is unpacked.
+     *
+     * @param packFile        the pack file
+     * @param packInputStream the pack file input stream
+     * @param fileNo          the pack file number
+     * @param pack            the pack that the pack file comes from
+     * @param queue           the file queue, or {@code null} if queuing is not supported
+     * @throws IOException     for any I/O error
+     * @throws IzPackException for any other error
+     * @deprecated use {@link #unpack(InstallPlan.Entry, InputStream, FileQueue)}
+     */
+    @Deprecated
+    protected void unpack(PackFile packFile, InputStream packInputStream, int fileNo, Pack pack, FileQueue queue)
+            throws IOException
+    {
+        String path = IoHelper.translatePath(packFile.getTargetPath(), variables);
+        InstallPlan.Entry entry = InstallPlan.createEntry(pack, packFile, fileNo, path);
+        File dir = entry.getDirectory();
+        if (dir != null && !listeners.isFileListener())
+        {
+            // unpack(Entry...) only creates directories for file listeners, as the plan creates the others
+            createDirectory(dir, packFile, pack);
+        }
+        unpack(entry, packInputStream, queue);
+    }
+
+    /**
+     * Determines if the target of a plan entry exists.
+     *
+     * @param entry the entry
+     * @return <tt>true</tt> if the target exists
+     */
+    private boolean exists(InstallPlan.Entry entry)
+    {
+        return (plan != null) ? plan.exists(entry) : entry.getTarget().exists();
+    }
+
     /**
      * Extracts a pack file.
      *
@@ -678,7 +805,10 @@ public abstract class UnpackerBase implements IUnpacker
         {
             FileUnpacker unpacker;
 
-            if (!pack.isLoose() && packFile.isBackReference())
+            if (!pack.isLoose() && packFile.isBackReference() && packFile.getLinkedPackFile().isInBlock())
+            {
+                packStream = getLinkedBlocks(packFile.getLinkedPackFile()).getInputStream(packFile.getLinkedPackFile());
+            } else if (!pack.isLoose() && packFile.isBackReference())
             {
                 PackFile linkedPackFile = packFile.getLinkedPackFile();
                 packStream = resources.getInputStream(ResourceManager.RESOURCE_BASEPATH_DEFAULT + linkedPackFile.getStreamResourceName());
@@ -687,19 +817,26 @@ public abstract class UnpackerBase implements IUnpacker
                     // Non-Pack200 files are saved in main pack stream
                     // Offset is always 0 for Pack200 resources, because each file has its own stream resource
                     long size = linkedPackFile.getStreamOffset();
-                    logger.fine("|- Backreference to pack stream (offset: " + size + " bytes");
+                    logger.fine(() -> "|- Backreference to pack stream (offset: " + size + " bytes");
                     skip(packStream, size);
                 }
             } else if (packFile.isPack200Jar())
             {
                 packStream = resources.getInputStream(ResourceManager.RESOURCE_BASEPATH_DEFAULT + packFile.getStreamResourceName());
+            } else if (packFile.isInBlock())
+            {
+                if (blocks == null)
+                {
+                    blocks = new SolidBlockReader(packInputStream, getInstallData().getInfo().getCompressionFormat());
+                }
+                packStream = blocks.getInputStream(packFile);
             } else
             {
                 packStream = new NoCloseInputStream(packInputStream);
             }
 
             unpacker = createFileUnpacker(packFile, pack, queue, cancellable);
-            logger.fine("|- Extracting file using " + unpacker.getClass().getName() + ")");
+            logger.fine(() -> "|- Extracting file using " + unpacker.getClass().getName() + ")");
             unpacker.unpack(packFile, packStream, target);
             checkInterrupt();
 
@@ -717,6 +854,40 @@ public abstract class UnpackerBase implements IUnpacker
         }
     }
 
+    /**
+     * Returns a reader for a back referenced file stored in a solid block.
+     * <p/>
+     * The reader is reused while back references are in stream order.
+     *
+     * @param linkedPackFile the back referenced file
+     * @return the reader
+     * @throws IOException for any I/O error
+     */
+    private SolidBlockReader getLinkedBlocks(PackFile linkedPackFile) throws IOException
+    {
+        String name = linkedPackFile.getStreamResourceName();
+        if (linkedBlocks == null || !name.equals(linkedStreamName) || !linkedBlocks.canRead(linkedPackFile))
+        {
+            closeLinkedBlocks();
+            linkedStream = resources.getInputStream(ResourceManager.RESOURCE_BASEPATH_DEFAULT + name);
+            linkedStreamName = name;
+            linkedBlocks = new SolidBlockReader(linkedStream, getInstallData().getInfo().getCompressionFormat());
+        }
+        return linkedBlocks;
+    }
+
+    /**
+     * Closes the reader for back referenced files, if any.
+     */
+    private void closeLinkedBlocks()
+    {
+        IOUtils.closeQuietly(linkedBlocks);
+        IOUtils.closeQuietly(linkedStream);
+        linkedBlocks = null;
+        linkedStream = null;
+        linkedStreamName = null;
+    }
+
     /**
      * Skips a pack file.
      *
@@ -727,10 +898,10 @@ public abstract class UnpackerBase implements IUnpacker
      */
     protected void skip(PackFile packFile, Pack pack, InputStream packInputStream) throws IOException
     {
-        if (!pack.isLoose() && !packFile.isBackReference() && !packFile.isPack200Jar())
+        if (!pack.isLoose() && !packFile.isBackReference() && !packFile.isPack200Jar() && !packFile.isInBlock())
         {
             long size = packFile.size();
-            logger.fine("|- Condition not fulfilled - skipping pack stream " + packFile.getTargetPath() + " by " + size + " bytes ");
+            logger.fine(() -> "|- Condition not fulfilled - skipping pack stream " + packFile.getTargetPath() + " by " + size + " bytes ");
             skip(packInputStream, packFile.size());
         }
     }
@@ -756,6 +927,10 @@ public abstract class UnpackerBase implements IUnpacker
         } else if (file.isPack200Jar())
         {
             unpacker = new Pack200FileUnpacker(cancellable, resources, queue);
+        } else if (file.isInBlock())
+        {
+            // the solid block is decompressed by the SolidBlockReader
+            unpacker = new DefaultFileUnpacker(cancellable, queue);
         } else if (compressionFormat != PackCompression.DEFAULT)
         {
             unpacker = new CompressedFileUnpacker(cancellable, queue, compressionFormat);
@@ -956,7 +1131,8 @@ public abstract class UnpackerBase implements IUnpacker
     {
         if (!files.isEmpty())
         {
-            ScriptParser parser = new ScriptParser(getVariableSubstitutor(), matcher);
+            // parse every file of the pack against the same variable values
+            ScriptParser parser = new ScriptParser(getVariableSubstitutor().snapshot(), matcher);
             for (ParsableFile file : files)
             {
                 try
@@ -1126,7 +1302,7 @@ public abstract class UnpackerBase implements IUnpacker
                     logger.warning("Cleanup: Unable to delete file " + f);
                 } else
                 {
-                    logger.fine("Cleanup: Deleted file " + f);
+                    logger.fine(() -> "Cleanup: Deleted file " + f);
                 }
             }
 
@@ -1157,7 +1333,7 @@ public abstract class UnpackerBase implements IUnpacker
                     logger.warning("Cleanup: Unable to delete directory " + d);
                 } else
                 {
-                    logger.fine("Cleanup: Deleted directory " + d);
+                    logger.fine(() -> "Cleanup: Deleted directory " + d);
                 }
             }
         }
@@ -1362,7 +1538,7 @@ public abstract class UnpackerBase implements IUnpacker
     {
         for (ParsableFile parsableFile : packInfo.getParsables())
         {
-            logger.fine("Unpacked parsable: " + parsableFile.toString());
+            logger.fine(() -> "Unpacked parsable: " + parsableFile.toString());
             if (!parsableFile.hasCondition() || isConditionTrue(parsableFile.getCondition()))
             {
                 String path = IoHelper.translatePath(parsableFile.getPath(), variables);
@@ -1386,7 +1562,7 @@ public abstract class UnpackerBase implements IUnpacker
     {
         for (ExecutableFile executableFile : packInfo.getExecutables())
         {
-            logger.fine("Unpacked executable: " + executableFile.toString());
+            logger.fine(() -> "Unpacked executable: " + executableFile.toString());
             if (!executableFile.hasCondition() || isConditionTrue(executableFile.getCondition()))
             {
                 executableFile.path = IoHelper.translatePath(executableFile.path, variables);
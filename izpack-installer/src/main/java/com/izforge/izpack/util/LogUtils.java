@@ -20,6 +20,7 @@ import com.izforge.izpack.api.data.Variables;
 import com.izforge.izpack.api.substitutor.SubstitutionType;
 import com.izforge.izpack.core.resource.ResourceManager;
 import com.izforge.izpack.core.substitutor.VariableSubstitutorInputStream;
+import com.izforge.izpack.logging.AsyncFileHandler;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
@@ -41,6 +42,7 @@ public class LogUtils
 
     private static final String FILEHANDLER_CLASSNAME = FileHandler.class.getName();
     private static final String CONSOLEHANDLER_CLASSNAME = ConsoleHandler.class.getName();
+    private static final String ASYNCFILEHANDLER_CLASSNAME = AsyncFileHandler.class.getName();
 
 
     private static final boolean OVERRIDE =
@@ -94,7 +96,9 @@ public class LogUtils
 
             boolean mkdirs = false;
             String pattern = null;
-            if (configuration.getProperty("handlers") != null && configuration.getProperty("handlers").contains(FILEHANDLER_CLASSNAME) && manager.getProperty("handlers").contains(FILEHANDLER_CLASSNAME))
+            String managerHandlers = manager.getProperty("handlers");
+            if (configuration.getProperty("handlers") != null && configuration.getProperty("handlers").contains(FILEHANDLER_CLASSNAME)
+                    && managerHandlers != null && (managerHandlers.contains(FILEHANDLER_CLASSNAME) || managerHandlers.contains(ASYNCFILEHANDLER_CLASSNAME)))
             {
                 // IzPack maintains just one log file, don't override the existing handler type of it.
                 // Special use case: Command line argument -logfile "wins" over the <log-file> tag.
@@ -186,6 +190,8 @@ public class LogUtils
             
             configuration.setProperty(".level", (fileLevel.intValue() < consoleLevel.intValue()) ? fileLevelName : consoleLevelName);
 
+            useAsyncFileHandler(configuration);
+
             final PipedOutputStream out = new PipedOutputStream();
             final PipedInputStream in = new PipedInputStream(out);
             try
@@ -220,6 +226,34 @@ public class LogUtils
         }
     }
 
+    /**
+     * Replaces the {@link FileHandler} with an {@link AsyncFileHandler}, so that logging to file doesn't slow down
+     * the installation, even at debug level.
+     * <p/>
+     * The handler properties are copied to the corresponding {@link AsyncFileHandler} properties.
+     *
+     * @param configuration the logging configuration
+     */
+    private static void useAsyncFileHandler(Properties configuration)
+    {
+        for (String key : configuration.stringPropertyNames())
+        {
+            if (key.matches("\\.?handlers"))
+            {
+                String handlers = configuration.getProperty(key);
+                configuration.setProperty(key, handlers.replace(FILEHANDLER_CLASSNAME, ASYNCFILEHANDLER_CLASSNAME));
+            }
+            else if (key.startsWith(FILEHANDLER_CLASSNAME + "."))
+            {
+                String name = ASYNCFILEHANDLER_CLASSNAME + key.substring(FILEHANDLER_CLASSNAME.length());
+                if (!configuration.containsKey(name))
+                {
+                    configuration.setProperty(name, configuration.getProperty(key));
+                }
+            }
+        }
+    }
+
     private static void loadLoggingResource(InputStream resourceStream, Variables variables) throws IOException
     {
         if (resourceStream != null)
@@ -434,10 +434,12 @@ public class Unix_Shortcut extends Shortcut
      */
     private UnixUser getSudoUser()
     {
-        String printEnvCmd = UnixHelper.getCustomCommand("printenv");
-        String sudoUserName = FileExecutor.getExecOutput(
-                new String[]{printEnvCmd, "SUDO_USER"}, true).trim();
-        
+        String sudoUserName = System.getenv("SUDO_USER");
+        if (sudoUserName == null)
+        {
+            return null;
+        }
+
         for (UnixUser user : getUsers())
         {
             if (user.getName().equals(sudoUserName))
@@ -580,16 +582,12 @@ public class Unix_Shortcut extends Shortcut
                 FileUtils.copyFile(writtenDesktopFile, myDesktopFile, false);
                 
                 // make sure about permissions and ownership
-                String chmodCmd = UnixHelper.getCustomCommand("chmod");
-                FileExecutor.getExecOutput(new String[]{chmodCmd, "u+x",
-                    StringTool.escapeSpaces(myDesktopFile.getPath())});
+                UnixHelper.chmod(myDesktopFile, "u+x");
                 
                 if (sudoUser != null)
                 {
                     // transfer ownership of shortcut to sudo user
-                    String chownCmd = UnixHelper.getCustomCommand("chown");
-                    FileExecutor.getExecOutput(new String[]{chownCmd, sudoUser.getName(),
-                        StringTool.escapeSpaces(myDesktopFile.getPath())});
+                    UnixHelper.chown(myDesktopFile, sudoUser.getName());
                 }
                 
                 uninstaller.addFile(myDesktopFile.toString(), true);
@@ -729,7 +727,7 @@ public class Unix_Shortcut extends Shortcut
 
         myXdgDesktopIconCmd = shortCutLocation + FS + "IzPackLocaleEnabledXdgDesktopIconScript.sh";
         myXdgDesktopIconScript.write(myXdgDesktopIconCmd);
-        FileExecutor.getExecOutput(new String[]{UnixHelper.getCustomCommand("chmod"), "+x", myXdgDesktopIconCmd}, true);
+        UnixHelper.chmod(new File(myXdgDesktopIconCmd), "+x");
     }
 
 
@@ -807,7 +805,6 @@ public class Unix_Shortcut extends Shortcut
      */
     private void copyDesktopFileToAllUsersDesktop(File writtenDesktopFile) throws IOException
     {
-        String chmod = UnixHelper.getCustomCommand("chmod");
         String chown = UnixHelper.getCustomCommand("chown");
         String rm = UnixHelper.getRmCommand();
         String copy = UnixHelper.getCpCommand();
@@ -823,7 +820,7 @@ public class Unix_Shortcut extends Shortcut
 
         // Debug.log("Wrote Tempfile: " + tempFile.toString());
 
-        FileExecutor.getExecOutput(new String[]{chmod, "uga+rwx", tempFile.toString()});
+        UnixHelper.chmod(tempFile, "uga+rwx");
 
         // su marc.eppelmann -c "/bin/cp /home/marc.eppelmann/backup.job.out.txt
         // /home/marc.eppelmann/backup.job.out2.txt"
@@ -0,0 +1,111 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.data;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Tests the {@link RawJarWriter} class.
+ */
+public class RawJarWriterTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that entries are copied from jars in memory and on disk, and that duplicate entries are skipped.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCopy() throws Exception
+    {
+        ByteArrayOutputStream skeleton = new ByteArrayOutputStream();
+        writeJar(skeleton, "a.txt", "skeleton a", "b.txt", "skeleton b");
+
+        File data = temporaryFolder.newFile("data.jar");
+        FileOutputStream dataStream = new FileOutputStream(data);
+        writeJar(dataStream, "b.txt", "data b", "install.log", "log");
+
+        File file = new File(temporaryFolder.getRoot(), "uninstaller.jar");
+        RawJarWriter writer = new RawJarWriter(file);
+        writer.copy(skeleton.toByteArray());
+        writer.copy(data);
+        writer.close();
+
+        JarFile jar = new JarFile(file);
+        try
+        {
+            List<String> names = new ArrayList<String>();
+            for (JarEntry entry : Collections.list(jar.entries()))
+            {
+                names.add(entry.getName());
+            }
+            assertEquals("[a.txt, b.txt, install.log]", names.toString());
+            assertEquals("skeleton b", IOUtils.toString(jar.getInputStream(jar.getEntry("b.txt")), "UTF-8"));
+            assertEquals("log", IOUtils.toString(jar.getInputStream(jar.getEntry("install.log")), "UTF-8"));
+        }
+        finally
+        {
+            jar.close();
+        }
+    }
+
+    /**
+     * Writes a jar.
+     *
+     * @param stream        the stream to write to. This is closed
+     * @param namesAndTexts pairs of entry names and content
+     * @throws IOException for any I/O error
+     */
+    private void writeJar(OutputStream stream, String... namesAndTexts) throws IOException
+    {
+        JarOutputStream jar = new JarOutputStream(stream);
+        for (int i = 0; i < namesAndTexts.length; i += 2)
+        {
+            jar.putNextEntry(new JarEntry(namesAndTexts[i]));
+            jar.write(namesAndTexts[i + 1].getBytes("UTF-8"));
+            jar.closeEntry();
+        }
+        jar.close();
+    }
+}
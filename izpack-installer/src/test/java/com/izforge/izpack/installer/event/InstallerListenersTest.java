@@ -0,0 +1,276 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.installer.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.izforge.izpack.api.data.AutomatedInstallData;
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.event.AbstractInstallerListener;
+import com.izforge.izpack.api.event.InstalledFile;
+import com.izforge.izpack.api.event.InstallerBatchListener;
+import com.izforge.izpack.api.handler.Prompt;
+
+
+/**
+ * Tests the {@link InstallerListeners} class.
+ */
+public class InstallerListenersTest
+{
+
+    /**
+     * The listeners.
+     */
+    private InstallerListeners listeners;
+
+    /**
+     * The pack.
+     */
+    private Pack pack;
+
+    /**
+     * The pack file.
+     */
+    private PackFile packFile;
+
+    /**
+     * Sets up the test case.
+     */
+    @Before
+    public void setUp()
+    {
+        listeners = new InstallerListeners(Mockito.mock(AutomatedInstallData.class), Mockito.mock(Prompt.class));
+        pack = Mockito.mock(Pack.class);
+        packFile = Mockito.mock(PackFile.class);
+    }
+
+    /**
+     * Verifies that batch listeners receive installed files and directories in batches, and that the remainder is
+     * delivered before the pack completes.
+     */
+    @Test
+    public void testBatchListener()
+    {
+        BatchListener batch = new BatchListener(true);
+        listeners.add(batch);
+        listeners.initialise();
+        assertTrue(listeners.isFileListener());
+
+        listeners.beforeDir(new File("dir"), packFile, pack);
+        listeners.afterDir(new File("dir"), packFile, pack);
+        for (int i = 0; i < InstallerListeners.BATCH_SIZE; ++i)
+        {
+            File file = new File("dir", "file" + i);
+            listeners.beforeFile(file, packFile, pack);
+            listeners.afterFile(file, packFile, pack);
+        }
+        assertEquals(0, batch.perFileCalls);
+        assertEquals(1, batch.batches.size());
+        List<InstalledFile> first = batch.batches.get(0);
+        assertEquals(InstallerListeners.BATCH_SIZE, first.size());
+        assertTrue(first.get(0).isDirectory());
+        assertEquals(new File("dir"), first.get(0).getFile());
+        assertFalse(first.get(1).isDirectory());
+        assertSame(packFile, first.get(1).getPackFile());
+        assertSame(pack, first.get(1).getPack());
+
+        listeners.afterPack(pack);
+        assertEquals(2, batch.batches.size());
+        assertEquals(1, batch.batches.get(1).size());
+        assertEquals(new File("dir", "file" + (InstallerListeners.BATCH_SIZE - 1)),
+                     batch.batches.get(1).get(0).getFile());
+        assertEquals(1, batch.afterPackCalls);
+
+        // nothing left to deliver
+        listeners.afterPack(pack);
+        assertEquals(2, batch.batches.size());
+    }
+
+    /**
+     * Verifies that per-file listeners are still notified of each file and directory, alongside batch listeners,
+     * and that batch listeners that aren't file listeners receive nothing.
+     */
+    @Test
+    public void testPerFileListener()
+    {
+        BatchListener batch = new BatchListener(false);
+        FileListener legacy = new FileListener();
+        listeners.add(batch);
+        listeners.add(legacy);
+        listeners.initialise();
+        assertTrue(listeners.isFileListener());
+
+        File file = new File("file");
+        listeners.beforeDir(new File("dir"), packFile, pack);
+        listeners.afterDir(new File("dir"), packFile, pack);
+        listeners.beforeFile(file, packFile, pack);
+        listeners.afterFile(file, packFile, pack);
+        listeners.afterPack(pack);
+
+        assertEquals(4, legacy.calls);
+        assertEquals(0, batch.perFileCalls);
+        assertTrue(batch.batches.isEmpty());
+        assertEquals(1, batch.afterPackCalls);
+    }
+
+    /**
+     * Verifies that no listener is notified of files if there are no file listeners.
+     */
+    @Test
+    public void testNoFileListeners()
+    {
+        BatchListener batch = new BatchListener(false);
+        listeners.add(batch);
+        listeners.initialise();
+        assertFalse(listeners.isFileListener());
+
+        listeners.afterFile(new File("file"), packFile, pack);
+        listeners.afterPack(pack);
+        assertTrue(batch.batches.isEmpty());
+    }
+
+    /**
+     * A listener that records the calls made to it.
+     */
+    private static class FileListener extends AbstractInstallerListener
+    {
+        /**
+         * The number of per-file calls.
+         */
+        int calls;
+
+        @Override
+        public boolean isFileListener()
+        {
+            return true;
+        }
+
+        @Override
+        public void beforeDir(File dir, PackFile packFile, Pack pack)
+        {
+            ++calls;
+        }
+
+        @Override
+        public void afterDir(File dir, PackFile packFile, Pack pack)
+        {
+            ++calls;
+        }
+
+        @Override
+        public void beforeFile(File file, PackFile packFile, Pack pack)
+        {
+            ++calls;
+        }
+
+        @Override
+        public void afterFile(File file, PackFile packFile, Pack pack)
+        {
+            ++calls;
+        }
+    }
+
+    /**
+     * A batch listener that records the batches it receives.
+     */
+    private static class BatchListener extends AbstractInstallerListener implements InstallerBatchListener
+    {
+        /**
+         * Determines if the listener is a file listener.
+         */
+        private final boolean fileListener;
+
+        /**
+         * Copies of the batches received.
+         */
+        final List<List<InstalledFile>> batches = new ArrayList<List<InstalledFile>>();
+
+        /**
+         * The number of per-file calls.
+         */
+        int perFileCalls;
+
+        /**
+         * The number of afterPack calls.
+         */
+        int afterPackCalls;
+
+        BatchListener(boolean fileListener)
+        {
+            this.fileListener = fileListener;
+        }
+
+        @Override
+        public boolean isFileListener()
+        {
+            return fileListener;
+        }
+
+        @Override
+        public void afterFiles(List<InstalledFile> files)
+        {
+            assertEquals(0, afterPackCalls);
+            batches.add(new ArrayList<InstalledFile>(files));
+        }
+
+        @Override
+        public void afterPack(Pack pack)
+        {
+            ++afterPackCalls;
+        }
+
+        @Override
+        public void beforeDir(File dir, PackFile packFile, Pack pack)
+        {
+            ++perFileCalls;
+        }
+
+        @Override
+        public void afterDir(File dir, PackFile packFile, Pack pack)
+        {
+            ++perFileCalls;
+        }
+
+        @Override
+        public void beforeFile(File file, PackFile packFile, Pack pack)
+        {
+            ++perFileCalls;
+        }
+
+        @Override
+        public void afterFile(File file, PackFile packFile, Pack pack)
+        {
+            ++perFileCalls;
+        }
+    }
+}
@@ -24,6 +24,7 @@ package com.izforge.izpack.installer.multiunpacker;
 
 import com.izforge.izpack.api.data.Blockable;
 import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackCompression;
 import com.izforge.izpack.api.data.PackFile;
 import com.izforge.izpack.api.data.XPackFile;
 import com.izforge.izpack.api.exception.InstallerException;
@@ -33,13 +34,16 @@ import com.izforge.izpack.core.io.VolumeLocator;
 import com.izforge.izpack.installer.unpacker.AbstractFileUnpackerTest;
 import com.izforge.izpack.installer.unpacker.FileQueueFactory;
 import com.izforge.izpack.installer.unpacker.FileUnpacker;
+import com.izforge.izpack.util.NoCloseOutputStream;
 import com.izforge.izpack.util.Platforms;
+import com.izforge.izpack.util.StreamSupport;
 import com.izforge.izpack.util.os.FileQueue;
 import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 
 import java.io.*;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -110,6 +114,45 @@ public class MultiVolumeFileUnpackerTest extends AbstractFileUnpackerTest
         checkTarget(source, target);
     }
 
+    /**
+     * Verifies that a compressed file spanning several volumes is decompressed.
+     *
+     * @throws IOException        for any I/O error
+     * @throws InstallerException for any installer error
+     */
+    @Test
+    public void testCompressed() throws IOException, InstallerException
+    {
+        File baseDir = temporaryFolder.getRoot();
+        File source = createSourceFile(baseDir);
+        File target = getTargetFile(baseDir);
+
+        // replace the volumes with compressed ones
+        volume = new File(temporaryFolder.getRoot(), "compressed");
+        FileSpanningOutputStream out = new FileSpanningOutputStream(volume, 1024);
+        OutputStream compressed = StreamSupport.compressedOutput(PackCompression.SNAPPY_FRAMED,
+                                                                 new NoCloseOutputStream(out));
+        FileInputStream in = new FileInputStream(source);
+        IOUtils.copy(in, compressed);
+        in.close();
+        compressed.close();
+        long size = out.getFilePointer();
+        out.close();
+        volumeCount = out.getVolumes();
+        assertTrue(volumeCount > 1);
+
+        PackFile file = createPackFile(baseDir, source, target, Blockable.BLOCKABLE_NONE);
+        file.setSize(size);
+
+        FileSpanningInputStream stream = new FileSpanningInputStream(volume, volumeCount);
+        FileUnpacker unpacker = new MultiVolumeFileUnpacker(stream, getCancellable(), null,
+                                                            PackCompression.SNAPPY_FRAMED);
+        unpacker.unpack(file, createPackStream(source), target);
+        assertEquals(size, stream.getFilePointer());
+
+        checkTarget(source, target);
+    }
+
     /**
      * Creates a new source file.
      *
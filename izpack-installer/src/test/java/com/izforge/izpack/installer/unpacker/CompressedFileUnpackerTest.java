@@ -0,0 +1,175 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.PackCompression;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.util.StreamSupport;
+import com.izforge.izpack.util.os.FileQueue;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+
+import static org.junit.Assert.assertEquals;
+
+
+/**
+ * Tests the {@link CompressedFileUnpacker} class.
+ */
+public class CompressedFileUnpackerTest extends AbstractFileUnpackerTest
+{
+
+    /**
+     * Marker written to the pack stream after the compressed file.
+     */
+    private static final int NEXT = 0x7F;
+
+    /**
+     * The compression format.
+     */
+    private PackCompression format = PackCompression.LZ4_FRAMED;
+
+    /**
+     * The compressed source.
+     */
+    private byte[] compressed;
+
+    /**
+     * Verifies that each compression format can be unpacked, and that the pack stream is left positioned at the
+     * next file.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testFormats() throws Exception
+    {
+        File baseDir = temporaryFolder.getRoot();
+        for (PackCompression compression : PackCompression.values())
+        {
+            if (compression == PackCompression.DEFAULT)
+            {
+                continue;
+            }
+            format = compression;
+            File source = createSourceFile(baseDir);
+            File target = getTargetFile(baseDir);
+            FileUtils.deleteQuietly(target);
+
+            PackFile file = createPackFile(baseDir, source, target, Blockable.BLOCKABLE_NONE);
+            InputStream packStream = createPackStream(source);
+            createUnpacker(baseDir, null).unpack(file, packStream, target);
+
+            checkTarget(source, target);
+            assertEquals(compression.toName(), NEXT, packStream.read());
+        }
+    }
+
+    /**
+     * Creates a new source file, and compresses it.
+     *
+     * @param baseDir the base directory
+     * @return the source file
+     * @throws IOException for any I/O error
+     */
+    @Override
+    protected File createSourceFile(File baseDir) throws IOException
+    {
+        File file = new File(baseDir, "source.txt");
+        PrintWriter writer = new PrintWriter(file);
+        for (int i = 0; i < 2000; ++i)
+        {
+            writer.println("Line " + i + " of the source file");
+        }
+        writer.close();
+        compressed = compress(file);
+        return file;
+    }
+
+    /**
+     * Creates a pack file stream containing the compressed source, followed by a marker.
+     *
+     * @param source the source
+     * @return a new stream
+     * @throws IOException for any I/O error
+     */
+    @Override
+    protected InputStream createPackStream(File source) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(compressed);
+        out.write(NEXT);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    /**
+     * Helper to create a new pack file.
+     *
+     * @param baseDir   the base directory
+     * @param source    the source file
+     * @param target    the target file
+     * @param blockable the blockable type
+     * @return a new pack file
+     * @throws IOException for any I/O error
+     */
+    @Override
+    protected PackFile createPackFile(File baseDir, File source, File target, Blockable blockable) throws IOException
+    {
+        PackFile file = super.createPackFile(baseDir, source, target, blockable);
+        file.setSize(compressed.length);
+        return file;
+    }
+
+    /**
+     * Helper to create an unpacker.
+     *
+     * @param sourceDir the source directory
+     * @param queue     the file queue. May be {@code null}
+     * @return a new unpacker
+     */
+    @Override
+    protected FileUnpacker createUnpacker(File sourceDir, FileQueue queue)
+    {
+        return new CompressedFileUnpacker(getCancellable(), queue, format);
+    }
+
+    /**
+     * Compresses a file.
+     *
+     * @param source the file to compress
+     * @return the compressed content
+     * @throws IOException for any I/O error
+     */
+    private byte[] compress(File source) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputStream out = StreamSupport.compressedOutput(format, bytes);
+        FileUtils.copyFile(source, out);
+        out.close();
+        return bytes.toByteArray();
+    }
+}
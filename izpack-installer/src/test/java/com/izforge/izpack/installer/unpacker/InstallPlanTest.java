@@ -0,0 +1,178 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.Variables;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.util.IoHelper;
+
+
+/**
+ * Tests the {@link InstallPlan} class.
+ */
+public class InstallPlanTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The variables.
+     */
+    private Variables variables;
+
+    /**
+     * The installation directory.
+     */
+    private File installDir;
+
+    /**
+     * The source of the pack files.
+     */
+    private File source;
+
+    /**
+     * Sets up the test case.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Before
+    public void setUp() throws IOException
+    {
+        installDir = new File(temporaryFolder.getRoot(), "install");
+        source = temporaryFolder.newFile("source.txt");
+        variables = new DefaultVariables();
+        variables.set("INSTALL_PATH", installDir.getPath());
+        variables.set("SUBDIR", "sub");
+        variables.set("NAME", "name.txt");
+    }
+
+    /**
+     * Verifies that target paths are resolved the same way as by {@link IoHelper#translatePath(String, Variables)}.
+     */
+    @Test
+    public void testResolve()
+    {
+        InstallPlan plan = new InstallPlan(variables);
+        for (String path : Arrays.asList("$INSTALL_PATH/a.txt", "$INSTALL_PATH/$SUBDIR/b.txt",
+                                         "$INSTALL_PATH/$SUBDIR/c.txt", "$INSTALL_PATH/lib/$NAME",
+                                         "$INSTALL_PATH/masked\\/slash.txt", "relative.txt", "/root.txt"))
+        {
+            assertEquals(IoHelper.translatePath(path, variables), plan.resolve(path));
+        }
+    }
+
+    /**
+     * Verifies that skipped files are not resolved, and that each directory is only created once.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testPlan() throws Exception
+    {
+        Pack pack1 = createPack("pack1");
+        Pack pack2 = createPack("pack2");
+        InstallPlan plan = new InstallPlan(variables);
+        InstallPlan.Entry a = plan.add(pack1, createPackFile("$INSTALL_PATH/lib/a.jar"), true);
+        InstallPlan.Entry b = plan.add(pack1, createPackFile("$INSTALL_PATH/lib/b.jar"), true);
+        InstallPlan.Entry skipped = plan.add(pack1, createPackFile("$INSTALL_PATH/doc/c.txt"), false);
+        InstallPlan.Entry d = plan.add(pack1, createPackFile("$INSTALL_PATH/$SUBDIR/d.txt"), true);
+        InstallPlan.Entry again = plan.add(pack2, createPackFile("$INSTALL_PATH/lib/a.jar"), true);
+
+        assertEquals(1, a.getFileNo());
+        assertEquals(2, b.getFileNo());
+        assertEquals(3, skipped.getFileNo());
+        assertEquals(1, again.getFileNo());
+        assertFalse(skipped.isInstall());
+        assertNull(skipped.getPath());
+        assertEquals(new File(installDir, "lib/b.jar"), b.getTarget());
+        assertEquals(new File(installDir, "sub"), d.getDirectory());
+
+        List<String> expected = Arrays.asList(new File(installDir, "lib").getPath(),
+                                              new File(installDir, "sub").getPath());
+        assertEquals(expected, new ArrayList<String>(plan.getDirectories(pack1)));
+        assertEquals(Arrays.asList(pack1, pack2), new ArrayList<Pack>(plan.getPacks()));
+
+        plan.createDirectories(pack1);
+        assertTrue(new File(installDir, "lib").isDirectory());
+        assertTrue(new File(installDir, "sub").isDirectory());
+        assertFalse(new File(installDir, "doc").exists());
+
+        // files in directories created for the pack are known not to exist
+        FileUtils.touch(a.getTarget());
+        assertFalse(plan.exists(a));
+
+        // ... unless the directory was created for another pack, or the file is installed more than once
+        plan.createDirectories(pack2);
+        assertTrue(plan.exists(again));
+
+        String report = plan.toString();
+        assertTrue(report.contains("install " + b.getPath()));
+        assertTrue(report.contains("skip    $INSTALL_PATH/doc/c.txt"));
+    }
+
+    /**
+     * Creates a pack.
+     *
+     * @param name the pack name
+     * @return a new pack
+     */
+    private Pack createPack(String name)
+    {
+        return new Pack(name, null, null, null, null, true, true, false, null, true, 0);
+    }
+
+    /**
+     * Creates a pack file.
+     *
+     * @param target the target path
+     * @return a new pack file
+     * @throws IOException for any I/O error
+     */
+    private PackFile createPackFile(String target) throws IOException
+    {
+        return new PackFile(temporaryFolder.getRoot(), source, target, null, OverrideType.OVERRIDE_TRUE, null,
+                            Blockable.BLOCKABLE_NONE, null);
+    }
+}
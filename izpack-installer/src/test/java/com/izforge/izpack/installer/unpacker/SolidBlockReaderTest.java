@@ -0,0 +1,151 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackCompression;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.util.StreamSupport;
+
+
+/**
+ * Tests the {@link SolidBlockReader} class.
+ */
+public class SolidBlockReaderTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The pack files.
+     */
+    private final List<PackFile> files = new ArrayList<PackFile>();
+
+    /**
+     * Verifies that files can be read from several blocks, and that files and whole blocks can be skipped.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testRead() throws Exception
+    {
+        ByteArrayOutputStream pack = new ByteArrayOutputStream();
+        writeBlock(pack, "a", "bb", "ccc");
+        writeBlock(pack, "dddd");
+        writeBlock(pack, "eeeee", "ffffff");
+
+        SolidBlockReader reader = new SolidBlockReader(new ByteArrayInputStream(pack.toByteArray()),
+                                                       PackCompression.GZIP);
+        assertEquals("a", read(reader, 0));
+        assertEquals("ccc", read(reader, 2));   // skips bb
+        assertEquals("ffffff", read(reader, 5)); // skips the dddd block and eeeee
+        reader.close();
+
+        reader = new SolidBlockReader(new ByteArrayInputStream(pack.toByteArray()), PackCompression.GZIP);
+        assertEquals("bb", read(reader, 1));
+        assertEquals("dddd", read(reader, 3));
+        assertTrue(reader.canRead(files.get(4)));
+        assertFalse(reader.canRead(files.get(2)));
+        assertFalse(reader.canRead(files.get(0)));
+        try
+        {
+            read(reader, 0);
+            fail("Expected reading a previous block to fail");
+        }
+        catch (IOException expected)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Compresses files into a single block.
+     *
+     * @param pack     the pack stream
+     * @param contents the file contents
+     * @throws IOException for any I/O error
+     */
+    private void writeBlock(ByteArrayOutputStream pack, String... contents) throws IOException
+    {
+        long start = pack.size();
+        List<PackFile> block = new ArrayList<PackFile>();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        OutputStream out = StreamSupport.compressedOutput(PackCompression.GZIP, compressed);
+        long offset = 0;
+        for (String content : contents)
+        {
+            File file = new File(temporaryFolder.getRoot(), "file" + files.size());
+            FileUtils.writeStringToFile(file, content, "UTF-8");
+            PackFile packFile = new PackFile(temporaryFolder.getRoot(), file, file.getName(), null,
+                                             OverrideType.OVERRIDE_TRUE, null, Blockable.BLOCKABLE_NONE, null);
+            packFile.setStreamOffset(start);
+            packFile.setBlockOffset(offset);
+            out.write(content.getBytes("UTF-8"));
+            offset += content.length();
+            block.add(packFile);
+            files.add(packFile);
+        }
+        out.close();
+        for (PackFile packFile : block)
+        {
+            packFile.setSize(compressed.size());
+        }
+        pack.write(compressed.toByteArray());
+    }
+
+    /**
+     * Reads a file.
+     *
+     * @param reader the reader
+     * @param index  the file index
+     * @return the file content
+     * @throws IOException for any I/O error
+     */
+    private String read(SolidBlockReader reader, int index) throws IOException
+    {
+        InputStream in = reader.getInputStream(files.get(index));
+        return IOUtils.toString(in, "UTF-8");
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import static com.izforge.izpack.test.util.TestHelper.assertFileEquals;
+import static com.izforge.izpack.test.util.TestHelper.assertFileNotExists;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.Info;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackInfo;
+import com.izforge.izpack.api.event.AbstractInstallerListener;
+import com.izforge.izpack.api.event.ProgressListener;
+import com.izforge.izpack.api.handler.Prompt;
+import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
+import com.izforge.izpack.installer.data.InstallData;
+import com.izforge.izpack.installer.data.UninstallData;
+import com.izforge.izpack.installer.event.InstallerListeners;
+import com.izforge.izpack.util.Housekeeper;
+import com.izforge.izpack.util.Librarian;
+import com.izforge.izpack.util.PlatformModelMatcher;
+import com.izforge.izpack.util.Platforms;
+
+
+/**
+ * Tests the {@link Unpacker}.
+ */
+public class UnpackerTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The installation data.
+     */
+    private InstallData installData;
+
+    /**
+     * The pack resources.
+     */
+    private PackResources resources;
+
+    /**
+     * The installer listeners.
+     */
+    private InstallerListeners listeners;
+
+    /**
+     * The source of the pack files.
+     */
+    private File source;
+
+    /**
+     * The installation directory.
+     */
+    private File installDir;
+
+    /**
+     * Sets up the test case.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Before
+    public void setUp() throws IOException
+    {
+        source = temporaryFolder.newFolder("source");
+        installDir = temporaryFolder.newFolder("install");
+        installData = new InstallData(new DefaultVariables(), Platforms.LINUX);
+        installData.setInstallPath(installDir.getPath());
+        installData.setInfo(new Info());
+        resources = mock(PackResources.class);
+        listeners = new InstallerListeners(installData, mock(Prompt.class));
+    }
+
+    /**
+     * Verifies that a variable set by a listener before a pack is installed is used to resolve the target paths
+     * of the pack's files.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testVariableSetBeforePack() throws Exception
+    {
+        File file1 = createFile("file1.txt", "file1");
+        File file2 = createFile("file2.txt", "file2");
+        PackInfo base = createPack("base", file1, "$INSTALL_PATH/" + file1.getName());
+        PackInfo plugin = createPack("plugin", file2, "$INSTALL_PATH/$PLUGIN_DIR/" + file2.getName());
+        installData.setVariable("PLUGIN_DIR", "default");
+
+        // the listener changes the directory that the plugin pack installs to, once the base pack is installed
+        listeners.add(new AbstractInstallerListener()
+        {
+            @Override
+            public void beforePack(Pack pack)
+            {
+                if (pack.getName().equals("plugin"))
+                {
+                    installData.setVariable("PLUGIN_DIR", "plugins");
+                }
+            }
+        });
+
+        List<PackInfo> packs = Arrays.asList(base, plugin);
+        installData.setSelectedPacks(new ArrayList<Pack>(Arrays.asList(base.getPack(), plugin.getPack())));
+        Unpacker unpacker = createUnpacker();
+        unpacker.unpack(packs, null);
+
+        assertFileEquals(file1, new File(installDir, file1.getName()));
+        assertFileEquals(file2, new File(installDir, "plugins/" + file2.getName()));
+        assertFileNotExists(installDir, "default");
+    }
+
+    /**
+     * Creates an unpacker.
+     *
+     * @return a new unpacker
+     */
+    private Unpacker createUnpacker()
+    {
+        RulesEngine rules = mock(RulesEngine.class);
+        FileQueueFactory queue = new FileQueueFactory(Platforms.LINUX, mock(Librarian.class));
+        PlatformModelMatcher matcher = new PlatformModelMatcher(new Platforms(), Platforms.LINUX);
+        Unpacker unpacker = new Unpacker(installData, resources, rules,
+                                         new VariableSubstitutorImpl(installData.getVariables()),
+                                         new UninstallData(), queue, mock(Housekeeper.class), listeners,
+                                         mock(Prompt.class), matcher);
+        unpacker.setProgressListener(mock(ProgressListener.class));
+        return unpacker;
+    }
+
+    /**
+     * Creates a pack containing a single file, and registers its pack stream with the resources.
+     *
+     * @param name   the pack name
+     * @param file   the file to add
+     * @param target the target path of the file
+     * @return a new pack
+     * @throws IOException for any I/O error
+     */
+    private PackInfo createPack(String name, File file, String target) throws IOException
+    {
+        PackInfo pack = new PackInfo(name, name, "The " + name + " package", false, false, null, true, 0);
+        pack.addFile(source, file, target, null, OverrideType.OVERRIDE_TRUE, null, Blockable.BLOCKABLE_NONE,
+                     null, null, null);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        FileUtils.copyFile(file, stream);
+        when(resources.getPackStream(name)).thenReturn(new ByteArrayInputStream(stream.toByteArray()));
+        return pack;
+    }
+
+    /**
+     * Creates a file.
+     *
+     * @param name    the file name
+     * @param content the file content
+     * @return a new file
+     * @throws IOException for any I/O error
+     */
+    private File createFile(String name, String content) throws IOException
+    {
+        File file = new File(source, name);
+        FileUtils.writeStringToFile(file, content, "UTF-8");
+        return file;
+    }
+}
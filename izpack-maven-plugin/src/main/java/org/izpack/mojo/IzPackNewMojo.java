@@ -22,10 +22,15 @@ import com.izforge.izpack.api.data.Info;
 import com.izforge.izpack.api.data.binding.IzpackProjectInstaller;
 import com.izforge.izpack.api.exception.CompilerException;
 import com.izforge.izpack.compiler.CompilerConfig;
+import com.izforge.izpack.compiler.bootstrap.CompilerDaemonClient;
+import com.izforge.izpack.compiler.bootstrap.CompilerJob;
+import com.izforge.izpack.compiler.bootstrap.CompilerJobRejectedException;
 import com.izforge.izpack.compiler.container.CompilerContainer;
 import com.izforge.izpack.compiler.data.CompilerData;
 import com.izforge.izpack.compiler.data.PropertyManager;
 import com.izforge.izpack.compiler.logging.MavenStyleLogFormatter;
+import com.izforge.izpack.compiler.util.BuildFingerprint;
+import org.apache.commons.io.IOUtils;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Developer;
 import org.apache.maven.plugin.AbstractMojo;
@@ -76,7 +81,8 @@ public class IzPackNewMojo extends AbstractMojo
     private MavenProjectHelper projectHelper;
 
     /**
-     * Format compression. Choices are default (no compression), gzip, bzip2, xz, lzma, deflate
+     * Format compression. Choices are default (no compression), gzip, bzip2, xz, lzma, deflate,
+     * lz4-framed, lz4-block, snappy-framed
      */
     @Parameter( defaultValue = "default" )
     private String comprFormat;
@@ -187,6 +193,29 @@ public class IzPackNewMojo extends AbstractMojo
     @Parameter
     private Map<String, String> manifestEntries;
 
+    /**
+     * The file written by a running compiler daemon, to submit the build to.
+     * If no daemon is running, or the daemon class path lacks any of the plugin dependencies, such as those providing
+     * custom panels, listeners or validators, the installer is built by the plugin.
+     */
+    @Parameter
+    private File daemon;
+
+    /**
+     * Whether to skip building the installer if its inputs haven't changed since it was last built.
+     * The inputs are the install file, the plugin configuration and properties, the files under baseDir, and
+     * the compiler. Files referenced from outside of baseDir are not checked.
+     */
+    @Parameter( defaultValue = "false" )
+    private boolean skipIfUpToDate;
+
+    /**
+     * Whether the up-to-date check compares the content of the files under baseDir, rather than just their sizes
+     * and modification times.
+     */
+    @Parameter( defaultValue = "false" )
+    private boolean hashContents;
+
     private PropertyManager propertyManager;
 
     public void execute() throws MojoExecutionException, MojoFailureException
@@ -221,17 +250,72 @@ public class IzPackNewMojo extends AbstractMojo
         compilerContainer.addConfig("installFile", installFile.getPath());
         compilerContainer.getComponent(IzpackProjectInstaller.class);
         compilerContainer.addComponent(CompilerData.class, compilerData);
-        compilerContainer.addComponent(Handler.class, createLogHandler());
+        Handler handler = createLogHandler();
+        compilerContainer.addComponent(Handler.class, handler);
 
-        CompilerConfig compilerConfig = compilerContainer.getComponent(CompilerConfig.class);
+        CompilerDaemonClient client = null;
+        if (daemon != null)
+        {
+            client = connect();
+        }
 
         propertyManager = compilerContainer.getComponent(PropertyManager.class);
 
         addMavenProperties();
 
+        CompilerJob job = new CompilerJob(compilerData);
+        Properties properties = compilerContainer.getComponent(Properties.class);
+        for (String name : properties.stringPropertyNames())
+        {
+            job.addProperty(name, properties.getProperty(name));
+        }
+
         try
         {
-            compilerConfig.executeCompiler();
+            BuildFingerprint fingerprint = null;
+            if (skipIfUpToDate)
+            {
+                fingerprint = BuildFingerprint.create(job, hashContents);
+                List<String> changes = fingerprint.getChanges(BuildFingerprint.read(jarFile));
+                if (changes.isEmpty())
+                {
+                    getLog().info("Installer is up to date: " + jarFile);
+                    return;
+                }
+                getLog().info("Building installer, as its inputs have changed: "
+                                      + BuildFingerprint.summarise(changes, 10));
+                BuildFingerprint.delete(jarFile);
+            }
+
+            boolean built = false;
+            if (client != null)
+            {
+                try
+                {
+                    if (!client.compile(job, handler))
+                    {
+                        throw new MojoFailureException("Compiler daemon failed to build " + jarFile);
+                    }
+                    built = true;
+                }
+                catch (CompilerJobRejectedException e)
+                {
+                    getLog().info(e.getMessage() + ", building in process");
+                }
+            }
+            if (!built)
+            {
+                compilerContainer.getComponent(CompilerConfig.class).executeCompiler();
+            }
+
+            if (fingerprint != null)
+            {
+                fingerprint.write(jarFile);
+            }
+        }
+        catch ( MojoFailureException e )
+        {
+            throw e;
         }
         catch ( CompilerException e )
         {
@@ -243,6 +327,33 @@ public class IzPackNewMojo extends AbstractMojo
         {
             throw new MojoExecutionException( "Failure", e );
         }
+        finally
+        {
+            IOUtils.closeQuietly(client);
+        }
+    }
+
+    /**
+     * Connects to the compiler daemon.
+     *
+     * @return the daemon client, or <tt>null</tt> if no daemon is running
+     * @throws MojoExecutionException if the daemon file cannot be read
+     */
+    private CompilerDaemonClient connect() throws MojoExecutionException
+    {
+        try
+        {
+            CompilerDaemonClient client = CompilerDaemonClient.connect(daemon);
+            if (client == null)
+            {
+                getLog().info("No compiler daemon is running, building in process");
+            }
+            return client;
+        }
+        catch (IOException e)
+        {
+            throw new MojoExecutionException("Failed to connect to the compiler daemon", e);
+        }
     }
 
     private boolean isSkipIzPack()
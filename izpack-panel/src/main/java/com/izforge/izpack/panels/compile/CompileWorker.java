@@ -32,10 +32,18 @@ import java.io.PrintStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
@@ -84,6 +92,12 @@ public class CompileWorker implements Runnable
 
     private static final String ECLIPSE_COMPILER_CLASS = "org.eclipse.jdt.internal.compiler.batch.Main";
 
+    /**
+     * Compiler arguments that affect the class, source or output paths.
+     */
+    private static final List<String> PATH_ARGUMENTS = Arrays.asList(
+            "-d", "-s", "-cp", "-classpath", "--class-path", "-sourcepath", "--source-path");
+
     private VariableSubstitutor vs;
 
     private IXMLElement spec;
@@ -422,6 +436,19 @@ public class CompileWorker implements Runnable
             args.add(tokenizer.nextToken());
         }
 
+        SystemCompiler systemCompiler = SystemCompiler.getCompiler(this.compilerToUse);
+        if (systemCompiler != null)
+        {
+            try
+            {
+                return compileJobs(systemCompiler, args);
+            }
+            finally
+            {
+                systemCompiler.close();
+            }
+        }
+
         Iterator<CompilationJob> job_it = this.jobs.iterator();
 
         this.handler.startAction("Compilation", this.jobs.size());
@@ -459,6 +486,119 @@ public class CompileWorker implements Runnable
         return new CompileResult();
     }
 
+    /**
+     * Performs the compilation with the in-process compiler.
+     * <p/>
+     * Jobs are compiled concurrently, except where a job needs the classes of a preceding job. The handler is
+     * only notified from the calling thread, in job order.
+     *
+     * @param compiler  the compiler
+     * @param arguments the compiler arguments
+     * @return the result
+     */
+    private CompileResult compileJobs(final SystemCompiler compiler, final List<String> arguments)
+    {
+        this.handler.startAction("Compilation", this.jobs.size());
+
+        if (this.jobs.isEmpty())
+        {
+            return new CompileResult();
+        }
+
+        String invalid = compiler.checkOptions(arguments);
+        if (invalid != null)
+        {
+            List<String> cmdline = new ArrayList<String>(arguments);
+            cmdline.add(0, SystemCompiler.COMPILER_NAME);
+            CompileResult result = new CompileResult(idata.getMessages().get("CompilePanel.error.invalidarguments"),
+                                                     cmdline, "", invalid);
+            this.handler.handleCompileError(result);
+            if (!result.isContinue())
+            {
+                return result;
+            }
+        }
+
+        // arguments that change where classes are looked up or written make dependencies unpredictable
+        boolean sequential = false;
+        for (String argument : arguments)
+        {
+            if (PATH_ARGUMENTS.contains(argument))
+            {
+                sequential = true;
+                break;
+            }
+        }
+
+        int threads = Math.min(this.jobs.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new CompilationThreadFactory());
+        List<Future<CompileResult>> results = new ArrayList<Future<CompileResult>>();
+        try
+        {
+            // jobs are started in order, so a job only ever waits for jobs that are already running
+            for (int i = 0; i < this.jobs.size(); ++i)
+            {
+                final CompilationJob job = this.jobs.get(i);
+                final List<Future<CompileResult>> prerequisites = new ArrayList<Future<CompileResult>>();
+                for (int j = 0; j < i; ++j)
+                {
+                    if (sequential || job.dependsOn(this.jobs.get(j)))
+                    {
+                        prerequisites.add(results.get(j));
+                    }
+                }
+                results.add(executor.submit(new Callable<CompileResult>()
+                {
+                    @Override
+                    public CompileResult call() throws Exception
+                    {
+                        for (Future<CompileResult> prerequisite : prerequisites)
+                        {
+                            // a failed prerequisite is reported by its own job
+                            prerequisite.get();
+                        }
+                        return job.compile(compiler, arguments);
+                    }
+                }));
+            }
+
+            for (int i = 0; i < this.jobs.size(); ++i)
+            {
+                CompilationJob job = this.jobs.get(i);
+                this.handler.nextStep(job.getName(), job.getSize(), i);
+                this.handler.progress(0, job.getName());
+
+                CompileResult result = results.get(i).get();
+
+                this.handler.progress(job.getSize(), job.getName());
+                if (result != null)
+                {
+                    this.handler.handleCompileError(result);
+                    if (!result.isContinue())
+                    {
+                        return result;
+                    }
+                }
+            }
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            return new CompileResult(exception);
+        }
+        catch (ExecutionException exception)
+        {
+            return new CompileResult(exception);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        logger.fine("Compilation finished");
+        return new CompileResult();
+    }
+
     private CompilationJob collectJobsRecursive(IXMLElement node, List<String> classpath)
             throws Exception
     {
@@ -693,6 +833,86 @@ public class CompileWorker implements Runnable
             return this.files.size();
         }
 
+        /**
+         * Determines if this job needs the classes compiled by another job.
+         * <p/>
+         * This is the case if the other job's sources are on this job's class path (the classes are written
+         * next to the sources), or if both jobs compile the same file.
+         *
+         * @param other the other job
+         * @return <tt>true</tt> if this job has to be compiled after the other job
+         */
+        public boolean dependsOn(CompilationJob other)
+        {
+            for (File file : other.files)
+            {
+                if (this.files.contains(file))
+                {
+                    return true;
+                }
+                String path = file.getAbsolutePath();
+                for (String cp : this.classpath)
+                {
+                    String dir = new File(cp).getAbsolutePath();
+                    if (path.startsWith(dir.endsWith(File.separator) ? dir : dir + File.separator))
+                    {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Compiles all files of this job with the in-process compiler.
+         * <p/>
+         * The listener is not notified, so this may be invoked on any thread.
+         *
+         * @param compiler  the compiler
+         * @param arguments the compiler arguments
+         * @return <tt>null</tt> if the compilation succeeded, otherwise the error
+         */
+        public CompileResult compile(SystemCompiler compiler, List<String> arguments)
+        {
+            logger.fine("starting job " + this.name);
+
+            List<File> classpath = new ArrayList<File>();
+            for (String cp : this.classpath)
+            {
+                classpath.add(new File(cp).getAbsoluteFile());
+            }
+
+            String[] output = new String[2];
+            if (compiler.compile(this.files, classpath, arguments, output))
+            {
+                logger.fine("Job " + this.name + " done (" + this.files.size() + " files compiled)");
+                return null;
+            }
+
+            // describe the compilation as the equivalent command line
+            List<String> cmdline = new ArrayList<String>(arguments);
+            cmdline.add(0, SystemCompiler.COMPILER_NAME);
+            if (!classpath.isEmpty())
+            {
+                StringBuilder classpath_sb = new StringBuilder();
+                for (File cp : classpath)
+                {
+                    if (classpath_sb.length() > 0)
+                    {
+                        classpath_sb.append(File.pathSeparatorChar);
+                    }
+                    classpath_sb.append(cp.getPath());
+                }
+                cmdline.add("-classpath");
+                cmdline.add(classpath_sb.toString());
+            }
+            for (File file : this.files)
+            {
+                cmdline.add(file.getAbsolutePath());
+            }
+            return new CompileResult(messages.get("CompilePanel.error"), cmdline, output[0], output[1]);
+        }
+
         /**
          * Perform this job - start compilation.
          *
@@ -1147,6 +1367,22 @@ public class CompileWorker implements Runnable
 
     }
 
+    /**
+     * Creates the threads that compile jobs with the in-process compiler.
+     */
+    private static class CompilationThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "compilation job " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
     /**
      * This PrintStream is used to track the Eclipse compiler output.
      * <p/>
@@ -0,0 +1,279 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.compile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles sources with the compiler of the running JVM, if it has one, instead of launching an external
+ * <code>javac</code> for each batch of files.
+ * <p/>
+ * File managers are reused between compilations, so that the class path archives only have to be opened once.
+ * A file manager is only used by one compilation at a time, so jobs may be compiled concurrently.
+ */
+class SystemCompiler
+{
+    private static final Logger logger = Logger.getLogger(SystemCompiler.class.getName());
+
+    /**
+     * The compiler name that is handled in-process.
+     */
+    static final String COMPILER_NAME = "javac";
+
+    /**
+     * The compiler.
+     */
+    private final JavaCompiler compiler;
+
+    /**
+     * The idle file managers.
+     */
+    private final Deque<StandardJavaFileManager> fileManagers = new ArrayDeque<StandardJavaFileManager>();
+
+    /**
+     * Constructs a <code>SystemCompiler</code>.
+     *
+     * @param compiler the compiler
+     */
+    private SystemCompiler(JavaCompiler compiler)
+    {
+        this.compiler = compiler;
+    }
+
+    /**
+     * Returns a compiler to use in place of the named one.
+     *
+     * @param name the configured compiler name
+     * @return the in-process compiler, or <tt>null</tt> if the named compiler isn't the standard <code>javac</code>
+     *         or the JVM doesn't provide a compiler (e.g. when running on a JRE)
+     */
+    static SystemCompiler getCompiler(String name)
+    {
+        if (!COMPILER_NAME.equals(name))
+        {
+            return null;
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null)
+        {
+            logger.fine("No system Java compiler available, using external " + name);
+            return null;
+        }
+        return new SystemCompiler(compiler);
+    }
+
+    /**
+     * Verifies that the compiler accepts the given options.
+     *
+     * @param options the compiler options
+     * @return <tt>null</tt> if the options are valid, otherwise a description of the problem
+     */
+    String checkOptions(List<String> options)
+    {
+        StandardJavaFileManager fileManager = acquire();
+        try
+        {
+            // no compilation units - this only parses the options
+            compiler.getTask(null, fileManager, null, options, null, null);
+            return null;
+        }
+        catch (IllegalArgumentException exception)
+        {
+            return exception.getMessage();
+        }
+        finally
+        {
+            release(fileManager);
+        }
+    }
+
+    /**
+     * Compiles files.
+     * <p/>
+     * This may be invoked concurrently.
+     *
+     * @param files     the files to compile
+     * @param classpath the class path. If empty, the class path the command line compiler would use
+     * @param options   the compiler options
+     * @param output    receives the compiler output ([0] = stdout, [1] = diagnostics)
+     * @return <tt>true</tt> if the compilation succeeded
+     */
+    boolean compile(List<File> files, List<File> classpath, List<String> options, String[] output)
+    {
+        StandardJavaFileManager fileManager = acquire();
+        StringWriter out = new StringWriter();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        boolean success;
+        try
+        {
+            // always set the class path, as the file manager retains it from the previous compilation
+            fileManager.setLocation(StandardLocation.CLASS_PATH, getClassPath(classpath));
+            Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(files);
+            success = compiler.getTask(out, fileManager, diagnostics, options, null, units).call();
+        }
+        catch (IOException exception)
+        {
+            logger.log(Level.WARNING, "Invalid class path: " + exception.getMessage(), exception);
+            out.write(String.valueOf(exception));
+            success = false;
+        }
+        catch (RuntimeException exception)
+        {
+            // invalid options, or an internal compiler error
+            logger.log(Level.WARNING, "Compilation failed: " + exception.getMessage(), exception);
+            out.write(String.valueOf(exception));
+            success = false;
+        }
+        finally
+        {
+            release(fileManager);
+        }
+
+        StringBuilder messages = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics())
+        {
+            messages.append(format(diagnostic)).append('\n');
+        }
+        output[0] = out.toString();
+        output[1] = messages.toString();
+        return success;
+    }
+
+    /**
+     * Releases the file managers.
+     */
+    synchronized void close()
+    {
+        for (StandardJavaFileManager fileManager : fileManagers)
+        {
+            try
+            {
+                fileManager.close();
+            }
+            catch (IOException exception)
+            {
+                logger.log(Level.FINE, exception.getMessage(), exception);
+            }
+        }
+        fileManagers.clear();
+    }
+
+    /**
+     * Returns the class path to compile against.
+     * <p/>
+     * Without an explicit class path, the command line compiler uses the <code>CLASSPATH</code> environment
+     * variable or the current directory; the installer's own class path must not leak into the compilation.
+     *
+     * @param classpath the configured class path
+     * @return the class path to use
+     */
+    private static List<File> getClassPath(List<File> classpath)
+    {
+        if (!classpath.isEmpty())
+        {
+            return classpath;
+        }
+        List<File> result = new ArrayList<File>();
+        String path = System.getenv("CLASSPATH");
+        if (path == null || path.length() == 0)
+        {
+            path = ".";
+        }
+        for (String element : path.split(File.pathSeparator))
+        {
+            result.add(new File(element));
+        }
+        return result;
+    }
+
+    /**
+     * Formats a diagnostic the way the command line compiler does.
+     *
+     * @param diagnostic the diagnostic
+     * @return the formatted diagnostic
+     */
+    private static String format(Diagnostic<? extends JavaFileObject> diagnostic)
+    {
+        StringBuilder result = new StringBuilder();
+        JavaFileObject source = diagnostic.getSource();
+        if (source != null)
+        {
+            result.append(source.getName());
+            if (diagnostic.getLineNumber() != Diagnostic.NOPOS)
+            {
+                result.append(':').append(diagnostic.getLineNumber());
+            }
+            result.append(": ");
+        }
+        result.append(diagnostic.getKind().toString().toLowerCase(Locale.ENGLISH)).append(": ");
+        result.append(diagnostic.getMessage(null));
+        return result.toString();
+    }
+
+    /**
+     * Returns an idle file manager, creating one if required.
+     *
+     * @return the file manager
+     */
+    private synchronized StandardJavaFileManager acquire()
+    {
+        StandardJavaFileManager result = fileManagers.poll();
+        if (result == null)
+        {
+            result = compiler.getStandardFileManager(null, null, null);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a file manager to the idle pool.
+     *
+     * @param fileManager the file manager
+     */
+    private synchronized void release(StandardJavaFileManager fileManager)
+    {
+        try
+        {
+            fileManager.flush();
+        }
+        catch (IOException exception)
+        {
+            logger.log(Level.FINE, exception.getMessage(), exception);
+        }
+        fileManagers.push(fileManager);
+    }
+}
@@ -0,0 +1,454 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.packs;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.PackInfo;
+import com.izforge.izpack.api.data.Variables;
+import com.izforge.izpack.api.resource.Messages;
+import com.izforge.izpack.api.resource.Resources;
+import com.izforge.izpack.util.IoHelper;
+
+
+/**
+ * Determines the disk space required by the selected packs, and the space available, for each file system that
+ * the packs install to.
+ * <p/>
+ * The target directories of each pack are read once from the <em>packs.info</em> resource. When the selection
+ * changes, only the packs added or removed, or whose target directories resolve differently (e.g. because the
+ * installation path was changed), are recalculated. File stores are looked up once per directory, and the space
+ * available is queried from the file store each time it is requested.
+ */
+public class DiskSpacePlanner
+{
+    private static final Logger logger = Logger.getLogger(DiskSpacePlanner.class.getName());
+
+    /**
+     * The variables used to resolve target directories.
+     */
+    private final Variables variables;
+
+    /**
+     * The resources.
+     */
+    private final Resources resources;
+
+    /**
+     * The bytes installed by each pack, keyed on pack name and unresolved target directory. Loaded on demand.
+     */
+    private Map<String, Map<String, Long>> packDirectories;
+
+    /**
+     * The file stores, keyed on resolved directory. A <tt>null</tt> value indicates the store could not be
+     * determined.
+     */
+    private final Map<String, FileStore> stores = new HashMap<String, FileStore>();
+
+    /**
+     * The contributions of the selected packs.
+     */
+    private final Map<Pack, Contribution> contributions = new HashMap<Pack, Contribution>();
+
+    /**
+     * The usage by file store, in the order the stores were first encountered.
+     */
+    private final Map<FileStore, Usage> usages = new LinkedHashMap<FileStore, Usage>();
+
+    /**
+     * Constructs a <tt>DiskSpacePlanner</tt>.
+     *
+     * @param variables the variables used to resolve target directories
+     * @param resources the resources, used to read the pack files
+     */
+    public DiskSpacePlanner(Variables variables, Resources resources)
+    {
+        this.variables = variables;
+        this.resources = resources;
+    }
+
+    /**
+     * Updates the space required for the selected packs.
+     *
+     * @param packs the selected packs
+     */
+    public synchronized void update(Collection<Pack> packs)
+    {
+        Set<Pack> selected = new LinkedHashSet<Pack>(packs);
+        Iterator<Map.Entry<Pack, Contribution>> iterator = contributions.entrySet().iterator();
+        while (iterator.hasNext())
+        {
+            Map.Entry<Pack, Contribution> entry = iterator.next();
+            if (!selected.contains(entry.getKey()))
+            {
+                apply(entry.getValue(), -1);
+                iterator.remove();
+            }
+        }
+
+        Map<String, String> resolved = new HashMap<String, String>();
+        for (Pack pack : selected)
+        {
+            Map<String, Long> directories = getDirectories(pack);
+            List<String> paths = new ArrayList<String>(directories.size());
+            for (String dir : directories.keySet())
+            {
+                String path = resolved.get(dir);
+                if (path == null)
+                {
+                    path = IoHelper.translatePath(dir, variables);
+                    resolved.put(dir, path);
+                }
+                paths.add(path);
+            }
+
+            Contribution contribution = contributions.get(pack);
+            if (contribution == null || !contribution.paths.equals(paths))
+            {
+                if (contribution != null)
+                {
+                    apply(contribution, -1);
+                }
+                contribution = new Contribution(paths);
+                int i = 0;
+                for (Long bytes : directories.values())
+                {
+                    String path = paths.get(i++);
+                    FileStore store = getStore(path);
+                    contribution.add(store, path, bytes);
+                }
+                apply(contribution, 1);
+                contributions.put(pack, contribution);
+            }
+        }
+    }
+
+    /**
+     * Returns the disk usage of each file store that the selected packs install to.
+     *
+     * @return the usage by file store
+     */
+    public synchronized List<Usage> getUsage()
+    {
+        List<Usage> result = new ArrayList<Usage>();
+        for (Usage usage : usages.values())
+        {
+            if (usage.required > 0)
+            {
+                result.add(usage);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the first file store that doesn't have enough space for the selected packs.
+     *
+     * @return the usage of the file store, or <tt>null</tt> if there is enough space, or it cannot be determined
+     */
+    public synchronized Usage getInsufficient()
+    {
+        for (Usage usage : getUsage())
+        {
+            long available = usage.getAvailable();
+            if (available >= 0 && available <= usage.getRequired())
+            {
+                return usage;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the space available on the file system of a path.
+     *
+     * @param path the path. Need not exist
+     * @return the space available in bytes, or <tt>-1</tt> if it cannot be determined
+     */
+    public synchronized long getAvailable(String path)
+    {
+        return getAvailable(getStore(path));
+    }
+
+    /**
+     * Adds or removes the contribution of a pack.
+     *
+     * @param contribution the contribution
+     * @param sign         <tt>1</tt> to add the contribution, <tt>-1</tt> to remove it
+     */
+    private void apply(Contribution contribution, int sign)
+    {
+        for (Map.Entry<FileStore, Long> entry : contribution.bytes.entrySet())
+        {
+            FileStore store = entry.getKey();
+            Usage usage = usages.get(store);
+            if (usage == null)
+            {
+                usage = new Usage(store, contribution.firstPaths.get(store));
+                usages.put(store, usage);
+            }
+            usage.required += sign * entry.getValue();
+        }
+    }
+
+    /**
+     * Returns the file store of a path.
+     *
+     * @param path the path. Need not exist
+     * @return the file store, or <tt>null</tt> if it cannot be determined
+     */
+    private FileStore getStore(String path)
+    {
+        if (stores.containsKey(path))
+        {
+            return stores.get(path);
+        }
+        FileStore result = null;
+        try
+        {
+            File existing = IoHelper.existingParent(new File(path).getAbsoluteFile());
+            result = Files.getFileStore(existing.toPath());
+        }
+        catch (IOException exception)
+        {
+            logger.log(Level.FINE, "Cannot determine file store of " + path + ": " + exception.getMessage(),
+                       exception);
+        }
+        stores.put(path, result);
+        return result;
+    }
+
+    /**
+     * Returns the space available on a file store.
+     *
+     * @param store the file store. May be <tt>null</tt>
+     * @return the space available in bytes, or <tt>-1</tt> if it cannot be determined
+     */
+    private static long getAvailable(FileStore store)
+    {
+        if (store != null)
+        {
+            try
+            {
+                return store.getUsableSpace();
+            }
+            catch (IOException exception)
+            {
+                logger.log(Level.FINE, "Cannot determine space available on " + store + ": "
+                        + exception.getMessage(), exception);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the bytes a pack installs, by unresolved target directory.
+     *
+     * @param pack the pack
+     * @return the bytes installed, by directory
+     */
+    private Map<String, Long> getDirectories(Pack pack)
+    {
+        if (packDirectories == null)
+        {
+            packDirectories = readDirectories();
+        }
+        Map<String, Long> result = packDirectories.get(pack.getName());
+        if (result == null)
+        {
+            // the pack files aren't available, so assume that everything is installed to the installation path
+            result = Collections.singletonMap("$INSTALL_PATH", pack.getSize());
+        }
+        return result;
+    }
+
+    /**
+     * Reads the target directories of the pack files.
+     *
+     * @return the bytes installed, by pack name and unresolved target directory
+     */
+    private Map<String, Map<String, Long>> readDirectories()
+    {
+        Map<String, Map<String, Long>> result = new HashMap<String, Map<String, Long>>();
+        ObjectInputStream in = null;
+        try
+        {
+            InputStream stream = resources.getInputStream("packs.info");
+            in = new ObjectInputStream(stream);
+            @SuppressWarnings("unchecked")
+            List<PackInfo> packs = (List<PackInfo>) in.readObject();
+            for (PackInfo packInfo : packs)
+            {
+                Map<String, Long> directories = new LinkedHashMap<String, Long>();
+                for (PackFile file : packInfo.getPackFiles())
+                {
+                    if (file.isDirectory())
+                    {
+                        continue;
+                    }
+                    String target = file.getTargetPath();
+                    int index = target.lastIndexOf('/');
+                    String dir = (index > 0) ? target.substring(0, index) : "$INSTALL_PATH";
+                    Long bytes = directories.get(dir);
+                    directories.put(dir, (bytes != null ? bytes : 0) + file.length());
+                }
+                result.put(packInfo.getPack().getName(), directories);
+            }
+        }
+        catch (Exception exception)
+        {
+            logger.log(Level.FINE, "Cannot read pack files, using pack sizes: " + exception.getMessage(),
+                       exception);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(in);
+        }
+        return result;
+    }
+
+    /**
+     * The disk usage of a file store.
+     */
+    public static class Usage
+    {
+        private final FileStore store;
+
+        private final String path;
+
+        private long required;
+
+        Usage(FileStore store, String path)
+        {
+            this.store = store;
+            this.path = path;
+        }
+
+        /**
+         * Returns the file store.
+         *
+         * @return the file store, or <tt>null</tt> if the store of {@link #getPath()} could not be determined
+         */
+        public FileStore getStore()
+        {
+            return store;
+        }
+
+        /**
+         * Returns a path that the packs install to on the file store.
+         *
+         * @return the path
+         */
+        public String getPath()
+        {
+            return path;
+        }
+
+        /**
+         * Returns the space required by the selected packs.
+         *
+         * @return the space required, in bytes
+         */
+        public long getRequired()
+        {
+            return required;
+        }
+
+        /**
+         * Returns the space available.
+         *
+         * @return the space available in bytes, or <tt>-1</tt> if it cannot be determined
+         */
+        public long getAvailable()
+        {
+            return DiskSpacePlanner.getAvailable(store);
+        }
+
+        /**
+         * Returns a message describing the space available and required, for display when there is not enough.
+         *
+         * @param messages the messages
+         * @return the message
+         */
+        public String getShortfallMessage(Messages messages)
+        {
+            return messages.get("PacksPanel.insufficientSpace", Pack.toByteUnitsString(getAvailable()), path,
+                                Pack.toByteUnitsString(required));
+        }
+    }
+
+    /**
+     * The bytes a pack installs to each file store.
+     */
+    private static class Contribution
+    {
+        /**
+         * The resolved target directories.
+         */
+        private final List<String> paths;
+
+        /**
+         * The bytes installed, by file store.
+         */
+        private final Map<FileStore, Long> bytes = new LinkedHashMap<FileStore, Long>();
+
+        /**
+         * The first path installed to on each file store.
+         */
+        private final Map<FileStore, String> firstPaths = new HashMap<FileStore, String>();
+
+        Contribution(List<String> paths)
+        {
+            this.paths = paths;
+        }
+
+        void add(FileStore store, String path, long count)
+        {
+            Long current = bytes.get(store);
+            if (current == null)
+            {
+                firstPaths.put(store, path);
+                current = 0L;
+            }
+            bytes.put(store, current + count);
+        }
+    }
+}
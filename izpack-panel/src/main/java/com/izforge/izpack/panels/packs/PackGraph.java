@@ -0,0 +1,280 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.packs;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.izforge.izpack.api.data.Pack;
+
+
+/**
+ * The relationships between the visible packs of a {@link PacksModel}, indexed by row.
+ * <p/>
+ * The dependencies, dependants, children and exclude groups are resolved from pack names to rows once, so that
+ * selection changes don't need to search the pack list. Relationships with packs that aren't visible are ignored.
+ */
+class PackGraph
+{
+    private static final int[] NONE = new int[0];
+
+    /**
+     * The rows each row depends on.
+     */
+    private final int[][] dependencies;
+
+    /**
+     * The rows that depend on each row.
+     */
+    private final int[][] dependants;
+
+    /**
+     * The children of each row.
+     */
+    private final int[][] children;
+
+    /**
+     * The parent of each row, or {@code -1} if it has none.
+     */
+    private final int[] parents;
+
+    /**
+     * The rows in the exclude group of each row, including the row itself. Rows in the same group share the array.
+     */
+    private final int[][] excludeGroups;
+
+    /**
+     * Constructs a {@code PackGraph}.
+     *
+     * @param packs     the visible packs, in row order
+     * @param nameToRow the rows of the visible packs, keyed on pack name
+     */
+    PackGraph(List<Pack> packs, Map<String, Integer> nameToRow)
+    {
+        int size = packs.size();
+        dependencies = new int[size][];
+        children = new int[size][];
+        parents = new int[size];
+        excludeGroups = new int[size][];
+
+        List<List<Integer>> dependantLists = new ArrayList<List<Integer>>(size);
+        Map<String, List<Integer>> groups = new HashMap<String, List<Integer>>();
+        for (int row = 0; row < size; ++row)
+        {
+            dependantLists.add(new ArrayList<Integer>());
+        }
+        for (int row = 0; row < size; ++row)
+        {
+            Pack pack = packs.get(row);
+            dependencies[row] = toRows(pack.getDependencies(), nameToRow);
+            for (int dependency : dependencies[row])
+            {
+                dependantLists.get(dependency).add(row);
+            }
+            children[row] = toRows(pack.getChildren(), nameToRow);
+            Integer parent = pack.hasParent() ? nameToRow.get(pack.getParent()) : null;
+            parents[row] = (parent != null) ? parent : -1;
+            String group = pack.getExcludeGroup();
+            if (group != null)
+            {
+                List<Integer> members = groups.get(group);
+                if (members == null)
+                {
+                    members = new ArrayList<Integer>();
+                    groups.put(group, members);
+                }
+                members.add(row);
+            }
+        }
+
+        dependants = new int[size][];
+        for (int row = 0; row < size; ++row)
+        {
+            dependants[row] = toArray(dependantLists.get(row));
+            excludeGroups[row] = NONE;
+        }
+        for (List<Integer> members : groups.values())
+        {
+            int[] rows = toArray(members);
+            for (int row : rows)
+            {
+                excludeGroups[row] = rows;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the number of rows
+     */
+    int size()
+    {
+        return parents.length;
+    }
+
+    /**
+     * Returns the rows that a row depends on.
+     *
+     * @param row the row
+     * @return the dependencies
+     */
+    int[] getDependencies(int row)
+    {
+        return dependencies[row];
+    }
+
+    /**
+     * Returns the rows that depend on a row.
+     *
+     * @param row the row
+     * @return the dependants
+     */
+    int[] getDependants(int row)
+    {
+        return dependants[row];
+    }
+
+    /**
+     * Returns the children of a row.
+     *
+     * @param row the row
+     * @return the children
+     */
+    int[] getChildren(int row)
+    {
+        return children[row];
+    }
+
+    /**
+     * Returns the parent of a row.
+     *
+     * @param row the row
+     * @return the parent, or {@code -1} if the row has no parent
+     */
+    int getParent(int row)
+    {
+        return parents[row];
+    }
+
+    /**
+     * Returns the rows in the exclude group of a row.
+     *
+     * @param row the row
+     * @return the rows in the exclude group, including {@code row}. Empty if the row has no exclude group
+     */
+    int[] getExcludeGroup(int row)
+    {
+        return excludeGroups[row];
+    }
+
+    /**
+     * Determines the rows that can't be installed because something they depend on, directly or indirectly,
+     * isn't selected.
+     * <p/>
+     * Each row and dependency is visited at most once.
+     *
+     * @param selected the selected rows
+     * @return the blocked rows
+     */
+    BitSet getBlocked(BitSet selected)
+    {
+        int size = size();
+        BitSet blocked = new BitSet(size);
+        int[] stack = new int[size];
+        int top = 0;
+        for (int row = selected.nextClearBit(0); row < size; row = selected.nextClearBit(row + 1))
+        {
+            for (int dependant : dependants[row])
+            {
+                if (!blocked.get(dependant))
+                {
+                    blocked.set(dependant);
+                    stack[top++] = dependant;
+                }
+            }
+        }
+        while (top > 0)
+        {
+            int row = stack[--top];
+            for (int dependant : dependants[row])
+            {
+                if (!blocked.get(dependant))
+                {
+                    blocked.set(dependant);
+                    stack[top++] = dependant;
+                }
+            }
+        }
+        return blocked;
+    }
+
+    /**
+     * Resolves pack names to rows.
+     *
+     * @param names     the pack names. May be {@code null}
+     * @param nameToRow the rows, keyed on pack name
+     * @return the rows of the visible packs
+     */
+    private static int[] toRows(List<String> names, Map<String, Integer> nameToRow)
+    {
+        if (names == null || names.isEmpty())
+        {
+            return NONE;
+        }
+        Set<Integer> rows = new LinkedHashSet<Integer>(names.size());
+        for (String name : names)
+        {
+            Integer row = nameToRow.get(name);
+            if (row != null)
+            {
+                rows.add(row);
+            }
+        }
+        return toArray(rows);
+    }
+
+    /**
+     * Converts a collection of rows to an array.
+     *
+     * @param rows the rows
+     * @return the rows as an array
+     */
+    private static int[] toArray(Collection<Integer> rows)
+    {
+        if (rows.isEmpty())
+        {
+            return NONE;
+        }
+        int[] result = new int[rows.size()];
+        int i = 0;
+        for (Integer row : rows)
+        {
+            result[i++] = row;
+        }
+        return result;
+    }
+}
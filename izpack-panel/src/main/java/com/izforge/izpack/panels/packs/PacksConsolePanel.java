@@ -19,9 +19,6 @@
 
 package com.izforge.izpack.panels.packs;
 
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Properties;
 
@@ -53,7 +50,7 @@ public class PacksConsolePanel extends AbstractConsolePanel implements ConsolePa
 {
 
     private Messages messages;
-    private HashMap<String, Pack> names;
+    private PacksModel packsModel;
     private List<Pack> selectedPacks;
 
     private final Prompt prompt;
@@ -106,16 +103,16 @@ public class PacksConsolePanel extends AbstractConsolePanel implements ConsolePa
         out(Type.INFORMATION, installData.getMessages().get("PacksPanel.info"));
         out(Type.INFORMATION, "");
 
-        selectedPacks = new LinkedList<Pack>();
-        computePacks(installData.getAvailablePacks());
-
-        for (String key : names.keySet())
+        packsModel = new PacksModel(installData);
+        List<Pack> visiblePacks = packsModel.getVisiblePacks();
+        for (int row = 0; row < visiblePacks.size(); row++)
         {
-            drawHelper(key);
+            drawHelper(row, visiblePacks.get(row));
         }
         out(Type.INFORMATION, "Done!");
 
-        installData.setSelectedPacks(selectedPacks);
+        // also selects the hidden packs, and updates the installation data
+        selectedPacks = packsModel.updatePacksToInstall();
 
         if (selectedPacks.isEmpty())
         {
@@ -134,37 +131,32 @@ public class PacksConsolePanel extends AbstractConsolePanel implements ConsolePa
     /**
      * It is used to "draw" the appropriate tree-like structure of the packs and ask if you want to install
      * the pack. The pack will automatically be selected if it is required; otherwise you will be prompted if
-     * you want to install that pack. If a pack is not selected, then their child packs won't be installed as
-     * well and you won't be prompted to install them.
+     * you want to install that pack. Packs that cannot be selected, because a pack they depend on wasn't selected,
+     * are skipped. Selecting a pack deselects the other packs in its exclude group.
      *
-     * @param pack          - the pack to install
+     * @param row  - the row of the pack in the packs model
+     * @param pack - the pack to install
      */
-    private void drawHelper(final String pack)
+    private void drawHelper(int row, Pack pack)
     {
-        Pack p = names.get(pack);
         //get the pack localized name
-        String packName = PackHelper.getPackName(p, messages);
-        if (installData.getRules().canInstallPack(pack, installData.getVariables()))
+        String packName = PackHelper.getPackName(pack, messages);
+        if (!packsModel.isCheckBoxSelectable(row))
         {
-            if (p.isRequired())
-            {
-                if (!p.isHidden())
-                {
-                    out(Type.INFORMATION, "  [x] Pack '" + packName + "' required");
-                }
-                // Force selecting the pack
-                selectedPacks.add(p);
-            }
-            else
+            if (packsModel.isChecked(row))
             {
-                boolean contained = installData.getSelectedPacks().contains(p);
-                String cbView = contained ? "x" : " ";
-                if (askUser("  ["+ cbView +"] Include optional pack '" + packName + "'", (contained ? Option.YES : Option.NO)))
-                {
-                    selectedPacks.add(p);
-                }
+                out(Type.INFORMATION, "  [x] Pack '" + packName + "' required");
             }
         }
+        else
+        {
+            boolean contained = packsModel.isChecked(row);
+            String cbView = contained ? "x" : " ";
+            boolean selected = askUser("  [" + cbView + "] Include optional pack '" + packName + "'",
+                                       (contained ? Option.YES : Option.NO));
+            packsModel.setValueAt(selected ? PacksModel.CbSelectionState.SELECTED
+                                          : PacksModel.CbSelectionState.DESELECTED, row, 0);
+        }
     }
 
     /**
@@ -178,20 +170,6 @@ public class PacksConsolePanel extends AbstractConsolePanel implements ConsolePa
         return Option.YES == prompt.confirm(Type.QUESTION, message, Options.YES_NO, defaultOption);
     }
 
-    /**
-     * Computes pack related installDataGUI like the names or the dependencies state.
-     *
-     * @param packs The list of packs.
-     */
-    private void computePacks(List<Pack> packs)
-    {
-        names = new LinkedHashMap<String, Pack>();
-        for (Pack pack : packs)
-        {
-            names.put(pack.getName(), pack);
-        }
-    }
-
     @Override
     public void createInstallationRecord(IXMLElement panelRoot)
     {
@@ -26,7 +26,6 @@ package com.izforge.izpack.panels.packs;
 
 import com.izforge.izpack.api.data.InstallData;
 import com.izforge.izpack.api.data.Pack;
-import com.izforge.izpack.api.data.PackColor;
 import com.izforge.izpack.api.data.Variables;
 import com.izforge.izpack.api.exception.ResourceNotFoundException;
 import com.izforge.izpack.api.resource.Messages;
@@ -66,6 +65,11 @@ public class PacksModel extends AbstractTableModel
     private final Map<String, Pack> nameToPack;
     private final Map<String, Integer> nameToRow;
 
+    /**
+     * The relationships between the visible packs, by row.
+     */
+    private final transient PackGraph graph;
+
     private final boolean modifyInstallation;
 
     public PacksModel(InstallData idata)
@@ -89,6 +93,7 @@ public class PacksModel extends AbstractTableModel
         this.nameToPack = getNametoPackMapping(idata.getAvailablePacks());
 
         this.packs = setPackProperties(packs, nameToPack);
+        this.graph = new PackGraph(packs, nameToRow);
         this.checkValues = initCheckValues(packs, packsToInstall);
 
         updateConditions(true);
@@ -277,12 +282,13 @@ public class PacksModel extends AbstractTableModel
     private List<CbSelectionState> initCheckValues(List<Pack> packs, List<Pack> packsToInstall)
     {
         CbSelectionState[] checkValues = new CbSelectionState[packs.size()];
+        Set<Pack> selected = new HashSet<Pack>(packsToInstall);
 
         // If a pack is indicated to be installed checkbox value should be SELECTED
         for (int i = 0; i < packs.size(); i++)
         {
             Pack pack = packs.get(i);
-            if (packsToInstall.contains(pack))
+            if (selected.contains(pack))
             {
                 checkValues[i] = CbSelectionState.SELECTED;
             }
@@ -295,14 +301,10 @@ public class PacksModel extends AbstractTableModel
         // If a packs dependency cannot be resolved checkboc value should be DEPENDENT_DESELECTED
         for (int i = 0; i < packs.size(); i++)
         {
-            Pack pack = packs.get(i);
             if (checkValues[i] == CbSelectionState.DESELECTED)
             {
-                List<String> deps = pack.getDependants();
-                for (int j = 0; deps != null && j < deps.size(); j++)
+                for (int pos : graph.getDependants(i))
                 {
-                    String name = deps.get(j);
-                    int pos = getPos(name);
                     checkValues[pos] = CbSelectionState.DEPENDENT_DESELECTED;
                 }
             }
@@ -310,20 +312,13 @@ public class PacksModel extends AbstractTableModel
             // for mutual exclusion, uncheck uncompatible packs too
             // (if available in the current installGroup)
             CbSelectionState checkState = checkValues[i];
-            if (checkState != null && checkState.isFullyOrPartiallySelected() && pack.getExcludeGroup() != null)
+            if (checkState != null && checkState.isFullyOrPartiallySelected())
             {
-                for (int q = 0; q < packs.size(); q++)
+                for (int q : graph.getExcludeGroup(i))
                 {
-                    if (q != i)
+                    if (q != i && checkValues[q] == CbSelectionState.SELECTED)
                     {
-                        Pack otherPack = packs.get(q);
-                        if (pack.getExcludeGroup().equals(otherPack.getExcludeGroup()))
-                        {
-                            if (checkValues[q] == CbSelectionState.SELECTED)
-                            {
-                                checkValues[q] = CbSelectionState.DESELECTED;
-                            }
-                        }
+                        checkValues[q] = CbSelectionState.DESELECTED;
                     }
                 }
             }
@@ -518,11 +513,11 @@ public class PacksModel extends AbstractTableModel
 
             if (pack.hasParent())
             {
-                updateParent(pack);
+                updateParent(rowIndex);
             }
             else if (pack.hasChildren())
             {
-                updateChildren(pack);
+                updateChildren(rowIndex);
             }
 
             fireTableDataChanged();
@@ -533,25 +528,27 @@ public class PacksModel extends AbstractTableModel
      * Set the value of the parent pack of the given pack to SELECTED, PARTIAL_SELECT, or DESELECTED.
      * Value of the pack is dependent of its children values.
      *
-     * @param childPack
+     * @param childRow the row of the child pack
      */
-    private void updateParent(Pack childPack)
+    private void updateParent(int childRow)
     {
-        String parentName = childPack.getParent();
-        Pack parentPack = nameToPack.get(parentName);
-        int parentPosition = nameToRow.get(parentName);
+        int parentPosition = graph.getParent(childRow);
+        if (parentPosition == -1)
+        {
+            return;
+        }
 
+        int[] children = graph.getChildren(parentPosition);
         int childrenSelected = 0;
-        for (String childName : parentPack.getChildren())
+        for (int childPosition : children)
         {
-            int childPosition = nameToRow.get(childName);
             if (isChecked(childPosition))
             {
                 childrenSelected += 1;
             }
         }
 
-        if (parentPack.getChildren().size() == childrenSelected)
+        if (children.length == childrenSelected)
         {
             if (!checkValues.get(parentPosition).isSelectable())
             {
@@ -591,17 +588,14 @@ public class PacksModel extends AbstractTableModel
     /**
      * Set the value of children packs to the same value as the parent pack.
      *
-     * @param parentPack
+     * @param parentPosition the row of the parent pack
      */
-    private void updateChildren(Pack parentPack)
+    private void updateChildren(int parentPosition)
     {
-        String parentName = parentPack.getName();
-        int parentPosition = nameToRow.get(parentName);
         CbSelectionState parentValue = checkValues.get(parentPosition);
 
-        for (String childName : parentPack.getChildren())
+        for (int childPosition : graph.getChildren(parentPosition))
         {
-            int childPosition = nameToRow.get(childName);
             if (checkValues.get(childPosition).isSelectable())
             {
                 checkValues.set(childPosition, parentValue);
@@ -724,25 +718,31 @@ public class PacksModel extends AbstractTableModel
     /**
      * This function updates the checkboxes after a change by disabling packs that cannot be
      * installed anymore and enabling those that can after the change. This is accomplished by
-     * running a search that pinpoints the packs that must be disabled by a non-fulfilled
-     * dependency.
-     * TODO: Look into "+2" and "-2", doesn't look safe
+     * a single pass over the dependency graph from the unselected packs, which pinpoints the packs
+     * that must be disabled by a non-fulfilled dependency.
      */
     private void updateDeps()
     {
-        int[] statusArray = new int[packs.size()];
-        dfs(statusArray);
-        for (int i = 0; i < statusArray.length; i++)
+        BitSet selected = new BitSet(packs.size());
+        for (int i = 0; i < packs.size(); i++)
+        {
+            if (checkValues.get(i).isSelectedOrRequiredSelected())
+            {
+                selected.set(i);
+            }
+        }
+        BitSet blocked = graph.getBlocked(selected);
+        for (int i = 0; i < packs.size(); i++)
         {
             CbSelectionState cbSelectionState = checkValues.get(i);
-            if (statusArray[i] == 0 && !cbSelectionState.isSelectable())
+            if (!blocked.get(i) && !cbSelectionState.isSelectable())
             {
                 // When dependency is selected, dependent should be marked as deselected to avoid double-clicking to
                 // select dependent, issue [IZPACK-1653]
                 checkValues.set(i, cbSelectionState == CbSelectionState.DEPENDENT_DESELECTED ?
                         CbSelectionState.DESELECTED : CbSelectionState.PARTIAL_SELECTED);
             }
-            if (statusArray[i] == 1 && cbSelectionState.isSelectable())
+            if (blocked.get(i) && cbSelectionState.isSelectable())
             {
                 checkValues.set(i, CbSelectionState.DEPENDENT_DESELECTED);
             }
@@ -769,87 +769,19 @@ public class PacksModel extends AbstractTableModel
     private void updateExcludes(int rowindex)
     {
         CbSelectionState value = checkValues.get(rowindex);
-        Pack pack = packs.get(rowindex);
-        if (value != null && value.isFullyOrPartiallySelected() && pack.getExcludeGroup() != null)
+        if (value != null && value.isFullyOrPartiallySelected())
         {
-            for (int q = 0; q < packs.size(); q++)
+            for (int q : graph.getExcludeGroup(rowindex))
             {
-                if (rowindex != q)
+                if (rowindex != q && checkValues.get(q) == CbSelectionState.SELECTED)
                 {
-                    Pack otherPack = packs.get(q);
-                    String name1 = otherPack.getExcludeGroup();
-                    String name2 = pack.getExcludeGroup();
-                    if (name2.equals(name1))
-                    {
-                        if (checkValues.get(q) == CbSelectionState.SELECTED)
-                        {
-                            checkValues.set(q, CbSelectionState.DESELECTED);
-                        }
-                    }
+                    checkValues.set(q, CbSelectionState.DESELECTED);
                 }
             }
         }
     }
 
 
-    /**
-     * We use a modified dfs graph search algorithm as described in: Thomas H. Cormen, Charles
-     * Leiserson, Ronald Rivest and Clifford Stein. Introduction to algorithms 2nd Edition
-     * 540-549,MIT Press, 2001
-     */
-    private void dfs(int[] status)
-    {
-        Map<String, PackColor> colours = new HashMap<String, PackColor>();
-        for (int i = 0; i < packs.size(); i++)
-        {
-            for (Pack pack : packs)
-            {
-                colours.put(pack.getName(), PackColor.WHITE);
-            }
-            Pack pack = packs.get(i);
-            boolean wipe = false;
-
-            if (dfsVisit(pack, status, wipe, colours) != 0)
-            {
-                return;
-            }
-
-        }
-    }
-
-    private int dfsVisit(Pack u, int[] status, boolean wipe, Map<String, PackColor> colours)
-    {
-        colours.put(u.getName(), PackColor.GREY);
-        CbSelectionState check = checkValues.get(getPos(u.getName()));
-
-        if (!check.isSelectedOrRequiredSelected())
-        {
-            wipe = true;
-        }
-        List<String> deps = u.getDependants();
-        if (deps != null)
-        {
-            for (String name : deps)
-            {
-                Pack v = nameToPack.get(name);
-                if (wipe)
-                {
-                    status[getPos(v.getName())] = 1;
-                }
-                if (colours.get(v.getName()) == PackColor.WHITE)
-                {
-                    final int result = dfsVisit(v, status, wipe, colours);
-                    if (result != 0)
-                    {
-                        return result;
-                    }
-                }
-            }
-        }
-        colours.put(u.getName(), PackColor.BLACK);
-        return 0;
-    }
-
     /**
      * Get previously installed packs on modifying a pre-installed application
      * @return the installedPacks
@@ -996,15 +928,12 @@ public class PacksModel extends AbstractTableModel
      */
     public long getTotalByteSize()
     {
-        Map<Pack, Integer> packToRow = getPacksToRowNumbers();
-        int row;
         long bytes = 0;
-        for (Pack pack : packs)
+        for (int row = 0; row < packs.size(); row++)
         {
-            row = packToRow.get(pack);
-            if(isChecked(row))
+            if (isChecked(row))
             {
-                bytes += pack.getSize();
+                bytes += packs.get(row).getSize();
             }
         }
         return bytes;
@@ -56,6 +56,7 @@ public class PacksModelGUI extends PacksModel
             updateBytes();
             fireTableDataChanged();
             panel.showSpaceRequired();
+            panel.showFreeSpace();
 
         }
     }
@@ -52,7 +52,6 @@ import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.io.File;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -132,6 +131,11 @@ public abstract class PacksPanelBase extends IzPanel implements PacksPanelInterf
      */
     protected long freeBytes = 0;
 
+    /**
+     * The disk space planner. Created on demand.
+     */
+    private transient DiskSpacePlanner planner;
+
     /**
      * Are there dependencies in the packs
      */
@@ -230,26 +234,56 @@ public abstract class PacksPanelBase extends IzPanel implements PacksPanelInterf
         }
     }
 
+    /**
+     * Shows the space available for the installation path or, if the selected packs need more space than is
+     * available on any file system they install to, the shortfall on that file system.
+     * <p/>
+     * This is invoked as the selection changes.
+     */
     @Override
     public void showFreeSpace()
     {
         if (IoHelper.supported("getFreeSpace") && freeSpaceLabel != null)
         {
             String msg;
-            freeBytes = IoHelper.getFreeSpace(IoHelper.existingParent(
-                    new File(InstallPathHelper.getPath(installData))).getAbsolutePath());
-            if (freeBytes < 0)
+            DiskSpacePlanner planner = getDiskSpacePlanner();
+            planner.update(installData.getSelectedPacks());
+            DiskSpacePlanner.Usage insufficient = planner.getInsufficient();
+            if (insufficient != null)
             {
-                msg = getString("PacksPanel.notAscertainable");
+                freeBytes = insufficient.getAvailable();
+                msg = insufficient.getShortfallMessage(installData.getMessages());
             }
             else
             {
-                msg = Pack.toByteUnitsString(freeBytes);
+                freeBytes = planner.getAvailable(InstallPathHelper.getPath(installData));
+                if (freeBytes < 0)
+                {
+                    msg = getString("PacksPanel.notAscertainable");
+                }
+                else
+                {
+                    msg = Pack.toByteUnitsString(freeBytes);
+                }
             }
             freeSpaceLabel.setText(msg);
         }
     }
 
+    /**
+     * Returns the planner used to determine the disk space required by the selected packs.
+     *
+     * @return the disk space planner
+     */
+    protected DiskSpacePlanner getDiskSpacePlanner()
+    {
+        if (planner == null)
+        {
+            planner = new DiskSpacePlanner(installData.getVariables(), getResources());
+        }
+        return planner;
+    }
+
     /**
      * Indicates whether the panel has been validated or not.
      *
@@ -258,9 +292,13 @@ public abstract class PacksPanelBase extends IzPanel implements PacksPanelInterf
     @Override
     public boolean isValidated()
     {
-        if (IoHelper.supported("getFreeSpace") && freeBytes >= 0 && freeBytes <= bytes)
+        DiskSpacePlanner planner = getDiskSpacePlanner();
+        planner.update(installData.getSelectedPacks());
+        DiskSpacePlanner.Usage insufficient = planner.getInsufficient();
+        if (IoHelper.supported("getFreeSpace") && insufficient != null)
         {
-            JOptionPane.showMessageDialog(this, getString("PacksPanel.notEnoughSpace"),
+            JOptionPane.showMessageDialog(this, getString("PacksPanel.notEnoughSpace") + "\n"
+                                                + insufficient.getShortfallMessage(installData.getMessages()),
                                           getString("installer.error"), JOptionPane.ERROR_MESSAGE);
             return false;
         }
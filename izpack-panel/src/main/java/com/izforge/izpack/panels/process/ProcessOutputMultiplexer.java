@@ -0,0 +1,321 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.process;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads the output of any number of processes on a single thread.
+ * <p/>
+ * Process streams cannot be read without blocking in Java, so the streams are polled using
+ * {@link InputStream#available()}, and only the bytes available are read. The thread is started on demand,
+ * and terminates when there are no more streams to read.
+ */
+class ProcessOutputMultiplexer
+{
+
+    /**
+     * Receives the lines read from a stream.
+     */
+    interface LineHandler
+    {
+
+        /**
+         * Invoked for each line read.
+         *
+         * @param line   the line, without line terminator
+         * @param stderr {@code true} if the line was read from standard error
+         */
+        void line(String line, boolean stderr);
+
+        /**
+         * Invoked if reading a stream fails.
+         *
+         * @param exception the exception
+         * @param stderr    {@code true} if the stream is standard error
+         */
+        void error(IOException exception, boolean stderr);
+    }
+
+    /**
+     * The time to sleep when no stream has output available, in milliseconds.
+     */
+    private static final long IDLE_SLEEP = 10;
+
+    /**
+     * The streams being read.
+     */
+    private final List<Source> sources = new ArrayList<Source>();
+
+    /**
+     * The thread reading the streams, or {@code null} if there are none.
+     */
+    private Thread thread;
+
+    /**
+     * Registers a stream to read.
+     *
+     * @param stream  the stream
+     * @param stderr  {@code true} if the stream is standard error
+     * @param handler the handler to pass lines to
+     * @return the registered source
+     */
+    public synchronized Source register(InputStream stream, boolean stderr, LineHandler handler)
+    {
+        Source source = new Source(stream, stderr, handler);
+        sources.add(source);
+        if (thread == null)
+        {
+            thread = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    pump();
+                }
+            }, "process output");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return source;
+    }
+
+    /**
+     * Reads the registered streams until none remain.
+     */
+    private void pump()
+    {
+        List<Source> polled = new ArrayList<Source>();
+        while (true)
+        {
+            synchronized (this)
+            {
+                if (sources.isEmpty())
+                {
+                    thread = null;
+                    return;
+                }
+                polled.clear();
+                polled.addAll(sources);
+            }
+            boolean read = false;
+            for (Source source : polled)
+            {
+                read |= source.poll();
+                if (source.isClosed())
+                {
+                    synchronized (this)
+                    {
+                        sources.remove(source);
+                    }
+                }
+            }
+            if (!read)
+            {
+                try
+                {
+                    Thread.sleep(IDLE_SLEEP);
+                }
+                catch (InterruptedException exception)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * A stream being read.
+     */
+    static class Source
+    {
+        private final InputStream stream;
+
+        private final boolean stderr;
+
+        private final LineHandler handler;
+
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        private final byte[] buffer = new byte[4096];
+
+        private volatile boolean finishing;
+
+        private boolean closed;
+
+        Source(InputStream stream, boolean stderr, LineHandler handler)
+        {
+            this.stream = stream;
+            this.stderr = stderr;
+            this.handler = handler;
+        }
+
+        /**
+         * Waits for the remaining output to be read, once the process has terminated.
+         * <p/>
+         * Output written after the timeout, e.g. by child processes that inherited the stream, is discarded.
+         *
+         * @param timeout the maximum time to wait, in milliseconds
+         * @throws InterruptedException if the thread is interrupted
+         */
+        public synchronized void finish(long timeout) throws InterruptedException
+        {
+            finishing = true;
+            long end = System.currentTimeMillis() + timeout;
+            long remaining = timeout;
+            while (!closed && remaining > 0)
+            {
+                wait(remaining);
+                remaining = end - System.currentTimeMillis();
+            }
+            if (!closed)
+            {
+                close();
+            }
+        }
+
+        /**
+         * Stops reading the stream, without waiting for its remaining output.
+         * <p/>
+         * This is used when the process is abandoned, e.g. if the thread waiting for it is interrupted. It does
+         * nothing if the stream has already been read.
+         */
+        public synchronized void stop()
+        {
+            if (!closed)
+            {
+                close();
+            }
+        }
+
+        /**
+         * Reads the output available from the stream.
+         *
+         * @return {@code true} if any output was read
+         */
+        synchronized boolean poll()
+        {
+            if (closed)
+            {
+                return false;
+            }
+            boolean read = false;
+            try
+            {
+                int available = stream.available();
+                if (available > 0)
+                {
+                    int count = stream.read(buffer, 0, Math.min(available, buffer.length));
+                    if (count == -1)
+                    {
+                        close();
+                    }
+                    else
+                    {
+                        split(count);
+                        read = true;
+                    }
+                }
+                else if (finishing)
+                {
+                    // the process has terminated and everything it wrote has been read
+                    close();
+                }
+            }
+            catch (IOException exception)
+            {
+                handler.error(exception, stderr);
+                close();
+            }
+            return read;
+        }
+
+        synchronized boolean isClosed()
+        {
+            return closed;
+        }
+
+        /**
+         * Splits the bytes read into lines.
+         *
+         * @param count the number of bytes read into the buffer
+         */
+        private void split(int count)
+        {
+            for (int i = 0; i < count; ++i)
+            {
+                byte b = buffer[i];
+                if (b == '\n')
+                {
+                    emit();
+                }
+                else
+                {
+                    line.write(b);
+                }
+            }
+        }
+
+        /**
+         * Passes the current line to the handler.
+         */
+        private void emit()
+        {
+            byte[] bytes = line.toByteArray();
+            int length = bytes.length;
+            if (length > 0 && bytes[length - 1] == '\r')
+            {
+                --length;
+            }
+            line.reset();
+            handler.line(new String(bytes, 0, length, Charset.defaultCharset()), stderr);
+        }
+
+        /**
+         * Closes the stream, passing any incomplete last line to the handler.
+         */
+        private void close()
+        {
+            if (line.size() > 0)
+            {
+                emit();
+            }
+            closed = true;
+            try
+            {
+                stream.close();
+            }
+            catch (IOException exception)
+            {
+                Logger.getLogger(ProcessOutputMultiplexer.class.getName()).log(Level.FINE, exception.getMessage(),
+                                                                               exception);
+            }
+            notifyAll();
+        }
+    }
+}
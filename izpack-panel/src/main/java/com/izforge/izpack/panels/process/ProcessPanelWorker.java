@@ -21,6 +21,15 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -66,6 +75,16 @@ public class ProcessPanelWorker implements Runnable
 
     private String logfiledir = null;
 
+    /**
+     * The maximum number of jobs run at the same time, if jobs are marked as parallel.
+     */
+    private int maxParallelJobs = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Reads the output of the executed processes.
+     */
+    private final ProcessOutputMultiplexer outputMultiplexer = new ProcessOutputMultiplexer();
+
     private final InstallData idata;
 
     private final Map<Boolean, List<ButtonConfig>> buttonConfigs = new HashMap<Boolean, List<ButtonConfig>>();
@@ -146,6 +165,19 @@ public class ProcessPanelWorker implements Runnable
             logfiledir = logFileDirElement.getContent();
         }
 
+        IXMLElement maxParallelElement = spec.getFirstChildNamed("maxparallel");
+        if (maxParallelElement != null)
+        {
+            try
+            {
+                maxParallelJobs = Math.max(1, Integer.parseInt(maxParallelElement.getContent().trim()));
+            }
+            catch (NumberFormatException e)
+            {
+                logger.warning("Invalid <maxparallel> value: " + maxParallelElement.getContent());
+            }
+        }
+
         for (IXMLElement job_el : spec.getChildrenNamed("job"))
         {
             // normally use condition attribute, but also read conditionid to not break older versions.
@@ -235,6 +267,15 @@ public class ProcessPanelWorker implements Runnable
 
                 Boolean isCatch = job_el.hasAttribute("catch") && Boolean.parseBoolean(job_el.getAttribute("catch"));
                 Boolean isFinal = job_el.hasAttribute("final") && Boolean.parseBoolean(job_el.getAttribute("final"));
+                boolean isParallel = Boolean.parseBoolean(job_el.getAttribute("parallel", "false"));
+                List<String> dependsOn = new ArrayList<String>();
+                for (String dependency : job_el.getAttribute("dependsOn", "").split(","))
+                {
+                    if (dependency.trim().length() > 0)
+                    {
+                        dependsOn.add(dependency.trim());
+                    }
+                }
 
                 if (ef_list.isEmpty())
                 {
@@ -247,7 +288,7 @@ public class ProcessPanelWorker implements Runnable
                     } else if (isFinal) {
                         this.finalJobs.add(new ProcessingJob(job_name, ef_list));
                     } else {
-                        this.jobs.add(new ProcessingJob(job_name, ef_list));
+                        this.jobs.add(new ProcessingJob(job_name, ef_list, isParallel, dependsOn));
                     }
                 }
             }
@@ -345,20 +386,16 @@ public class ProcessPanelWorker implements Runnable
         /**
          * Process panel jobs.
          */
-        for (ProcessPanelWorker.ProcessingJob processingJob : this.jobs)
-        {
-            this.result = runJob(processingJob);
+        this.result = runJobs(this.jobs);
 
-            if (!this.result)
+        if (!this.result)
+        {
+            /**
+             * Jobs run in event of failure.
+             */
+            for (ProcessPanelWorker.ProcessingJob catchJob : this.catchJobs)
             {
-                /**
-                 * Jobs run in event of failure.
-                 */
-                for (ProcessPanelWorker.ProcessingJob catchJob : this.catchJobs)
-                {
-                    runJob(catchJob);
-                }
-                break;
+                runJob(catchJob);
             }
         }
 
@@ -401,6 +438,169 @@ public class ProcessPanelWorker implements Runnable
         }
     }
 
+    /**
+     * Runs the process panel jobs, stopping at the first failure.
+     * <p/>
+     * If any job is marked as parallel, the jobs are scheduled according to their dependencies, otherwise
+     * they run one after another.
+     *
+     * @param jobs the jobs to run
+     * @return {@code true} if all jobs succeeded
+     */
+    private boolean runJobs(List<ProcessPanelWorker.ProcessingJob> jobs)
+    {
+        boolean parallel = false;
+        for (ProcessPanelWorker.ProcessingJob job : jobs)
+        {
+            parallel |= job.parallel;
+        }
+        if (parallel && maxParallelJobs > 1)
+        {
+            return runParallelJobs(jobs);
+        }
+        for (ProcessPanelWorker.ProcessingJob job : jobs)
+        {
+            if (!runJob(job))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs jobs concurrently, as soon as the jobs they depend on have succeeded.
+     * <p/>
+     * No more jobs are started after a job fails, but those already running are allowed to complete.
+     *
+     * @param jobs the jobs to run
+     * @return {@code true} if all jobs succeeded
+     */
+    private boolean runParallelJobs(List<ProcessPanelWorker.ProcessingJob> jobs)
+    {
+        Map<ProcessingJob, Set<ProcessingJob>> prerequisites = getPrerequisites(jobs);
+        List<ProcessingJob> pending = new ArrayList<ProcessingJob>(jobs);
+        Set<ProcessingJob> succeeded = new HashSet<ProcessingJob>();
+        Map<Future<Boolean>, ProcessingJob> running = new HashMap<Future<Boolean>, ProcessingJob>();
+        boolean success = true;
+
+        AbstractUIProcessHandler uiHandler = this.handler;
+        this.handler = new SynchronizedUIProcessHandler(uiHandler);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxParallelJobs, jobs.size()),
+                                                                new JobThreadFactory());
+        CompletionService<Boolean> completionService = new ExecutorCompletionService<Boolean>(executor);
+        try
+        {
+            while (true)
+            {
+                if (success)
+                {
+                    Iterator<ProcessingJob> iterator = pending.iterator();
+                    while (iterator.hasNext() && running.size() < maxParallelJobs)
+                    {
+                        final ProcessingJob job = iterator.next();
+                        if (succeeded.containsAll(prerequisites.get(job)))
+                        {
+                            iterator.remove();
+                            Future<Boolean> future = completionService.submit(new Callable<Boolean>()
+                            {
+                                @Override
+                                public Boolean call()
+                                {
+                                    return runJob(job);
+                                }
+                            });
+                            running.put(future, job);
+                        }
+                    }
+                }
+                if (running.isEmpty())
+                {
+                    break;
+                }
+                Future<Boolean> future = completionService.take();
+                ProcessingJob job = running.remove(future);
+                try
+                {
+                    if (future.get())
+                    {
+                        succeeded.add(job);
+                    }
+                    else
+                    {
+                        success = false;
+                    }
+                }
+                catch (ExecutionException e)
+                {
+                    logger.log(Level.SEVERE, "Job '" + job.name + "' failed", e.getCause());
+                    success = false;
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            success = false;
+        }
+        finally
+        {
+            executor.shutdown();
+            this.handler = uiHandler;
+        }
+        return success && pending.isEmpty();
+    }
+
+    /**
+     * Determines the jobs each job has to wait for.
+     * <p/>
+     * A parallel job waits for the jobs it depends on and for the last preceding job that isn't parallel.
+     * A job that isn't parallel waits for all jobs preceding it. Dependencies can only refer to preceding jobs;
+     * other names, including those of jobs skipped due to conditions, are ignored.
+     *
+     * @param jobs the jobs, in specification order
+     * @return the jobs each job has to wait for
+     */
+    private Map<ProcessingJob, Set<ProcessingJob>> getPrerequisites(List<ProcessPanelWorker.ProcessingJob> jobs)
+    {
+        Map<ProcessingJob, Set<ProcessingJob>> result = new HashMap<ProcessingJob, Set<ProcessingJob>>();
+        Map<String, ProcessingJob> previous = new HashMap<String, ProcessingJob>();
+        ProcessingJob barrier = null;
+        for (ProcessingJob job : jobs)
+        {
+            Set<ProcessingJob> prerequisites = new HashSet<ProcessingJob>();
+            if (!job.parallel)
+            {
+                prerequisites.addAll(previous.values());
+            }
+            else if (barrier != null)
+            {
+                prerequisites.add(barrier);
+            }
+            for (String name : job.dependsOn)
+            {
+                ProcessingJob dependency = previous.get(name);
+                if (dependency != null)
+                {
+                    prerequisites.add(dependency);
+                }
+                else
+                {
+                    logger.fine("Job '" + job.name + "' depends on unknown, skipped or later job '" + name
+                                        + "', ignoring");
+                }
+            }
+            result.put(job, prerequisites);
+            if (!job.parallel)
+            {
+                barrier = job;
+            }
+            previous.put(job.name, job);
+        }
+        return result;
+    }
+
     /**
      * Runs the specified process panel job.
      * @param job a ProcessPanelWorker job.
@@ -457,10 +657,28 @@ public class ProcessPanelWorker implements Runnable
 
         private List<ProcessPanelWorker.Processable> processables;
 
+        /**
+         * Determines if the job may run at the same time as other parallel jobs.
+         */
+        private final boolean parallel;
+
+        /**
+         * The names of the jobs that have to succeed before this job runs.
+         */
+        private final List<String> dependsOn;
+
         public ProcessingJob(String name, List<ProcessPanelWorker.Processable> processables)
+        {
+            this(name, processables, false, Collections.<String>emptyList());
+        }
+
+        public ProcessingJob(String name, List<ProcessPanelWorker.Processable> processables, boolean parallel,
+                             List<String> dependsOn)
         {
             this.name = name;
             this.processables = processables;
+            this.parallel = parallel;
+            this.dependsOn = dependsOn;
         }
 
         @Override
@@ -482,6 +700,11 @@ public class ProcessPanelWorker implements Runnable
     private class ExecutableFile implements ProcessPanelWorker.Processable
     {
 
+        /**
+         * The maximum time to wait for the remaining output of a process once it has terminated, in milliseconds.
+         */
+        private static final long OUTPUT_TIMEOUT = 1000;
+
         private String filename;
         private String workingDir;
         private final ErrorHandlingStrategy errorHandlingStrategy;
@@ -556,28 +779,24 @@ public class ProcessPanelWorker implements Runnable
 
                 Process process = processBuilder.start();
 
-                ProcessPanelWorker.ExecutableFile.OutputMonitor stdoutMon = new ProcessPanelWorker.ExecutableFile.OutputMonitor(
-                        this.handler, process.getInputStream(), false);
-                ProcessPanelWorker.ExecutableFile.OutputMonitor stderrMon = new ProcessPanelWorker.ExecutableFile.OutputMonitor(
-                        this.handler, process.getErrorStream(), true);
-                Thread stdoutThread = new Thread(stdoutMon);
-                Thread stderrThread = new Thread(stderrMon);
-                stdoutThread.setDaemon(true);
-                stderrThread.setDaemon(true);
-                stdoutThread.start();
-                stderrThread.start();
+                OutputHandler outputHandler = new OutputHandler(this.handler);
+                ProcessOutputMultiplexer.Source stdout = outputMultiplexer.register(
+                        process.getInputStream(), false, outputHandler);
+                ProcessOutputMultiplexer.Source stderr = outputMultiplexer.register(
+                        process.getErrorStream(), true, outputHandler);
 
                 try
                 {
                     int exitStatus = process.waitFor();
 
-                    stopMonitor(stdoutMon, stdoutThread);
-                    stopMonitor(stderrMon, stderrThread);
+                    stdout.finish(OUTPUT_TIMEOUT);
+                    stderr.finish(OUTPUT_TIMEOUT);
 
                     if (exitStatus != 0)
                     {
                         if (this.errorHandlingStrategy == ErrorHandlingStrategy.ASK) {
-                            QuestionErrorDisplayer myErrorAlter = new QuestionErrorDisplayer(handler);
+                            QuestionErrorDisplayer myErrorAlter = new QuestionErrorDisplayer(
+                                    SynchronizedUIProcessHandler.unwrap(handler));
                             SwingUtilities.invokeAndWait(myErrorAlter);
                             return myErrorAlter.shouldContinue();
                         } else if (this.errorHandlingStrategy == ErrorHandlingStrategy.IGNORE) {
@@ -600,6 +819,12 @@ public class ProcessPanelWorker implements Runnable
                     this.handler.emitError("process interrupted", ie.toString());
                     return false;
                 }
+                finally
+                {
+                    // if the process was abandoned, stop polling its streams
+                    stdout.stop();
+                    stderr.stop();
+                }
             }
             catch (IOException ioe)
             {
@@ -610,99 +835,42 @@ public class ProcessPanelWorker implements Runnable
             return true;
         }
 
-        private void stopMonitor(ProcessPanelWorker.ExecutableFile.OutputMonitor monitor, Thread thread)
-        {
-            // taken from com.izforge.izpack.util.FileExecutor
-            monitor.doStop();
-            long softTimeout = 500;
-            try
-            {
-                thread.join(softTimeout);
-            }
-            catch (InterruptedException e)
-            {
-            }
-
-            if (!thread.isAlive())
-            {
-                return;
-            }
-
-            thread.interrupt();
-            long hardTimeout = 500;
-            try
-            {
-                thread.join(hardTimeout);
-            }
-            catch (InterruptedException e)
-            {
-            }
-        }
-
-        public class OutputMonitor implements Runnable
+        /**
+         * Passes process output to the UI handler and the log file.
+         */
+        private class OutputHandler implements ProcessOutputMultiplexer.LineHandler
         {
 
-            private boolean stderr = false;
-
-            private AbstractUIProcessHandler handler;
-
-            private BufferedReader reader;
+            private final AbstractUIProcessHandler handler;
 
-            private Boolean stop = false;
-
-            public OutputMonitor(AbstractUIProcessHandler handler, InputStream is, boolean stderr)
+            OutputHandler(AbstractUIProcessHandler handler)
             {
-                this.stderr = stderr;
-                this.reader = new BufferedReader(new InputStreamReader(is));
                 this.handler = handler;
             }
 
             @Override
-            public void run()
+            public void line(String line, boolean stderr)
             {
-                try
-                {
-                    String line;
-                    while ((line = reader.readLine()) != null)
-                    {
-                        this.handler.logOutput(line, stderr);
-
-                        // log output also to file given in ProcessPanelSpec
+                this.handler.logOutput(line, stderr);
 
-                        if (logfile != null)
-                        {
-                            logfile.println(line);
-                        }
+                // log output also to file given in ProcessPanelSpec
 
-                        synchronized (this.stop)
-                        {
-                            if (stop)
-                            {
-                                return;
-                            }
-                        }
-                    }
-                }
-                catch (IOException ioe)
+                if (logfile != null)
                 {
-                    this.handler.logOutput(ioe.toString(), true);
-
-                    // log errors also to file given in ProcessPanelSpec
-
-                    if (logfile != null)
-                    {
-                        logfile.println(ioe.toString());
-                    }
-
+                    logfile.println(line);
                 }
-
             }
 
-            public void doStop()
+            @Override
+            public void error(IOException ioe, boolean stderr)
             {
-                synchronized (this.stop)
+                this.handler.logOutput(ioe.toString(), true);
+
+                // log errors also to file given in ProcessPanelSpec
+
+                if (logfile != null)
                 {
-                    this.stop = true;
+                    logfile.println(ioe.toString());
                 }
             }
 
@@ -891,6 +1059,22 @@ public class ProcessPanelWorker implements Runnable
         return (false);
     }
 
+    /**
+     * Creates the threads running parallel jobs.
+     */
+    private static class JobThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "processing job " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
     private static class QuestionErrorDisplayer implements Runnable
     {
         private AbstractUIProcessHandler uiHandler;
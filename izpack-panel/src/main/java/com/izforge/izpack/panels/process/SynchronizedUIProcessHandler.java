@@ -0,0 +1,170 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.process;
+
+/**
+ * An {@link AbstractUIProcessHandler} that serialises calls to another handler, so that jobs running in
+ * parallel can share it.
+ * <p/>
+ * Output and progress calls, and calls that display a dialog, are serialised separately. A job waiting for the user
+ * to answer a dialog therefore doesn't stop the output of the other jobs from being drained.
+ */
+class SynchronizedUIProcessHandler implements AbstractUIProcessHandler
+{
+
+    /**
+     * The handler to delegate to.
+     */
+    private final AbstractUIProcessHandler handler;
+
+    /**
+     * The lock for output and progress calls.
+     */
+    private final Object outputLock = new Object();
+
+    /**
+     * The lock for calls that display a dialog, so that only one is displayed at a time.
+     */
+    private final Object dialogLock = new Object();
+
+    /**
+     * Constructs a {@code SynchronizedUIProcessHandler}.
+     *
+     * @param handler the handler to delegate to
+     */
+    SynchronizedUIProcessHandler(AbstractUIProcessHandler handler)
+    {
+        this.handler = handler;
+    }
+
+    /**
+     * Returns the handler that calls are delegated to.
+     * <p/>
+     * This must be used for calls made on the event dispatch thread. Otherwise a job thread holding the lock while
+     * waiting on the event dispatch thread (e.g. to display a dialog) would deadlock.
+     *
+     * @param handler the handler, possibly synchronized
+     * @return the underlying handler
+     */
+    static AbstractUIProcessHandler unwrap(AbstractUIProcessHandler handler)
+    {
+        return (handler instanceof SynchronizedUIProcessHandler)
+                ? ((SynchronizedUIProcessHandler) handler).handler : handler;
+    }
+
+    @Override
+    public void logOutput(String message, boolean stderr)
+    {
+        synchronized (outputLock)
+        {
+            handler.logOutput(message, stderr);
+        }
+    }
+
+    @Override
+    public void startProcessing(int no_of_processes)
+    {
+        synchronized (outputLock)
+        {
+            handler.startProcessing(no_of_processes);
+        }
+    }
+
+    @Override
+    public void startProcess(String name)
+    {
+        synchronized (outputLock)
+        {
+            handler.startProcess(name);
+        }
+    }
+
+    @Override
+    public void finishProcess()
+    {
+        synchronized (outputLock)
+        {
+            handler.finishProcess();
+        }
+    }
+
+    @Override
+    public void finishProcessing(boolean unlockPrev, boolean unlockNext)
+    {
+        synchronized (outputLock)
+        {
+            handler.finishProcessing(unlockPrev, unlockNext);
+        }
+    }
+
+    @Override
+    public void emitNotification(String message)
+    {
+        synchronized (dialogLock)
+        {
+            handler.emitNotification(message);
+        }
+    }
+
+    @Override
+    public boolean emitWarning(String title, String message)
+    {
+        synchronized (dialogLock)
+        {
+            return handler.emitWarning(title, message);
+        }
+    }
+
+    @Override
+    public void emitError(String title, String message)
+    {
+        synchronized (dialogLock)
+        {
+            handler.emitError(title, message);
+        }
+    }
+
+    @Override
+    public int askQuestion(String title, String question, int choices)
+    {
+        synchronized (dialogLock)
+        {
+            return handler.askQuestion(title, question, choices);
+        }
+    }
+
+    @Override
+    public int askQuestion(String title, String question, int choices, int default_choice)
+    {
+        synchronized (dialogLock)
+        {
+            return handler.askQuestion(title, question, choices, default_choice);
+        }
+    }
+
+    @Override
+    public int askWarningQuestion(String title, String question, int choices, int default_choice)
+    {
+        synchronized (dialogLock)
+        {
+            return handler.askWarningQuestion(title, question, choices, default_choice);
+        }
+    }
+}
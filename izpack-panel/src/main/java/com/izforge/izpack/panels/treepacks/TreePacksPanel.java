@@ -6,7 +6,6 @@ import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.io.File;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Enumeration;
@@ -32,6 +31,7 @@ import javax.swing.tree.TreePath;
 
 import com.izforge.izpack.api.factory.ObjectFactory;
 import com.izforge.izpack.installer.util.InstallPathHelper;
+import com.izforge.izpack.panels.packs.DiskSpacePlanner;
 import com.izforge.izpack.panels.packs.PackValidator;
 import org.apache.commons.io.IOUtils;
 
@@ -86,6 +86,11 @@ public class TreePacksPanel extends IzPanel
     private CheckTreeController checkTreeController;
     private HashMap<String, CheckBoxNode> nameToCheckBox = new HashMap<>();
 
+    /**
+     * The disk space planner. Created on demand.
+     */
+    private transient DiskSpacePlanner planner;
+
     /**
      * The constructor.
      *
@@ -304,25 +309,52 @@ public class TreePacksPanel extends IzPanel
 
     private long getAvailableBytes()
     {
-        return IoHelper.getFreeSpace(IoHelper.existingParent(
-                new File(InstallPathHelper.getPath(installData))).getAbsolutePath());
+        return getDiskSpacePlanner().getAvailable(InstallPathHelper.getPath(installData));
     }
+
     /**
-     * Show the amount of free space available for the installation path.
+     * Returns the planner used to determine the disk space required by the selected packs.
+     *
+     * @return the disk space planner
+     */
+    private DiskSpacePlanner getDiskSpacePlanner()
+    {
+        if (planner == null)
+        {
+            planner = new DiskSpacePlanner(installData.getVariables(), getResources());
+        }
+        return planner;
+    }
+
+    /**
+     * Show the amount of free space available for the installation path or, if the selected packs need more space
+     * than is available on any file system they install to, the shortfall on that file system.
+     * <p/>
+     * This is invoked as the selection changes.
      */
     private void showFreeSpace()
     {
         if (IoHelper.supported("getFreeSpace") && freeSpaceLabel != null)
         {
             String msg = null;
-            long freeBytes = getAvailableBytes();
-            if (freeBytes < 0)
+            DiskSpacePlanner planner = getDiskSpacePlanner();
+            planner.update(packsModel.updatePacksToInstall());
+            DiskSpacePlanner.Usage insufficient = planner.getInsufficient();
+            if (insufficient != null)
             {
-                msg = getString("PacksPanel.notAscertainable");
+                msg = insufficient.getShortfallMessage(installData.getMessages());
             }
             else
             {
-                msg = Pack.toByteUnitsString(freeBytes);
+                long freeBytes = getAvailableBytes();
+                if (freeBytes < 0)
+                {
+                    msg = getString("PacksPanel.notAscertainable");
+                }
+                else
+                {
+                    msg = Pack.toByteUnitsString(freeBytes);
+                }
             }
             freeSpaceLabel.setText(msg);
         }
@@ -337,14 +369,15 @@ public class TreePacksPanel extends IzPanel
     public boolean isValidated()
     {
         packsModel.updatePacksToInstall();
-        long freeBytes = getAvailableBytes();
-        if (IoHelper.supported("getFreeSpace")
-                && freeBytes >= 0
-                && freeBytes <= packsModel.getTotalByteSize())
+        DiskSpacePlanner planner = getDiskSpacePlanner();
+        planner.update(installData.getSelectedPacks());
+        DiskSpacePlanner.Usage insufficient = planner.getInsufficient();
+        if (IoHelper.supported("getFreeSpace") && insufficient != null)
         {
             JOptionPane.showMessageDialog(
-                this, getString("PacksPanel.notEnoughSpace"), getString("installer.error"),
-                                 JOptionPane.ERROR_MESSAGE);
+                this, getString("PacksPanel.notEnoughSpace") + "\n"
+                      + insufficient.getShortfallMessage(installData.getMessages()),
+                getString("installer.error"), JOptionPane.ERROR_MESSAGE);
             return false;
         }
         for (Pack pack : this.installData.getAvailablePacks())
@@ -251,6 +251,18 @@ public class UserInputPanel extends IzPanel
         }
     }
 
+    /**
+     * This method is called when the panel is deactivated.
+     */
+    @Override
+    public void panelDeactivate()
+    {
+        for (GUIField view : views)
+        {
+            view.deactivate();
+        }
+    }
+
     /**
      * Creates an installation record for unattended installations on {@link UserInputPanel},
      * created during GUI installations.
@@ -21,9 +21,8 @@
 
 package com.izforge.izpack.panels.userinput.console;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
 
 import com.izforge.izpack.api.handler.Prompt;
 import com.izforge.izpack.panels.userinput.field.Choice;
@@ -33,11 +32,29 @@ import com.izforge.izpack.util.Console;
 
 /**
  * Console presentation of {@link ChoiceField}.
+ * <p/>
+ * If there are more than {@link #PAGE_SIZE} visible choices, they are displayed a page at a time. The user can move
+ * between pages, or enter text to go to the next choice containing it.
  *
  * @author Tim Anderson
  */
 public abstract class ConsoleChoiceField<T extends Choice> extends ConsoleField
 {
+    /**
+     * The maximum number of choices displayed at once.
+     */
+    public static final int PAGE_SIZE = 20;
+
+    /**
+     * The input to display the next page.
+     */
+    private static final String NEXT_PAGE = "n";
+
+    /**
+     * The input to display the previous page.
+     */
+    private static final String PREVIOUS_PAGE = "p";
+
     /**
      * Constructs a {@link ConsoleChoiceField}.
      *
@@ -76,73 +93,225 @@ public abstract class ConsoleChoiceField<T extends Choice> extends ConsoleField
         printLabel();
         List<Choice> choices = field.getChoices();
         final int selectedRealIndex = field.getSelectedIndex();
-        MappedSelection visibleToRealMapping = listChoices(choices, selectedRealIndex);
-        if (isReadonly())
+        MappedSelection visibleToRealMapping = getVisibleChoices(choices, selectedRealIndex);
+        int selectedVisibleIndex;
+        if (visibleToRealMapping.size() <= PAGE_SIZE)
         {
-            field.setValue(choices.get(field.getSelectedIndex() == -1 ? 0 : field.getSelectedIndex()).getKey());
-            return true;
+            listChoices(choices, visibleToRealMapping, 0, visibleToRealMapping.size(), selectedRealIndex);
+            if (isReadonly())
+            {
+                selectedVisibleIndex = -1;
+            }
+            else
+            {
+                selectedVisibleIndex = getConsole().prompt(getMessage("ConsoleInstaller.inputSelection"), 0,
+                        visibleToRealMapping.size() - 1, visibleToRealMapping.getDefaultVisibleIndex(), -1);
+                if (selectedVisibleIndex == -1)
+                {
+                    return false;
+                }
+            }
         }
         else
         {
-            int selectedVisibleIndex = getConsole().prompt(getMessage("ConsoleInstaller.inputSelection"), 0,
-                    visibleToRealMapping.size() - 1, visibleToRealMapping.getDefaultVisibleIndex(), -1);
-            if (selectedVisibleIndex == -1)
+            selectedVisibleIndex = selectPaged(choices, visibleToRealMapping, selectedRealIndex);
+            if (selectedVisibleIndex == -1 && !isReadonly())
             {
                 return false;
             }
+        }
+        if (isReadonly())
+        {
+            field.setValue(choices.get(field.getSelectedIndex() == -1 ? 0 : field.getSelectedIndex()).getKey());
+        }
+        else
+        {
             field.setValue(choices.get(visibleToRealMapping.getRealFromVisible(selectedVisibleIndex)).getKey());
-            return true;
+        }
+        return true;
+    }
+
+    /**
+     * Displays the choices a page at a time, and prompts for a selection.
+     * <p/>
+     * Read-only fields only display the page containing the selected choice.
+     *
+     * @param choices              the choices
+     * @param visibleToRealMapping the visible choices
+     * @param selectedRealIndex    the selected choice, or {@code -1} if no choice is selected
+     * @return the selected visible index, or {@code -1} if the end of input was reached or the field is read-only
+     */
+    private int selectPaged(List<Choice> choices, MappedSelection visibleToRealMapping, int selectedRealIndex)
+    {
+        int size = visibleToRealMapping.size();
+        int pages = (size + PAGE_SIZE - 1) / PAGE_SIZE;
+        int defaultVisibleIndex = visibleToRealMapping.getDefaultVisibleIndex();
+        int page = (defaultVisibleIndex != -1) ? defaultVisibleIndex / PAGE_SIZE : 0;
+        while (true)
+        {
+            int from = page * PAGE_SIZE;
+            listChoices(choices, visibleToRealMapping, from, Math.min(from + PAGE_SIZE, size), selectedRealIndex);
+            println("(" + (page + 1) + "/" + pages + ")");
+            if (isReadonly())
+            {
+                return -1;
+            }
+            String input = getConsole().prompt(getMessage("ConsoleInstaller.inputSelectionPaged"), "");
+            if (input == null)
+            {
+                return -1;
+            }
+            input = input.trim();
+            if (input.isEmpty())
+            {
+                if (defaultVisibleIndex != -1)
+                {
+                    return defaultVisibleIndex;
+                }
+            }
+            else if (NEXT_PAGE.equalsIgnoreCase(input))
+            {
+                page = Math.min(page + 1, pages - 1);
+            }
+            else if (PREVIOUS_PAGE.equalsIgnoreCase(input))
+            {
+                page = Math.max(page - 1, 0);
+            }
+            else
+            {
+                int index = parseIndex(input);
+                if (index >= 0 && index < size)
+                {
+                    return index;
+                }
+                else if (index == -1)
+                {
+                    int found = find(choices, visibleToRealMapping, input, from + PAGE_SIZE);
+                    if (found != -1)
+                    {
+                        page = found / PAGE_SIZE;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the next visible choice whose display value contains the specified text, ignoring case.
+     *
+     * @param choices              the choices
+     * @param visibleToRealMapping the visible choices
+     * @param text                 the text to search for
+     * @param start                the visible index to start searching from. The search wraps around
+     * @return the visible index of the choice, or {@code -1} if none was found
+     */
+    private int find(List<Choice> choices, MappedSelection visibleToRealMapping, String text, int start)
+    {
+        String match = text.toLowerCase(Locale.ENGLISH);
+        int size = visibleToRealMapping.size();
+        for (int i = 0; i < size; ++i)
+        {
+            int visibleIndex = (start + i) % size;
+            String value = choices.get(visibleToRealMapping.getRealFromVisible(visibleIndex)).getValue();
+            if (value != null && value.toLowerCase(Locale.ENGLISH).contains(match))
+            {
+                return visibleIndex;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses a choice index.
+     *
+     * @param input the input
+     * @return the index, {@code -1} if the input isn't a number, or {@code -2} if it is negative
+     */
+    private int parseIndex(String input)
+    {
+        try
+        {
+            int result = Integer.parseInt(input);
+            return (result >= 0) ? result : -2;
+        }
+        catch (NumberFormatException exception)
+        {
+            return -1;
         }
     }
 
     /**
-     * Displays the choices.
+     * Determines the visible choices.
+     * <p/>
+     * This evaluates choice conditions, without creating lazily created choices.
      *
-     * @param choices  the choices
+     * @param choices           the choices
      * @param selectedRealIndex the selected choice, or {@code -1} if no choice is selected
+     * @return the visible choices
      */
-    private MappedSelection listChoices(List<Choice> choices, int selectedRealIndex)
+    private MappedSelection getVisibleChoices(List<Choice> choices, int selectedRealIndex)
     {
-        int visibleIndex = 0;
-        MappedSelection visibleToRealMapping = new MappedSelection();
+        ChoiceField field = getField();
+        MappedSelection visibleToRealMapping = new MappedSelection(choices.size());
         for (int i = 0; i < choices.size(); ++i)
         {
-            Choice choice = choices.get(i);
-            String conditionId = choice.getConditionId();
-            if (conditionId == null || getField().getInstallData().getRules().isConditionTrue(conditionId))
+            if (field.isDisplayed(i))
             {
-                boolean isSelected = (i == selectedRealIndex);
-                println(visibleIndex + "  [" + (isSelected ? "x" : " ") + "] " + choice.getValue());
-                visibleToRealMapping.put(Integer.valueOf(visibleIndex), Integer.valueOf(i));
-                if (isSelected)
+                if (i == selectedRealIndex)
                 {
                     // The default when the user hits just ENTER without entering an explicit value
-                    visibleToRealMapping.setDefaultVisibleIndex(visibleIndex);
+                    visibleToRealMapping.setDefaultVisibleIndex(visibleToRealMapping.size());
                 }
-                visibleIndex++;
+                visibleToRealMapping.add(i);
             }
         }
         return visibleToRealMapping;
     }
 
+    /**
+     * Displays a range of the visible choices.
+     *
+     * @param choices              the choices
+     * @param visibleToRealMapping the visible choices
+     * @param from                 the first visible index to display
+     * @param to                   the visible index to display up to, exclusive
+     * @param selectedRealIndex    the selected choice, or {@code -1} if no choice is selected
+     */
+    private void listChoices(List<Choice> choices, MappedSelection visibleToRealMapping, int from, int to,
+                             int selectedRealIndex)
+    {
+        for (int visibleIndex = from; visibleIndex < to; ++visibleIndex)
+        {
+            int realIndex = visibleToRealMapping.getRealFromVisible(visibleIndex);
+            boolean isSelected = (realIndex == selectedRealIndex);
+            println(visibleIndex + "  [" + (isSelected ? "x" : " ") + "] " + choices.get(realIndex).getValue());
+        }
+    }
+
     private static class MappedSelection
     {
-        private Map<Integer, Integer> visibleToRealIndexes = new HashMap<Integer, Integer>();
+        private final int[] visibleToRealIndexes;
+        private int size;
         private int defaultVisibleIndex = -1;
 
-        public Integer put(Integer visibleIndex, Integer realIndex)
+        public MappedSelection(int capacity)
+        {
+            visibleToRealIndexes = new int[capacity];
+        }
+
+        public void add(int realIndex)
         {
-            return visibleToRealIndexes.put(visibleIndex, realIndex);
+            visibleToRealIndexes[size++] = realIndex;
         }
 
         public int size()
         {
-            return visibleToRealIndexes.size();
+            return size;
         }
 
-        public Integer getRealFromVisible(int visibleIndex)
+        public int getRealFromVisible(int visibleIndex)
         {
-            return visibleToRealIndexes.get(visibleIndex);
+            return visibleToRealIndexes[visibleIndex];
         }
 
         public void setDefaultVisibleIndex(int defaultVisibleIndex)
@@ -24,6 +24,7 @@ package com.izforge.izpack.panels.userinput.field;
 import java.util.List;
 
 import com.izforge.izpack.api.data.InstallData;
+import com.izforge.izpack.api.rules.RulesEngine;
 
 
 /**
@@ -72,4 +73,27 @@ public abstract class ChoiceField extends Field
     {
         return config.getSelectedIndex(getVariable());
     }
+
+    /**
+     * Determines if a choice should be displayed, based on its condition.
+     * <p/>
+     * For lazily created choices, this doesn't create the choice.
+     *
+     * @param index the choice index
+     * @return {@code true} if the choice has no condition, or its condition is true
+     */
+    public boolean isDisplayed(int index)
+    {
+        String conditionId;
+        if (choices instanceof LazyChoiceList)
+        {
+            conditionId = ((LazyChoiceList) choices).getConditionId(index);
+        }
+        else
+        {
+            conditionId = choices.get(index).getConditionId();
+        }
+        RulesEngine rules = getInstallData().getRules();
+        return conditionId == null || rules == null || rules.isConditionTrue(conditionId);
+    }
 }
@@ -0,0 +1,172 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.panels.userinput.field;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+
+/**
+ * A list of choices that are only created when they are first accessed.
+ * <p/>
+ * Choice fields can be populated from specs with many thousands of choices. This list defers creating each
+ * {@link Choice} until it is displayed, and allows the condition of a choice to be determined without creating it.
+ */
+public class LazyChoiceList extends AbstractList<Choice> implements RandomAccess
+{
+
+    /**
+     * Creates choices on demand.
+     */
+    public interface Loader
+    {
+
+        /**
+         * Creates a choice.
+         *
+         * @param index the choice index
+         * @return the choice
+         */
+        Choice load(int index);
+
+        /**
+         * Returns the key of a choice, without creating it.
+         *
+         * @param index the choice index
+         * @return the choice key
+         */
+        String getKey(int index);
+
+        /**
+         * Returns the condition identifier of a choice, without creating it.
+         *
+         * @param index the choice index
+         * @return the condition identifier. May be {@code null}
+         */
+        String getConditionId(int index);
+    }
+
+    /**
+     * The loader.
+     */
+    private final Loader loader;
+
+    /**
+     * The choices created so far.
+     */
+    private final Choice[] choices;
+
+    /**
+     * The number of choices created.
+     */
+    private int loaded;
+
+
+    /**
+     * Constructs a {@code LazyChoiceList}.
+     *
+     * @param size   the number of choices
+     * @param loader the loader to create choices
+     */
+    public LazyChoiceList(int size, Loader loader)
+    {
+        this.loader = loader;
+        this.choices = new Choice[size];
+    }
+
+    /**
+     * Returns the choice at the specified index, creating it if required.
+     *
+     * @param index the choice index
+     * @return the choice
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    @Override
+    public Choice get(int index)
+    {
+        Choice result = choices[index];
+        if (result == null)
+        {
+            result = loader.load(index);
+            choices[index] = result;
+            ++loaded;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of choices.
+     *
+     * @return the number of choices
+     */
+    @Override
+    public int size()
+    {
+        return choices.length;
+    }
+
+    /**
+     * Returns the key of a choice, without creating it.
+     *
+     * @param index the choice index
+     * @return the choice key
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public String getKey(int index)
+    {
+        Choice choice = choices[index];
+        return (choice != null) ? choice.getKey() : loader.getKey(index);
+    }
+
+    /**
+     * Returns the condition identifier of a choice, without creating it.
+     *
+     * @param index the choice index
+     * @return the condition identifier. May be {@code null}
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public String getConditionId(int index)
+    {
+        Choice choice = choices[index];
+        return (choice != null) ? choice.getConditionId() : loader.getConditionId(index);
+    }
+
+    /**
+     * Determines if a choice has been created.
+     *
+     * @param index the choice index
+     * @return {@code true} if the choice has been created
+     */
+    public boolean isLoaded(int index)
+    {
+        return choices[index] != null;
+    }
+
+    /**
+     * Returns the number of choices created so far.
+     *
+     * @return the number of choices created
+     */
+    public int getLoadedCount()
+    {
+        return loaded;
+    }
+}
@@ -52,12 +52,16 @@ public class SimpleChoiceReader extends FieldReader implements ChoiceFieldConfig
 
     /**
      * Returns the choices.
+     * <p/>
+     * Choices supplied by processors are evaluated immediately. Those defined by <em>choice</em> elements are only
+     * created, and their labels have variables replaced, when they are first accessed.
      *
      * @return the choices
      */
     public List<Choice> getChoices()
     {
-        List<Choice> result = new ArrayList<Choice>();
+        final List<IXMLElement> elements = new ArrayList<IXMLElement>();
+        final List<Choice> processed = new ArrayList<Choice>();
         Config config = getConfig();
         for (IXMLElement choice : getSpec().getChildrenNamed(CHOICE))
         {
@@ -82,17 +86,53 @@ public class SimpleChoiceReader extends FieldReader implements ChoiceFieldConfig
                 while (tokenizer.hasMoreTokens())
                 {
                     String token = tokenizer.nextToken();
-                    result.add(new Choice(token, token, conditionId));
+                    elements.add(null);
+                    processed.add(new Choice(token, token, conditionId));
                 }
             }
             else
             {
-                String value = config.getAttribute( choice, "value" );
-                String label = this.installData.getVariables().replace( getText( choice ) );
-                result.add( new Choice( value, label, conditionId ) );
+                config.getAttribute(choice, "value"); // fail on invalid specs before the choice is displayed
+                elements.add(choice);
+                processed.add(null);
             }
         }
-        return result;
+        return new LazyChoiceList(elements.size(), new LazyChoiceList.Loader()
+        {
+            @Override
+            public Choice load(int index)
+            {
+                IXMLElement choice = elements.get(index);
+                if (choice == null)
+                {
+                    return processed.get(index);
+                }
+                String label = installData.getVariables().replace(getText(choice));
+                return new Choice(getKey(index), label, getConditionId(index));
+            }
+
+            @Override
+            public String getKey(int index)
+            {
+                IXMLElement choice = elements.get(index);
+                if (choice == null)
+                {
+                    return processed.get(index).getKey();
+                }
+                return getConfig().getAttribute(choice, "value");
+            }
+
+            @Override
+            public String getConditionId(int index)
+            {
+                IXMLElement choice = elements.get(index);
+                if (choice == null)
+                {
+                    return processed.get(index).getConditionId();
+                }
+                return getConfig().getString(choice, "conditionid", null);
+            }
+        });
     }
 
     /**
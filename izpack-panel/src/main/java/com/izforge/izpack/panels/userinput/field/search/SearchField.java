@@ -27,8 +27,11 @@ import com.izforge.izpack.panels.userinput.field.Field;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 
@@ -41,6 +44,14 @@ public class SearchField extends Field
 {
     private static final Logger logger = Logger.getLogger(SearchField.class.getName());
 
+    /**
+     * The results of searching each choice, keyed on the resolved choice, filename, check filename and search type.
+     * <p/>
+     * This lives as long as the field. As the key includes the resolved choice, changing the variables a choice
+     * refers to searches again. The cache is cleared when autodetection is requested.
+     */
+    private final Map<List<Object>, List<String>> cache = new ConcurrentHashMap<List<Object>, List<String>>();
+
     private final InstallData installData;
     /**
      * The filename to search on. May be {@code null}
@@ -156,46 +167,139 @@ public class SearchField extends Field
      * @return the search choices
      */
     public List<String> getChoices(List<String> choices)
+    {
+        return search(choices, null);
+    }
+
+    /**
+     * Searches the configured choices.
+     *
+     * @param listener the listener to notify of matching paths as they are found. May be {@code null}
+     * @return the matching paths
+     * @see #search(List, SearchListener)
+     */
+    public List<String> search(SearchListener listener)
+    {
+        return search(this.choices, listener);
+    }
+
+    /**
+     * Searches a list of choices for matching paths.
+     * <p/>
+     * A choice ending in &#42; is expanded to the entries of its directory, but no deeper, so that the search is
+     * bounded however large the directory tree below is.
+     * <p/>
+     * The results for each choice are cached. The search stops if the calling thread is interrupted, in which case
+     * the paths found so far are returned, and the interrupted choice is not cached.
+     *
+     * @param choices  the choices to search
+     * @param listener the listener to notify of matching paths as they are found. May be {@code null}
+     * @return the matching paths
+     */
+    public List<String> search(List<String> choices, SearchListener listener)
     {
         List<String> items = new ArrayList<String>();
 
-        for (String path : choices)
+        for (String choice : choices)
         {
-            path = installData.getVariables().replace(path);
-
-            if (path.endsWith("*"))
+            if (Thread.currentThread().isInterrupted())
             {
-                path = path.substring(0, path.length() - 1);
-                File dir = new File(path);
-
-                if (dir.isDirectory())
+                break;
+            }
+            String path = installData.getVariables().replace(choice);
+            List<Object> key = Arrays.<Object>asList(path, filename, checkFilename, type);
+            List<String> found = cache.get(key);
+            if (found == null)
+            {
+                found = search(path, listener);
+                if (Thread.currentThread().isInterrupted())
                 {
-                    File[] subdirs = dir.listFiles();
-                    if (subdirs != null)
-                    {
-                        for (File subdir : subdirs)
-                        {
-                            String search = subdir.getAbsolutePath();
-                            if (pathMatches(search))
-                            {
-                                items.add(search);
-                            }
-                        }
-                    }
+                    items.addAll(found);
+                    break;
                 }
+                cache.put(key, found);
             }
-            else
+            else if (listener != null)
             {
-                if (pathMatches(path))
+                for (String item : found)
                 {
-                    items.add(path);
+                    listener.found(item);
                 }
             }
+            items.addAll(found);
         }
 
         return items;
     }
 
+    /**
+     * Clears the cached search results.
+     * <p/>
+     * This should be invoked if the file system is changed in a way that may affect search results.
+     */
+    public void clearCache()
+    {
+        cache.clear();
+    }
+
+    /**
+     * Searches a single choice.
+     *
+     * @param path     the choice, with variables replaced
+     * @param listener the listener to notify of matching paths as they are found. May be {@code null}
+     * @return the matching paths
+     */
+    private List<String> search(String path, SearchListener listener)
+    {
+        List<String> items = new ArrayList<String>();
+        if (path.endsWith("*"))
+        {
+            path = path.substring(0, path.length() - 1);
+            File dir = new File(path);
+
+            if (dir.isDirectory())
+            {
+                File[] subdirs = dir.listFiles();
+                if (subdirs != null)
+                {
+                    for (File subdir : subdirs)
+                    {
+                        if (Thread.currentThread().isInterrupted())
+                        {
+                            break;
+                        }
+                        String search = subdir.getAbsolutePath();
+                        if (pathMatches(search))
+                        {
+                            found(search, items, listener);
+                        }
+                    }
+                }
+            }
+        }
+        else if (pathMatches(path))
+        {
+            found(path, items, listener);
+        }
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * Collects a matching path.
+     *
+     * @param path     the path
+     * @param items    the paths found so far
+     * @param listener the listener to notify. May be {@code null}
+     */
+    private void found(String path, List<String> items, SearchListener listener)
+    {
+        items.add(path);
+        if (listener != null)
+        {
+            listener.found(path);
+        }
+    }
+
     /**
      * Returns the index of the selected choice.
      *
@@ -0,0 +1,36 @@
+/*
+ * IzPack - Copyright 2001-2013 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.userinput.field.search;
+
+/**
+ * Receives the paths found by a {@link SearchField} as the search proceeds.
+ */
+public interface SearchListener
+{
+
+    /**
+     * Invoked when a matching path is found.
+     * <p/>
+     * This is invoked on the searching thread.
+     *
+     * @param path the path
+     */
+    void found(String path);
+}
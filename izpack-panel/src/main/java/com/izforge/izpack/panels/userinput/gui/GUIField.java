@@ -119,6 +119,15 @@ public abstract class GUIField extends AbstractFieldView
         return translateStaticText();
     }
 
+    /**
+     * Invoked when the panel displaying the view is deactivated.
+     * <p/>
+     * This implementation does nothing.
+     */
+    public void deactivate()
+    {
+    }
+
     /**
      * Returns the components that make up the view.
      *
@@ -0,0 +1,206 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.panels.userinput.gui.combo;
+
+import java.util.List;
+
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+
+import com.izforge.izpack.panels.userinput.field.Choice;
+import com.izforge.izpack.panels.userinput.field.LazyChoiceList;
+
+
+/**
+ * A combo box model that displays a subset of a field's choices.
+ * <p/>
+ * The model holds the indexes of the visible choices rather than the choices themselves, so that lazily created
+ * choices are only created when the combo box renders them.
+ */
+public class ChoiceComboBoxModel extends AbstractListModel implements ComboBoxModel
+{
+
+    /**
+     * The field's choices.
+     */
+    private final List<Choice> choices;
+
+    /**
+     * The indexes of the visible choices.
+     */
+    private int[] indexes = new int[0];
+
+    /**
+     * The number of visible choices.
+     */
+    private int size;
+
+    /**
+     * The selected index, or {@code -1} if no choice is selected.
+     */
+    private int selected = -1;
+
+
+    /**
+     * Constructs a {@code ChoiceComboBoxModel}.
+     *
+     * @param choices the field's choices
+     */
+    public ChoiceComboBoxModel(List<Choice> choices)
+    {
+        this.choices = choices;
+    }
+
+    /**
+     * Sets the visible choices.
+     *
+     * @param indexes  the indexes of the visible choices, in the field's choices
+     * @param size     the number of visible choices. Only the first {@code size} indexes are used
+     * @param selected the selected index, or {@code -1} if no choice is selected
+     */
+    public void setChoices(int[] indexes, int size, int selected)
+    {
+        int oldSize = this.size;
+        this.size = 0;
+        this.selected = -1;
+        if (oldSize > 0)
+        {
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+        this.indexes = indexes;
+        this.size = size;
+        if (size > 0)
+        {
+            fireIntervalAdded(this, 0, size - 1);
+        }
+        setSelectedIndex(selected);
+    }
+
+    /**
+     * Returns the number of visible choices.
+     *
+     * @return the number of visible choices
+     */
+    @Override
+    public int getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the visible choice at the specified index.
+     *
+     * @param index the index
+     * @return the choice, or {@code null} if the index is out of range
+     */
+    @Override
+    public Object getElementAt(int index)
+    {
+        return (index >= 0 && index < size) ? choices.get(indexes[index]) : null;
+    }
+
+    /**
+     * Returns the selected index.
+     *
+     * @return the selected index, or {@code -1} if no choice is selected
+     */
+    public int getSelectedIndex()
+    {
+        return selected;
+    }
+
+    /**
+     * Sets the selected index.
+     *
+     * @param index the index, or {@code -1} to clear the selection
+     */
+    public void setSelectedIndex(int index)
+    {
+        if (index < -1 || index >= size)
+        {
+            index = -1;
+        }
+        if (index != selected)
+        {
+            selected = index;
+            fireContentsChanged(this, -1, -1);
+        }
+    }
+
+    /**
+     * Returns the index of the visible choice with the specified key.
+     *
+     * @param key the choice key
+     * @return the index of the choice, or {@code -1} if there is no visible choice with the key
+     */
+    public int indexOfKey(String key)
+    {
+        LazyChoiceList lazy = (choices instanceof LazyChoiceList) ? (LazyChoiceList) choices : null;
+        for (int i = 0; i < size; ++i)
+        {
+            int choice = indexes[i];
+            String choiceKey = (lazy != null) ? lazy.getKey(choice) : choices.get(choice).getKey();
+            if (key.equals(choiceKey))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the selected choice.
+     *
+     * @return the selected choice, or {@code null} if no choice is selected
+     */
+    @Override
+    public Object getSelectedItem()
+    {
+        return getElementAt(selected);
+    }
+
+    /**
+     * Sets the selected choice.
+     * <p/>
+     * Only choices that have already been created are compared, as the choice must have been obtained from the model.
+     *
+     * @param item the choice. May be {@code null}
+     */
+    @Override
+    public void setSelectedItem(Object item)
+    {
+        int index = -1;
+        if (item != null)
+        {
+            LazyChoiceList lazy = (choices instanceof LazyChoiceList) ? (LazyChoiceList) choices : null;
+            for (int i = 0; i < size; ++i)
+            {
+                int choice = indexes[i];
+                if ((lazy == null || lazy.isLoaded(choice)) && item.equals(choices.get(choice)))
+                {
+                    index = i;
+                    break;
+                }
+            }
+        }
+        setSelectedIndex(index);
+    }
+}
@@ -23,9 +23,14 @@ package com.izforge.izpack.panels.userinput.gui.combo;
 
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
+import java.util.List;
 
+import javax.accessibility.Accessible;
 import javax.swing.JComboBox;
 import javax.swing.JComponent;
+import javax.swing.JList;
+import javax.swing.plaf.ComboBoxUI;
+import javax.swing.plaf.basic.ComboPopup;
 
 import com.izforge.izpack.api.handler.Prompt;
 import com.izforge.izpack.panels.userinput.field.Choice;
@@ -35,11 +40,30 @@ import com.izforge.izpack.panels.userinput.gui.GUIField;
 
 /**
  * Combo field view.
+ * <p/>
+ * The combo box displays the field's choices via a {@link ChoiceComboBoxModel}, so choices are only created when
+ * rendered. For large numbers of choices, the combo box and its popup are sized using a prototype choice, rather than
+ * by rendering every choice.
  *
  * @author Tim Anderson
  */
 public class GUIComboField extends GUIField
 {
+    /**
+     * The number of visible choices above which the combo box is sized from a prototype choice.
+     */
+    private static final int PROTOTYPE_THRESHOLD = 500;
+
+    /**
+     * The number of leading visible choices examined to select the prototype choice.
+     */
+    private static final int PROTOTYPE_SAMPLE = 100;
+
+    /**
+     * The combo model.
+     */
+    private final ChoiceComboBoxModel model;
+
     /**
      * The combo.
      */
@@ -54,13 +78,10 @@ public class GUIComboField extends GUIField
     public GUIComboField(ComboField field)
     {
         super(field);
-        combo = new JComboBox();
+        model = new ChoiceComboBoxModel(field.getChoices());
+        combo = new ChoiceComboBox(model);
         combo.setName(field.getVariable());
-        for (Choice choice : field.getChoices())
-        {
-            combo.addItem(choice);
-        }
-        combo.setSelectedIndex(field.getSelectedIndex());
+        refreshChoices();
         combo.addItemListener(new ItemListener()
         {
             @Override
@@ -131,14 +152,11 @@ public class GUIComboField extends GUIField
 
     private boolean splitValue(String value)
     {
-        for (int i = 0; i < combo.getItemCount(); i++)
+        int index = model.indexOfKey(value);
+        if (index != -1)
         {
-            Choice item = (Choice) combo.getItemAt(i);
-            if (value.equals(item.getTrueValue()))
-            {
-                combo.setSelectedIndex(i);
-                return true;
-            }
+            model.setSelectedIndex(index);
+            return true;
         }
         return false;
     }
@@ -150,28 +168,138 @@ public class GUIComboField extends GUIField
     private void refreshChoices()
     {
         ComboField field = (ComboField)getField();
-        combo.removeAllItems();
-        int index = 0;
-        for (Choice choice : field.getChoices())
+        List<Choice> choices = field.getChoices();
+        int selectedIndex = field.getSelectedIndex();
+        int[] indexes = new int[choices.size()];
+        int size = 0;
+        int selected = -1;
+        for (int i = 0; i < indexes.length; ++i)
         {
-            String conditionId = choice.getConditionId();
-            if (conditionId == null || getInstallData().getRules().isConditionTrue(conditionId))
+            if (field.isDisplayed(i))
             {
-                combo.addItem(choice);
+                if (i == selectedIndex)
+                {
+                    selected = size;
+                }
+                indexes[size++] = i;
             }
+        }
+        if (selected == -1 && size > 0)
+        {
+            selected = 0;
+        }
+        // set the prototype first, so the popup list doesn't measure every choice when they are added
+        combo.setPrototypeDisplayValue(getPrototype(choices, indexes, size));
+        model.setChoices(indexes, size, selected);
+    }
 
-            boolean selected = field.getSelectedIndex() == index;
-            if (selected)
+    /**
+     * Returns the choice used to size the combo box.
+     *
+     * @param choices the choices
+     * @param indexes the indexes of the visible choices
+     * @param size    the number of visible choices
+     * @return the longest of the leading visible choices, or {@code null} if there are too few choices for a
+     *         prototype to be worthwhile
+     */
+    private Choice getPrototype(List<Choice> choices, int[] indexes, int size)
+    {
+        Choice result = null;
+        if (size > PROTOTYPE_THRESHOLD)
+        {
+            int length = -1;
+            for (int i = 0; i < PROTOTYPE_SAMPLE; ++i)
             {
-                combo.setSelectedItem(choice);
+                Choice choice = choices.get(indexes[i]);
+                String value = choice.getValue();
+                int choiceLength = (value != null) ? value.length() : 0;
+                if (choiceLength > length)
+                {
+                    result = choice;
+                    length = choiceLength;
+                }
             }
-            index++;
         }
-     }
+        return result;
+    }
 
     @Override
     public JComponent getFirstFocusableComponent()
     {
         return combo;
     }
+
+    /**
+     * A combo box that selects via its {@link ChoiceComboBoxModel}, rather than searching for the selected choice,
+     * and that sizes its popup list using the prototype display value, if any.
+     */
+    private static class ChoiceComboBox extends JComboBox
+    {
+        private static final long serialVersionUID = -1853096154768046262L;
+
+        /**
+         * Constructs a {@code ChoiceComboBox}.
+         *
+         * @param model the model
+         */
+        public ChoiceComboBox(ChoiceComboBoxModel model)
+        {
+            super(model);
+        }
+
+        @Override
+        public int getSelectedIndex()
+        {
+            return ((ChoiceComboBoxModel) getModel()).getSelectedIndex();
+        }
+
+        @Override
+        public void setSelectedIndex(int index)
+        {
+            if (index < -1 || index >= getItemCount())
+            {
+                throw new IllegalArgumentException("setSelectedIndex: " + index + " out of bounds");
+            }
+            ((ChoiceComboBoxModel) getModel()).setSelectedIndex(index);
+        }
+
+        @Override
+        public void setPrototypeDisplayValue(Object prototype)
+        {
+            super.setPrototypeDisplayValue(prototype);
+            updatePopupList();
+        }
+
+        @Override
+        public void updateUI()
+        {
+            super.updateUI();
+            updatePopupList();
+        }
+
+        /**
+         * Sizes the popup list cells from the prototype display value, so that the list doesn't render every choice
+         * to determine its size.
+         */
+        private void updatePopupList()
+        {
+            ComboBoxUI ui = getUI();
+            Accessible popup = (ui != null) ? ui.getAccessibleChild(this, 0) : null;
+            if (popup instanceof ComboPopup)
+            {
+                JList list = ((ComboPopup) popup).getList();
+                Object prototype = getPrototypeDisplayValue();
+                if (prototype != null)
+                {
+                    list.setPrototypeCellValue(prototype);
+                }
+                else if (list.getPrototypeCellValue() != null)
+                {
+                    list.setPrototypeCellValue(null);
+                    list.setFixedCellWidth(-1);
+                    list.setFixedCellHeight(-1);
+                }
+            }
+        }
+    }
 }
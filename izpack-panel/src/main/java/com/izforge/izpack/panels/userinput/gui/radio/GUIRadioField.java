@@ -75,6 +75,7 @@ public class GUIRadioField extends GUIField implements ActionListener
         buttonGroup = new ButtonGroup();
 
         int id = 1;
+        int selectedIndex = field.getSelectedIndex();
 
         for (Choice choice : field.getChoices())
         {
@@ -100,7 +101,7 @@ public class GUIRadioField extends GUIField implements ActionListener
             });
 
             buttonGroup.add(button);
-            boolean selected = field.getSelectedIndex() == buttonGroup.getButtonCount() - 1;
+            boolean selected = selectedIndex == buttonGroup.getButtonCount() - 1;
 
             if (selected)
             {
@@ -234,17 +235,17 @@ public class GUIRadioField extends GUIField implements ActionListener
     {
 
         RadioField field = getField();
+        int selectedIndex = field.getSelectedIndex();
 
         int index = 0;
         for (RadioChoiceView radioChoiceView : choices)
         {
-            String conditionId = radioChoiceView.getChoice().getConditionId();
             JRadioButton radioButton = radioChoiceView.getButton();
-            if (conditionId == null || getInstallData().getRules().isConditionTrue(conditionId))
+            if (field.isDisplayed(index))
             {
                 radioButton.setVisible(true);
 
-                boolean selected = field.getSelectedIndex() == index;
+                boolean selected = selectedIndex == index;
                 if (selected)
                 {
                     radioButton.setSelected(true);
@@ -68,16 +68,6 @@ public class GUISearchField extends GUIField
         combo.setEditable(true);
         combo.setName(field.getVariable());
 
-        for (String choice : field.getChoices())
-        {
-            combo.addItem(choice);
-        }
-        int index = field.getSelectedIndex();
-        if (index > -1)
-        {
-            combo.setSelectedIndex(index);
-        }
-
         addDescription();
         addLabel();
 
@@ -124,6 +114,8 @@ public class GUISearchField extends GUIField
         addComponent(buttonPanel, new TwoColumnConstraints(TwoColumnConstraints.EASTONLY));
 
         searchInputField = new SearchInputField(field, frame, combo, autoDetect, browse, installData);
+        // the choices are searched in the background by updateView(), so the choice is selected once found
+        searchInputField.setSelectedIndex(field.getSelectedIndex());
         addTooltip();
     }
 
@@ -132,11 +124,16 @@ public class GUISearchField extends GUIField
      *
      * @param prompt the prompt to display messages
      * @param skipValidation set to true when wanting to save field data without validating
-     * @return {@code true} if the field was updated, {@code false} if the view is invalid
+     * @return {@code true} if the field was updated, {@code false} if the view is invalid, or the choices are still
+     *         being searched
      */
     @Override
     public boolean updateField(Prompt prompt, boolean skipValidation)
     {
+        if (!skipValidation && searchInputField.isSearching())
+        {
+            return false;
+        }
         getField().setValue(searchInputField.getResult());
         return true;
     }
@@ -169,10 +166,23 @@ public class GUISearchField extends GUIField
         {
             result &= searchInputField.autodetect();
         }
+        else
+        {
+            searchInputField.populate();
+        }
 
         return result;
     }
 
+    /**
+     * Cancels any search in progress.
+     */
+    @Override
+    public void deactivate()
+    {
+        searchInputField.cancel();
+    }
+
     @Override
     public JComponent getFirstFocusableComponent()
     {
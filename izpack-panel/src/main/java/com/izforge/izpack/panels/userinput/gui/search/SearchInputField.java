@@ -26,6 +26,7 @@ import com.izforge.izpack.gui.GUIPrompt;
 import com.izforge.izpack.installer.gui.InstallerFrame;
 import com.izforge.izpack.panels.userinput.field.search.ResultType;
 import com.izforge.izpack.panels.userinput.field.search.SearchField;
+import com.izforge.izpack.panels.userinput.field.search.SearchListener;
 import com.izforge.izpack.panels.userinput.field.search.SearchType;
 
 import javax.swing.*;
@@ -37,8 +38,11 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -63,6 +67,8 @@ public class SearchInputField implements ActionListener
 
     private final JComboBox pathComboBox;
 
+    private final JTextField editor;
+
     private final SearchType searchType;
 
     private final ResultType resultType;
@@ -71,6 +77,16 @@ public class SearchInputField implements ActionListener
 
     private final InstallData installData;
 
+    /**
+     * The search in progress. May be {@code null}
+     */
+    private SearchWorker worker;
+
+    /**
+     * The index of the choice to select when the choices have been searched, or {@code -1} if there is none.
+     */
+    private int selectedIndex = -1;
+
     /*---------------------------------------------------------------------------*/
 
     /**
@@ -103,7 +119,7 @@ public class SearchInputField implements ActionListener
         /*
          * add DocumentListener to manage nextButton if user enters input
          */
-        final JTextField editor = (JTextField) pathComboBox.getEditor().getEditorComponent();
+        editor = (JTextField) pathComboBox.getEditor().getEditorComponent();
         editor.getDocument().addDocumentListener(new DocumentListener()
         {
 
@@ -124,108 +140,223 @@ public class SearchInputField implements ActionListener
             {
                 checkNextButtonState();
             }
-
-            private void checkNextButtonState()
-            {
-                Document doc = editor.getDocument();
-                try
-                {
-                    if (field.pathMatches(doc.getText(0, doc.getLength())))
-                    {
-                        parent.unlockNextButton(false);
-                    }
-                    else
-                    {
-                        parent.lockNextButton();
-                    }
-                }
-                catch (BadLocationException e)
-                {/* ignore, it not happens */}
-            }
         });
     }
 
     /**
-     * perform autodetection
+     * Determines if a search is in progress.
+     *
+     * @return {@code true} if the choices are being searched
+     */
+    public boolean isSearching()
+    {
+        return worker != null;
+    }
+
+    /**
+     * Performs autodetection.
+     * <p/>
+     * The choices and any path entered by the user are searched in the background. Matching paths are added
+     * to the combo box as they are found, and the first is selected. When the search completes, paths that
+     * don't match are removed. Navigation to the next panel is locked until the search completes.
+     *
+     * @return {@code true} if the selected path already matches, otherwise {@code false}. The selection may change
+     *         when the search completes
      */
     public boolean autodetect()
     {
-        // Try all of <choice> options - see if any are valid
-        for (int x = 0; x < pathComboBox.getItemCount(); x++)
+        return autodetect(false);
+    }
+
+    /**
+     * Populates the combo box with the matching choices, in the background. The selection is not changed.
+     * <p/>
+     * Navigation to the next panel is locked until the search completes.
+     */
+    public void populate()
+    {
+        cancel();
+        start(new SearchWorker(Collections.<String>emptyList(), false, false));
+    }
+
+    /**
+     * Sets the index of the choice to select, once the choices have been searched.
+     * <p/>
+     * This only applies to the first search to complete, and only if no other path has been selected.
+     *
+     * @param index the index of the choice to select, or {@code -1} if there is none
+     */
+    public void setSelectedIndex(int index)
+    {
+        selectedIndex = index;
+    }
+
+    /**
+     * Cancels any search in progress.
+     */
+    public void cancel()
+    {
+        if (worker != null)
         {
-        	if( field.pathMatches( (String)pathComboBox.getItemAt(x) ) ) {
-        		pathComboBox.setSelectedIndex(x);
-        		break;
-        	}
+            worker.cancel(true);
+            worker = null;
         }
+    }
+
+    /**
+     * Performs autodetection.
+     *
+     * @param warn if {@code true}, display a warning if no matching path is found
+     * @return {@code true} if the selected path already matches, otherwise {@code false}
+     */
+    private boolean autodetect(boolean warn)
+    {
+        cancel();
 
         /*
          * Check if the user has entered installDataGUI into the ComboBox and add it to the Itemlist
          */
         String selected = (String) pathComboBox.getSelectedItem();
-        if (selected == null)
+        List<String> currentItems = new ArrayList<String>();
+        for (int i = 0; i < pathComboBox.getItemCount(); ++i)
         {
-            parent.lockNextButton();
-            return false;
+            currentItems.add((String) pathComboBox.getItemAt(i));
         }
-        boolean found = false;
-        for (int x = 0; x < pathComboBox.getItemCount(); x++)
+        if (selected != null && !currentItems.contains(selected))
         {
-            if (pathComboBox.getItemAt(x).equals(selected))
+            currentItems.add(selected);
+        }
+
+        start(new SearchWorker(currentItems, true, warn));
+        return selected != null && field.pathMatches(selected);
+    }
+
+    /**
+     * Starts a search, locking navigation to the next panel until it completes, so that the installation can't
+     * proceed with a partial result.
+     *
+     * @param search the search
+     */
+    private void start(SearchWorker search)
+    {
+        worker = search;
+        parent.lockNextButton();
+        search.execute();
+    }
+
+    /**
+     * Locks or unlocks navigation to the next panel, depending on whether the entered path matches.
+     * <p/>
+     * Navigation remains locked while a search is in progress.
+     */
+    private void checkNextButtonState()
+    {
+        Document doc = editor.getDocument();
+        try
+        {
+            if (worker == null && field.pathMatches(doc.getText(0, doc.getLength())))
+            {
+                parent.unlockNextButton(false);
+            }
+            else
             {
-                found = true;
+                parent.lockNextButton();
             }
         }
-        if (!found)
+        catch (BadLocationException e)
+        {/* ignore, it not happens */}
+    }
+
+    /**
+     * Adds a path found by the search to the combo box. The first path found is selected.
+     *
+     * @param path  the path
+     * @param first if {@code true}, this is the first path found
+     */
+    private void found(String path, boolean first)
+    {
+        boolean exists = false;
+        for (int i = 0; i < pathComboBox.getItemCount() && !exists; ++i)
         {
-            // Not found in item list
-            pathComboBox.addItem(selected);
+            exists = path.equals(pathComboBox.getItemAt(i));
         }
-
-        List<String> currentItems = new ArrayList<String>();
-        for (int i = 0; i < pathComboBox.getItemCount(); ++i)
+        if (!exists)
         {
-            currentItems.add((String) pathComboBox.getItemAt(i));
+            pathComboBox.addItem(path);
         }
-        List<String> items = field.getChoices(currentItems);
+        if (first)
+        {
+            pathComboBox.setSelectedItem(path);
+        }
+    }
 
-        // Make the entries in the vector unique
+    /**
+     * Invoked when the search completes.
+     *
+     * @param items  the matching paths
+     * @param select if {@code true}, select a matching path
+     * @param warn   if {@code true}, display a warning if no matching path was found
+     */
+    private void searched(List<String> items, boolean select, boolean warn)
+    {
+        // Make the entries unique and replace the combo box contents, keeping the selection if it matches
         items = new ArrayList<String>(new LinkedHashSet<String>(items));
-
-        // Now clear the combobox and add the items out of the newly
-        // generated vector
-        pathComboBox.removeAllItems();
-        for (String item : items)
+        Object selected = pathComboBox.getSelectedItem();
+        int index = selectedIndex < items.size() ? selectedIndex : -1;
+        selectedIndex = -1;
+        boolean changed = items.size() != pathComboBox.getItemCount();
+        for (int i = 0; !changed && i < items.size(); ++i)
         {
-            item = installData.getVariables().replace(item);
-            pathComboBox.addItem(item);
+            changed = !items.get(i).equals(pathComboBox.getItemAt(i));
         }
-
-        // loop through all items
-        for (int i = 0; i < pathComboBox.getItemCount(); ++i)
+        if (changed)
         {
-            String path = (String) pathComboBox.getItemAt(i);
-
-            if (field.pathMatches(path))
+            pathComboBox.removeAllItems();
+            for (String item : items)
             {
-                pathComboBox.setSelectedIndex(i);
-                parent.unlockNextButton();
-                return true;
+                pathComboBox.addItem(item);
             }
-
         }
 
-        // if the user entered something else, it's not listed as an item
-        if (field.pathMatches((String) pathComboBox.getSelectedItem()))
+        if (!select)
         {
+            if (selected == null && index != -1)
+            {
+                pathComboBox.setSelectedIndex(index);
+            }
+            else
+            {
+                pathComboBox.setSelectedItem(selected);
+            }
+            checkNextButtonState();
+        }
+        else if (index != -1)
+        {
+            // the first path found was selected while searching, so select the configured choice instead
+            pathComboBox.setSelectedIndex(index);
             parent.unlockNextButton();
-            return true;
         }
-        parent.lockNextButton();
-        return false;
+        else if (selected != null && items.contains(selected))
+        {
+            pathComboBox.setSelectedItem(selected);
+            parent.unlockNextButton();
+        }
+        else if (!items.isEmpty())
+        {
+            pathComboBox.setSelectedIndex(0);
+            parent.unlockNextButton();
+        }
+        else
+        {
+            parent.lockNextButton();
+            if (warn)
+            {
+                warning("UserInputPanel.search.autodetect.failed.caption",
+                        "UserInputPanel.search.autodetect.failed.message");
+            }
+        }
     }
 
-
     /*--------------------------------------------------------------------------*/
 
     /**
@@ -240,11 +371,9 @@ public class SearchInputField implements ActionListener
         Object source = event.getSource();
         if (source == autodetectButton)
         {
-            if (!autodetect())
-            {
-                warning("UserInputPanel.search.autodetect.failed.caption",
-                        "UserInputPanel.search.autodetect.failed.message");
-            }
+            // the user may have changed the file system since the last search
+            field.clearCache();
+            autodetect(true);
         }
         else if (source == browseButton)
         {
@@ -316,4 +445,76 @@ public class SearchInputField implements ActionListener
         new GUIPrompt().message(Prompt.Type.WARNING, title, message);
     }
 
+    /**
+     * Searches for matching paths in the background, streaming them into the combo box.
+     */
+    private class SearchWorker extends SwingWorker<List<String>, String>
+    {
+        private final List<String> choices;
+
+        private final boolean select;
+
+        private final boolean warn;
+
+        private boolean first = true;
+
+        SearchWorker(List<String> choices, boolean select, boolean warn)
+        {
+            this.choices = choices;
+            this.select = select;
+            this.warn = warn;
+        }
+
+        @Override
+        protected List<String> doInBackground()
+        {
+            SearchListener listener = new SearchListener()
+            {
+                @Override
+                public void found(String path)
+                {
+                    publish(path);
+                }
+            };
+            List<String> result = new ArrayList<String>(field.search(listener));
+            result.addAll(field.search(choices, listener));
+            return result;
+        }
+
+        @Override
+        protected void process(List<String> paths)
+        {
+            if (worker == this)
+            {
+                for (String path : paths)
+                {
+                    found(path, select && first);
+                    first = false;
+                }
+            }
+        }
+
+        @Override
+        protected void done()
+        {
+            if (worker == this && !isCancelled())
+            {
+                worker = null;
+                try
+                {
+                    searched(get(), select, warn);
+                }
+                catch (InterruptedException exception)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                catch (ExecutionException exception)
+                {
+                    logger.log(Level.WARNING, "Search failed: " + exception.getCause().getMessage(),
+                               exception.getCause());
+                    checkNextButtonState();
+                }
+            }
+        }
+    }
 }
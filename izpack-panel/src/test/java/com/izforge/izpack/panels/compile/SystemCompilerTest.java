@@ -0,0 +1,129 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.compile;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Tests the {@link SystemCompiler} class.
+ */
+public class SystemCompilerTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The compiler.
+     */
+    private SystemCompiler compiler;
+
+    /**
+     * Sets up the test case. Tests are skipped if the JVM has no compiler.
+     */
+    @Before
+    public void setUp()
+    {
+        compiler = SystemCompiler.getCompiler("javac");
+        assumeNotNull(compiler);
+    }
+
+    /**
+     * Cleans up after the test case.
+     */
+    @After
+    public void tearDown()
+    {
+        if (compiler != null)
+        {
+            compiler.close();
+        }
+    }
+
+    /**
+     * Verifies that only the plain <em>javac</em> compiler is handled in-process.
+     */
+    @Test
+    public void testGetCompiler()
+    {
+        assertNull(SystemCompiler.getCompiler("jikes"));
+        assertNull(SystemCompiler.getCompiler("/opt/jdk/bin/javac"));
+    }
+
+    /**
+     * Verifies that classes are written next to their sources, and can be compiled against by a later compilation
+     * sharing the file manager.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCompile() throws Exception
+    {
+        File a = temporaryFolder.newFolder("a");
+        File b = temporaryFolder.newFolder("b");
+        File source = new File(a, "A.java");
+        FileUtils.writeStringToFile(source, "public class A { }", "UTF-8");
+        File dependent = new File(b, "B.java");
+        FileUtils.writeStringToFile(dependent, "public class B extends A { }", "UTF-8");
+
+        String[] output = new String[2];
+        assertTrue(compiler.compile(Arrays.asList(source), Collections.<File>emptyList(),
+                                    Arrays.asList("-g:none"), output));
+        assertTrue(new File(a, "A.class").exists());
+
+        // B doesn't compile without A on the class path
+        assertFalse(compiler.compile(Arrays.asList(dependent), Collections.<File>emptyList(),
+                                     Collections.<String>emptyList(), output));
+        assertTrue(output[1], output[1].contains("B.java:1: error:"));
+
+        assertTrue(compiler.compile(Arrays.asList(dependent), Arrays.asList(a), Collections.<String>emptyList(),
+                                    output));
+        assertTrue(new File(b, "B.class").exists());
+    }
+
+    /**
+     * Verifies that invalid options are detected.
+     */
+    @Test
+    public void testCheckOptions()
+    {
+        assertNull(compiler.checkOptions(Arrays.asList("-g", "-nowarn")));
+        assertNotNull(compiler.checkOptions(Arrays.asList("-no-such-option")));
+    }
+}
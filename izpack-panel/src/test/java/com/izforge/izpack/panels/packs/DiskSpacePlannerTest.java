@@ -0,0 +1,213 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.packs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackInfo;
+import com.izforge.izpack.api.data.Variables;
+import com.izforge.izpack.api.resource.Messages;
+import com.izforge.izpack.api.resource.Resources;
+import com.izforge.izpack.core.data.DefaultVariables;
+
+
+/**
+ * Tests the {@link DiskSpacePlanner} class.
+ */
+public class DiskSpacePlannerTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The variables.
+     */
+    private Variables variables;
+
+    /**
+     * The resources.
+     */
+    private Resources resources;
+
+    /**
+     * The first pack.
+     */
+    private PackInfo pack1;
+
+    /**
+     * The second pack.
+     */
+    private PackInfo pack2;
+
+    /**
+     * Sets up the test case.
+     *
+     * @throws Exception for any error
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        File source = temporaryFolder.newFolder("source");
+        File file100 = new File(source, "100.txt");
+        FileUtils.writeByteArrayToFile(file100, new byte[100]);
+        File file20 = new File(source, "20.txt");
+        FileUtils.writeByteArrayToFile(file20, new byte[20]);
+
+        pack1 = new PackInfo("pack1", null, null, true, false, null, true, 0);
+        pack1.addFile(source, file100, "$INSTALL_PATH/lib/100.txt", null, OverrideType.OVERRIDE_TRUE, null,
+                      Blockable.BLOCKABLE_NONE, null, null, null);
+        pack1.addFile(source, file20, "$INSTALL_PATH/20.txt", null, OverrideType.OVERRIDE_TRUE, null,
+                      Blockable.BLOCKABLE_NONE, null, null, null);
+        pack2 = new PackInfo("pack2", null, null, false, false, null, true, 0);
+        pack2.addFile(source, file20, "$DATA_PATH/20.txt", null, OverrideType.OVERRIDE_TRUE, null,
+                      Blockable.BLOCKABLE_NONE, null, null, null);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(new ArrayList<PackInfo>(Arrays.asList(pack1, pack2)));
+        out.close();
+
+        resources = mock(Resources.class);
+        when(resources.getInputStream("packs.info")).thenReturn(new ByteArrayInputStream(bytes.toByteArray()));
+
+        variables = new DefaultVariables();
+        variables.set("INSTALL_PATH", new File(temporaryFolder.getRoot(), "install").getPath());
+        variables.set("DATA_PATH", new File(temporaryFolder.getRoot(), "data").getPath());
+    }
+
+    /**
+     * Verifies that the space required is summed per file store, and updated as packs are selected and
+     * deselected.
+     */
+    @Test
+    public void testUpdate()
+    {
+        DiskSpacePlanner planner = new DiskSpacePlanner(variables, resources);
+        planner.update(Collections.singletonList(pack1.getPack()));
+        checkRequired(planner, 120);
+
+        // all paths are on the same file store as the temporary folder
+        planner.update(Arrays.asList(pack1.getPack(), pack2.getPack()));
+        checkRequired(planner, 140);
+
+        planner.update(Collections.singletonList(pack2.getPack()));
+        checkRequired(planner, 20);
+
+        planner.update(Collections.<Pack>emptyList());
+        assertTrue(planner.getUsage().isEmpty());
+        assertNull(planner.getInsufficient());
+
+        // the pack files are only read once
+        verify(resources, times(1)).getInputStream("packs.info");
+    }
+
+    /**
+     * Verifies that the space required is recalculated when a target directory changes.
+     */
+    @Test
+    public void testTargetChanged()
+    {
+        DiskSpacePlanner planner = new DiskSpacePlanner(variables, resources);
+        List<Pack> packs = Arrays.asList(pack1.getPack(), pack2.getPack());
+        planner.update(packs);
+        checkRequired(planner, 140);
+
+        File other = new File(temporaryFolder.getRoot(), "other");
+        variables.set("DATA_PATH", other.getPath());
+        planner.update(packs);
+        DiskSpacePlanner.Usage usage = checkRequired(planner, 140);
+        assertEquals(new File(temporaryFolder.getRoot(), "install/lib").getPath(), usage.getPath());
+    }
+
+    /**
+     * Verifies that the pack size is used if the pack files cannot be read.
+     */
+    @Test
+    public void testNoPackFiles()
+    {
+        Pack pack = new Pack("other", null, null, null, null, true, true, false, null, true, 1234);
+        DiskSpacePlanner planner = new DiskSpacePlanner(variables, mock(Resources.class));
+        planner.update(Collections.singletonList(pack));
+        checkRequired(planner, 1234);
+    }
+
+    /**
+     * Verifies that the shortfall message includes the path and the space required.
+     */
+    @Test
+    public void testShortfallMessage()
+    {
+        DiskSpacePlanner planner = new DiskSpacePlanner(variables, resources);
+        planner.update(Collections.singletonList(pack1.getPack()));
+        DiskSpacePlanner.Usage usage = checkRequired(planner, 120);
+
+        Messages messages = mock(Messages.class);
+        when(messages.get(eq("PacksPanel.insufficientSpace"), anyString(), eq(usage.getPath()),
+                          eq(Pack.toByteUnitsString(120)))).thenReturn("shortfall");
+        assertEquals("shortfall", usage.getShortfallMessage(messages));
+    }
+
+    /**
+     * Verifies that a single file store is required, with the expected space.
+     *
+     * @param planner  the planner
+     * @param required the expected space required
+     * @return the file store usage
+     */
+    private DiskSpacePlanner.Usage checkRequired(DiskSpacePlanner planner, long required)
+    {
+        List<DiskSpacePlanner.Usage> usages = planner.getUsage();
+        assertEquals(1, usages.size());
+        DiskSpacePlanner.Usage usage = usages.get(0);
+        assertEquals(required, usage.getRequired());
+        assertTrue(usage.getAvailable() > 0);
+        return usage;
+    }
+}
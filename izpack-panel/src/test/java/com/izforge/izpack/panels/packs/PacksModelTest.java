@@ -0,0 +1,183 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.packs;
+
+import static com.izforge.izpack.panels.packs.PacksModel.CbSelectionState.DEPENDENT_DESELECTED;
+import static com.izforge.izpack.panels.packs.PacksModel.CbSelectionState.DESELECTED;
+import static com.izforge.izpack.panels.packs.PacksModel.CbSelectionState.PARTIAL_SELECTED;
+import static com.izforge.izpack.panels.packs.PacksModel.CbSelectionState.SELECTED;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.izforge.izpack.api.data.InstallData;
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.Variables;
+import com.izforge.izpack.api.resource.Messages;
+import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.panels.packs.PacksModel.CbSelectionState;
+
+
+/**
+ * Tests the {@link PacksModel} class.
+ */
+public class PacksModelTest
+{
+
+    /**
+     * The installation data.
+     */
+    private InstallData installData;
+
+    /**
+     * The available packs.
+     */
+    private List<Pack> available;
+
+    /**
+     * The selected packs.
+     */
+    private List<Pack> selected;
+
+    /**
+     * Sets up the test case.
+     */
+    @Before
+    public void setUp()
+    {
+        available = new ArrayList<Pack>();
+        selected = new ArrayList<Pack>();
+        RulesEngine rules = mock(RulesEngine.class);
+        when(rules.canInstallPack(anyString(), any(Variables.class))).thenReturn(true);
+        installData = mock(InstallData.class);
+        when(installData.getRules()).thenReturn(rules);
+        when(installData.getMessages()).thenReturn(mock(Messages.class));
+        when(installData.getVariables()).thenReturn(mock(Variables.class));
+        when(installData.getAvailablePacks()).thenReturn(available);
+        when(installData.getSelectedPacks()).thenReturn(selected);
+    }
+
+    /**
+     * Verifies that selecting and deselecting packs enables and disables their transitive dependants.
+     */
+    @Test
+    public void testDependencies()
+    {
+        Pack a = createPack("a", null);
+        Pack b = createPack("b", null, "a");
+        Pack c = createPack("c", null, "b");
+        PacksModel model = new PacksModel(installData);
+        checkStates(model, DESELECTED, DEPENDENT_DESELECTED, DESELECTED);
+
+        model.setValueAt(SELECTED, 0, 0);
+        checkStates(model, SELECTED, DESELECTED, DEPENDENT_DESELECTED);
+
+        model.setValueAt(SELECTED, 1, 0);
+        checkStates(model, SELECTED, SELECTED, DESELECTED);
+
+        model.setValueAt(SELECTED, 2, 0);
+        checkStates(model, SELECTED, SELECTED, SELECTED);
+        assertEquals(Arrays.asList(a, b, c), selected);
+
+        model.setValueAt(DESELECTED, 0, 0);
+        checkStates(model, DESELECTED, DEPENDENT_DESELECTED, DEPENDENT_DESELECTED);
+        assertEquals(0, selected.size());
+    }
+
+    /**
+     * Verifies that selecting a pack deselects the other packs in its exclude group.
+     */
+    @Test
+    public void testExcludeGroup()
+    {
+        Pack x = createPack("x", "group");
+        createPack("y", "group");
+        createPack("z", null);
+        selected.add(x);
+        PacksModel model = new PacksModel(installData);
+        checkStates(model, SELECTED, DESELECTED, DESELECTED);
+
+        model.setValueAt(SELECTED, 1, 0);
+        checkStates(model, DESELECTED, SELECTED, DESELECTED);
+
+        model.setValueAt(SELECTED, 2, 0);
+        checkStates(model, DESELECTED, SELECTED, SELECTED);
+    }
+
+    /**
+     * Verifies that children follow their parent, and the parent reflects its children.
+     */
+    @Test
+    public void testChildren()
+    {
+        createPack("parent", null);
+        createPack("child1", null).setParent("parent");
+        createPack("child2", null).setParent("parent");
+        PacksModel model = new PacksModel(installData);
+
+        model.setValueAt(SELECTED, 0, 0);
+        checkStates(model, SELECTED, SELECTED, SELECTED);
+
+        model.setValueAt(DESELECTED, 1, 0);
+        checkStates(model, PARTIAL_SELECTED, DESELECTED, SELECTED);
+        assertEquals(2, selected.size());
+    }
+
+    /**
+     * Verifies the states of the visible packs.
+     *
+     * @param model    the model
+     * @param expected the expected states, in row order
+     */
+    private void checkStates(PacksModel model, CbSelectionState... expected)
+    {
+        List<CbSelectionState> actual = new ArrayList<CbSelectionState>();
+        for (int row = 0; row < model.getRowCount(); ++row)
+        {
+            actual.add((CbSelectionState) model.getValueAt(row, 0));
+        }
+        assertEquals(Arrays.asList(expected), actual);
+    }
+
+    /**
+     * Creates an available pack.
+     *
+     * @param name         the pack name
+     * @param excludeGroup the exclude group. May be {@code null}
+     * @param dependencies the names of the packs it depends on
+     * @return a new pack
+     */
+    private Pack createPack(String name, String excludeGroup, String... dependencies)
+    {
+        List<String> list = (dependencies.length != 0) ? new ArrayList<String>(Arrays.asList(dependencies)) : null;
+        Pack pack = new Pack(name, null, null, null, list, false, false, false, excludeGroup, true, 10);
+        available.add(pack);
+        return pack;
+    }
+}
@@ -112,8 +112,11 @@ public class Executable
      */
     public boolean run(AbstractUIProcessHandler handler, String... args)
     {
-        Executable.args.put(invocations, args);
-        ++invocations;
+        synchronized (Executable.class)
+        {
+            Executable.args.put(invocations, args);
+            ++invocations;
+        }
         if (exception) {
             throw new RuntimeException("Executable exception");
         }
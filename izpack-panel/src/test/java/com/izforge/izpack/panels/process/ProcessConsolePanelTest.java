@@ -25,6 +25,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
@@ -143,4 +147,25 @@ public class ProcessConsolePanelTest
         assertArrayEquals(Executable.getArgs(0), new String[]{"run0"});
     }
 
+    /**
+     * Verifies that parallel jobs run after the preceding sequential job, and before the jobs depending on them.
+     */
+    @Test
+    public void testParallelJobs()
+    {
+        resources.setResourceBasePath("/com/izforge/izpack/panels/process/parallel/");
+        Executable.init();
+        Executable.setReturn(true);
+
+        ProcessConsolePanel panel = new ProcessConsolePanel(rules, resources, prompt, matcher, null);
+        assertTrue(panel.run(installData, console));
+
+        assertEquals(5, Executable.getInvocations());
+        assertArrayEquals(new String[]{"first"}, Executable.getArgs(0));
+        Set<String> parallel = new HashSet<String>(Arrays.asList(Executable.getArgs(1)[0], Executable.getArgs(2)[0]));
+        assertEquals(new HashSet<String>(Arrays.asList("a", "b")), parallel);
+        assertArrayEquals(new String[]{"c"}, Executable.getArgs(3));
+        assertArrayEquals(new String[]{"last"}, Executable.getArgs(4));
+    }
+
 }
@@ -0,0 +1,119 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.izforge.izpack.panels.process;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+
+/**
+ * Tests the {@link ProcessOutputMultiplexer} class.
+ */
+public class ProcessOutputMultiplexerTest
+{
+
+    /**
+     * Verifies that the output of several streams is split into lines and passed to the handler.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testReadLines() throws Exception
+    {
+        final List<String> stdout = Collections.synchronizedList(new ArrayList<String>());
+        final List<String> stderr = Collections.synchronizedList(new ArrayList<String>());
+        ProcessOutputMultiplexer.LineHandler handler = new ProcessOutputMultiplexer.LineHandler()
+        {
+            @Override
+            public void line(String line, boolean isStderr)
+            {
+                (isStderr ? stderr : stdout).add(line);
+            }
+
+            @Override
+            public void error(IOException exception, boolean isStderr)
+            {
+                throw new AssertionError(exception);
+            }
+        };
+
+        ProcessOutputMultiplexer multiplexer = new ProcessOutputMultiplexer();
+        ProcessOutputMultiplexer.Source out = multiplexer.register(
+                new ByteArrayInputStream("line 1\nline 2\r\n\nlast".getBytes()), false, handler);
+        ProcessOutputMultiplexer.Source err = multiplexer.register(
+                new ByteArrayInputStream("error\n".getBytes()), true, handler);
+        out.finish(5000);
+        err.finish(5000);
+
+        assertEquals(Arrays.asList("line 1", "line 2", "", "last"), stdout);
+        assertEquals(Collections.singletonList("error"), stderr);
+    }
+
+    /**
+     * Verifies that a stream can be stopped without waiting for it to end, even if the thread is interrupted.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testStop() throws Exception
+    {
+        ProcessOutputMultiplexer.LineHandler handler = new ProcessOutputMultiplexer.LineHandler()
+        {
+            @Override
+            public void line(String line, boolean isStderr)
+            {
+            }
+
+            @Override
+            public void error(IOException exception, boolean isStderr)
+            {
+            }
+        };
+
+        // the stream of a process that never ends
+        PipedOutputStream process = new PipedOutputStream();
+        ProcessOutputMultiplexer multiplexer = new ProcessOutputMultiplexer();
+        ProcessOutputMultiplexer.Source source = multiplexer.register(new PipedInputStream(process), false, handler);
+
+        Thread.currentThread().interrupt();
+        try
+        {
+            source.stop();
+        }
+        finally
+        {
+            assertTrue(Thread.interrupted());
+        }
+        assertTrue(source.isClosed());
+        source.stop();
+        assertFalse(source.poll());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.izforge.izpack.panels.process;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+
+/**
+ * Tests the {@link SynchronizedUIProcessHandler} class.
+ */
+public class SynchronizedUIProcessHandlerTest
+{
+
+    /**
+     * Verifies that output can be logged while another job is waiting for the user to answer a dialog.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testLogOutputDuringDialog() throws Exception
+    {
+        final CountDownLatch displayed = new CountDownLatch(1);
+        final CountDownLatch answered = new CountDownLatch(1);
+        AbstractUIProcessHandler delegate = mock(AbstractUIProcessHandler.class);
+        doAnswer(new Answer<Void>()
+        {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable
+            {
+                displayed.countDown();
+                answered.await();
+                return null;
+            }
+        }).when(delegate).emitError("title", "message");
+
+        final SynchronizedUIProcessHandler handler = new SynchronizedUIProcessHandler(delegate);
+        Thread job = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                handler.emitError("title", "message");
+            }
+        };
+        job.start();
+        try
+        {
+            assertTrue(displayed.await(10, TimeUnit.SECONDS));
+
+            // the dialog is still displayed, but output isn't blocked
+            handler.logOutput("output", false);
+            verify(delegate).logOutput("output", false);
+        }
+        finally
+        {
+            answered.countDown();
+            job.join();
+        }
+    }
+}
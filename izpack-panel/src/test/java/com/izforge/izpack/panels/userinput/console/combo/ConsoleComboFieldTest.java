@@ -22,6 +22,7 @@
 package com.izforge.izpack.panels.userinput.console.combo;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -37,6 +38,7 @@ import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.panels.userinput.console.AbstractConsoleFieldTest;
 import com.izforge.izpack.panels.userinput.field.Choice;
 import com.izforge.izpack.panels.userinput.field.ChoiceFieldConfig;
+import com.izforge.izpack.panels.userinput.field.LazyChoiceList;
 import com.izforge.izpack.panels.userinput.field.choice.TestChoiceFieldConfig;
 import com.izforge.izpack.panels.userinput.field.combo.ComboField;
 
@@ -98,6 +100,76 @@ public class ConsoleComboFieldTest extends AbstractConsoleFieldTest
         assertEquals("X", installData.getVariable("combo"));
     }
 
+    /**
+     * Verifies that large numbers of choices are displayed a page at a time, and that only displayed choices are
+     * created.
+     */
+    @Test
+    public void testPaged()
+    {
+        LazyChoiceList choices = createLazyChoices(50);
+        ConsoleComboField field = createField(choices);
+        checkValid(field, "n", "25");
+        assertEquals("K25", installData.getVariable("combo"));
+        assertEquals(2 * ConsoleComboField.PAGE_SIZE, choices.getLoadedCount());
+        assertTrue(console.getOutput().contains("(2/3)"));
+    }
+
+    /**
+     * Verifies that text can be entered to go to the page containing a choice.
+     */
+    @Test
+    public void testPagedSearch()
+    {
+        ConsoleComboField field = createField(createLazyChoices(50));
+        checkValid(field, "item 47", "", "47");
+        assertEquals("K47", installData.getVariable("combo"));
+        assertTrue(console.getOutput().contains("(3/3)"));
+    }
+
+    /**
+     * Creates a new {@link ConsoleComboField} that updates the "combo" variable, with no initial selection.
+     *
+     * @param choices the choices
+     * @return a new field
+     */
+    private ConsoleComboField createField(List<Choice> choices)
+    {
+        ChoiceFieldConfig config = new TestChoiceFieldConfig<Choice>("combo", choices, -1);
+        ComboField model = new ComboField(config, installData);
+        return new ConsoleComboField(model, console, prompt);
+    }
+
+    /**
+     * Creates lazily created choices, with keys <em>K&lt;n&gt;</em> and labels <em>Item &lt;n&gt;</em>.
+     *
+     * @param size the number of choices
+     * @return the choices
+     */
+    private LazyChoiceList createLazyChoices(int size)
+    {
+        return new LazyChoiceList(size, new LazyChoiceList.Loader()
+        {
+            @Override
+            public Choice load(int index)
+            {
+                return new Choice(getKey(index), "Item " + index);
+            }
+
+            @Override
+            public String getKey(int index)
+            {
+                return "K" + index;
+            }
+
+            @Override
+            public String getConditionId(int index)
+            {
+                return null;
+            }
+        });
+    }
+
     /**
      * Creates a new {@link ConsoleComboField} that updates the "radio" variable.
      *
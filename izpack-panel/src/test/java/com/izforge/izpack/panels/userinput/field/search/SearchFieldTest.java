@@ -0,0 +1,155 @@
+/*
+ * IzPack - Copyright 2001-2013 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.userinput.field.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.InstallData;
+import com.izforge.izpack.api.data.Variables;
+import com.izforge.izpack.core.data.DefaultVariables;
+
+
+/**
+ * Tests the {@link SearchField} class.
+ */
+public class SearchFieldTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The field to test.
+     */
+    private SearchField field;
+
+    /**
+     * The directories containing the file searched for.
+     */
+    private File jdk1;
+
+    private File jdk2;
+
+    /**
+     * Sets up the test case.
+     *
+     * @throws Exception for any error
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        File root = temporaryFolder.getRoot();
+        jdk1 = new File(root, "jdk1");
+        jdk2 = new File(root, "jdk2");
+        FileUtils.touch(new File(jdk1, "lib/tools.jar"));
+        FileUtils.touch(new File(jdk2, "lib/tools.jar"));
+        assertTrue(new File(root, "other").mkdir());
+
+        Variables variables = new DefaultVariables();
+        variables.set("ROOT", root.getPath());
+        InstallData installData = mock(InstallData.class);
+        when(installData.getVariables()).thenReturn(variables);
+
+        SearchFieldConfig config = mock(SearchFieldConfig.class);
+        when(config.getFilename()).thenReturn("lib/tools.jar");
+        when(config.getSearchType()).thenReturn(SearchType.FILE);
+        when(config.getResultType()).thenReturn(ResultType.DIRECTORY);
+        when(config.getChoices()).thenReturn(Arrays.asList("${ROOT}/*"));
+        field = new SearchField(config, installData);
+    }
+
+    /**
+     * Verifies that matches are streamed to the listener, and that results are cached until the cache is cleared.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testSearch() throws Exception
+    {
+        final List<String> found = new ArrayList<String>();
+        List<String> result = field.search(new SearchListener()
+        {
+            @Override
+            public void found(String path)
+            {
+                found.add(path);
+            }
+        });
+        List<String> expected = Arrays.asList(jdk1.getAbsolutePath(), jdk2.getAbsolutePath());
+        assertEquals(expected, sort(result));
+        assertEquals(expected, sort(found));
+
+        // the file system isn't searched again
+        FileUtils.deleteDirectory(jdk2);
+        assertEquals(expected, sort(field.getChoices()));
+
+        field.clearCache();
+        assertEquals(Arrays.asList(jdk1.getAbsolutePath()), field.getChoices());
+    }
+
+    /**
+     * Verifies that an interrupted search stops, and its results aren't cached.
+     */
+    @Test
+    public void testInterrupt()
+    {
+        Thread.currentThread().interrupt();
+        try
+        {
+            assertTrue(field.search(null).isEmpty());
+        }
+        finally
+        {
+            Thread.interrupted();
+        }
+        assertEquals(2, field.search(null).size());
+    }
+
+    /**
+     * Sorts paths, as directory listings are unordered.
+     *
+     * @param paths the paths
+     * @return the sorted paths
+     */
+    private List<String> sort(List<String> paths)
+    {
+        List<String> result = new ArrayList<String>(paths);
+        Collections.sort(result);
+        return result;
+    }
+}
@@ -1,25 +1,133 @@
-package com.izforge.izpack.panels.userinput.gui.search;
-
-import com.izforge.izpack.panels.userinput.field.search.SearchField;
-import org.junit.Test;
-
-import java.util.HashMap;
-import java.util.Map;
-
-import static org.junit.Assert.assertEquals;
-
-public class SearchInputFieldTest {
-	
-	@Test
-	public void testResolveEnvValue() {
-		Map<String, String> env = new HashMap<String, String>();
-		env.put("JAVA_HOME", "C:\\Program Files\\Java\\jdk1.7.0");
-		env.put("PUBLIC", "C:\\Users\\Public");
-		
-		assertEquals( "C:\\Program Files\\Java\\jdk1.7.0", SearchField.resolveEnvValue("%JAVA_HOME%", env) );
-		assertEquals( "--C:\\Program Files\\Java\\jdk1.7.0++", SearchField.resolveEnvValue("--%JAVA_HOME%++", env) );
-		assertEquals( "1;C:\\Program Files\\Java\\jdk1.7.0;C:\\Users\\Public;3",
-				SearchField.resolveEnvValue("1;%JAVA_HOME%;%PUBLIC%;3", env) );
-	}
-
-}
+package com.izforge.izpack.panels.userinput.gui.search;
+
+import com.izforge.izpack.api.data.InstallData;
+import com.izforge.izpack.api.data.Variables;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.installer.gui.InstallerFrame;
+import com.izforge.izpack.panels.userinput.field.search.ResultType;
+import com.izforge.izpack.panels.userinput.field.search.SearchField;
+import com.izforge.izpack.panels.userinput.field.search.SearchFieldConfig;
+import com.izforge.izpack.panels.userinput.field.search.SearchListener;
+import com.izforge.izpack.panels.userinput.field.search.SearchType;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SearchInputFieldTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	@Test
+	public void testResolveEnvValue() {
+		Map<String, String> env = new HashMap<String, String>();
+		env.put("JAVA_HOME", "C:\\Program Files\\Java\\jdk1.7.0");
+		env.put("PUBLIC", "C:\\Users\\Public");
+		
+		assertEquals( "C:\\Program Files\\Java\\jdk1.7.0", SearchField.resolveEnvValue("%JAVA_HOME%", env) );
+		assertEquals( "--C:\\Program Files\\Java\\jdk1.7.0++", SearchField.resolveEnvValue("--%JAVA_HOME%++", env) );
+		assertEquals( "1;C:\\Program Files\\Java\\jdk1.7.0;C:\\Users\\Public;3",
+				SearchField.resolveEnvValue("1;%JAVA_HOME%;%PUBLIC%;3", env) );
+	}
+
+	/**
+	 * Verifies that navigation to the next panel is locked until the choices have been searched, even after the
+	 * first match is found.
+	 */
+	@Test
+	public void testNextLockedWhileSearching() throws Exception {
+		File jdk = new File(temporaryFolder.getRoot(), "jdk");
+		FileUtils.touch(new File(jdk, "lib/tools.jar"));
+		Variables variables = new DefaultVariables();
+		variables.set("ROOT", temporaryFolder.getRoot().getPath());
+		InstallData installData = mock(InstallData.class);
+		when(installData.getVariables()).thenReturn(variables);
+		SearchFieldConfig config = mock(SearchFieldConfig.class);
+		when(config.getFilename()).thenReturn("lib/tools.jar");
+		when(config.getSearchType()).thenReturn(SearchType.FILE);
+		when(config.getResultType()).thenReturn(ResultType.DIRECTORY);
+		when(config.getChoices()).thenReturn(Arrays.asList("${ROOT}/*"));
+
+		final CountDownLatch found = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		SearchField field = new SearchField(config, installData) {
+			@Override
+			public List<String> search(final SearchListener listener) {
+				List<String> result = super.search(new SearchListener() {
+					@Override
+					public void found(String path) {
+						listener.found(path);
+						found.countDown();
+					}
+				});
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException exception) {
+					Thread.currentThread().interrupt();
+				}
+				return result;
+			}
+		};
+		InstallerFrame frame = mock(InstallerFrame.class);
+		final JComboBox combo = new JComboBox();
+		combo.setEditable(true);
+		final SearchInputField input = new SearchInputField(field, frame, combo, new JButton(), new JButton(),
+				installData);
+
+		SwingUtilities.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {
+				input.autodetect();
+			}
+		});
+		assertTrue(found.await(10, TimeUnit.SECONDS));
+		// matches are published to the event dispatch thread on a timer
+		for (int i = 0; i < 100 && combo.getSelectedItem() == null; ++i) {
+			Thread.sleep(100);
+			flush();
+		}
+		assertTrue(input.isSearching());
+		assertEquals(jdk.getAbsolutePath(), combo.getSelectedItem());
+		verify(frame, never()).unlockNextButton();
+		verify(frame, never()).unlockNextButton(false);
+
+		release.countDown();
+		for (int i = 0; i < 100 && input.isSearching(); ++i) {
+			Thread.sleep(100);
+			flush();
+		}
+		assertFalse(input.isSearching());
+		verify(frame).unlockNextButton();
+	}
+
+	/**
+	 * Waits for pending events to be dispatched.
+	 */
+	private static void flush() throws Exception {
+		SwingUtilities.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {
+			}
+		});
+	}
+}
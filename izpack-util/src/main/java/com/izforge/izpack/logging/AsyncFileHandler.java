@@ -0,0 +1,280 @@
+/*
+ * Copyright 2016 Julien Ponge, René Krell and the IzPack team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.logging;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.FileHandler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+/**
+ * A {@link FileHandler} that writes log records on a background thread.
+ * <p/>
+ * Records are placed in a bounded queue and written in batches, with a single flush per batch rather than one per
+ * record. When the queue is full, records below {@link Level#WARNING} are dropped, and the number dropped is logged
+ * with the next batch. Warnings and errors are never dropped; the logging thread waits for space instead, or writes
+ * the record itself if the handler is closed while it waits.
+ * <p/>
+ * This is configured with the same properties as {@link FileHandler}, prefixed with this class name. In addition,
+ * <em>&lt;class name&gt;.capacity</em> specifies the maximum number of queued records. It defaults to 8192.
+ * <p/>
+ * Records are written in full when the handler is closed, which the {@link LogManager} does on shutdown.
+ */
+public class AsyncFileHandler extends FileHandler
+{
+    /**
+     * The default queue capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * The maximum number of records written per batch.
+     */
+    private static final int BATCH_SIZE = 512;
+
+    /**
+     * The time in milliseconds to wait for queue space before checking if the handler has been closed.
+     */
+    private static final long OFFER_TIMEOUT = 100;
+
+    /**
+     * The queued records.
+     */
+    private final BlockingQueue<LogRecord> queue;
+
+    /**
+     * The number of records dropped since the last batch.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * The thread writing the records.
+     */
+    private final Thread writer;
+
+    /**
+     * Determines if a batch is being written. Flushes are deferred until the end of the batch.
+     */
+    private boolean batching;
+
+    /**
+     * Determines if the handler has been closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Constructs an {@code AsyncFileHandler}, configured from the {@link LogManager} properties.
+     *
+     * @throws IOException if the log file cannot be opened
+     */
+    public AsyncFileHandler() throws IOException
+    {
+        super();
+        queue = new ArrayBlockingQueue<LogRecord>(getCapacity());
+        writer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                drain();
+            }
+        }, "IzPack log writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a log record for writing.
+     *
+     * @param record the record. May be {@code null}
+     */
+    @Override
+    public void publish(LogRecord record)
+    {
+        if (closed || !isLoggable(record))
+        {
+            return;
+        }
+        // the caller can only be determined on the logging thread
+        record.getSourceClassName();
+        if (!queue.offer(record))
+        {
+            if (record.getLevel().intValue() < Level.WARNING.intValue())
+            {
+                dropped.incrementAndGet();
+            }
+            else
+            {
+                enqueue(record);
+            }
+        }
+    }
+
+    /**
+     * Flushes the records written so far, unless a batch is being written.
+     */
+    @Override
+    public synchronized void flush()
+    {
+        if (!batching)
+        {
+            super.flush();
+        }
+    }
+
+    /**
+     * Waits for space to queue a record.
+     * <p/>
+     * If the handler is closed while waiting, the writer thread has stopped, so the record and any others still
+     * queued are written on the calling thread instead.
+     *
+     * @param record the record
+     */
+    private void enqueue(LogRecord record)
+    {
+        try
+        {
+            while (!queue.offer(record, OFFER_TIMEOUT, TimeUnit.MILLISECONDS))
+            {
+                if (closed)
+                {
+                    List<LogRecord> records = new ArrayList<LogRecord>();
+                    queue.drainTo(records);
+                    records.add(record);
+                    write(records);
+                    return;
+                }
+            }
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (closed)
+        {
+            // queued after close() emptied the queue
+            List<LogRecord> records = new ArrayList<LogRecord>();
+            queue.drainTo(records);
+            write(records);
+        }
+    }
+
+    /**
+     * Writes any queued records and closes the log file.
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+        writer.interrupt();
+        try
+        {
+            writer.join();
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+        }
+        List<LogRecord> records = new ArrayList<LogRecord>();
+        queue.drainTo(records);
+        write(records);
+        super.close();
+    }
+
+    /**
+     * Writes queued records until the handler is closed.
+     */
+    private void drain()
+    {
+        List<LogRecord> records = new ArrayList<LogRecord>(BATCH_SIZE);
+        try
+        {
+            while (!closed)
+            {
+                records.add(queue.take());
+                queue.drainTo(records, BATCH_SIZE - 1);
+                write(records);
+                records.clear();
+            }
+        }
+        catch (InterruptedException exception)
+        {
+            // closed
+        }
+    }
+
+    /**
+     * Writes a batch of records, flushing once at the end.
+     *
+     * @param records the records to write
+     */
+    private synchronized void write(List<LogRecord> records)
+    {
+        batching = true;
+        try
+        {
+            long count = dropped.getAndSet(0);
+            if (count > 0)
+            {
+                super.publish(new LogRecord(Level.WARNING, count + " log records dropped as the log queue was full"));
+            }
+            for (LogRecord record : records)
+            {
+                super.publish(record);
+            }
+        }
+        finally
+        {
+            batching = false;
+        }
+        super.flush();
+    }
+
+    /**
+     * Returns the queue capacity.
+     *
+     * @return the queue capacity
+     */
+    private int getCapacity()
+    {
+        String value = LogManager.getLogManager().getProperty(getClass().getName() + ".capacity");
+        if (value != null)
+        {
+            try
+            {
+                int capacity = Integer.parseInt(value.trim());
+                if (capacity > 0)
+                {
+                    return capacity;
+                }
+            }
+            catch (NumberFormatException ignore)
+            {
+                // use the default
+            }
+        }
+        return DEFAULT_CAPACITY;
+    }
+}
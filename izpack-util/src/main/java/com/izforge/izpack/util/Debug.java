@@ -37,11 +37,17 @@ public class Debug
      */
     private static boolean DEBUG;
 
+    /**
+     * initial PROFILE file
+     */
+    private static String PROFILE;
+
     static
     {
         STACKTRACE = Boolean.getBoolean("STACKTRACE");
         TRACE = Boolean.getBoolean("TRACE");
         DEBUG = Boolean.getBoolean("DEBUG");
+        PROFILE = System.getProperty("PROFILE");
     }
 
     /**
@@ -97,4 +103,33 @@ public class Debug
     {
         return DEBUG;
     }
+
+    /**
+     * Sets the file to write the condition and dynamic variable evaluation profile to, when the installer exits.
+     * @param PROFILE the file path, or <tt>null</tt> to not write a profile
+     */
+    public static void setPROFILE(String PROFILE)
+    {
+        Debug.PROFILE = PROFILE;
+    }
+
+    /**
+     * Gets the file to write the condition and dynamic variable evaluation profile to, when the installer exits.
+     * @return the file path, or <tt>null</tt> if no profile is written
+     */
+    public static String getPROFILE()
+    {
+        return PROFILE;
+    }
+
+    /**
+     * Gets whether to profile condition and dynamic variable evaluation at runtime.
+     * <p/>
+     * Evaluations are profiled if a profile is written, or if variables and conditions are traced.
+     * @return whether to profile condition and dynamic variable evaluation at runtime
+     */
+    public static boolean isPROFILE()
+    {
+        return PROFILE != null || TRACE;
+    }
 }
@@ -0,0 +1,471 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * Collects invocation counts and timings of condition and dynamic variable evaluations.
+ * <p/>
+ * Evaluations are only recorded if {@link Debug#isPROFILE()} is <tt>true</tt>. Callers should check
+ * {@link #isEnabled()} before reading the clock, so that profiling costs nothing when it is switched off:
+ * <pre>
+ * boolean profile = EvaluationProfiler.isEnabled();
+ * long start = profile ? System.nanoTime() : 0;
+ * ...
+ * if (profile)
+ * {
+ *     EvaluationProfiler.CONDITIONS.record(id, source, System.nanoTime() - start);
+ * }
+ * </pre>
+ * Times are inclusive, i.e. the time of a condition includes that of any conditions it evaluates.
+ * <p/>
+ * Tools that evaluate conditions for display, such as the debugger, should {@link #suspend()} profiling while they
+ * do so, so that the profile only reflects the installer's own evaluations.
+ */
+public class EvaluationProfiler
+{
+    /**
+     * The condition profile, keyed on condition id.
+     */
+    public static final EvaluationProfiler CONDITIONS = new EvaluationProfiler("conditions");
+
+    /**
+     * The dynamic variable profile, keyed on variable name.
+     */
+    public static final EvaluationProfiler VARIABLES = new EvaluationProfiler("variables");
+
+    /**
+     * Set for threads that have suspended profiling.
+     */
+    private static final ThreadLocal<Boolean> suspended = new ThreadLocal<Boolean>();
+
+    /**
+     * The profile name.
+     */
+    private final String name;
+
+    /**
+     * The statistics, keyed on id and source.
+     */
+    private final ConcurrentMap<String, Statistics> statistics = new ConcurrentHashMap<String, Statistics>();
+
+
+    /**
+     * Constructs an {@code EvaluationProfiler}.
+     *
+     * @param name the profile name
+     */
+    public EvaluationProfiler(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Determines if evaluations are being profiled.
+     *
+     * @return <tt>true</tt> if evaluations are being profiled
+     */
+    public static boolean isEnabled()
+    {
+        return Debug.isPROFILE() && suspended.get() == null;
+    }
+
+    /**
+     * Suspends profiling for the current thread, until {@link #resume()} is invoked.
+     */
+    public static void suspend()
+    {
+        suspended.set(Boolean.TRUE);
+    }
+
+    /**
+     * Resumes profiling for the current thread.
+     */
+    public static void resume()
+    {
+        suspended.remove();
+    }
+
+    /**
+     * Returns the profile name.
+     *
+     * @return the profile name
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Records an evaluation.
+     *
+     * @param id     the condition id or variable name. May be <tt>null</tt>
+     * @param source the kind of condition or variable value, e.g. <em>ExecValue</em>. May be <tt>null</tt>
+     * @param nanos  the evaluation time, in nanoseconds
+     */
+    public void record(String id, String source, long nanos)
+    {
+        getStatistics(id, source).record(nanos);
+    }
+
+    /**
+     * Records an evaluation that was answered from a cached value, rather than being evaluated.
+     *
+     * @param id     the condition id or variable name. May be <tt>null</tt>
+     * @param source the kind of condition or variable value. May be <tt>null</tt>
+     */
+    public void hit(String id, String source)
+    {
+        getStatistics(id, source).hit();
+    }
+
+    /**
+     * Returns a snapshot of the statistics, slowest first.
+     *
+     * @return the statistics
+     */
+    public List<Statistics> getStatistics()
+    {
+        List<Statistics> result = new ArrayList<Statistics>();
+        for (Statistics value : statistics.values())
+        {
+            result.add(value.copy());
+        }
+        Collections.sort(result, new Comparator<Statistics>()
+        {
+            @Override
+            public int compare(Statistics o1, Statistics o2)
+            {
+                return Long.compare(o2.getTotalNanos(), o1.getTotalNanos());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the total time of all evaluations.
+     *
+     * @return the total time, in nanoseconds
+     */
+    public long getTotalNanos()
+    {
+        long result = 0;
+        for (Statistics value : statistics.values())
+        {
+            result += value.getTotalNanos();
+        }
+        return result;
+    }
+
+    /**
+     * Discards all statistics.
+     */
+    public void clear()
+    {
+        statistics.clear();
+    }
+
+    /**
+     * Writes the condition and dynamic variable profiles as JSON.
+     *
+     * @param file the file to write to
+     * @throws IOException for any I/O error
+     */
+    public static void write(File file) throws IOException
+    {
+        try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8))
+        {
+            write(writer);
+        }
+    }
+
+    /**
+     * Writes the condition and dynamic variable profiles as JSON.
+     * <p/>
+     * The result is an object with a member per profile, each holding an array of statistics, slowest first.
+     *
+     * @param writer the writer to write to
+     * @throws IOException for any I/O error
+     */
+    public static void write(Writer writer) throws IOException
+    {
+        writer.write("{\n");
+        CONDITIONS.writeJSON(writer);
+        writer.write(",\n");
+        VARIABLES.writeJSON(writer);
+        writer.write("\n}\n");
+        writer.flush();
+    }
+
+    /**
+     * Writes this profile as a JSON object member.
+     *
+     * @param writer the writer to write to
+     * @throws IOException for any I/O error
+     */
+    private void writeJSON(Writer writer) throws IOException
+    {
+        writer.write("  " + quote(name) + ": [");
+        String separator = "\n";
+        for (Statistics value : getStatistics())
+        {
+            writer.write(separator);
+            writer.write("    {\"id\": " + quote(value.getId())
+                                 + ", \"source\": " + quote(value.getSource())
+                                 + ", \"invocations\": " + value.getInvocations()
+                                 + ", \"cacheHits\": " + value.getHits()
+                                 + ", \"totalNanos\": " + value.getTotalNanos()
+                                 + ", \"maxNanos\": " + value.getMaxNanos() + "}");
+            separator = ",\n";
+        }
+        writer.write(separator.equals("\n") ? "]" : "\n  ]");
+    }
+
+    /**
+     * Quotes a string for JSON.
+     *
+     * @param value the value to quote. May be <tt>null</tt>
+     * @return the quoted value, or <em>null</em>
+     */
+    private static String quote(String value)
+    {
+        if (value == null)
+        {
+            return "null";
+        }
+        StringBuilder result = new StringBuilder(value.length() + 2);
+        result.append('"');
+        for (int i = 0; i < value.length(); ++i)
+        {
+            char c = value.charAt(i);
+            switch (c)
+            {
+                case '"':
+                    result.append("\\\"");
+                    break;
+                case '\\':
+                    result.append("\\\\");
+                    break;
+                case '\n':
+                    result.append("\\n");
+                    break;
+                case '\r':
+                    result.append("\\r");
+                    break;
+                case '\t':
+                    result.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                    {
+                        result.append(String.format("\\u%04x", (int) c));
+                    }
+                    else
+                    {
+                        result.append(c);
+                    }
+            }
+        }
+        return result.append('"').toString();
+    }
+
+    /**
+     * Returns the statistics for an id and source, creating them if required.
+     *
+     * @param id     the condition id or variable name. May be <tt>null</tt>
+     * @param source the kind of condition or variable value. May be <tt>null</tt>
+     * @return the statistics
+     */
+    private Statistics getStatistics(String id, String source)
+    {
+        String key = id + '\u0000' + source;
+        Statistics result = statistics.get(key);
+        if (result == null)
+        {
+            Statistics created = new Statistics(id, source);
+            result = statistics.putIfAbsent(key, created);
+            if (result == null)
+            {
+                result = created;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The statistics of a condition or dynamic variable.
+     */
+    public static class Statistics
+    {
+        /**
+         * The condition id or variable name.
+         */
+        private final String id;
+
+        /**
+         * The kind of condition or variable value.
+         */
+        private final String source;
+
+        /**
+         * The number of evaluations.
+         */
+        private long invocations;
+
+        /**
+         * The number of evaluations answered from a cached value.
+         */
+        private long hits;
+
+        /**
+         * The total evaluation time, in nanoseconds.
+         */
+        private long totalNanos;
+
+        /**
+         * The longest evaluation time, in nanoseconds.
+         */
+        private long maxNanos;
+
+        /**
+         * Constructs a {@code Statistics}.
+         *
+         * @param id     the condition id or variable name. May be <tt>null</tt>
+         * @param source the kind of condition or variable value. May be <tt>null</tt>
+         */
+        Statistics(String id, String source)
+        {
+            this.id = id;
+            this.source = source;
+        }
+
+        /**
+         * Returns the condition id or variable name.
+         *
+         * @return the id. May be <tt>null</tt>
+         */
+        public String getId()
+        {
+            return id;
+        }
+
+        /**
+         * Returns the kind of condition or variable value.
+         *
+         * @return the source. May be <tt>null</tt>
+         */
+        public String getSource()
+        {
+            return source;
+        }
+
+        /**
+         * Returns the number of evaluations.
+         *
+         * @return the number of evaluations
+         */
+        public synchronized long getInvocations()
+        {
+            return invocations;
+        }
+
+        /**
+         * Returns the number of evaluations answered from a cached value.
+         *
+         * @return the number of cache hits
+         */
+        public synchronized long getHits()
+        {
+            return hits;
+        }
+
+        /**
+         * Returns the total evaluation time.
+         *
+         * @return the total time, in nanoseconds
+         */
+        public synchronized long getTotalNanos()
+        {
+            return totalNanos;
+        }
+
+        /**
+         * Returns the longest evaluation time.
+         *
+         * @return the longest time, in nanoseconds
+         */
+        public synchronized long getMaxNanos()
+        {
+            return maxNanos;
+        }
+
+        /**
+         * Records an evaluation.
+         *
+         * @param nanos the evaluation time, in nanoseconds
+         */
+        synchronized void record(long nanos)
+        {
+            ++invocations;
+            totalNanos += nanos;
+            if (nanos > maxNanos)
+            {
+                maxNanos = nanos;
+            }
+        }
+
+        /**
+         * Records an evaluation answered from a cached value.
+         */
+        synchronized void hit()
+        {
+            ++invocations;
+            ++hits;
+        }
+
+        /**
+         * Returns a copy of these statistics.
+         *
+         * @return a copy
+         */
+        synchronized Statistics copy()
+        {
+            Statistics result = new Statistics(id, source);
+            result.invocations = invocations;
+            result.hits = hits;
+            result.totalNanos = totalNanos;
+            result.maxNanos = maxNanos;
+            return result;
+        }
+    }
+}
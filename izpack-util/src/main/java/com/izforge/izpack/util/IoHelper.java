@@ -23,7 +23,8 @@ import org.apache.commons.io.IOUtils;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.StringTokenizer;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
 import java.util.zip.ZipEntry;
 
 /**
@@ -83,51 +84,23 @@ public class IoHelper
 
     /**
      * Returns the free (disk) space for the given path. If it is not ascertainable -1 returns.
+     * <p/>
+     * The space is determined from the {@link FileStore} of the path, so no process needs to be started.
      *
      * @param path path for which the free space should be detected
      * @return the free space for the given path
      */
     public static long getFreeSpace(String path)
     {
-        long ret = -1;
-        if (OsVersion.IS_WINDOWS)
+        try
         {
-            String command = "cmd.exe";
-            if (System.getProperty("os.name").toLowerCase().contains("windows 9"))
-            {
-                return (-1);
-            }
-            String[] params = {command, "/C", "\"dir /D /-C \"" + path + "\"\""};
-            String[] output = new String[2];
-            FileExecutor fe = new FileExecutor();
-            fe.executeCommand(params, output);
-            ret = extractLong(output[0], -3);
+            File existing = existingParent(new File(path).getAbsoluteFile());
+            return Files.getFileStore(existing.toPath()).getUsableSpace();
         }
-        else if (OsVersion.IS_SUNOS)
+        catch (IOException exception)
         {
-            String[] params = {"df", "-k", path};
-            String[] output = new String[2];
-            FileExecutor fe = new FileExecutor();
-            fe.executeCommand(params, output);
-            ret = extractLong(output[0], -3) * 1024;
+            return -1;
         }
-        else if (OsVersion.IS_HPUX)
-        {
-            String[] params = {"bdf", path};
-            String[] output = new String[2];
-            FileExecutor fe = new FileExecutor();
-            fe.executeCommand(params, output);
-            ret = extractLong(output[0], -3) * 1024;
-        }
-        else if (OsVersion.IS_UNIX)
-        {
-            String[] params = {"df", "-Pk", path};
-            String[] output = new String[2];
-            FileExecutor fe = new FileExecutor();
-            fe.executeCommand(params, output);
-            ret = extractLong(output[0], -3) * 1024;
-        }
-        return ret;
     }
 
     /**
@@ -142,14 +115,7 @@ public class IoHelper
     {
         if ("getFreeSpace".equals(method))
         {
-            if (OsVersion.IS_UNIX)
-            {
-                return true;
-            }
-            if (OsVersion.IS_WINDOWS)
-            { // getFreeSpace do not work on Windows 98.
-                return !System.getProperty("os.name").toLowerCase().contains("windows 9");
-            }
+            return true;
         }
         else if ("chmod".equals(method))
         {
@@ -197,57 +163,6 @@ public class IoHelper
         return result;
     }
 
-    /**
-     * Extracts a long value from a string in a special manner. The string will be broken into
-     * tokens with a standard StringTokenizer. Around the assumed place (with the given half range)
-     * the tokens are scanned reverse for a token which represents a long. if useNotIdentifier is not
-     * null, tokens which are contains this string will be ignored. The first founded long returns.
-     *
-     * @param in               the string which should be parsed
-     * @param assumedPlace     token number which should contain the value
-     * @return founded long
-     */
-    private static long extractLong(String in, int assumedPlace)
-    {
-        long ret = -1;
-        StringTokenizer st = new StringTokenizer(in);
-        int length = st.countTokens();
-        int i;
-        int currentRange = 0;
-        String[] interestedEntries = new String[3 + 3];
-        for (i = 0; i < length - 3 + assumedPlace; ++i)
-        {
-            st.nextToken(); // Forget this entries.
-        }
-
-        for (i = 0; i < 3 + 3; ++i)
-        { // Put the interesting Strings into an intermediate array.
-            if (st.hasMoreTokens())
-            {
-                interestedEntries[i] = st.nextToken();
-                currentRange++;
-            }
-        }
-
-        for (i = currentRange - 1; i >= 0; --i)
-        {
-            if (interestedEntries[i].contains("%"))
-            {
-                continue;
-            }
-            try
-            {
-                ret = Long.parseLong(interestedEntries[i]);
-            }
-            catch (NumberFormatException nfe)
-            {
-                continue;
-            }
-            break;
-        }
-        return ret;
-    }
-
     /**
      * Returns a string resulting from replacing all occurrences of what in this string with with.
      * In opposite to the String.replaceAll method this method do not use regular expression or
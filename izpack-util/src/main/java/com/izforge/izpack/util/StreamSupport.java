@@ -25,6 +25,12 @@ import org.apache.commons.compress.compressors.CompressorStreamFactory;
 import org.apache.commons.compress.compressors.deflate.DeflateCompressorInputStream;
 import org.apache.commons.compress.compressors.deflate.DeflateCompressorOutputStream;
 import org.apache.commons.compress.compressors.deflate.DeflateParameters;
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorOutputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+import org.apache.commons.compress.compressors.snappy.FramedSnappyCompressorInputStream;
+import org.apache.commons.compress.compressors.snappy.FramedSnappyCompressorOutputStream;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -43,6 +49,12 @@ public final class StreamSupport
                 DeflateParameters deflateParameters = new DeflateParameters();
                 deflateParameters.setCompressionLevel(Deflater.BEST_COMPRESSION);
                 return new DeflateCompressorOutputStream(outputStream, deflateParameters);
+            case LZ4_FRAMED:
+                return new FramedLZ4CompressorOutputStream(outputStream);
+            case LZ4_BLOCK:
+                return new BlockLZ4CompressorOutputStream(outputStream);
+            case SNAPPY_FRAMED:
+                return new FramedSnappyCompressorOutputStream(outputStream);
             default:
                 try
                 {
@@ -65,6 +77,12 @@ public final class StreamSupport
                 DeflateParameters deflateParameters = new DeflateParameters();
                 deflateParameters.setCompressionLevel(Deflater.BEST_COMPRESSION);
                 return new DeflateCompressorInputStream(inputStream, deflateParameters);
+            case LZ4_FRAMED:
+                return new FramedLZ4CompressorInputStream(inputStream);
+            case LZ4_BLOCK:
+                return new BlockLZ4CompressorInputStream(inputStream);
+            case SNAPPY_FRAMED:
+                return new FramedSnappyCompressorInputStream(inputStream);
             default:
                 try
                 {
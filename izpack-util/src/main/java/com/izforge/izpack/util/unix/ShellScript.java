@@ -348,8 +348,7 @@ public class ShellScript
      */
     public String exec(String itsParams)
     {
-        FileExecutor.getExecOutput(new String[]{UnixHelper.getCustomCommand("chmod"), "+x",
-                itsLocation});
+        UnixHelper.chmod(new File(itsLocation), "+x");
 
         if (itsParams != null)
         {
@@ -21,7 +21,18 @@ package com.izforge.izpack.util.unix;
 import com.izforge.izpack.util.FileExecutor;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.UserPrincipal;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Helper Methods for unix-systems and derived.
@@ -34,11 +45,17 @@ public class UnixHelper
 
     // ~ Static fields/initializers *********************************************************
 
+    private static final Logger logger = Logger.getLogger(UnixHelper.class.getName());
+
+    /**
+     * The resolved commands, keyed on command name. Commands not found map to an empty string.
+     */
+    private static final Map<String, String> commands = new ConcurrentHashMap<String, String>();
+
     /**
      * whichCommand = "/usr/bin/which" or /bin/which
      */
-    public static String whichCommand = FileExecutor.getExecOutput(
-            new String[]{"/usr/bin/env", "which", "which"}, false).trim();
+    public static String whichCommand = getCustomCommand("which");
 
     public final static String VERSION = "$Revision$";
 
@@ -176,7 +193,7 @@ public class UnixHelper
      */
     public static String getCpCommand()
     {
-        return FileExecutor.getExecOutput(new String[]{getWhichCommand(), "cp"}).trim();
+        return getCustomCommand("cp");
     }
 
     /**
@@ -187,7 +204,7 @@ public class UnixHelper
      */
     public static String getSuCommand()
     {
-        return FileExecutor.getExecOutput(new String[]{getWhichCommand(), "su"}).trim();
+        return getCustomCommand("su");
     }
 
     /**
@@ -198,7 +215,7 @@ public class UnixHelper
      */
     public static String getRmCommand()
     {
-        return FileExecutor.getExecOutput(new String[]{whichCommand, "rm"}).trim();
+        return getCustomCommand("rm");
     }
 
     /**
@@ -209,20 +226,212 @@ public class UnixHelper
      */
     public static String getYpCatCommand()
     {
-        return FileExecutor.getExecOutput(new String[]{whichCommand, "ypcat"}).trim();
+        return getCustomCommand("ypcat");
     }
 
     /**
      * Gets the absolute Pathe to the given custom command. This is necessary, because the command
-     * may be located at /bin on linux but in /usr/bin on Sun Solaris. Which can locate it in your
-     * $PATH for you.
+     * may be located at /bin on linux but in /usr/bin on Sun Solaris.
+     * <p/>
+     * The $PATH is searched the way <code>which</code> does, but without starting a process. The result is
+     * cached, as the $PATH doesn't change while the installer runs.
      *
      * @param aCommand a Custom Command
-     * @return /bin/aCommand on linux /usr/bin/aCommand on solaris
+     * @return /bin/aCommand on linux /usr/bin/aCommand on solaris, or an empty string if it cannot be found
      */
     public static String getCustomCommand(String aCommand)
     {
-        return FileExecutor.getExecOutput(new String[]{whichCommand, aCommand}).trim();
+        String result = commands.get(aCommand);
+        if (result == null)
+        {
+            result = findCommand(aCommand, System.getenv("PATH"));
+            commands.put(aCommand, result);
+        }
+        return result;
+    }
+
+    /**
+     * Searches a path for an executable.
+     *
+     * @param command the command. If it contains a '/', it is not searched for
+     * @param path    the directories to search, separated by the path separator. May be <tt>null</tt>
+     * @return the path of the executable, or an empty string if it cannot be found
+     */
+    static String findCommand(String command, String path)
+    {
+        if (command.indexOf('/') != -1)
+        {
+            return isExecutable(new File(command)) ? command : "";
+        }
+        if (path != null)
+        {
+            for (String dir : path.split(File.pathSeparator, -1))
+            {
+                // an empty element denotes the current directory
+                File file = new File(dir.length() == 0 ? "." : dir, command);
+                if (isExecutable(file))
+                {
+                    return file.getPath();
+                }
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Changes the permissions of a file, like <code>chmod</code> with a symbolic mode.
+     * <p/>
+     * Modes are of the form <em>[ugoa]*[+-=][rwx]*</em>, separated by commas. The permissions are changed
+     * in-process. <code>chmod</code> is only run if the mode or the file system is not supported.
+     *
+     * @param file the file
+     * @param mode the symbolic mode, e.g. <tt>u+x</tt>
+     */
+    public static void chmod(File file, String mode)
+    {
+        PosixFileAttributeView view = Files.getFileAttributeView(file.toPath(), PosixFileAttributeView.class);
+        if (view != null)
+        {
+            try
+            {
+                Set<PosixFilePermission> permissions = applyMode(view.readAttributes().permissions(), mode);
+                if (permissions != null)
+                {
+                    view.setPermissions(permissions);
+                    return;
+                }
+            }
+            catch (IOException exception)
+            {
+                logger.log(Level.FINE, "Failed to change permissions of " + file + ": " + exception.getMessage(),
+                           exception);
+            }
+        }
+        FileExecutor.getExecOutput(new String[]{getCustomCommand("chmod"), mode, file.getPath()});
+    }
+
+    /**
+     * Changes the owner of a file, like <code>chown</code>.
+     * <p/>
+     * The owner is changed in-process. <code>chown</code> is only run if that isn't supported.
+     *
+     * @param file the file
+     * @param user the name of the new owner
+     */
+    public static void chown(File file, String user)
+    {
+        Path path = file.toPath();
+        try
+        {
+            UserPrincipal owner = path.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(user);
+            Files.setOwner(path, owner);
+            return;
+        }
+        catch (IOException exception)
+        {
+            logger.log(Level.FINE, "Failed to change owner of " + file + ": " + exception.getMessage(), exception);
+        }
+        catch (UnsupportedOperationException exception)
+        {
+            logger.log(Level.FINE, "Cannot change owner of " + file + ": " + exception.getMessage(), exception);
+        }
+        FileExecutor.getExecOutput(new String[]{getCustomCommand("chown"), user, file.getPath()});
+    }
+
+    /**
+     * Applies a symbolic mode to a set of permissions.
+     *
+     * @param permissions the permissions
+     * @param mode        the symbolic mode
+     * @return the new permissions, or <tt>null</tt> if the mode is not supported
+     */
+    static Set<PosixFilePermission> applyMode(Set<PosixFilePermission> permissions, String mode)
+    {
+        Set<PosixFilePermission> result = permissions.isEmpty()
+                ? EnumSet.noneOf(PosixFilePermission.class) : EnumSet.copyOf(permissions);
+        for (String clause : mode.split(","))
+        {
+            int index = 0;
+            boolean user = false;
+            boolean group = false;
+            boolean others = false;
+            while (index < clause.length() && "ugoa".indexOf(clause.charAt(index)) != -1)
+            {
+                char who = clause.charAt(index++);
+                user |= who == 'u' || who == 'a';
+                group |= who == 'g' || who == 'a';
+                others |= who == 'o' || who == 'a';
+            }
+            if (!user && !group && !others)
+            {
+                user = group = others = true;
+            }
+            if (index >= clause.length() || "+-=".indexOf(clause.charAt(index)) == -1)
+            {
+                return null;
+            }
+            char op = clause.charAt(index++);
+            Set<PosixFilePermission> selected = EnumSet.noneOf(PosixFilePermission.class);
+            for (; index < clause.length(); ++index)
+            {
+                char perm = clause.charAt(index);
+                int bit = "rwx".indexOf(perm);
+                if (bit == -1)
+                {
+                    return null;
+                }
+                if (user)
+                {
+                    selected.add(PosixFilePermission.values()[bit]);
+                }
+                if (group)
+                {
+                    selected.add(PosixFilePermission.values()[3 + bit]);
+                }
+                if (others)
+                {
+                    selected.add(PosixFilePermission.values()[6 + bit]);
+                }
+            }
+            if (op == '=')
+            {
+                for (int bit = 0; bit < 3; ++bit)
+                {
+                    if (user)
+                    {
+                        result.remove(PosixFilePermission.values()[bit]);
+                    }
+                    if (group)
+                    {
+                        result.remove(PosixFilePermission.values()[3 + bit]);
+                    }
+                    if (others)
+                    {
+                        result.remove(PosixFilePermission.values()[6 + bit]);
+                    }
+                }
+            }
+            if (op == '-')
+            {
+                result.removeAll(selected);
+            }
+            else
+            {
+                result.addAll(selected);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Determines if a file is an executable regular file.
+     *
+     * @param file the file
+     * @return <tt>true</tt> if the file can be executed
+     */
+    private static boolean isExecutable(File file)
+    {
+        return file.isFile() && file.canExecute();
     }
 
     /**
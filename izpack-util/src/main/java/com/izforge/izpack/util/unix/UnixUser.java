@@ -25,8 +25,11 @@ import com.izforge.izpack.util.FileExecutor;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 import java.util.StringTokenizer;
 
+import org.apache.commons.io.FileUtils;
+
 
 /**
  * This represents a Unix User. If initialized via fromEtcPasswdLine(),  the users
@@ -74,12 +77,10 @@ public class UnixUser
     private String itsShell;
 
     /**
-     * internal name
+     * The XDG Desktop folder, determined on first use.
      */
-    private static String XDGDesktopFolderNameScriptFilename;
-
+    private String itsXdgDesktopFolder;
 
-    private static File XDGDesktopFolderNameScript;
     //~ Methods ****************************************************************************
 
     /**
@@ -245,31 +246,80 @@ public class UnixUser
 
     /**
      * Gets the Name of the XDG-Desktop Folder if defined in the $HOME/.config/user-dirs.dirs File as absolute File/Pathname
+     * <p/>
+     * The file is parsed rather than sourced by a shell, so no process is started unless the folder is defined
+     * with shell constructs other than $HOME. The result is cached.
      *
      * @return The absolute File/Pathname of the Desktop foldername.
      */
     public String getXdgDesktopfolder()
     {
-        File configFile = new File(getHome() + File.separator + ".config" + File.separator + "user-dirs.dirs");
-        if (configFile.exists())
+        if (itsXdgDesktopFolder == null)
         {
-            if (XDGDesktopFolderNameScript == null)
-            /** TODO: can be optimized with a shared script **/
+            File configFile = new File(getHome() + File.separator + ".config" + File.separator + "user-dirs.dirs");
+            String folder = null;
+            if (configFile.exists())
             {
-                XDGDesktopFolderNameScriptFilename = getCreatedXDGDesktopFolderNameScriptFilename();
+                folder = readXdgDesktopFolder(configFile);
             }
+            itsXdgDesktopFolder = (folder != null) ? folder : getHome() + File.separator + "Desktop";
+        }
+        return itsXdgDesktopFolder;
+    }
 
-            FileExecutor.getExecOutput(new String[]{UnixHelper.getCustomCommand("chmod"), "+x", XDGDesktopFolderNameScriptFilename}, true);
-            String xdgDesktopfolder = FileExecutor.getExecOutput(new String[]{XDGDesktopFolderNameScriptFilename}, true).trim();
-            new File(XDGDesktopFolderNameScriptFilename).delete();
-
-            return xdgDesktopfolder;
-
+    /**
+     * Reads the XDG_DESKTOP_DIR from a user-dirs.dirs file.
+     * <p/>
+     * Values are of the form <em>"$HOME/yyy"</em> or <em>"/yyy/zzz"</em>. Anything else is evaluated by the shell.
+     *
+     * @param configFile the user-dirs.dirs file
+     * @return the Desktop folder, or <tt>null</tt> if it isn't defined
+     */
+    private String readXdgDesktopFolder(File configFile)
+    {
+        List<String> lines;
+        try
+        {
+            lines = FileUtils.readLines(configFile);
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+        String value = null;
+        for (String line : lines)
+        {
+            line = line.trim();
+            if (line.startsWith("XDG_DESKTOP_DIR="))
+            {
+                // the last definition wins, as when sourced
+                value = line.substring("XDG_DESKTOP_DIR=".length());
+            }
+        }
+        if (value == null)
+        {
+            return null;
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\""))
+        {
+            value = value.substring(1, value.length() - 1);
+        }
+        if (value.startsWith("$HOME"))
+        {
+            value = getHome() + value.substring("$HOME".length());
+        }
+        else if (value.startsWith("${HOME}"))
+        {
+            value = getHome() + value.substring("${HOME}".length());
         }
-        else
+        if (value.indexOf('$') != -1 || value.indexOf('`') != -1 || value.indexOf('\\') != -1
+                || value.indexOf('"') != -1)
         {
-            return getHome() + File.separator + "Desktop";
+            String scriptFilename = getCreatedXDGDesktopFolderNameScriptFilename();
+            value = FileExecutor.getExecOutput(new String[]{"/bin/sh", scriptFilename}, true).trim();
+            new File(scriptFilename).delete();
         }
+        return value.length() > 0 ? value : null;
     }
 
     /**
@@ -41,6 +41,11 @@ public class UnixUsers extends ArrayList<UnixUser>
      */
     private static final long serialVersionUID = -4804842346742194981L;
 
+    /**
+     * The users, read once and shared. See {@link #getSnapshot()}.
+     */
+    private static UnixUsers snapshot;
+
     // ~ Constructors ***********************************************************************
 
     /**
@@ -157,9 +162,32 @@ public class UnixUsers extends ArrayList<UnixUser>
      */
     public static ArrayList<UnixUser> getUsersWithValidShellsExistingHomesAndDesktops()
     {
-        UnixUsers users = new UnixUsers();
+        return getSnapshot()._getUsersWithValidShellsExistingHomesAndDesktops();
+    }
+
+    /**
+     * Returns the users read from /etc/passwd and NIS.
+     * <p/>
+     * The users are only read on first use, so that /etc/passwd is parsed and ypcat is run at most once however
+     * many times users are queried. The snapshot should not be modified.
+     *
+     * @return the users
+     */
+    public static synchronized UnixUsers getSnapshot()
+    {
+        if (snapshot == null)
+        {
+            snapshot = new UnixUsers();
+        }
+        return snapshot;
+    }
 
-        return users._getUsersWithValidShellsExistingHomesAndDesktops();
+    /**
+     * Discards the snapshot, so that the users are read again by the next call to {@link #getSnapshot()}.
+     */
+    public static synchronized void refresh()
+    {
+        snapshot = null;
     }
 
     /**
@@ -191,6 +191,9 @@ public class FullMergeAction extends AbstractMergeAction
 
     /**
      * Adds attributes from in element to out element.
+     * <p/>
+     * The attributes of the in element are copied rather than moved, so that the source documents are not modified
+     * by the merge.
      *
      * @param out out element
      * @param in in element
@@ -212,7 +215,7 @@ public class FullMergeAction extends AbstractMergeAction
 
         for (Attribute attr : inAttributes)
         {
-            attr.detach();
+            attr = attr.clone();
             allAttributes.put(attr.getQualifiedName(), attr);
             logger.fine("adding attr from in:" + attr);
         }
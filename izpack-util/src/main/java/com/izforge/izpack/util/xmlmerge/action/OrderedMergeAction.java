@@ -237,6 +237,9 @@ public class OrderedMergeAction extends AbstractMergeAction
 
     /**
      * Adds attributes from in element to out element.
+     * <p/>
+     * The attributes of the in element are copied rather than moved, so that the source documents are not modified
+     * by the merge.
      *
      * @param out out element
      * @param in in element
@@ -258,7 +261,7 @@ public class OrderedMergeAction extends AbstractMergeAction
 
         for (Attribute attr : inAttributes)
         {
-            attr.detach();
+            attr = attr.clone();
             allAttributes.put(attr.getQualifiedName(), attr);
             logger.fine("adding attr from in:" + attr);
         }
@@ -0,0 +1,139 @@
+/*
+ * IzPack - Copyright 2001-2010 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.xmlmerge.factory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jdom2.filter.Filter;
+import org.jdom2.xpath.XPathExpression;
+import org.jdom2.xpath.XPathFactory;
+
+/**
+ * A bounded cache of compiled XPath expressions, keyed on the expression string and the result filter.
+ * <p/>
+ * Compiled JDOM expressions are not thread-safe, so each thread has its own cache. Within a thread, the same
+ * instance is shared between merges.
+ */
+public final class XPathExpressionCache
+{
+
+    /**
+     * The maximum number of compiled expressions held.
+     */
+    private static final int MAX_SIZE = 256;
+
+    /**
+     * The compiled expressions of each thread, in least recently used order.
+     */
+    private static final ThreadLocal<Map<Key, XPathExpression<?>>> expressions
+            = new ThreadLocal<Map<Key, XPathExpression<?>>>()
+    {
+        @Override
+        protected Map<Key, XPathExpression<?>> initialValue()
+        {
+            return new LinkedHashMap<Key, XPathExpression<?>>(16, 0.75f, true)
+            {
+                private static final long serialVersionUID = 6452891357301563178L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, XPathExpression<?>> eldest)
+                {
+                    return size() > MAX_SIZE;
+                }
+            };
+        }
+    };
+
+    /**
+     * Private constructor - only static methods.
+     */
+    private XPathExpressionCache()
+    {
+    }
+
+    /**
+     * Returns the compiled expression for the given XPath and filter, compiling it if it isn't cached yet by the
+     * current thread.
+     *
+     * @param xPath  the XPath expression
+     * @param filter the filter to apply to the results
+     * @return the compiled expression
+     * @throws IllegalArgumentException if the expression cannot be compiled
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> XPathExpression<T> compile(String xPath, Filter<T> filter)
+    {
+        Map<Key, XPathExpression<?>> cache = expressions.get();
+        Key key = new Key(xPath, filter);
+        XPathExpression<T> result = (XPathExpression<T>) cache.get(key);
+        if (result == null)
+        {
+            result = XPathFactory.instance().compile(xPath, filter);
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Removes the expressions cached by the current thread.
+     */
+    public static void clear()
+    {
+        expressions.remove();
+    }
+
+    /**
+     * Cache key.
+     */
+    private static final class Key
+    {
+        private final String xPath;
+
+        private final Filter<?> filter;
+
+        Key(String xPath, Filter<?> filter)
+        {
+            this.xPath = xPath;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (!(obj instanceof Key))
+            {
+                return false;
+            }
+            Key other = (Key) obj;
+            return xPath.equals(other.xPath) && filter.equals(other.filter);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * xPath.hashCode() + filter.hashCode();
+        }
+    }
+}
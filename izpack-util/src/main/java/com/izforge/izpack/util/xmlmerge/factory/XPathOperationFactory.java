@@ -22,13 +22,17 @@
 
 package com.izforge.izpack.util.xmlmerge.factory;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 
+import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 
 import com.izforge.izpack.util.xmlmerge.AbstractXmlMergeException;
 import com.izforge.izpack.util.xmlmerge.ConfigurationException;
@@ -56,6 +60,31 @@ public class XPathOperationFactory implements OperationFactory
      */
     Operation m_defaultOperation;
 
+    /**
+     * The maximum number of documents for which matching elements are held.
+     */
+    private static final int MAX_DOCUMENTS = 4;
+
+    /**
+     * The elements matching absolute XPath expressions, keyed on the root element of the document they were
+     * evaluated against. Keyed on the root element rather than the document, as a merge replaces the root
+     * element of the original document after each patch.
+     * <p/>
+     * The matches remain valid as the merge actions copy content from the source documents rather than modifying
+     * them.
+     */
+    private final Map<Element, Map<XPathExpression<Element>, Set<Element>>> m_matches
+            = new LinkedHashMap<Element, Map<XPathExpression<Element>, Set<Element>>>(MAX_DOCUMENTS, 0.75f, true)
+    {
+        private static final long serialVersionUID = -1672528843226421349L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Element, Map<XPathExpression<Element>, Set<Element>>> eldest)
+        {
+            return size() > MAX_DOCUMENTS;
+        }
+    };
+
     /**
      * Sets the factory's map containing configuration properties.
      *
@@ -85,7 +114,7 @@ public class XPathOperationFactory implements OperationFactory
             XPathExpression<Element> compiledExpression;
             try
             {
-                compiledExpression = XPathFactory.instance().compile(xPath, Filters.element());
+                compiledExpression = XPathExpressionCache.compile(xPath, Filters.element());
             }
             catch (IllegalArgumentException e)
             {
@@ -101,9 +130,12 @@ public class XPathOperationFactory implements OperationFactory
 
     /**
      * Detects whether the given element matches the given XPath string.
+     * <p/>
+     * Absolute expressions select the same elements whatever the context, so they are evaluated once per document
+     * and the element is then looked up in the result.
      *
      * @param element The element which will be checked
-     * @param xPathString The XPath expression the element will be checked against
+     * @param compiledExpression The XPath expression the element will be checked against
      * @return True if the given element matches the given XPath string
      * @throws AbstractXmlMergeException If an error occurred during the matching process
      */
@@ -113,6 +145,11 @@ public class XPathOperationFactory implements OperationFactory
         try
         {
             if (element == null) { return false; }
+            Document document = element.getDocument();
+            if (document != null && isAbsolute(compiledExpression.getExpression()))
+            {
+                return getMatches(document, compiledExpression).contains(element);
+            }
             return compiledExpression.evaluate(element).contains(element);
         }
         catch (IllegalStateException e)
@@ -121,4 +158,47 @@ public class XPathOperationFactory implements OperationFactory
         }
     }
 
+    /**
+     * Returns the elements of a document matching an absolute XPath expression.
+     *
+     * @param document the document
+     * @param compiledExpression the absolute XPath expression
+     * @return the matching elements
+     */
+    private Set<Element> getMatches(Document document, XPathExpression<Element> compiledExpression)
+    {
+        synchronized (m_matches)
+        {
+            Element root = document.getRootElement();
+            Map<XPathExpression<Element>, Set<Element>> matches = m_matches.get(root);
+            if (matches == null)
+            {
+                matches = new HashMap<XPathExpression<Element>, Set<Element>>();
+                m_matches.put(root, matches);
+            }
+            Set<Element> result = matches.get(compiledExpression);
+            if (result == null)
+            {
+                result = Collections.newSetFromMap(new IdentityHashMap<Element, Boolean>());
+                result.addAll(compiledExpression.evaluate(document));
+                matches.put(compiledExpression, result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Determines if an XPath expression is absolute, i.e. selects the same nodes regardless of the context node.
+     * <p/>
+     * Unions are conservatively treated as relative.
+     *
+     * @param xPath the XPath expression
+     * @return {@code true} if the expression is absolute
+     */
+    private static boolean isAbsolute(String xPath)
+    {
+        String expression = xPath.trim();
+        return expression.startsWith("/") && expression.indexOf('|') == -1;
+    }
+
 }
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2016 Julien Ponge, René Krell and the IzPack team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Tests the {@link AsyncFileHandler} class.
+ */
+public class AsyncFileHandlerTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Restores the default logging configuration.
+     *
+     * @throws Exception for any error
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        LogManager.getLogManager().readConfiguration();
+    }
+
+    /**
+     * Verifies that all records are written once the handler is closed.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testWrite() throws Exception
+    {
+        File log = configure(8192);
+        AsyncFileHandler handler = new AsyncFileHandler();
+        for (int i = 0; i < 1000; ++i)
+        {
+            handler.publish(new LogRecord(Level.FINE, "record " + i));
+        }
+        handler.close();
+
+        List<String> lines = FileUtils.readLines(log, "UTF-8");
+        assertEquals(1000, lines.size());
+        assertEquals("record 0", lines.get(0));
+        assertEquals("record 999", lines.get(999));
+    }
+
+    /**
+     * Verifies that warnings aren't dropped when the queue is full.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testWarningsNotDropped() throws Exception
+    {
+        File log = configure(1);
+        AsyncFileHandler handler = new AsyncFileHandler();
+        for (int i = 0; i < 100; ++i)
+        {
+            handler.publish(new LogRecord(Level.WARNING, "warning " + i));
+        }
+        handler.close();
+
+        assertEquals(100, FileUtils.readLines(log, "UTF-8").size());
+    }
+
+    /**
+     * Verifies that threads waiting to queue warnings don't block forever if the handler is closed.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testWarningsNotBlockedByClose() throws Exception
+    {
+        configure(1, BlockingFormatter.class);
+        final AsyncFileHandler handler = new AsyncFileHandler();
+
+        // stall the writer thread, and fill the queue
+        handler.publish(new LogRecord(Level.WARNING, BlockingFormatter.BLOCK));
+        BlockingFormatter.formatting.await();
+        handler.publish(new LogRecord(Level.WARNING, "warning 1"));
+
+        // two threads wait for space. Closing the handler frees space for only one of them
+        Thread publisher1 = publish(handler, "warning 2");
+        Thread publisher2 = publish(handler, "warning 3");
+
+        Thread closer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                handler.close();
+            }
+        });
+        closer.start();
+        waitUntilBlocked(closer);
+        BlockingFormatter.release.countDown();
+
+        closer.join(10000);
+        publisher1.join(10000);
+        publisher2.join(10000);
+        assertFalse(closer.isAlive());
+        assertFalse(publisher1.isAlive());
+        assertFalse(publisher2.isAlive());
+    }
+
+    /**
+     * Publishes a warning on a new thread, returning once the thread is waiting for queue space.
+     *
+     * @param handler the handler
+     * @param message the message
+     * @return the thread
+     * @throws Exception for any error
+     */
+    private Thread publish(final AsyncFileHandler handler, final String message) throws Exception
+    {
+        Thread thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                handler.publish(new LogRecord(Level.WARNING, message));
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        waitUntilBlocked(thread);
+        return thread;
+    }
+
+    /**
+     * Waits until a thread is blocked.
+     *
+     * @param thread the thread
+     * @throws Exception for any error
+     */
+    private void waitUntilBlocked(Thread thread) throws Exception
+    {
+        Thread.State state = thread.getState();
+        while (state != Thread.State.WAITING && state != Thread.State.TIMED_WAITING)
+        {
+            Thread.sleep(10);
+            state = thread.getState();
+        }
+    }
+
+    /**
+     * Configures the handler.
+     *
+     * @param capacity the queue capacity
+     * @return the log file
+     * @throws Exception for any error
+     */
+    private File configure(int capacity) throws Exception
+    {
+        return configure(capacity, TestFormatter.class);
+    }
+
+    /**
+     * Configures the handler.
+     *
+     * @param capacity  the queue capacity
+     * @param formatter the formatter class
+     * @return the log file
+     * @throws Exception for any error
+     */
+    private File configure(int capacity, Class<? extends java.util.logging.Formatter> formatter) throws Exception
+    {
+        File log = new File(temporaryFolder.getRoot(), "install.log");
+        String name = AsyncFileHandler.class.getName();
+        Properties properties = new Properties();
+        properties.setProperty(name + ".pattern", log.getPath());
+        properties.setProperty(name + ".formatter", formatter.getName());
+        properties.setProperty(name + ".encoding", "UTF-8");
+        properties.setProperty(name + ".capacity", Integer.toString(capacity));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        properties.store(out, null);
+        LogManager.getLogManager().readConfiguration(new ByteArrayInputStream(out.toByteArray()));
+        return log;
+    }
+
+    /**
+     * Formats records as their message.
+     */
+    public static class TestFormatter extends java.util.logging.Formatter
+    {
+        @Override
+        public String format(LogRecord record)
+        {
+            return record.getMessage() + "\n";
+        }
+    }
+
+    /**
+     * Blocks formatting of the {@link #BLOCK} message until released.
+     */
+    public static class BlockingFormatter extends TestFormatter
+    {
+        static final String BLOCK = "block";
+
+        static final CountDownLatch formatting = new CountDownLatch(1);
+
+        static final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String format(LogRecord record)
+        {
+            if (BLOCK.equals(record.getMessage()))
+            {
+                formatting.countDown();
+                boolean interrupted = false;
+                while (release.getCount() > 0)
+                {
+                    try
+                    {
+                        release.await();
+                    }
+                    catch (InterruptedException exception)
+                    {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.format(record);
+        }
+    }
+}
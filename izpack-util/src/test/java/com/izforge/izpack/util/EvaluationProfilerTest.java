@@ -0,0 +1,129 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.izforge.izpack.util.EvaluationProfiler.Statistics;
+
+
+/**
+ * Tests the {@link EvaluationProfiler} class.
+ */
+public class EvaluationProfilerTest
+{
+
+    /**
+     * Cleans up after each test.
+     */
+    @After
+    public void tearDown()
+    {
+        Debug.setPROFILE(null);
+        EvaluationProfiler.CONDITIONS.clear();
+        EvaluationProfiler.VARIABLES.clear();
+    }
+
+    /**
+     * Verifies that evaluations are aggregated by id and source, and returned slowest first.
+     */
+    @Test
+    public void testRecord()
+    {
+        EvaluationProfiler profiler = new EvaluationProfiler("test");
+        profiler.record("a", "ExecValue", 10);
+        profiler.record("a", "ExecValue", 30);
+        profiler.hit("a", "ExecValue");
+        profiler.record("a", "PlainValue", 5);
+        profiler.record("b", null, 100);
+
+        List<Statistics> statistics = profiler.getStatistics();
+        assertEquals(3, statistics.size());
+        check(statistics.get(0), "b", null, 1, 0, 100, 100);
+        check(statistics.get(1), "a", "ExecValue", 3, 1, 40, 30);
+        check(statistics.get(2), "a", "PlainValue", 1, 0, 5, 5);
+        assertEquals(145, profiler.getTotalNanos());
+
+        profiler.clear();
+        assertTrue(profiler.getStatistics().isEmpty());
+    }
+
+    /**
+     * Verifies that profiling is enabled by the profile and trace flags, and can be suspended per thread.
+     */
+    @Test
+    public void testEnabled()
+    {
+        assertFalse(EvaluationProfiler.isEnabled());
+        Debug.setPROFILE("profile.json");
+        assertTrue(EvaluationProfiler.isEnabled());
+
+        EvaluationProfiler.suspend();
+        assertFalse(EvaluationProfiler.isEnabled());
+        EvaluationProfiler.resume();
+        assertTrue(EvaluationProfiler.isEnabled());
+    }
+
+    /**
+     * Verifies that the profiles are written as JSON.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testWrite() throws Exception
+    {
+        EvaluationProfiler.CONDITIONS.record("izpack.windowsinstall", "JavaCondition", 2000);
+        EvaluationProfiler.CONDITIONS.record("a\"b", null, 1000);
+
+        StringWriter writer = new StringWriter();
+        EvaluationProfiler.write(writer);
+        assertEquals("{\n"
+                             + "  \"conditions\": [\n"
+                             + "    {\"id\": \"izpack.windowsinstall\", \"source\": \"JavaCondition\", "
+                             + "\"invocations\": 1, \"cacheHits\": 0, \"totalNanos\": 2000, \"maxNanos\": 2000},\n"
+                             + "    {\"id\": \"a\\\"b\", \"source\": null, "
+                             + "\"invocations\": 1, \"cacheHits\": 0, \"totalNanos\": 1000, \"maxNanos\": 1000}\n"
+                             + "  ],\n"
+                             + "  \"variables\": []\n"
+                             + "}\n", writer.toString());
+    }
+
+    /**
+     * Verifies statistics match those expected.
+     */
+    private void check(Statistics statistics, String id, String source, long invocations, long hits,
+                       long totalNanos, long maxNanos)
+    {
+        assertEquals(id, statistics.getId());
+        assertEquals(source, statistics.getSource());
+        assertEquals(invocations, statistics.getInvocations());
+        assertEquals(hits, statistics.getHits());
+        assertEquals(totalNanos, statistics.getTotalNanos());
+        assertEquals(maxNanos, statistics.getMaxNanos());
+    }
+}
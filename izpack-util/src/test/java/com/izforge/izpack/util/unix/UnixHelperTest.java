@@ -0,0 +1,118 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.unix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Tests the {@link UnixHelper} class.
+ */
+public class UnixHelperTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that commands are located on the path the way <em>which</em> does.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testFindCommand() throws Exception
+    {
+        File dir1 = temporaryFolder.newFolder("dir1");
+        File dir2 = temporaryFolder.newFolder("dir2");
+        File plain = new File(dir1, "cmd");
+        assumeTrue(plain.createNewFile());
+        File executable = new File(dir2, "cmd");
+        assumeTrue(executable.createNewFile() && executable.setExecutable(true));
+
+        String path = dir1.getPath() + File.pathSeparator + dir2.getPath();
+
+        // non-executable files are skipped
+        assertEquals(executable.getPath(), UnixHelper.findCommand("cmd", path));
+        assertEquals("", UnixHelper.findCommand("other", path));
+        assertEquals("", UnixHelper.findCommand("cmd", null));
+        assertEquals(executable.getPath(), UnixHelper.findCommand(executable.getPath(), null));
+        assertEquals("", UnixHelper.findCommand(plain.getPath(), path));
+    }
+
+    /**
+     * Verifies that symbolic modes are applied like <em>chmod</em>.
+     */
+    @Test
+    public void testApplyMode()
+    {
+        Set<PosixFilePermission> rw = PosixFilePermissions.fromString("rw-r-----");
+        checkMode("rwxr-----", rw, "u+x");
+        checkMode("rwxr-x--x", rw, "+x");
+        checkMode("rwxrwxrwx", rw, "uga+rwx");
+        checkMode("r--r-----", rw, "u-w");
+        checkMode("rw-r--r--", rw, "go=r");
+        checkMode("rwxr-x---", rw, "u+x,g+x");
+        assertNull(UnixHelper.applyMode(rw, "755"));
+        assertNull(UnixHelper.applyMode(rw, "u+s"));
+    }
+
+    /**
+     * Verifies that {@link UnixHelper#chmod(File, String)} changes permissions.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testChmod() throws Exception
+    {
+        File file = temporaryFolder.newFile("script.sh");
+        assumeTrue(Files.getFileAttributeView(file.toPath(), PosixFileAttributeView.class) != null);
+        Files.setPosixFilePermissions(file.toPath(), PosixFilePermissions.fromString("rw-------"));
+        UnixHelper.chmod(file, "u+x");
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file.toPath())));
+    }
+
+    /**
+     * Verifies that a mode produces the expected permissions.
+     *
+     * @param expected    the expected permissions
+     * @param permissions the initial permissions
+     * @param mode        the symbolic mode
+     */
+    private void checkMode(String expected, Set<PosixFilePermission> permissions, String mode)
+    {
+        assertEquals(expected, PosixFilePermissions.toString(UnixHelper.applyMode(permissions, mode)));
+    }
+}
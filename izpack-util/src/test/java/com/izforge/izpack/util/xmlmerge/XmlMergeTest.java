@@ -8,12 +8,17 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
+import org.jdom2.Element;
+import org.jdom2.filter.Filters;
+import org.jdom2.xpath.XPathExpression;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -23,6 +28,7 @@ import org.xml.sax.SAXException;
 
 import com.izforge.izpack.util.xmlmerge.config.ConfigurableXmlMerge;
 import com.izforge.izpack.util.xmlmerge.config.PropertyXPathConfigurer;
+import com.izforge.izpack.util.xmlmerge.factory.XPathExpressionCache;
 
 
 public class XmlMergeTest
@@ -157,4 +163,85 @@ public class XmlMergeTest
         assertTrue("Result document does not match expected result", resultDocument.isEqualNode(expectedDocument));
     }
 
+
+    /**
+     * Verifies that compiled XPath expressions are shared within a thread, but not between threads.
+     */
+    @Test
+    public void testCompiledExpressionsAreCached() throws Exception
+    {
+        final XPathExpression<Element> expression = XPathExpressionCache.compile("/el1/el2", Filters.element());
+        assertSame(expression, XPathExpressionCache.compile("/el1/el2", Filters.element()));
+        assertNotSame(expression, XPathExpressionCache.compile("/el1/el3", Filters.element()));
+
+        final List<XPathExpression<Element>> other = new ArrayList<XPathExpression<Element>>();
+        Thread thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                other.add(XPathExpressionCache.compile("/el1/el2", Filters.element()));
+                XPathExpressionCache.clear();
+            }
+        });
+        thread.start();
+        thread.join();
+        assertEquals(1, other.size());
+        assertNotSame(expression, other.get(0));
+        XPathExpressionCache.clear();
+    }
+
+    /**
+     * Verifies that merging doesn't modify the source documents, so that an absolute XPath expression with a
+     * predicate on an ancestor matches while the children of the ancestor are merged.
+     */
+    @Test
+    public void testAncestorAttributeXPath() throws AbstractXmlMergeException
+    {
+        final String s1 = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+                "<el1 id=\"x\"><el2 NAME=\"a\" attr=\"original\"/><el3/></el1>";
+        final String s2 = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+                "<el1 id=\"x\"><el2 NAME=\"a\" attr=\"patch\"/><el3/></el1>";
+
+        for (String xPath : new String[]{"/el1[@id='x']/el2", "self::el2[../@id='x']"})
+        {
+            Properties confProps = new Properties();
+            confProps.setProperty("action.default", "FULLMERGE");
+            confProps.setProperty("xpath.path1", xPath);
+            confProps.setProperty("matcher.path1", "NAME_ATTRIBUTE");
+            confProps.setProperty("action.path1", "PRESERVE");
+
+            String result = new ConfigurableXmlMerge(new PropertyXPathConfigurer(confProps)).merge(
+                    new String[]{s1, s2});
+            assertTrue(xPath, result.contains("attr=\"original\""));
+            assertFalse(xPath, result.contains("attr=\"patch\""));
+            assertTrue(xPath, result.contains("id=\"x\""));
+        }
+    }
+
+    /**
+     * Verifies that absolute and relative XPath expressions select the same elements.
+     */
+    @Test
+    public void testAbsoluteAndRelativeXPath() throws AbstractXmlMergeException
+    {
+        final String s1 = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+                "<el1><el2 NAME=\"a\" attr=\"original\"/><el3/></el1>";
+        final String s2 = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+                "<el1><el2 NAME=\"a\" attr=\"patch\"/><el3/></el1>";
+
+        for (String xPath : new String[]{"/el1/el2", "self::el2"})
+        {
+            Properties confProps = new Properties();
+            confProps.setProperty("action.default", "FULLMERGE");
+            confProps.setProperty("xpath.path1", xPath);
+            confProps.setProperty("matcher.path1", "NAME_ATTRIBUTE");
+            confProps.setProperty("action.path1", "PRESERVE");
+
+            String result = new ConfigurableXmlMerge(new PropertyXPathConfigurer(confProps)).merge(
+                    new String[]{s1, s2});
+            assertTrue(xPath, result.contains("attr=\"original\""));
+            assertFalse(xPath, result.contains("attr=\"patch\""));
+        }
+    }
 }